@@ -0,0 +1,115 @@
+package com.example.benchmark;
+
+import com.example.entity.MedicalLiterature;
+import com.example.service.LiteratureClassifierService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文献分类：改写前逐关键词匹配的 LiteratureClassifierService 与 Aho–Corasick 实现对比
+ *
+ * 文献为随机拼接的中英文混合文本（标题、约200词的摘要、关键词、期刊），
+ * 其中约15%的词取自分类关键词，并混入大小写变化和无分隔的拼接，覆盖完整词/非完整词两种情况。
+ * 两种实现分类结果的一致性由 LiteratureClassifierEquivalenceTest 验证。
+ *
+ * mvn -Pjmh compile exec:exec -Djmh.args=ClassifierBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassifierBenchmark {
+
+    private static final String[] FILLER = {
+        "study", "patients", "results", "method", "clinical", "analysis", "group", "data", "effect",
+        "significant", "observed", "compared", "baseline", "follow-up", "cohort", "outcome", "p<0.05",
+        "2023", "n=128", "interval", "model", "sample", "rate", "increase", "associated", "trial",
+        "研究", "患者", "结果", "方法", "临床", "分析", "显著", "对照组", "观察", "随访", "指标"
+    };
+
+    private static final int DOCUMENTS = 1024;
+
+    private final LegacyLiteratureClassifier legacy = new LegacyLiteratureClassifier();
+    private final LiteratureClassifierService classifier = new LiteratureClassifierService();
+
+    private MedicalLiterature[] documents;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> keywords = new ArrayList<>();
+        for (String category : legacy.getSupportedCategories()) {
+            keywords.addAll(legacy.getCategoryKeywords(category));
+        }
+        Random random = new Random(42);
+        documents = new MedicalLiterature[DOCUMENTS];
+        for (int i = 0; i < DOCUMENTS; i++) {
+            documents[i] = document(random, keywords);
+        }
+    }
+
+    @Benchmark
+    public String legacyClassify() {
+        return legacy.classifyLiterature(nextDocument());
+    }
+
+    @Benchmark
+    public String classify() {
+        return classifier.classifyLiterature(nextDocument());
+    }
+
+    private MedicalLiterature nextDocument() {
+        next = (next + 1) & (DOCUMENTS - 1);
+        return documents[next];
+    }
+
+    private static MedicalLiterature document(Random random, List<String> keywords) {
+        MedicalLiterature literature = new MedicalLiterature();
+        literature.setTitle(text(random, keywords, 8 + random.nextInt(12)));
+        literature.setAbstractContent(text(random, keywords, 120 + random.nextInt(160)));
+        List<String> terms = new ArrayList<>();
+        for (int i = 0, n = 2 + random.nextInt(4); i < n; i++) {
+            terms.add(keywords.get(random.nextInt(keywords.size())));
+        }
+        literature.setKeywords(String.join(random.nextBoolean() ? ", " : "；", terms));
+        literature.setJournal(text(random, keywords, 2 + random.nextInt(3)));
+        return literature;
+    }
+
+    /**
+     * 随机拼接的文本：约15%的词为分类关键词，偶尔首字母大写或与前一个词直接相连
+     */
+    private static String text(Random random, List<String> keywords, int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = random.nextInt(100) < 15
+                ? keywords.get(random.nextInt(keywords.size()))
+                : FILLER[random.nextInt(FILLER.length)];
+            if (random.nextInt(8) == 0 && !word.isEmpty()) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            if (sb.length() > 0) {
+                int separator = random.nextInt(20);
+                sb.append(separator == 0 ? "" : separator == 1 ? "-" : separator == 2 ? ", " : " ");
+            }
+            sb.append(word);
+        }
+        return sb.toString();
+    }
+}
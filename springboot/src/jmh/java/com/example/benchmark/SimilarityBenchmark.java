@@ -0,0 +1,142 @@
+package com.example.benchmark;
+
+import com.example.utils.SimilarityUtil;
+import com.example.utils.SimilarityUtil.PreparedTitle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标题相似度：改写前的 SimilarityUtil 与现实现对比
+ *
+ * 标题长度80~300字符，pair=near 为少量字符改动的近似标题（需要完整计算编辑距离），
+ * pair=far 为不相关标题（新实现可在Jaccard或带宽检查后提前返回）。
+ * prepared 系列对应 NearDuplicateIndexService 中候选标题已预处理的用法。
+ *
+ * mvn -Pjmh compile exec:exec -Djmh.args=SimilarityBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimilarityBenchmark {
+
+    private static final String[] WORDS = {
+        "randomized", "controlled", "trial", "of", "the", "efficacy", "and", "safety", "in", "patients",
+        "with", "type", "2", "diabetes", "mellitus", "chronic", "kidney", "disease", "a", "multicenter",
+        "retrospective", "cohort", "study", "association", "between", "serum", "vitamin", "d", "levels",
+        "risk", "cardiovascular", "events", "meta-analysis", "systematic", "review", "long-term", "outcomes",
+        "after", "laparoscopic", "surgery", "elderly", "hypertension", "treatment", "COVID-19", "mortality",
+        "糖尿病", "肾病", "临床研究", "随机对照", "疗效", "安全性", "分析"
+    };
+
+    private static final int PAIRS = 256;
+
+    @Param({"near", "far"})
+    public String pair;
+
+    private final LegacySimilarityUtil legacy = new LegacySimilarityUtil();
+    private final SimilarityUtil similarityUtil = new SimilarityUtil();
+
+    private String[] left;
+    private String[] right;
+    private PreparedTitle[] preparedLeft;
+    private PreparedTitle[] preparedRight;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        left = new String[PAIRS];
+        right = new String[PAIRS];
+        preparedLeft = new PreparedTitle[PAIRS];
+        preparedRight = new PreparedTitle[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            left[i] = title(random);
+            right[i] = "near".equals(pair) ? mutate(left[i], random) : title(random);
+            preparedLeft[i] = similarityUtil.prepare(left[i]);
+            preparedRight[i] = similarityUtil.prepare(right[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean legacyIsSimilar() {
+        int i = nextIndex();
+        return legacy.isSimilar(left[i], right[i]);
+    }
+
+    @Benchmark
+    public boolean isSimilar() {
+        int i = nextIndex();
+        return similarityUtil.isSimilar(left[i], right[i]);
+    }
+
+    @Benchmark
+    public boolean isSimilarPrepared() {
+        int i = nextIndex();
+        return similarityUtil.isSimilar(preparedLeft[i], preparedRight[i], 0.8);
+    }
+
+    @Benchmark
+    public double legacyCombinedSimilarity() {
+        int i = nextIndex();
+        return legacy.calculateCombinedSimilarity(left[i], right[i]);
+    }
+
+    @Benchmark
+    public double similarityPreparedCandidate() {
+        int i = nextIndex();
+        return similarityUtil.similarity(left[i], preparedRight[i]);
+    }
+
+    private int nextIndex() {
+        next = (next + 1) & (PAIRS - 1);
+        return next;
+    }
+
+    /**
+     * 随机拼接80~300字符的标题
+     */
+    private static String title(Random random) {
+        int length = 80 + random.nextInt(221);
+        StringBuilder sb = new StringBuilder(length + 20);
+        while (sb.length() < length) {
+            if (sb.length() > 0) {
+                sb.append(random.nextInt(12) == 0 ? ": " : " ");
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 约3%的字符做替换、删除或插入
+     */
+    private static String mutate(String title, Random random) {
+        StringBuilder sb = new StringBuilder(title);
+        int edits = Math.max(1, title.length() * 3 / 100);
+        for (int e = 0; e < edits; e++) {
+            int pos = random.nextInt(sb.length());
+            switch (random.nextInt(3)) {
+                case 0 -> sb.setCharAt(pos, (char) ('a' + random.nextInt(26)));
+                case 1 -> sb.deleteCharAt(pos);
+                default -> sb.insert(pos, (char) ('a' + random.nextInt(26)));
+            }
+        }
+        return sb.toString();
+    }
+}
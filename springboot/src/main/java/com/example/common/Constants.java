@@ -3,5 +3,7 @@ package com.example.common;
 public interface Constants {
 
     String TOKEN = "token";
+    // 请求属性：拦截器验证通过的当前登录账号
+    String CURRENT_ACCOUNT = "currentAccount";
     String USER_DEFAULT_PASSWORD = "123";
 }
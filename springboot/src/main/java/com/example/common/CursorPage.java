@@ -0,0 +1,113 @@
+package com.example.common;
+
+import com.example.exception.CustomException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * 按 (create_time, id) 或 id 倒序定位下一页，每页代价与翻到第几页无关。
+ * nextCursor 为不透明字符串，客户端原样传回即可；没有下一页时为null。
+ * total 只在请求时计算，可能为空。
+ */
+public class CursorPage<T> {
+
+    private List<T> list;
+    private String nextCursor;
+    private boolean hasMore;
+    private Long total;
+
+    public CursorPage() {
+    }
+
+    public CursorPage(List<T> list, String nextCursor, Long total) {
+        this.list = list;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.total = total;
+    }
+
+    /**
+     * 编码游标：上一页最后一行的排序键，time可为空（只按id排序时）
+     */
+    public static String encodeCursor(Date time, Integer id) {
+        String raw = (time != null ? time.getTime() : "") + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标，空字符串表示第一页返回null
+     * @throws CustomException 游标格式不正确
+     */
+    public static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            String time = raw.substring(0, sep);
+            return new Cursor(time.isEmpty() ? null : new Date(Long.parseLong(time)),
+                Integer.valueOf(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new CustomException("400", "无效的分页游标");
+        }
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public void setList(List<T> list) {
+        this.list = list;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    public Long getTotal() {
+        return total;
+    }
+
+    public void setTotal(Long total) {
+        this.total = total;
+    }
+
+    /**
+     * 解码后的游标位置
+     */
+    public static class Cursor {
+        private final Date time;
+        private final Integer id;
+
+        public Cursor(Date time, Integer id) {
+            this.time = time;
+            this.id = id;
+        }
+
+        public Date getTime() {
+            return time;
+        }
+
+        public Integer getId() {
+            return id;
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import com.example.common.Constants;
 import com.example.common.enums.ResultCodeEnum;
 import com.example.common.enums.RoleEnum;
@@ -12,8 +13,11 @@ import com.example.entity.Account;
 import com.example.exception.CustomException;
 import com.example.service.AdminService;
 import com.example.service.DoctorService;
+import com.example.service.StatsCounterService;
 import com.example.service.UserService;
+import com.example.utils.PrincipalCache;
 import jakarta.annotation.Resource;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.stereotype.Component;
@@ -31,6 +35,10 @@ public class JWTInterceptor implements HandlerInterceptor {
     private DoctorService doctorService;
     @Resource
     private UserService userService;
+    @Resource
+    private PrincipalCache principalCache;
+    @Resource
+    private StatsCounterService statsCounterService;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -44,9 +52,31 @@ public class JWTInterceptor implements HandlerInterceptor {
         if (ObjectUtil.isNull(token)) {
             throw new CustomException(ResultCodeEnum.TOKEN_INVALID_ERROR);
         }
+        // 已验证过的token直接使用缓存的账号
+        Account account = principalCache.get(token);
+        if (account == null) {
+            account = verify(token);
+        }
+        request.setAttribute(Constants.CURRENT_ACCOUNT, account);
+        // 异步请求（如AI咨询）返回结果时会再经过拦截器一次，不重复计数
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            statsCounterService.onPageView();
+            statsCounterService.onUserActive(account.getRole() + "-" + account.getId());
+        }
+        return true;
+    }
+
+    /**
+     * 查库并用账号密码验签，通过后放入缓存
+     */
+    private Account verify(String token) {
+        // 查库之前取序号，查库后账号被修改或删除时不缓存这次的结果
+        long stamp = principalCache.stamp();
         Account account = null;
+        DecodedJWT decoded;
         try {
-            String audience = JWT.decode(token).getAudience().get(0);
+            decoded = JWT.decode(token);
+            String audience = decoded.getAudience().get(0);
             String userId = audience.split("-")[0];
             String role = audience.split("-")[1];
             // 根据用户角色判断用户属于哪个数据库表 然后查询用户数据
@@ -73,7 +103,8 @@ public class JWTInterceptor implements HandlerInterceptor {
             // 用户不存在
             throw new CustomException(ResultCodeEnum.TOKEN_CHECK_ERROR);
         }
-        return true;
+        principalCache.put(token, account, decoded.getExpiresAt(), stamp);
+        return account;
     }
 
 }
@@ -1,13 +1,18 @@
 package com.example.config;
 
+import com.example.config.cache.TwoLevelCacheManager;
+import com.example.config.cache.TwoLevelCacheProperties;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CachingConfigurer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.CacheErrorHandler;
@@ -17,11 +22,16 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Redis配置类
@@ -65,20 +75,55 @@ public class RedisConfig implements CachingConfigurer {
         return template;
     }
 
+    /**
+     * 缓存管理器：默认在Redis前加一层本地Caffeine缓存（见 TwoLevelCacheManager），
+     * cache.local-enabled=false 时只使用Redis
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     TwoLevelCacheProperties cacheProperties,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
         // 使用GenericJackson2JsonRedisSerializer，与RedisTemplate保持一致
         GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(createObjectMapper());
         
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(30)) // 缓存过期时间30分钟
+                .entryTtl(Duration.ofMillis(cacheProperties.getRedisTtlMs())) // 默认30分钟过期
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
                 .disableCachingNullValues(); // 禁止缓存null值，避免缓存穿透
-        
-        return RedisCacheManager.builder(connectionFactory)
+
+        // 单独配置了过期时间的缓存
+        Map<String, RedisCacheConfiguration> cacheConfigs = new HashMap<>();
+        for (String name : cacheProperties.getSpecs().keySet()) {
+            cacheConfigs.put(name, config.entryTtl(Duration.ofMillis(cacheProperties.redisTtlMs(name))));
+        }
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
+                .withInitialCacheConfigurations(cacheConfigs)
                 .build();
+        if (!cacheProperties.isLocalEnabled()) {
+            return redisCacheManager;
+        }
+        // 不作为Bean注册，需手动初始化以加载按名配置的缓存
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(redisCacheManager, new StringRedisTemplate(connectionFactory),
+                cacheProperties, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * 订阅本地缓存失效广播
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           CacheManager cacheManager,
+                                                                           TwoLevelCacheProperties cacheProperties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager) {
+            container.addMessageListener((TwoLevelCacheManager) cacheManager, new ChannelTopic(cacheProperties.getChannel()));
+        }
+        return container;
     }
 
     /**
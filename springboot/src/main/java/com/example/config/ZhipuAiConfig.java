@@ -24,6 +24,14 @@ public class ZhipuAiConfig {
     @Value("${api.timeout:30000}")
     private int timeout;
     
+    // 同时进行的AI请求上限（含流式）
+    @Value("${api.max-in-flight:8}")
+    private int maxInFlight;
+    
+    // 等待空闲名额的最长时间（毫秒），超时后普通咨询改用本地响应
+    @Value("${api.queue-timeout:3000}")
+    private long queueTimeout;
+    
     public String getApiKey() {
         return apiKey;
     }
@@ -63,4 +71,20 @@ public class ZhipuAiConfig {
     public void setTimeout(int timeout) {
         this.timeout = timeout;
     }
+    
+    public int getMaxInFlight() {
+        return maxInFlight;
+    }
+    
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+    
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+    
+    public void setQueueTimeout(long queueTimeout) {
+        this.queueTimeout = queueTimeout;
+    }
 }
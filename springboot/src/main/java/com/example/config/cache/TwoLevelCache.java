@@ -0,0 +1,214 @@
+package com.example.config.cache;
+
+import com.github.pagehelper.PageInfo;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 两级缓存：本地Caffeine（L1）在前，Redis（L2）在后
+ *
+ * 读：先查本地，未命中再查Redis，Redis命中后回填本地。
+ * 写/删除：先写Redis，再更新本地，并广播失效消息，其他节点删除各自的本地副本。
+ * Redis写入失败时同样删除本地副本并广播，异常继续抛给CacheErrorHandler。
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final TwoLevelCacheManager manager;
+
+    // 每次本地写入或失效加1，读Redis期间发生变更时不回填本地，避免把旧值写回
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                  Cache remote, TwoLevelCacheManager manager) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+
+        long seen = epoch.get();
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        if (wrapper.get() != null && epoch.get() == seen) {
+            local.put(localKey, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        String localKey = localKey(key);
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            // Redis中可能仍是旧值，本地不写新值，只删除旧副本
+            invalidateLocal(localKey);
+            manager.publish(name, localKey);
+            throw e;
+        }
+        epoch.incrementAndGet();
+        if (value != null) {
+            local.put(localKey, value);
+        } else {
+            local.invalidate(localKey);
+        }
+        manager.publish(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        String localKey = localKey(key);
+        try {
+            remote.evict(key);
+        } finally {
+            invalidateLocal(localKey);
+            manager.publish(name, localKey);
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            remote.clear();
+        } finally {
+            invalidateLocal(null);
+            manager.publish(name, null);
+        }
+    }
+
+    /**
+     * 删除本地副本，key为null时清空
+     */
+    void invalidateLocal(String localKey) {
+        epoch.incrementAndGet();
+        if (localKey != null) {
+            local.invalidate(localKey);
+        } else {
+            local.invalidateAll();
+        }
+    }
+
+    long getLocalHits() {
+        return localHits.sum();
+    }
+
+    long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    long getMisses() {
+        return misses.sum();
+    }
+
+    double localHitRatio() {
+        return ratio(localHits.sum(), localHits.sum() + remoteHits.sum() + misses.sum());
+    }
+
+    /**
+     * Redis命中率（只统计本地未命中、落到Redis的请求）
+     */
+    double remoteHitRatio() {
+        return ratio(remoteHits.sum(), remoteHits.sum() + misses.sum());
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", getLocalHits());
+        stats.put("redisHits", getRemoteHits());
+        stats.put("misses", getMisses());
+        stats.put("localHitRatio", localHitRatio());
+        stats.put("redisHitRatio", remoteHitRatio());
+        stats.put("localSize", local.estimatedSize());
+        return stats;
+    }
+
+    private static double ratio(long hits, long total) {
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    // 与RedisCache一致，按字符串形式区分key，失效消息中可以直接传递
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * 本地缓存权重：单个对象计1，集合和分页结果按元素数计
+     */
+    static int weigh(String key, Object value) {
+        if (value instanceof Collection) {
+            return Math.max(1, ((Collection<?>) value).size());
+        }
+        if (value instanceof Map) {
+            return Math.max(1, ((Map<?, ?>) value).size());
+        }
+        if (value instanceof PageInfo && ((PageInfo<?>) value).getList() != null) {
+            return Math.max(1, ((PageInfo<?>) value).getList().size());
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.config.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两级缓存管理器：为每个Redis缓存套一层有界的本地Caffeine缓存
+ *
+ * 本地副本的失效通过Redis发布/订阅广播到所有节点，消息格式为 节点ID\n缓存名\nkey（无key表示清空）。
+ * 每层的命中次数和命中率注册为 cache.two_level.* 指标。
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private static final String METRIC_GETS = "cache.two_level.gets";
+    private static final String METRIC_HIT_RATIO = "cache.two_level.hit_ratio";
+
+    private final RedisCacheManager redisCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final TwoLevelCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    // 区分自己发出的失效消息
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate redisTemplate,
+                                TwoLevelCacheProperties properties, MeterRegistry meterRegistry) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 各缓存每层的命中统计
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new TreeMap<>();
+        caches.forEach((name, cache) -> stats.put(name, cache.getStats()));
+        return stats;
+    }
+
+    /**
+     * 广播本地缓存失效，Redis不可用时只记录日志（本地副本到期后自然失效）
+     */
+    void publish(String cacheName, String key) {
+        String message = nodeId + "\n" + cacheName + (key != null ? "\n" + key : "");
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(), message);
+        } catch (Exception e) {
+            logger.warn("缓存失效广播失败 - cache: {}, key: {}, error: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\n", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(parts[1]);
+        if (cache != null) {
+            cache.invalidateLocal(parts.length == 3 ? parts[2] : null);
+        }
+    }
+
+    private TwoLevelCache createCache(String name) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+            .maximumWeight(properties.localMaxWeight(name))
+            .weigher(TwoLevelCache::weigh)
+            .expireAfterWrite(Duration.ofMillis(properties.localTtlMs(name)))
+            .build();
+        TwoLevelCache cache = new TwoLevelCache(name, local, redisCacheManager.getCache(name), this);
+
+        if (meterRegistry != null) {
+            FunctionCounter.builder(METRIC_GETS, cache, TwoLevelCache::getLocalHits)
+                .tag("cache", name).tag("result", "local_hit").register(meterRegistry);
+            FunctionCounter.builder(METRIC_GETS, cache, TwoLevelCache::getRemoteHits)
+                .tag("cache", name).tag("result", "redis_hit").register(meterRegistry);
+            FunctionCounter.builder(METRIC_GETS, cache, TwoLevelCache::getMisses)
+                .tag("cache", name).tag("result", "miss").register(meterRegistry);
+            Gauge.builder(METRIC_HIT_RATIO, cache, TwoLevelCache::localHitRatio)
+                .tag("cache", name).tag("tier", "local").register(meterRegistry);
+            Gauge.builder(METRIC_HIT_RATIO, cache, TwoLevelCache::remoteHitRatio)
+                .tag("cache", name).tag("tier", "redis").register(meterRegistry);
+        }
+
+        logger.info("两级缓存 {}: localTtl={}ms, localMaxWeight={}, redisTtl={}ms", name,
+            properties.localTtlMs(name), properties.localMaxWeight(name), properties.redisTtlMs(name));
+        return cache;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.config.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 两级缓存配置属性
+ */
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class TwoLevelCacheProperties {
+
+    // 关闭时只使用Redis缓存
+    private boolean localEnabled = true;
+    // 本地缓存失效广播频道
+    private String channel = "cache:invalidate";
+    // 默认本地缓存过期时间，应小于Redis过期时间
+    private long localTtlMs = 300000;
+    // 默认本地缓存容量：单个对象计1，集合/分页按元素数计
+    private long localMaxWeight = 10000;
+    private long redisTtlMs = 1800000;
+
+    // 按缓存名覆盖默认值
+    private Map<String, Spec> specs = new HashMap<>();
+
+    /**
+     * 单个缓存的配置，未设置的项使用默认值
+     */
+    public static class Spec {
+        private Long localTtlMs;
+        private Long localMaxWeight;
+        private Long redisTtlMs;
+
+        public Long getLocalTtlMs() { return localTtlMs; }
+        public void setLocalTtlMs(Long localTtlMs) { this.localTtlMs = localTtlMs; }
+
+        public Long getLocalMaxWeight() { return localMaxWeight; }
+        public void setLocalMaxWeight(Long localMaxWeight) { this.localMaxWeight = localMaxWeight; }
+
+        public Long getRedisTtlMs() { return redisTtlMs; }
+        public void setRedisTtlMs(Long redisTtlMs) { this.redisTtlMs = redisTtlMs; }
+    }
+
+    public long localTtlMs(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getLocalTtlMs() != null ? spec.getLocalTtlMs() : localTtlMs;
+    }
+
+    public long localMaxWeight(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getLocalMaxWeight() != null ? spec.getLocalMaxWeight() : localMaxWeight;
+    }
+
+    public long redisTtlMs(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        return spec != null && spec.getRedisTtlMs() != null ? spec.getRedisTtlMs() : redisTtlMs;
+    }
+
+    // Getters and Setters
+    public boolean isLocalEnabled() { return localEnabled; }
+    public void setLocalEnabled(boolean localEnabled) { this.localEnabled = localEnabled; }
+
+    public String getChannel() { return channel; }
+    public void setChannel(String channel) { this.channel = channel; }
+
+    public long getLocalTtlMs() { return localTtlMs; }
+    public void setLocalTtlMs(long localTtlMs) { this.localTtlMs = localTtlMs; }
+
+    public long getLocalMaxWeight() { return localMaxWeight; }
+    public void setLocalMaxWeight(long localMaxWeight) { this.localMaxWeight = localMaxWeight; }
+
+    public long getRedisTtlMs() { return redisTtlMs; }
+    public void setRedisTtlMs(long redisTtlMs) { this.redisTtlMs = redisTtlMs; }
+
+    public Map<String, Spec> getSpecs() { return specs; }
+    public void setSpecs(Map<String, Spec> specs) { this.specs = specs; }
+}
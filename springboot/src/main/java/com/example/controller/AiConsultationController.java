@@ -1,11 +1,11 @@
 package com.example.controller;
 
 import com.example.common.Result;
+import com.example.config.ZhipuAiConfig;
 import com.example.entity.AiConsultation;
 import com.example.entity.dto.AiConsultationRequest;
 import com.example.entity.dto.AiConsultationResponse;
 import com.example.service.AiConsultationService;
-import com.example.service.ZhipuAiService;
 import com.example.utils.TokenUtils;
 import com.github.pagehelper.PageInfo;
 import io.swagger.v3.oas.annotations.Operation;
@@ -13,6 +13,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.ArrayList;
@@ -30,29 +31,41 @@ import java.util.List;
 @RequestMapping("/ai-consultation")
 public class AiConsultationController {
     
+    // AI回复之后解析、匹配套餐和保存记录的预留时间
+    private static final long CONSULT_PROCESSING_MS = 5000;
+    
     @Autowired
     private AiConsultationService aiConsultationService;
-    
+
     @Autowired
-    private ZhipuAiService zhipuAiService;
+    private ZhipuAiConfig zhipuAiConfig;
     
     /**
      * AI健康咨询
+     * 异步返回：等待AI回复期间不占用servlet线程
      */
     @Operation(summary = "AI健康咨询")
     @PostMapping("/consult")
-    public Result consult(@RequestBody AiConsultationRequest request) {
+    public DeferredResult<Result> consult(@RequestBody AiConsultationRequest request) {
+        // 排队和请求本身都有超时，这里只兜底
+        long timeout = zhipuAiConfig.getQueueTimeout() + zhipuAiConfig.getTimeout() + CONSULT_PROCESSING_MS;
+        DeferredResult<Result> result = new DeferredResult<>(timeout, Result.error("AI咨询超时，请稍后再试"));
         try {
-            // 从Token中获取当前用户ID
+            // 从Token中获取当前用户ID（需在请求线程上读取）
             Integer currentUserId = TokenUtils.getCurrentUser().getId();
             request.setUserId(currentUserId);
             
-            AiConsultationResponse response = aiConsultationService.consultWithAi(request);
-            return Result.success(response);
-            
+            aiConsultationService.consultWithAiAsync(request).whenComplete((response, e) -> {
+                if (e != null) {
+                    result.setResult(Result.error("AI咨询失败: " + e.getMessage()));
+                } else {
+                    result.setResult(Result.success(response));
+                }
+            });
         } catch (Exception e) {
-            return Result.error("AI咨询失败: " + e.getMessage());
+            result.setResult(Result.error("AI咨询失败: " + e.getMessage()));
         }
+        return result;
     }
     
     /**
@@ -103,8 +116,8 @@ public class AiConsultationController {
                 }
             }
             
-            // 调用流式AI服务
-            zhipuAiService.chatStream(question, conversationHistory, emitter);
+            // 调用流式AI服务（首轮提问优先使用回答缓存）
+            aiConsultationService.consultStream(question, conversationHistory, emitter);
             
         } catch (Exception e) {
             try {
@@ -1,13 +1,21 @@
 package com.example.controller;
 
 import com.example.common.Result;
+import com.example.config.cache.TwoLevelCacheManager;
+import com.example.entity.MedicalLiterature;
 import com.example.mapper.MedicalLiteratureMapper;
+import com.example.service.KeywordStatService;
+import com.example.service.LiteratureReclassificationService;
+import com.example.service.search.LiteratureIndexService;
+import com.example.utils.LiteratureKeyUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,6 +35,18 @@ public class DataMaintenanceController {
     @Autowired
     private MedicalLiteratureMapper medicalLiteratureMapper;
 
+    @Autowired
+    private LiteratureIndexService literatureIndexService;
+
+    @Autowired
+    private KeywordStatService keywordStatService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private LiteratureReclassificationService reclassificationService;
+
     /**
      * 修复文献状态 - 将所有NULL或空状态设置为active
      */
@@ -57,6 +77,108 @@ public class DataMaintenanceController {
         }
     }
 
+    /**
+     * 回填标题哈希 - 为历史文献计算 title_hash，使批量查重覆盖全部数据
+     */
+    @PostMapping("/backfill-title-hash")
+    public Result backfillTitleHash() {
+        try {
+            logger.info("开始回填文献标题哈希...");
+
+            int updatedCount = 0;
+            int lastId = 0;
+            List<MedicalLiterature> chunk;
+            do {
+                chunk = medicalLiteratureMapper.selectWithoutTitleHash(lastId, 1000);
+                for (MedicalLiterature literature : chunk) {
+                    String titleHash = LiteratureKeyUtil.titleHash(literature.getTitle());
+                    if (titleHash != null) {
+                        medicalLiteratureMapper.updateTitleHash(literature.getId(), titleHash);
+                        updatedCount++;
+                    }
+                    lastId = literature.getId();
+                }
+            } while (chunk.size() == 1000);
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("updatedCount", updatedCount);
+            result.put("message", "标题哈希回填完成");
+
+            logger.info("标题哈希回填完成，回填数量: {}", updatedCount);
+
+            return Result.success(result);
+
+        } catch (Exception e) {
+            logger.error("回填标题哈希失败", e);
+            return Result.error("500", "回填标题哈希失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 重新统计关键词频次 - 首次部署或频次表与文献表不一致时使用
+     */
+    @PostMapping("/rebuild-keyword-stats")
+    public Result rebuildKeywordStats() {
+        try {
+            logger.info("开始重新统计关键词频次...");
+
+            int keywordCount = keywordStatService.rebuild();
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("keywordCount", keywordCount);
+            result.put("message", "关键词频次统计完成");
+
+            return Result.success(result);
+
+        } catch (Exception e) {
+            logger.error("重新统计关键词频次失败", e);
+            return Result.error("500", "重新统计关键词频次失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 全量重建文献倒排索引
+     */
+    @PostMapping("/rebuild-search-index")
+    public Result rebuildSearchIndex() {
+        try {
+            logger.info("开始重建文献倒排索引...");
+
+            int indexedCount = literatureIndexService.rebuild();
+
+            Map<String, Object> result = new HashMap<>(literatureIndexService.getStats());
+            result.put("indexedCount", indexedCount);
+            result.put("message", "文献倒排索引重建完成");
+
+            return Result.success(result);
+
+        } catch (IllegalStateException e) {
+            return Result.error("400", e.getMessage());
+        } catch (Exception e) {
+            logger.error("重建文献倒排索引失败", e);
+            return Result.error("500", "重建文献倒排索引失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 重新分类文献 - 后台任务，立即返回；onlyUnclassified=true 时只回填尚未分类的文献
+     */
+    @PostMapping("/reclassify-literature")
+    public Result reclassifyLiterature(@RequestParam(defaultValue = "false") boolean onlyUnclassified) {
+        boolean started = reclassificationService.start(onlyUnclassified);
+        Map<String, Object> result = new HashMap<>(reclassificationService.getStatus());
+        result.put("message", started ? "文献重新分类已开始" : "文献重新分类正在进行中");
+        return Result.success(result);
+    }
+
+    /**
+     * 文献重新分类进度
+     */
+    @GetMapping("/reclassify-literature/status")
+    public Result getReclassifyStatus() {
+        return Result.success(reclassificationService.getStatus());
+    }
+
     /**
      * 获取文献状态统计
      */
@@ -111,4 +233,15 @@ public class DataMaintenanceController {
             return Result.error("500", "数据库健康检查失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 两级缓存各层命中统计
+     */
+    @GetMapping("/cache-stats")
+    public Result cacheStats() {
+        if (!(cacheManager instanceof TwoLevelCacheManager)) {
+            return Result.error("400", "本地缓存未启用");
+        }
+        return Result.success(((TwoLevelCacheManager) cacheManager).getStats());
+    }
 }
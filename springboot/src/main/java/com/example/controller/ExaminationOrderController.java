@@ -77,11 +77,17 @@ public class ExaminationOrderController {
 
     /**
      * 分页查询
+     * 传入 cursor 参数（第一页传空字符串）时改为游标分页，返回 nextCursor，忽略 pageNum
      */
     @GetMapping("/selectPage")
     public Result selectPage(ExaminationOrder examinationOrder,
                              @RequestParam(defaultValue = "1") Integer pageNum,
-                             @RequestParam(defaultValue = "10") Integer pageSize) {
+                             @RequestParam(defaultValue = "10") Integer pageSize,
+                             @RequestParam(required = false) String cursor,
+                             @RequestParam(defaultValue = "false") boolean withTotal) {
+        if (cursor != null) {
+            return Result.success(examinationOrderService.selectByCursor(examinationOrder, cursor, pageSize, withTotal));
+        }
         PageInfo<ExaminationOrder> pageInfo = examinationOrderService.selectPage(examinationOrder, pageNum, pageSize);
         return Result.success(pageInfo);
     }
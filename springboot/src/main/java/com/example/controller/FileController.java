@@ -1,10 +1,13 @@
 package com.example.controller;
 
 import cn.hutool.core.collection.CollUtil;
-import cn.hutool.core.io.FileUtil;
 import cn.hutool.core.lang.Dict;
-import cn.hutool.core.util.StrUtil;
 import com.example.common.Result;
+import com.example.service.FileStorageService;
+import com.example.service.ImageDerivativeService;
+import com.example.utils.FileDownloadUtil;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,7 +15,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.OutputStream;
+import java.io.File;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
@@ -24,48 +27,54 @@ public class FileController {
 
     private static final Logger log = LoggerFactory.getLogger(FileController.class);
 
-    private static final String filePath = System.getProperty("user.dir") + "/files/";
+    @Resource
+    private FileStorageService fileStorageService;
+
+    @Resource
+    private ImageDerivativeService imageDerivativeService;
 
     @Value("${fileBaseUrl:}")
     private String fileBaseUrl;
 
     /**
      * 文件上传
+     * 流式写盘并按内容去重，文件key为 SHA-256-文件名，见 FileStorageService
      */
     @PostMapping("/upload")
     public Result upload(MultipartFile file) {
-        String fileName = file.getOriginalFilename();
         try {
-            if (!FileUtil.isDirectory(filePath)) {
-                FileUtil.mkdir(filePath);
-            }
-            fileName = System.currentTimeMillis() + "-" + fileName;
-            String realFilePath = filePath + fileName;
-            // 文件存储形式：时间戳-文件名
-            FileUtil.writeBytes(file.getBytes(), realFilePath);
+            String key = fileStorageService.store(file);
+            return Result.success(fileBaseUrl + "/files/download/" + key);
         } catch (Exception e) {
-            log.error(fileName + "--文件上传失败", e);
+            log.error(file.getOriginalFilename() + "--文件上传失败", e);
+            return Result.error("500", "文件上传失败");
         }
-        String url = fileBaseUrl + "/files/download/" + fileName;
-        return Result.success(url);
     }
 
     /**
      * 获取文件
+     * 流式发送，支持 Range 断点续传和 ETag/Last-Modified 缓存校验，见 FileDownloadUtil
+     * 图片可带 w 参数获取缩略图（列表页头像、封面等），不是图片或生成不及时则返回原文件
      */
     @GetMapping("/download/{fileName}")
-    public void download(@PathVariable String fileName, HttpServletResponse response) {
-        OutputStream os;
+    public void download(@PathVariable String fileName, @RequestParam(required = false) Integer w,
+                         HttpServletRequest request, HttpServletResponse response) {
         try {
-            if (StrUtil.isNotEmpty(fileName)) {
-                response.addHeader("Content-Disposition", "attachment;filename=" + URLEncoder.encode(fileName, StandardCharsets.UTF_8));
-                response.setContentType("application/octet-stream");
-                byte[] bytes = FileUtil.readBytes(filePath + fileName);
-                os = response.getOutputStream();
-                os.write(bytes);
-                os.flush();
-                os.close();
+            File file = fileStorageService.resolve(fileName);
+            if (file == null) {
+                response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            if (w != null) {
+                File derivative = imageDerivativeService.derivative(file, fileStorageService.displayName(fileName), w);
+                if (derivative != null) {
+                    FileDownloadUtil.send(derivative, imageDerivativeService.contentType(derivative), null, request, response);
+                    return;
+                }
             }
+            String displayName = fileStorageService.displayName(fileName);
+            FileDownloadUtil.send(file, "application/octet-stream",
+                "attachment;filename=" + URLEncoder.encode(displayName, StandardCharsets.UTF_8), request, response);
         } catch (Exception e) {
             log.warn("文件下载失败：" + fileName);
         }
@@ -77,21 +86,18 @@ public class FileController {
      */
     @PostMapping("/wang/upload")
     public Map<String, Object> wangEditorUpload(MultipartFile file) {
-        String flag = System.currentTimeMillis() + "";
-        String fileName = file.getOriginalFilename();
+        Map<String, Object> resMap = new HashMap<>();
         try {
-            // 文件存储形式：时间戳-文件名
-            FileUtil.writeBytes(file.getBytes(), filePath + flag + "-" + fileName);
-            System.out.println(fileName + "--上传成功");
-            Thread.sleep(1L);
+            String key = fileStorageService.store(file);
+            String http = fileBaseUrl + "/files/download/";
+            // wangEditor上传图片成功后， 需要返回的参数
+            resMap.put("errno", 0);
+            resMap.put("data", CollUtil.newArrayList(Dict.create().set("url", http + key)));
         } catch (Exception e) {
-            System.err.println(fileName + "--文件上传失败");
+            log.error(file.getOriginalFilename() + "--文件上传失败", e);
+            resMap.put("errno", 1);
+            resMap.put("message", "文件上传失败");
         }
-        String http = fileBaseUrl + "/files/download/";
-        Map<String, Object> resMap = new HashMap<>();
-        // wangEditor上传图片成功后， 需要返回的参数
-        resMap.put("errno", 0);
-        resMap.put("data", CollUtil.newArrayList(Dict.create().set("url", http + flag + "-" + fileName)));
         return resMap;
     }
 }
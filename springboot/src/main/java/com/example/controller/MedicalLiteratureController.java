@@ -2,6 +2,7 @@ package com.example.controller;
 
 import com.example.common.Result;
 import com.example.entity.MedicalLiterature;
+import com.example.exception.CustomException;
 import com.example.service.MedicalLiteratureService;
 import com.example.crawler.core.Orchestrator;
 import com.example.crawler.core.model.CrawlRequest;
@@ -105,13 +106,18 @@ public class MedicalLiteratureController {
 
     /**
      * List - Get paginated literature list
+     * 传入 cursor 参数（第一页传空字符串）时改为游标分页，返回 nextCursor，忽略 pageNum；
+     * withTotal=true 时额外返回总数
      */
     @GetMapping("/list")
     public Result getList(@RequestParam(required = false) String keyword,
+                         @RequestParam(required = false) String category,
                          @RequestParam(required = false) String source,
                          @RequestParam(required = false) String journal,
                          @RequestParam(defaultValue = "1") Integer pageNum,
-                         @RequestParam(defaultValue = "10") Integer pageSize) {
+                         @RequestParam(defaultValue = "10") Integer pageSize,
+                         @RequestParam(required = false) String cursor,
+                         @RequestParam(defaultValue = "false") boolean withTotal) {
         try {
             MedicalLiterature query = new MedicalLiterature();
 
@@ -120,6 +126,11 @@ public class MedicalLiteratureController {
                 query.setTitle(keyword.trim());
             }
 
+            // 分类筛选
+            if (category != null && !category.trim().isEmpty()) {
+                query.setCategory(category.trim());
+            }
+
             // 来源筛选
             if (source != null && !source.trim().isEmpty()) {
                 query.setCrawlSource(source.trim());
@@ -130,8 +141,13 @@ public class MedicalLiteratureController {
                 query.setJournal(journal.trim());
             }
 
+            if (cursor != null) {
+                return Result.success(medicalLiteratureService.selectByCursor(query, null, cursor, pageSize, withTotal));
+            }
             PageInfo<MedicalLiterature> pageInfo = medicalLiteratureService.selectPage(query, pageNum, pageSize);
             return Result.success(pageInfo);
+        } catch (CustomException e) {
+            return Result.error(e.getCode(), e.getMsg());
         } catch (Exception e) {
             logger.error("Get literature list failed", e);
             return Result.error("500", "获取文献列表失败: " + e.getMessage());
@@ -175,15 +191,27 @@ public class MedicalLiteratureController {
 
     /**
      * 管理员获取文献列表
+     * 传入 cursor 参数时改为游标分页，用法同 /list
      */
     @GetMapping("/admin/list")
     public Result getAdminList(@RequestParam(required = false) String keyword,
+                              @RequestParam(required = false) String category,
+                              @RequestParam(required = false) String source,
+                              @RequestParam(required = false) String status,
                               @RequestParam(defaultValue = "1") Integer pageNum,
-                              @RequestParam(defaultValue = "20") Integer pageSize) {
+                              @RequestParam(defaultValue = "20") Integer pageSize,
+                              @RequestParam(required = false) String cursor,
+                              @RequestParam(defaultValue = "false") boolean withTotal) {
         try {
+            if (cursor != null) {
+                return Result.success(medicalLiteratureService.adminSelectByCursor(
+                    keyword, category, source, status, cursor, pageSize, withTotal));
+            }
             PageInfo<MedicalLiterature> pageInfo = medicalLiteratureService.adminSelectPage(
-                keyword, null, null, null, pageNum, pageSize);
+                keyword, category, source, status, pageNum, pageSize);
             return Result.success(pageInfo);
+        } catch (CustomException e) {
+            return Result.error(e.getCode(), e.getMsg());
         } catch (Exception e) {
             logger.error("Admin get literature list failed", e);
             return Result.error("500", "获取文献列表失败: " + e.getMessage());
@@ -2,11 +2,13 @@ package com.example.controller;
 
 import com.example.common.Result;
 import com.example.service.StatisticsService;
+import com.example.service.StatsCounterService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,6 +25,9 @@ public class StatisticsController {
     @Autowired
     private StatisticsService statisticsService;
 
+    @Autowired
+    private StatsCounterService statsCounterService;
+
     /**
      * 获取仪表板数据
      */
@@ -103,7 +108,7 @@ public class StatisticsController {
                 return Result.error("400", "天数参数必须在1-365之间");
             }
             
-            Map<String, Object> trends = statisticsService.getTrendData();
+            Map<String, Object> trends = statisticsService.getTrendData(days);
             
             return Result.success(trends);
             
@@ -125,7 +130,7 @@ public class StatisticsController {
                 return Result.error("400", "限制数量必须在1-100之间");
             }
             
-            return Result.success(statisticsService.getHotKeywords());
+            return Result.success(statisticsService.getHotKeywords(limit));
             
         } catch (Exception e) {
             logger.error("获取热门关键词失败", e);
@@ -149,8 +154,10 @@ public class StatisticsController {
             // 今日访问量
             realtime.put("todayVisits", (int) (Math.random() * 1000) + 500);
             
-            // 今日新增文献
-            realtime.put("todayNewLiterature", (int) (Math.random() * 20) + 5);
+            // 今日新增文献、今日检索次数
+            LocalDate today = LocalDate.now();
+            realtime.put("todayNewLiterature", statsCounterService.getDaily(StatsCounterService.LITERATURE_NEW, today));
+            realtime.put("todaySearches", statsCounterService.getDaily(StatsCounterService.SEARCH, today));
             
             // 系统负载（模拟数据）
             Map<String, Object> systemLoad = new HashMap<>();
@@ -1,10 +1,12 @@
 package com.example.crawler.controller;
 
 import com.example.common.Result;
+import com.example.crawler.core.Harvester;
 import com.example.crawler.core.Orchestrator;
 import com.example.crawler.core.model.CrawlRequest;
 import com.example.crawler.core.model.CrawlResult;
 import com.example.crawler.pipeline.MetricsAdapter;
+import com.example.exception.CustomException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import java.util.Arrays;
@@ -20,6 +22,9 @@ public class CrawlerV2Controller {
     @Autowired
     private Orchestrator orchestrator;
 
+    @Autowired
+    private Harvester harvester;
+
     @Autowired
     private MetricsAdapter metricsAdapter;
     
@@ -74,6 +79,40 @@ public class CrawlerV2Controller {
         return Result.success(status);
     }
     
+    /**
+     * 批量回填（后台执行，按页记录断点，重复调用从断点继续）
+     * POST /api/crawler/v2/harvest?keyword=cancer&maxRecords=5000&source=pubmed&restart=false
+     */
+    @PostMapping("/harvest")
+    public Result harvest(@RequestParam String keyword,
+                          @RequestParam(defaultValue = "1000") int maxRecords,
+                          @RequestParam(required = false) String source,
+                          @RequestParam(defaultValue = "false") boolean restart,
+                          @RequestParam(defaultValue = "false") boolean classify) {
+
+        CrawlRequest request = new CrawlRequest(keyword, maxRecords);
+        request.setClassifyEnabled(classify);
+        if (source != null && !source.trim().isEmpty()) {
+            request.setSources(Arrays.asList(source.trim()));
+        }
+
+        try {
+            harvester.harvestAsync(request, restart);
+        } catch (CustomException e) {
+            return Result.error(e.getCode(), e.getMsg());
+        }
+        return Result.success("回填任务已启动");
+    }
+
+    /**
+     * 查询回填断点
+     * GET /api/crawler/v2/harvest/checkpoints
+     */
+    @GetMapping("/harvest/checkpoints")
+    public Result checkpoints() {
+        return Result.success(harvester.listCheckpoints());
+    }
+    
     /**
      * 获取监控指标
      * GET /api/crawler/v2/metrics
@@ -0,0 +1,85 @@
+package com.example.crawler.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 爬虫任务线程池
+ * 运行在Java 21及以上时使用虚拟线程（每个任务一个虚拟线程），
+ * Java 17下退化为固定大小的有界线程池（crawler.max-concurrency）
+ */
+@Configuration
+public class CrawlerExecutorConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlerExecutorConfig.class);
+
+    @Bean(name = "crawlerExecutor", destroyMethod = "shutdown")
+    public ExecutorService crawlerExecutor(CrawlerProperties crawlerProperties) {
+        if (crawlerProperties.isVirtualThreads()) {
+            ExecutorService virtual = newVirtualThreadExecutor();
+            if (virtual != null) {
+                log.info("Crawler executor: virtual thread per task");
+                return virtual;
+            }
+        }
+
+        int threads = Math.max(1, crawlerProperties.getMaxConcurrency());
+        log.info("Crawler executor: fixed pool of {} threads (Java {})", threads, Runtime.version().feature());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new CrawlerThreadFactory("crawler-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * 批量回填线程池：回填任务长时间运行并阻塞等待各数据源，与抓取任务分开，避免占满 crawlerExecutor
+     * 同一 source+keyword 同时只允许一个回填（见 Harvester），线程数随任务数伸缩，空闲60秒回收
+     */
+    @Bean(name = "harvestExecutor", destroyMethod = "shutdown")
+    public ExecutorService harvestExecutor() {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), new CrawlerThreadFactory("harvest-"));
+    }
+
+    /**
+     * 反射获取 Executors.newVirtualThreadPerTaskExecutor()，以便按Java 17编译、在21上运行
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Exception e) {
+            log.warn("Failed to create virtual thread executor, falling back to fixed pool", e);
+            return null;
+        }
+    }
+
+    private static class CrawlerThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        CrawlerThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -23,10 +23,21 @@ public class CrawlerProperties {
     private int requestTimeoutMs = 30000;
     private int retryAttempts = 3;
     private int retryDelayMs = 2000;
+    private int persistBatchSize = 200;
+    private int harvestPageSize = 200;
+    private boolean virtualThreads = true;
+    private int maxConcurrency = 8;
+    private int sourceDeadlineMs = 60000;
     
     // 各数据源的具体配置
     private Map<String, SourceConfig> sourceConfigs = new HashMap<>();
     
+    // 共享HTTP客户端配置
+    private Http http = new Http();
+    
+    // 分阶段流水线配置
+    private Pipeline pipeline = new Pipeline();
+    
     public CrawlerProperties() {
         // 默认配置
         sourceConfigs.put("arxiv", new SourceConfig("http://export.arxiv.org/api/query", true, 15));
@@ -38,6 +49,15 @@ public class CrawlerProperties {
         private String apiUrl;
         private boolean enabled;
         private int maxResults;
+        // 限流：每秒请求数和令牌桶容量
+        private double ratePerSecond = 1.0;
+        private int burst = 1;
+        // 重试次数，未配置时使用全局retryAttempts
+        private Integer retryAttempts;
+        // 熔断：滑动窗口内失败率达到阈值后打开，openStateMs后半开探测
+        private float failureRateThreshold = 50;
+        private int slidingWindowSize = 10;
+        private long openStateMs = 30000;
         
         public SourceConfig() {}
         
@@ -56,6 +76,86 @@ public class CrawlerProperties {
         
         public int getMaxResults() { return maxResults; }
         public void setMaxResults(int maxResults) { this.maxResults = maxResults; }
+        
+        public double getRatePerSecond() { return ratePerSecond; }
+        public void setRatePerSecond(double ratePerSecond) { this.ratePerSecond = ratePerSecond; }
+        
+        public int getBurst() { return burst; }
+        public void setBurst(int burst) { this.burst = burst; }
+        
+        public Integer getRetryAttempts() { return retryAttempts; }
+        public void setRetryAttempts(Integer retryAttempts) { this.retryAttempts = retryAttempts; }
+        
+        public float getFailureRateThreshold() { return failureRateThreshold; }
+        public void setFailureRateThreshold(float failureRateThreshold) { this.failureRateThreshold = failureRateThreshold; }
+        
+        public int getSlidingWindowSize() { return slidingWindowSize; }
+        public void setSlidingWindowSize(int slidingWindowSize) { this.slidingWindowSize = slidingWindowSize; }
+        
+        public long getOpenStateMs() { return openStateMs; }
+        public void setOpenStateMs(long openStateMs) { this.openStateMs = openStateMs; }
+    }
+    
+    public static class Http {
+        private int maxRequests = 64;
+        private int maxRequestsPerHost = 4;
+        private int maxIdleConnections = 8;
+        private long keepAliveMs = 300000;
+        private String cacheDir;            // 默认 ${java.io.tmpdir}/crawler-http-cache
+        private int cacheSizeMb = 50;       // 0表示关闭条件请求缓存
+        private long healthTtlMs = 60000;   // 健康探测结果缓存时间
+        private String userAgent = "Mozilla/5.0 (compatible; ResearchBot/1.0; +https://example.com/bot)";
+        
+        public int getMaxRequests() { return maxRequests; }
+        public void setMaxRequests(int maxRequests) { this.maxRequests = maxRequests; }
+        
+        public int getMaxRequestsPerHost() { return maxRequestsPerHost; }
+        public void setMaxRequestsPerHost(int maxRequestsPerHost) { this.maxRequestsPerHost = maxRequestsPerHost; }
+        
+        public int getMaxIdleConnections() { return maxIdleConnections; }
+        public void setMaxIdleConnections(int maxIdleConnections) { this.maxIdleConnections = maxIdleConnections; }
+        
+        public long getKeepAliveMs() { return keepAliveMs; }
+        public void setKeepAliveMs(long keepAliveMs) { this.keepAliveMs = keepAliveMs; }
+        
+        public String getCacheDir() { return cacheDir; }
+        public void setCacheDir(String cacheDir) { this.cacheDir = cacheDir; }
+        
+        public int getCacheSizeMb() { return cacheSizeMb; }
+        public void setCacheSizeMb(int cacheSizeMb) { this.cacheSizeMb = cacheSizeMb; }
+        
+        public long getHealthTtlMs() { return healthTtlMs; }
+        public void setHealthTtlMs(long healthTtlMs) { this.healthTtlMs = healthTtlMs; }
+        
+        public String getUserAgent() { return userAgent; }
+        public void setUserAgent(String userAgent) { this.userAgent = userAgent; }
+    }
+    
+    public static class Pipeline {
+        private int queueCapacity = 4;      // 每个阶段输入队列的批次数上限
+        private int batchSize = 50;         // 数据源结果按此大小切批提交
+        private int normalizeWorkers = 1;
+        private int dedupWorkers = 2;
+        private int classifyWorkers = 2;
+        private int persistWorkers = 1;
+        
+        public int getQueueCapacity() { return queueCapacity; }
+        public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+        
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+        
+        public int getNormalizeWorkers() { return normalizeWorkers; }
+        public void setNormalizeWorkers(int normalizeWorkers) { this.normalizeWorkers = normalizeWorkers; }
+        
+        public int getDedupWorkers() { return dedupWorkers; }
+        public void setDedupWorkers(int dedupWorkers) { this.dedupWorkers = dedupWorkers; }
+        
+        public int getClassifyWorkers() { return classifyWorkers; }
+        public void setClassifyWorkers(int classifyWorkers) { this.classifyWorkers = classifyWorkers; }
+        
+        public int getPersistWorkers() { return persistWorkers; }
+        public void setPersistWorkers(int persistWorkers) { this.persistWorkers = persistWorkers; }
     }
     
     // Getters and Setters
@@ -83,6 +183,27 @@ public class CrawlerProperties {
     public int getRetryDelayMs() { return retryDelayMs; }
     public void setRetryDelayMs(int retryDelayMs) { this.retryDelayMs = retryDelayMs; }
     
+    public int getPersistBatchSize() { return persistBatchSize; }
+    public void setPersistBatchSize(int persistBatchSize) { this.persistBatchSize = persistBatchSize; }
+    
+    public int getHarvestPageSize() { return harvestPageSize; }
+    public void setHarvestPageSize(int harvestPageSize) { this.harvestPageSize = harvestPageSize; }
+    
+    public boolean isVirtualThreads() { return virtualThreads; }
+    public void setVirtualThreads(boolean virtualThreads) { this.virtualThreads = virtualThreads; }
+    
+    public int getMaxConcurrency() { return maxConcurrency; }
+    public void setMaxConcurrency(int maxConcurrency) { this.maxConcurrency = maxConcurrency; }
+    
+    public int getSourceDeadlineMs() { return sourceDeadlineMs; }
+    public void setSourceDeadlineMs(int sourceDeadlineMs) { this.sourceDeadlineMs = sourceDeadlineMs; }
+    
     public Map<String, SourceConfig> getSourceConfigs() { return sourceConfigs; }
     public void setSourceConfigs(Map<String, SourceConfig> sourceConfigs) { this.sourceConfigs = sourceConfigs; }
+    
+    public Http getHttp() { return http; }
+    public void setHttp(Http http) { this.http = http; }
+    
+    public Pipeline getPipeline() { return pipeline; }
+    public void setPipeline(Pipeline pipeline) { this.pipeline = pipeline; }
 }
@@ -0,0 +1,333 @@
+package com.example.crawler.core;
+
+import com.example.crawler.core.model.CrawlRequest;
+import com.example.crawler.core.model.CrawlResult;
+import com.example.crawler.core.model.HarvestPage;
+import com.example.crawler.pipeline.StagedPipeline;
+import com.example.crawler.sources.SourceClient;
+import com.example.entity.CrawlCheckpoint;
+import com.example.exception.CustomException;
+import com.example.mapper.CrawlCheckpointMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 批量回填 - 按游标逐页拉取，每页经流水线入库后记录断点，中断后可从断点继续
+ */
+@Service
+public class Harvester {
+
+    private static final Logger log = LoggerFactory.getLogger(Harvester.class);
+
+    static final String STATUS_RUNNING = "running";
+    static final String STATUS_PAUSED = "paused";
+    static final String STATUS_DONE = "done";
+    static final String STATUS_FAILED = "failed";
+
+    @Autowired
+    private CrawlerProperties crawlerProperties;
+
+    @Autowired
+    private List<SourceClient> sourceClients;
+
+    @Autowired
+    private StagedPipeline stagedPipeline;
+
+    @Autowired
+    private CrawlCheckpointMapper checkpointMapper;
+
+    // 正在回填的 source|keyword，避免同一断点被并发推进
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    // 回填协调任务和每个数据源的拉取任务，与抓取用的 crawlerExecutor 分开
+    @Autowired
+    @Qualifier("harvestExecutor")
+    private ExecutorService executorService;
+
+    /**
+     * 后台启动回填任务
+     * @throws CustomException 请求中的某个 source+keyword 已有回填在运行
+     */
+    public CompletableFuture<CrawlResult> harvestAsync(CrawlRequest request, boolean restart) {
+        List<SourceClient> clients = resolveClients(request);
+        List<String> lockKeys = acquire(clients, request.getKeyword());
+        CompletableFuture<CrawlResult> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> harvest(clients, lockKeys, request, restart), executorService);
+        } catch (RuntimeException e) {
+            running.removeAll(lockKeys);
+            throw e;
+        }
+        return future.whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("Harvest failed: keyword={}", request.getKeyword(), e);
+            }
+        });
+    }
+
+    /**
+     * 执行回填：各数据源并行拉取，共用一条流水线入库，从各自断点继续
+     * @param request 关键词、总条数上限（每个数据源）、数据源列表
+     * @param restart 是否丢弃断点从头开始
+     * @throws CustomException 请求中的某个 source+keyword 已有回填在运行
+     */
+    public CrawlResult harvest(CrawlRequest request, boolean restart) {
+        List<SourceClient> clients = resolveClients(request);
+        return harvest(clients, acquire(clients, request.getKeyword()), request, restart);
+    }
+
+    private CrawlResult harvest(List<SourceClient> clients, List<String> lockKeys, CrawlRequest request, boolean restart) {
+        try {
+            return doHarvest(clients, request, restart);
+        } finally {
+            running.removeAll(lockKeys);
+        }
+    }
+
+    private CrawlResult doHarvest(List<SourceClient> clients, CrawlRequest request, boolean restart) {
+        long startTime = System.currentTimeMillis();
+        String keyword = request.getKeyword();
+
+        StagedPipeline.Run run = stagedPipeline.start(request.isClassifyEnabled() && crawlerProperties.isClassifyEnabled());
+
+        Map<String, CompletableFuture<PageTracker>> futures = new HashMap<>();
+        for (SourceClient client : clients) {
+            futures.put(client.getSourceName(), CompletableFuture.supplyAsync(
+                () -> harvestSource(client, request, restart, run), executorService));
+        }
+
+        Map<String, PageTracker> trackers = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<PageTracker>> entry : futures.entrySet()) {
+            PageTracker tracker = entry.getValue().join();
+            if (tracker != null) {
+                trackers.put(entry.getKey(), tracker);
+            }
+        }
+
+        // 等待已提交的页全部入库，再写入最终状态
+        try {
+            run.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while draining harvest pipeline for keyword={}", keyword);
+        }
+        for (PageTracker tracker : trackers.values()) {
+            tracker.complete();
+        }
+
+        int found = 0;
+        int saved = 0;
+        Map<String, Integer> sourceStats = new HashMap<>();
+        for (String source : futures.keySet()) {
+            found += run.getFound(source);
+            saved += run.getSaved(source);
+            sourceStats.put(source, run.getSaved(source));
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        CrawlResult result = new CrawlResult(keyword, found, saved, duration);
+        result.setSourceStats(sourceStats);
+        result.setChunkRowsPerSecond(run.getChunkRowsPerSecond());
+        result.setMessage(String.format("回填完成，拉取 %d 篇文献，保存 %d 篇", found, saved));
+        log.info("Harvest completed: keyword={}, found={}, saved={}, duration={}ms", keyword, found, saved, duration);
+        return result;
+    }
+
+    /**
+     * 请求中的数据源，未指定时使用配置的全部数据源
+     */
+    private List<SourceClient> resolveClients(CrawlRequest request) {
+        List<String> sources = request.getSources() != null && !request.getSources().isEmpty()
+            ? request.getSources() : crawlerProperties.getSources();
+        List<SourceClient> clients = new ArrayList<>();
+        for (String sourceName : sources) {
+            SourceClient client = findSourceClient(sourceName);
+            if (client == null) {
+                log.warn("Source {} client not found", sourceName);
+                continue;
+            }
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    /**
+     * 占用各数据源的 source|keyword，任一已在回填时全部放弃并拒绝本次请求
+     */
+    private List<String> acquire(List<SourceClient> clients, String keyword) {
+        List<String> acquired = new ArrayList<>();
+        for (SourceClient client : clients) {
+            String lockKey = client.getSourceName() + "|" + keyword;
+            if (!running.add(lockKey)) {
+                running.removeAll(acquired);
+                log.warn("Harvest already running for source={}, keyword={}", client.getSourceName(), keyword);
+                throw new CustomException("400", "数据源 " + client.getSourceName() + " 的关键词 " + keyword + " 正在回填中");
+            }
+            acquired.add(lockKey);
+        }
+        return acquired;
+    }
+
+    /**
+     * 单个数据源的拉取循环：逐页提交到流水线，流水线满时阻塞
+     * 调用方已占用该数据源的 source|keyword
+     * @return 断点跟踪器，已完成或加载断点失败时返回null
+     */
+    private PageTracker harvestSource(SourceClient client, CrawlRequest request, boolean restart,
+                                      StagedPipeline.Run run) {
+        String source = client.getSourceName();
+        String keyword = request.getKeyword();
+
+        PageTracker tracker;
+        try {
+            CrawlCheckpoint checkpoint = restart ? null : checkpointMapper.selectOne(source, keyword);
+            if (checkpoint == null) {
+                checkpoint = new CrawlCheckpoint();
+                checkpoint.setSource(source);
+                checkpoint.setKeyword(keyword);
+                checkpoint.setHarvested(0);
+                checkpoint.setSaved(0);
+            } else if (STATUS_DONE.equals(checkpoint.getStatus())) {
+                log.info("Harvest for source={}, keyword={} already done, skip", source, keyword);
+                return null;
+            } else {
+                log.info("Resuming harvest for source={}, keyword={} from cursor={}", source, keyword, checkpoint.getPageCursor());
+            }
+            checkpoint.setStatus(STATUS_RUNNING);
+            checkpointMapper.upsert(checkpoint);
+            tracker = new PageTracker(checkpoint);
+        } catch (Exception e) {
+            log.error("Failed to load checkpoint for source={}, keyword={}", source, keyword, e);
+            return null;
+        }
+
+        int fetched = 0;
+        int pageSize = crawlerProperties.getHarvestPageSize();
+        try {
+            Iterator<HarvestPage> pages = client.pages(keyword, tracker.checkpoint.getPageCursor(), pageSize);
+            while (pages.hasNext()) {
+                if (fetched >= request.getMaxResults()) {
+                    // 达到本次上限，保留游标供下次继续
+                    tracker.endStatus = STATUS_PAUSED;
+                    break;
+                }
+
+                HarvestPage page = pages.next();
+                fetched += page.getPapers().size();
+                long seq = tracker.register(page.getNextCursor(), page.getPapers().size());
+                run.submit(source, page.getPapers(),
+                    saved -> tracker.persisted(seq, saved),
+                    e -> tracker.failed(seq));
+
+                log.info("Harvest page from {}: fetched={}, total={}, next={}",
+                    source, page.getPapers().size(), page.getTotal(), page.getNextCursor());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            tracker.endStatus = STATUS_FAILED;
+        } catch (Exception e) {
+            // 游标停留在最后一个已入库的页，下次从这里继续
+            log.error("Harvest failed for source={}, keyword={} at cursor={}", source, keyword, tracker.checkpoint.getPageCursor(), e);
+            tracker.endStatus = STATUS_FAILED;
+        }
+        return tracker;
+    }
+
+    /**
+     * 查询全部断点
+     */
+    public List<CrawlCheckpoint> listCheckpoints() {
+        return checkpointMapper.selectAll();
+    }
+
+    private SourceClient findSourceClient(String sourceName) {
+        return sourceClients.stream()
+            .filter(client -> sourceName.equals(client.getSourceName()))
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * 断点推进：页可能乱序入库，只有连续入库的前缀才推进游标
+     */
+    private class PageTracker {
+        private final CrawlCheckpoint checkpoint;
+        private final TreeMap<Long, PageState> pages = new TreeMap<>();
+        private long nextSeq;
+        private boolean gap;
+        private volatile String endStatus = STATUS_DONE;
+
+        PageTracker(CrawlCheckpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+
+        synchronized long register(String nextCursor, int fetched) {
+            long seq = nextSeq++;
+            pages.put(seq, new PageState(nextCursor, fetched));
+            return seq;
+        }
+
+        synchronized void persisted(long seq, int saved) {
+            PageState state = pages.get(seq);
+            state.done = true;
+            state.saved = saved;
+
+            boolean advanced = false;
+            while (!pages.isEmpty() && pages.firstEntry().getValue().done) {
+                PageState head = pages.pollFirstEntry().getValue();
+                checkpoint.setPageCursor(head.nextCursor);
+                checkpoint.setHarvested(checkpoint.getHarvested() + head.fetched);
+                checkpoint.setSaved(checkpoint.getSaved() + head.saved);
+                advanced = true;
+            }
+            if (advanced) {
+                checkpointMapper.upsert(checkpoint);
+            }
+        }
+
+        synchronized void failed(long seq) {
+            // 失败页之后的游标不再推进，下次从失败页重新拉取
+            gap = true;
+        }
+
+        /**
+         * 流水线排空后写入最终状态
+         */
+        synchronized void complete() {
+            String status = endStatus;
+            if (gap || !pages.isEmpty()) {
+                status = STATUS_FAILED;
+            } else if (STATUS_DONE.equals(status) && checkpoint.getPageCursor() != null) {
+                status = STATUS_PAUSED;
+            }
+            checkpoint.setStatus(status);
+            checkpointMapper.upsert(checkpoint);
+        }
+    }
+
+    private static class PageState {
+        private final String nextCursor;
+        private final int fetched;
+        private int saved;
+        private boolean done;
+
+        PageState(String nextCursor, int fetched) {
+            this.nextCursor = nextCursor;
+            this.fetched = fetched;
+        }
+    }
+}
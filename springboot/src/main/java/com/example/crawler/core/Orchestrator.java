@@ -2,27 +2,30 @@ package com.example.crawler.core;
 
 import com.example.crawler.core.model.CrawlRequest;
 import com.example.crawler.core.model.CrawlResult;
-import com.example.crawler.pipeline.Deduplicator;
+import com.example.crawler.http.CrawlerHttpClient;
 import com.example.crawler.pipeline.MetricsAdapter;
-import com.example.crawler.pipeline.Normalizer;
+import com.example.crawler.pipeline.StagedPipeline;
 import com.example.crawler.sources.SourceClient;
 import com.example.entity.MedicalLiterature;
-import com.example.service.LiteratureClassifierService;
-import com.example.service.MedicalLiteratureService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
-import org.springframework.scheduling.annotation.Async;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.*;
 
 /**
- * 爬虫核心编排器 - 简化的4步流程
+ * 爬虫核心编排器 - 拉取后交给分阶段流水线（归一化 → 去重 → 分类 → 入库）
  */
 @Service
 public class Orchestrator {
@@ -36,181 +39,297 @@ public class Orchestrator {
     private List<SourceClient> sourceClients;
 
     @Autowired
-    private Normalizer normalizer;
+    private StagedPipeline stagedPipeline;
 
     @Autowired
-    private Deduplicator deduplicator;
+    private MetricsAdapter metricsAdapter;
 
     @Autowired
-    private MedicalLiteratureService medicalLiteratureService;
+    private SourceGuard sourceGuard;
 
     @Autowired
-    private LiteratureClassifierService classifierService;
+    private CrawlerHttpClient httpClient;
 
+    // 并发爬取线程池（Java 21为虚拟线程，见CrawlerExecutorConfig）
     @Autowired
-    private MetricsAdapter metricsAdapter;
-
-    // 线程池用于并发爬取
-    private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+    @Qualifier("crawlerExecutor")
+    private ExecutorService executorService;
     
     /**
      * 执行爬虫任务
      */
     public CrawlResult crawl(CrawlRequest request) {
+        return crawlBatch(Collections.singletonList(request)).get(0);
+    }
+
+    /**
+     * 批量爬取多个关键词：关键词 × 数据源并发拉取，结果直接流入分阶段流水线
+     * 数据源每解析出一页/一批即开始归一化、去重和入库，不等待该数据源拉完，也不等待其他数据源
+     */
+    public List<CrawlResult> crawlBatch(List<CrawlRequest> requests) {
+        List<CrawlResult> results = new ArrayList<>();
         if (!crawlerProperties.isEnabled()) {
-            return new CrawlResult(request.getKeyword(), 0, 0, 0);
+            for (CrawlRequest request : requests) {
+                results.add(new CrawlResult(request.getKeyword(), 0, 0, 0));
+            }
+            return results;
         }
-        
+
         long startTime = System.currentTimeMillis();
-        log.info("Starting crawl for keyword: {}, maxResults: {}", request.getKeyword(), request.getMaxResults());
-        
+        log.info("Starting crawl for {} keywords", requests.size());
+
+        boolean classify = crawlerProperties.isClassifyEnabled()
+            && requests.stream().anyMatch(CrawlRequest::isClassifyEnabled);
+        StagedPipeline.Run run = stagedPipeline.start(classify);
+
+        Exception failure = null;
         try {
-            // 第1步：拉取数据
-            List<MedicalLiterature> allPapers = fetchFromSources(request);
-            
-            // 第2步：归一化
-            normalizer.normalize(allPapers);
-            
-            // 第3步：去重
-            List<MedicalLiterature> uniquePapers = deduplicator.deduplicate(allPapers);
-            
-            // 第4步：分类（可选）
-            if (request.isClassifyEnabled() && crawlerProperties.isClassifyEnabled()) {
-                classifierService.classifyLiteratures(uniquePapers);
+            if (crawlerProperties.isParallel()) {
+                fetchParallel(requests, run);
+            } else {
+                fetchSequential(requests, run);
+            }
+        } catch (Exception e) {
+            failure = e;
+        } finally {
+            try {
+                run.finish();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
             }
-            
-            // 第5步：保存
-            int savedCount = persistPapers(uniquePapers);
-            
-            long duration = System.currentTimeMillis() - startTime;
-            
-            CrawlResult result = new CrawlResult(request.getKeyword(), allPapers.size(), savedCount, duration);
-            result.setMessage(String.format("爬取完成，找到 %d 篇文献，保存 %d 篇", allPapers.size(), savedCount));
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        for (int i = 0; i < requests.size(); i++) {
+            CrawlRequest request = requests.get(i);
+            if (failure != null && run.getFound(tag(i)) == 0) {
+                results.add(failed(request, duration, failure));
+                continue;
+            }
+            int found = run.getFound(tag(i));
+            int saved = run.getSaved(tag(i));
+            CrawlResult result = new CrawlResult(request.getKeyword(), found, saved, duration);
+            result.setChunkRowsPerSecond(run.getChunkRowsPerSecond(tag(i)));
+            result.setMessage(String.format("爬取完成，找到 %d 篇文献，保存 %d 篇", found, saved));
 
             // 记录监控指标
             metricsAdapter.recordCrawlResult(result);
 
-            log.info("Crawl completed: found={}, saved={}, duration={}ms", allPapers.size(), savedCount, duration);
-            return result;
-            
-        } catch (Exception e) {
-            log.error("Crawl failed for keyword: {}", request.getKeyword(), e);
-            long duration = System.currentTimeMillis() - startTime;
-            CrawlResult result = new CrawlResult(request.getKeyword(), 0, 0, duration);
-            result.setMessage("爬取失败: " + e.getMessage());
-            return result;
+            log.info("Crawl completed: keyword={}, found={}, saved={}, duration={}ms",
+                request.getKeyword(), found, saved, duration);
+            results.add(result);
         }
+        return results;
     }
-    
+
+    private CrawlResult failed(CrawlRequest request, long duration, Exception e) {
+        log.error("Crawl failed for keyword: {}", request.getKeyword(), e);
+        CrawlResult result = new CrawlResult(request.getKeyword(), 0, 0, duration);
+        result.setMessage("爬取失败: " + e.getMessage());
+        return result;
+    }
+
     /**
-     * 从数据源拉取数据（支持并发处理）
+     * 流水线中按请求分组统计的标签
      */
-    private List<MedicalLiterature> fetchFromSources(CrawlRequest request) {
-        List<String> enabledSources = getEnabledSources(request);
-
-        // 如果启用并行处理且有多个数据源
-        if (crawlerProperties.isParallel() && enabledSources.size() > 1) {
-            return fetchFromSourcesParallel(request, enabledSources);
-        } else {
-            return fetchFromSourcesSequential(request, enabledSources);
-        }
+    private static String tag(int requestIndex) {
+        return String.valueOf(requestIndex);
     }
 
     /**
-     * 并发从多个数据源拉取数据
+     * 并发拉取：每个 关键词 × 数据源 一个任务，每页在拉取线程上直接提交到流水线
+     * 流水线队列满时提交阻塞，拉取线程随之停下，不再占用线程池的其他线程
      */
-    private List<MedicalLiterature> fetchFromSourcesParallel(CrawlRequest request, List<String> enabledSources) {
-        List<MedicalLiterature> allPapers = new ArrayList<>();
-        List<CompletableFuture<List<MedicalLiterature>>> futures = new ArrayList<>();
+    private void fetchParallel(List<CrawlRequest> requests, StagedPipeline.Run run) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CrawlRequest request = requests.get(i);
+            String tag = tag(i);
+            List<String> enabledSources = getEnabledSources(request);
+            int maxPerSource = Math.max(1, request.getMaxResults() / Math.max(1, enabledSources.size()));
+            for (String sourceName : enabledSources) {
+                futures.add(fetchAsync(sourceName, request.getKeyword(), maxPerSource, run, tag));
+            }
+        }
 
-        int maxPerSource = Math.max(1, request.getMaxResults() / enabledSources.size());
+        // 每个任务自带截止时间，拉取失败或超时按空结果完成，allOf不会因单个数据源失败而中断
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
 
-        for (String sourceName : enabledSources) {
-            CompletableFuture<List<MedicalLiterature>> future = CompletableFuture.supplyAsync(() -> {
-                SourceClient client = findSourceClient(sourceName);
-                if (client == null) {
-                    log.warn("Source {} client not found", sourceName);
-                    return new ArrayList<>();
-                }
+    /**
+     * 异步拉取单个数据源，每解析出一页/一批就在拉取线程上提交到流水线
+     * 截止时间从任务开始执行时计时，只覆盖拉取本身：在线程池中排队的时间和提交流水线时（队列满）的等待都不计入。
+     * 超时后中断拉取任务，已提交的页照常入库；拉取失败或超时都正常完成，只有提交流水线失败时异常完成
+     */
+    private CompletableFuture<Void> fetchAsync(String sourceName, String keyword, int maxResults,
+                                               StagedPipeline.Run run, String tag) {
+        SourceClient client = findSourceClient(sourceName);
+        if (client == null) {
+            log.warn("Source {} client not found", sourceName);
+            return CompletableFuture.completedFuture(null);
+        }
 
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicReference<Future<?>> task = new AtomicReference<>();
+        try {
+            task.set(executorService.submit(() -> {
+                SourceDeadline deadline = new SourceDeadline(sourceName, task);
+                AtomicReference<RuntimeException> submitFailure = new AtomicReference<>();
                 try {
-                    log.info("Parallel fetching from {}: maxResults={}", sourceName, maxPerSource);
-                    List<MedicalLiterature> papers = client.fetch(request.getKeyword(), maxPerSource);
-
-                    if (papers != null && !papers.isEmpty()) {
-                        log.info("Successfully fetched {} papers from {} (parallel)", papers.size(), sourceName);
-                        return papers;
+                    fetch(client, sourceName, keyword, maxResults, papers -> {
+                        if (!deadline.pause()) {
+                            throw new CancellationException("Fetching from " + sourceName + " exceeded deadline");
+                        }
+                        try {
+                            submit(run, tag, papers);
+                        } catch (RuntimeException e) {
+                            submitFailure.set(e);
+                            throw e;
+                        }
+                        deadline.resume();
+                    });
+                    deadline.pause();
+                    done.complete(null);
+                } catch (Throwable e) {
+                    if (submitFailure.get() != null) {
+                        done.completeExceptionally(submitFailure.get());
+                    } else if (!deadline.pause()) {
+                        // 已超时，中断引起的异常不再处理
+                        done.complete(null);
                     } else {
-                        log.warn("No papers returned from {} (parallel)", sourceName);
-                        return new ArrayList<>();
+                        log.error("Error fetching from {} (parallel): {}", sourceName, e.getMessage());
+                        done.complete(null);
                     }
-                } catch (Exception e) {
-                    log.error("Error fetching from {} (parallel): {}", sourceName, e.getMessage());
-                    return new ArrayList<>();
                 }
-            }, executorService);
+            }));
+        } catch (RejectedExecutionException e) {
+            log.error("Error fetching from {} (parallel): {}", sourceName, e.getMessage());
+            done.complete(null);
+        }
+        return done;
+    }
 
-            futures.add(future);
+    /**
+     * 单个拉取任务的截止时间，只在拉取线程上调用
+     * 创建时开始计时；提交流水线前pause、提交后resume，累计的拉取耗时超过sourceDeadlineMs时取消（中断）该任务
+     */
+    private class SourceDeadline {
+        private final String sourceName;
+        private final AtomicReference<Future<?>> task;
+        private final long deadlineMs = crawlerProperties.getSourceDeadlineMs();
+        private long remainingNanos = TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        private long resumedAt;
+        private CompletableFuture<Void> timer;
+        private boolean paused = true;
+        private boolean expired;
+
+        SourceDeadline(String sourceName, AtomicReference<Future<?>> task) {
+            this.sourceName = sourceName;
+            this.task = task;
+            resume();
         }
 
-        // 等待所有任务完成
-        try {
-            for (CompletableFuture<List<MedicalLiterature>> future : futures) {
-                List<MedicalLiterature> papers = future.get(30, TimeUnit.SECONDS);
-                allPapers.addAll(papers);
+        void resume() {
+            if (!paused || expired) {
+                return;
             }
-        } catch (Exception e) {
-            log.error("Error in parallel fetching: {}", e.getMessage());
+            paused = false;
+            resumedAt = System.nanoTime();
+            timer = new CompletableFuture<>();
+            timer.orTimeout(remainingNanos, TimeUnit.NANOSECONDS).whenComplete((v, e) -> {
+                if (e instanceof TimeoutException) {
+                    Future<?> running = task.get();
+                    if (running != null) {
+                        running.cancel(true);
+                    }
+                    log.warn("Fetching from {} exceeded deadline of {}ms, cancelled", sourceName, deadlineMs);
+                }
+            });
+        }
+
+        /**
+         * 暂停计时
+         * @return false 表示已超时
+         */
+        boolean pause() {
+            if (!paused) {
+                paused = true;
+                remainingNanos -= System.nanoTime() - resumedAt;
+                expired = !timer.complete(null);
+            }
+            return !expired;
         }
+    }
 
-        return allPapers;
+    private void fetch(SourceClient client, String sourceName, String keyword, int maxResults,
+                       Consumer<List<MedicalLiterature>> consumer) {
+        log.info("Parallel fetching from {}: keyword={}, maxResults={}", sourceName, keyword, maxResults);
+        int[] fetched = {0};
+        client.fetch(keyword, maxResults, papers -> {
+            fetched[0] += papers.size();
+            consumer.accept(papers);
+        });
+        if (fetched[0] == 0) {
+            log.warn("No papers returned from {} (parallel)", sourceName);
+        } else {
+            log.info("Successfully fetched {} papers from {} (parallel)", fetched[0], sourceName);
+        }
     }
 
     /**
-     * 顺序从数据源拉取数据（原有逻辑）
+     * 顺序拉取：每页拉到即提交，已提交的页在流水线中入库时，数据源继续拉取下一页或下一个数据源
      */
-    private List<MedicalLiterature> fetchFromSourcesSequential(CrawlRequest request, List<String> enabledSources) {
-        List<MedicalLiterature> allPapers = new ArrayList<>();
-        Map<String, Integer> sourceStats = new HashMap<>();
-        int remainingCount = request.getMaxResults();
+    private void fetchSequential(List<CrawlRequest> requests, StagedPipeline.Run run) {
+        for (int i = 0; i < requests.size(); i++) {
+            CrawlRequest request = requests.get(i);
+            int remainingCount = request.getMaxResults();
 
-        for (String sourceName : enabledSources) {
-            if (remainingCount <= 0) break;
-
-            SourceClient client = findSourceClient(sourceName);
-            if (client == null) {
-                log.warn("Source {} client not found", sourceName);
-                continue;
-            }
+            for (String sourceName : getEnabledSources(request)) {
+                if (remainingCount <= 0) break;
 
-            try {
-                int maxForThisSource = Math.min(remainingCount, crawlerProperties.getMaxPerSource());
-                log.info("Sequential fetching from {}: maxResults={}, remaining={}", sourceName, maxForThisSource, remainingCount);
-
-                List<MedicalLiterature> papers = client.fetch(request.getKeyword(), maxForThisSource);
-                if (papers != null && !papers.isEmpty()) {
-                    allPapers.addAll(papers);
-                    sourceStats.put(sourceName, papers.size());
-                    remainingCount -= papers.size();
-                    log.info("Successfully fetched {} papers from {}", papers.size(), sourceName);
-                } else {
-                    log.warn("No papers returned from {}", sourceName);
-                    sourceStats.put(sourceName, 0);
+                SourceClient client = findSourceClient(sourceName);
+                if (client == null) {
+                    log.warn("Source {} client not found", sourceName);
+                    continue;
                 }
 
-                // 请求间隔
-                if (remainingCount > 0) {
-                    Thread.sleep(crawlerProperties.getRetryDelayMs());
+                try {
+                    int maxForThisSource = Math.min(remainingCount, crawlerProperties.getMaxPerSource());
+                    log.info("Sequential fetching from {}: maxResults={}, remaining={}", sourceName, maxForThisSource, remainingCount);
+
+                    String tag = tag(i);
+                    int[] fetched = {0};
+                    client.fetch(request.getKeyword(), maxForThisSource, papers -> {
+                        submit(run, tag, papers);
+                        fetched[0] += papers.size();
+                    });
+                    remainingCount -= fetched[0];
+                    if (fetched[0] > 0) {
+                        log.info("Successfully fetched {} papers from {}", fetched[0], sourceName);
+                    } else {
+                        log.warn("No papers returned from {}", sourceName);
+                    }
+                } catch (Exception e) {
+                    log.error("Failed to fetch from source: {}", sourceName, e);
                 }
+            }
+        }
+    }
 
-            } catch (Exception e) {
-                log.error("Failed to fetch from source: {}", sourceName, e);
-                sourceStats.put(sourceName, 0);
+    /**
+     * 按流水线批大小切分后提交
+     */
+    private void submit(StagedPipeline.Run run, String tag, List<MedicalLiterature> papers) {
+        int batchSize = Math.max(1, crawlerProperties.getPipeline().getBatchSize());
+        try {
+            for (int from = 0; from < papers.size(); from += batchSize) {
+                run.submit(tag, papers.subList(from, Math.min(from + batchSize, papers.size())));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting to pipeline", e);
         }
-        
-        log.info("Total fetched: {} papers from {} sources", allPapers.size(), sourceStats.size());
-        return allPapers;
     }
     
     /**
@@ -242,30 +361,6 @@ public class Orchestrator {
             .orElse(null);
     }
     
-    /**
-     * 保存文献
-     */
-    private int persistPapers(List<MedicalLiterature> papers) {
-        int savedCount = 0;
-
-        log.info("Attempting to save {} papers to database", papers.size());
-
-        for (int i = 0; i < papers.size(); i++) {
-            MedicalLiterature paper = papers.get(i);
-            try {
-                log.debug("Saving paper {}/{}: {}", i + 1, papers.size(), paper.getTitle());
-                medicalLiteratureService.add(paper);
-                savedCount++;
-                log.debug("Successfully saved paper: {}", paper.getTitle());
-            } catch (Exception e) {
-                log.error("Failed to save paper {}/{}: {}", i + 1, papers.size(), paper.getTitle(), e);
-            }
-        }
-
-        log.info("Successfully saved {}/{} papers to database", savedCount, papers.size());
-        return savedCount;
-    }
-    
     /**
      * 便捷的爬取方法（兼容旧接口）
      */
@@ -287,31 +382,15 @@ public class Orchestrator {
         status.put("classifyEnabled", crawlerProperties.isClassifyEnabled());
         status.put("maxPerSource", crawlerProperties.getMaxPerSource());
 
-        // 检查各数据源状态
+        // 检查各数据源状态（探测结果按TTL缓存）
         Map<String, Boolean> sourceStatus = new HashMap<>();
         for (SourceClient client : sourceClients) {
             sourceStatus.put(client.getSourceName(), client.isAvailable());
         }
         status.put("sourceStatus", sourceStatus);
+        status.put("circuitStates", sourceGuard.getCircuitStates());
+        status.put("http", httpClient.getStats());
 
         return status;
     }
-
-    /**
-     * 清理资源
-     */
-    public void shutdown() {
-        if (executorService != null && !executorService.isShutdown()) {
-            log.info("Shutting down crawler executor service");
-            executorService.shutdown();
-            try {
-                if (!executorService.awaitTermination(30, TimeUnit.SECONDS)) {
-                    executorService.shutdownNow();
-                }
-            } catch (InterruptedException e) {
-                executorService.shutdownNow();
-                Thread.currentThread().interrupt();
-            }
-        }
-    }
 }
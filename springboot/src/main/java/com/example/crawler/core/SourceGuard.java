@@ -0,0 +1,165 @@
+package com.example.crawler.core;
+
+import com.example.crawler.sources.SourceHttpException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据源请求保护：每个数据源一个令牌桶限流 + 带抖动的指数退避重试 + 熔断器
+ * 数据源的每一次HTTP请求都经过 {@link #call(String, Callable)}
+ */
+@Component
+public class SourceGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceGuard.class);
+
+    // 单次退避的上限
+    private static final long MAX_BACKOFF_MS = 30000;
+
+    @Autowired
+    private CrawlerProperties crawlerProperties;
+
+    private final Map<String, Guard> guards = new ConcurrentHashMap<>();
+
+    /**
+     * 在限流、重试和熔断保护下执行一次数据源请求
+     * @param source 数据源名称（对应 crawler.source-configs 的键）
+     * @param request 请求逻辑，非200状态应抛出 {@link SourceHttpException}
+     */
+    public <T> T call(String source, Callable<T> request) throws Exception {
+        Guard guard = guards.computeIfAbsent(source, this::createGuard);
+        int attempts = Math.max(1, guard.retryAttempts);
+
+        for (int attempt = 1; ; attempt++) {
+            guard.bucket.acquire();
+            try {
+                return guard.circuitBreaker.executeCallable(request);
+            } catch (CallNotPermittedException e) {
+                log.warn("Circuit breaker for {} is {}, request rejected", source, guard.circuitBreaker.getState());
+                throw e;
+            } catch (Exception e) {
+                if (attempt >= attempts || !isRetryable(e)) {
+                    throw e;
+                }
+                long backoff = backoffMs(attempt, e);
+                log.warn("{} request failed (attempt {}/{}): {}, retrying in {}ms",
+                    source, attempt, attempts, e.getMessage(), backoff);
+                TimeUnit.MILLISECONDS.sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * 各数据源熔断器状态
+     */
+    public Map<String, String> getCircuitStates() {
+        Map<String, String> states = new HashMap<>();
+        guards.forEach((source, guard) -> states.put(source, guard.circuitBreaker.getState().name()));
+        return states;
+    }
+
+    /**
+     * 指数退避 + 等量抖动：在 [cap/2, cap] 内随机，服务端给出Retry-After时不少于该值
+     */
+    private long backoffMs(int attempt, Exception e) {
+        long base = Math.max(1, crawlerProperties.getRetryDelayMs());
+        long cap = Math.min(MAX_BACKOFF_MS, base << Math.min(attempt - 1, 16));
+        long backoff = cap / 2 + ThreadLocalRandom.current().nextLong(cap / 2 + 1);
+        if (e instanceof SourceHttpException) {
+            backoff = Math.max(backoff, ((SourceHttpException) e).getRetryAfterMs());
+        }
+        return backoff;
+    }
+
+    private static boolean isRetryable(Throwable e) {
+        if (e instanceof SourceHttpException) {
+            return ((SourceHttpException) e).isRetryable();
+        }
+        // 连接超时、连接重置等IO错误
+        return e instanceof IOException || e instanceof UncheckedIOException;
+    }
+
+    private Guard createGuard(String source) {
+        CrawlerProperties.SourceConfig config = crawlerProperties.getSourceConfigs().get(source);
+        if (config == null) {
+            config = new CrawlerProperties.SourceConfig();
+        }
+
+        CircuitBreakerConfig breakerConfig = CircuitBreakerConfig.custom()
+            .failureRateThreshold(config.getFailureRateThreshold())
+            .slidingWindowSize(config.getSlidingWindowSize())
+            .minimumNumberOfCalls(Math.min(5, config.getSlidingWindowSize()))
+            .waitDurationInOpenState(Duration.ofMillis(config.getOpenStateMs()))
+            .permittedNumberOfCallsInHalfOpenState(1)
+            // 只有可重试的故障（429、5xx、IO错误）计入失败率，404之类的业务错误不触发熔断
+            .recordException(SourceGuard::isRetryable)
+            .build();
+
+        Guard guard = new Guard();
+        guard.bucket = new TokenBucket(config.getRatePerSecond(), config.getBurst());
+        guard.circuitBreaker = CircuitBreaker.of("crawler-" + source, breakerConfig);
+        guard.retryAttempts = config.getRetryAttempts() != null
+            ? config.getRetryAttempts() : crawlerProperties.getRetryAttempts();
+        guard.circuitBreaker.getEventPublisher()
+            .onStateTransition(event -> log.warn("Circuit breaker {} transition: {}",
+                event.getCircuitBreakerName(), event.getStateTransition()));
+
+        log.info("Source guard for {}: rate={}/s, burst={}, retryAttempts={}",
+            source, config.getRatePerSecond(), config.getBurst(), guard.retryAttempts);
+        return guard;
+    }
+
+    private static class Guard {
+        private TokenBucket bucket;
+        private CircuitBreaker circuitBreaker;
+        private int retryAttempts;
+    }
+
+    /**
+     * 令牌桶：按预约方式排队，令牌不足时返回需要等待的时间，在锁外休眠
+     */
+    static class TokenBucket {
+        private final double permitsPerNano;
+        private final double burst;
+        private double stored;
+        private long lastNanos;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this.permitsPerNano = Math.max(ratePerSecond, 0.001) / 1e9;
+            this.burst = Math.max(1, burst);
+            this.stored = this.burst;
+            this.lastNanos = System.nanoTime();
+        }
+
+        void acquire() throws InterruptedException {
+            long waitNanos = reserve();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        private synchronized long reserve() {
+            long now = System.nanoTime();
+            stored = Math.min(burst, stored + (now - lastNanos) * permitsPerNano);
+            lastNanos = now;
+            stored -= 1;
+            // 令牌为负表示已预约到未来，后来者依次排在后面
+            return stored >= 0 ? 0 : (long) (-stored / permitsPerNano);
+        }
+    }
+}
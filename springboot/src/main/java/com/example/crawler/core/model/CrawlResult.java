@@ -1,5 +1,6 @@
 package com.example.crawler.core.model;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,6 +14,7 @@ public class CrawlResult {
     private long durationMs;
     private Map<String, Integer> sourceStats; // 各数据源的贡献数量
     private String message;
+    private List<Double> chunkRowsPerSecond; // 每个批次的入库速率（行/秒）
     
     public CrawlResult() {}
     
@@ -42,6 +44,9 @@ public class CrawlResult {
     public String getMessage() { return message; }
     public void setMessage(String message) { this.message = message; }
     
+    public List<Double> getChunkRowsPerSecond() { return chunkRowsPerSecond; }
+    public void setChunkRowsPerSecond(List<Double> chunkRowsPerSecond) { this.chunkRowsPerSecond = chunkRowsPerSecond; }
+    
     public double getTps() {
         return durationMs > 0 ? (saved * 1000.0 / durationMs) : 0;
     }
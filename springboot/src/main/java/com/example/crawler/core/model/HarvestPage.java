@@ -0,0 +1,36 @@
+package com.example.crawler.core.model;
+
+import com.example.entity.MedicalLiterature;
+
+import java.util.List;
+
+/**
+ * 分页拉取结果
+ */
+public class HarvestPage {
+    
+    private List<MedicalLiterature> papers;
+    private String nextCursor; // null表示已拉取完毕
+    private long total = -1;   // 数据源报告的总数，未知为-1
+    
+    public HarvestPage() {}
+    
+    public HarvestPage(List<MedicalLiterature> papers, String nextCursor) {
+        this.papers = papers;
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+    
+    // Getters and Setters
+    public List<MedicalLiterature> getPapers() { return papers; }
+    public void setPapers(List<MedicalLiterature> papers) { this.papers = papers; }
+    
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+    
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+}
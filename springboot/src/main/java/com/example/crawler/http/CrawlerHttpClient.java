@@ -0,0 +1,327 @@
+package com.example.crawler.http;
+
+import com.example.crawler.core.CrawlerProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.GzipSource;
+import okio.InflaterSource;
+import okio.Okio;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.Inflater;
+
+/**
+ * 爬虫共享HTTP客户端
+ * - 共享连接池，HTTPS上自动协商HTTP/2
+ * - 同步调用不经过Dispatcher的并发限制，这里用信号量限制总并发（max-requests）和每主机并发（max-requests-per-host），
+ *   许可在响应体关闭时归还，等待超过 request-timeout-ms 抛 InterruptedIOException
+ * - 请求携带 Accept-Encoding: gzip, deflate，响应透明解压
+ * - 磁盘缓存保存ETag/Last-Modified，每次请求强制校验（max-age=0），未变化时服务端返回304直接使用缓存
+ * - 数据源健康探测结果按TTL缓存
+ * - 按主机记录请求耗时直方图，连接池使用情况注册为Gauge
+ */
+@Component
+public class CrawlerHttpClient {
+
+    private static final Logger log = LoggerFactory.getLogger(CrawlerHttpClient.class);
+
+    private static final String METRIC_REQUESTS = "crawler.http.requests";
+
+    // 始终向服务端校验缓存
+    private static final CacheControl REVALIDATE = new CacheControl.Builder().maxAge(0, TimeUnit.SECONDS).build();
+
+    @Autowired
+    private CrawlerProperties crawlerProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private OkHttpClient client;
+    private ConnectionPool connectionPool;
+    private Dispatcher dispatcher;
+    private Cache cache;
+
+    private final Map<String, ProbeResult> probes = new ConcurrentHashMap<>();
+
+    private Semaphore totalPermits;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger activeCalls = new AtomicInteger();
+    private final AtomicInteger waitingCalls = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        CrawlerProperties.Http config = crawlerProperties.getHttp();
+
+        totalPermits = new Semaphore(Math.max(1, config.getMaxRequests()), true);
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+        connectionPool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveMs(), TimeUnit.MILLISECONDS);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(connectionPool)
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(crawlerProperties.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)
+            .addInterceptor(this::limited)
+            .addInterceptor(this::timed)
+            .addNetworkInterceptor(CrawlerHttpClient::decompress);
+
+        if (config.getCacheSizeMb() > 0) {
+            String dir = config.getCacheDir() != null && !config.getCacheDir().isEmpty()
+                ? config.getCacheDir() : System.getProperty("java.io.tmpdir") + File.separator + "crawler-http-cache";
+            cache = new Cache(new File(dir), config.getCacheSizeMb() * 1024L * 1024L);
+            builder.cache(cache);
+        }
+        client = builder.build();
+
+        Gauge.builder("crawler.http.pool.connections", connectionPool, ConnectionPool::connectionCount).register(meterRegistry);
+        Gauge.builder("crawler.http.pool.idle", connectionPool, ConnectionPool::idleConnectionCount).register(meterRegistry);
+        Gauge.builder("crawler.http.calls.running", activeCalls, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("crawler.http.calls.queued", waitingCalls, AtomicInteger::get).register(meterRegistry);
+
+        log.info("Crawler HTTP client: maxRequests={}, maxRequestsPerHost={}, maxIdle={}, cache={}",
+            config.getMaxRequests(), config.getMaxRequestsPerHost(), config.getMaxIdleConnections(),
+            cache != null ? cache.directory() : "disabled");
+    }
+
+    /**
+     * 发起GET请求，调用方负责关闭Response
+     */
+    public Response get(String url) throws IOException {
+        Request request = new Request.Builder()
+            .url(url)
+            .header("User-Agent", crawlerProperties.getHttp().getUserAgent())
+            .cacheControl(REVALIDATE)
+            .build();
+        return client.newCall(request).execute();
+    }
+
+    /**
+     * 健康探测：TTL内直接返回上次结果，不重复请求
+     * @param key 探测键（通常为数据源名称）
+     * @param url 探测地址
+     * @param check 对响应体的判断，null表示只要求200
+     */
+    public boolean probe(String key, String url, Predicate<String> check) {
+        long now = System.currentTimeMillis();
+        ProbeResult cached = probes.get(key);
+        if (cached != null && now - cached.checkedAt < crawlerProperties.getHttp().getHealthTtlMs()) {
+            return cached.available;
+        }
+
+        boolean available;
+        try (Response response = get(url)) {
+            available = response.isSuccessful()
+                && (check == null || (response.body() != null && check.test(response.body().string())));
+        } catch (Exception e) {
+            log.warn("{} health check failed: {}", key, e.getMessage());
+            available = false;
+        }
+        probes.put(key, new ProbeResult(available, now));
+        return available;
+    }
+
+    /**
+     * 连接池、缓存和各主机延迟统计
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connectionPool.connectionCount());
+        stats.put("idleConnections", connectionPool.idleConnectionCount());
+        stats.put("runningCalls", activeCalls.get());
+        stats.put("queuedCalls", waitingCalls.get());
+        if (cache != null) {
+            stats.put("cacheRequests", cache.requestCount());
+            stats.put("cacheNetwork", cache.networkCount());
+            stats.put("cacheHits", cache.hitCount());
+        }
+
+        Map<String, Object> latency = new HashMap<>();
+        for (Timer timer : meterRegistry.find(METRIC_REQUESTS).timers()) {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("count", snapshot.count());
+            item.put("meanMs", Math.round(snapshot.mean(TimeUnit.MILLISECONDS)));
+            item.put("maxMs", Math.round(snapshot.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                item.put("p" + Math.round(percentile.percentile() * 100) + "Ms",
+                    Math.round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            latency.put(timer.getId().getTag("host") + " " + timer.getId().getTag("status"), item);
+        }
+        stats.put("latency", latency);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.executorService().shutdown();
+        connectionPool.evictAll();
+        if (cache != null) {
+            try {
+                cache.close();
+            } catch (IOException e) {
+                log.warn("Failed to close crawler HTTP cache", e);
+            }
+        }
+    }
+
+    /**
+     * 并发限制：先取主机许可再取总许可，响应体关闭（或请求失败）时归还
+     */
+    private Response limited(Interceptor.Chain chain) throws IOException {
+        String host = chain.request().url().host();
+        Semaphore hostPermit = hostPermits.computeIfAbsent(host,
+            h -> new Semaphore(Math.max(1, crawlerProperties.getHttp().getMaxRequestsPerHost()), true));
+        acquire(hostPermit, host);
+        try {
+            acquire(totalPermits, host);
+        } catch (IOException e) {
+            hostPermit.release();
+            throw e;
+        }
+        activeCalls.incrementAndGet();
+
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                activeCalls.decrementAndGet();
+                totalPermits.release();
+                hostPermit.release();
+            }
+        };
+        try {
+            Response response = chain.proceed(chain.request());
+            ResponseBody body = response.body();
+            if (body == null) {
+                release.run();
+                return response;
+            }
+            BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        release.run();
+                    }
+                }
+            });
+            return response.newBuilder()
+                .body(ResponseBody.create(source, body.contentType(), body.contentLength()))
+                .build();
+        } catch (IOException | RuntimeException e) {
+            release.run();
+            throw e;
+        }
+    }
+
+    private void acquire(Semaphore permits, String host) throws IOException {
+        waitingCalls.incrementAndGet();
+        try {
+            if (!permits.tryAcquire(crawlerProperties.getRequestTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                throw new InterruptedIOException("Timed out waiting for a request slot to " + host);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot to " + host);
+        } finally {
+            waitingCalls.decrementAndGet();
+        }
+    }
+
+    /**
+     * 按主机和状态码记录请求耗时
+     */
+    private Response timed(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        long start = System.nanoTime();
+        String status = "IO_ERROR";
+        try {
+            Response response = chain.proceed(request);
+            status = response.cacheResponse() != null && response.networkResponse() == null
+                ? "CACHED" : String.valueOf(response.code());
+            return response;
+        } finally {
+            Timer.builder(METRIC_REQUESTS)
+                .tag("host", request.url().host())
+                .tag("status", status)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 协商gzip/deflate并解压响应（OkHttp默认只处理gzip）
+     */
+    private static Response decompress(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request().newBuilder()
+            .header("Accept-Encoding", "gzip, deflate")
+            .build();
+        Response response = chain.proceed(request);
+
+        String encoding = response.header("Content-Encoding");
+        ResponseBody body = response.body();
+        if (encoding == null || body == null) {
+            return response;
+        }
+
+        BufferedSource decoded;
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            decoded = Okio.buffer(new GzipSource(body.source()));
+        } else if ("deflate".equalsIgnoreCase(encoding)) {
+            decoded = Okio.buffer(new InflaterSource(body.source(), new Inflater()));
+        } else {
+            return response;
+        }
+        return response.newBuilder()
+            .removeHeader("Content-Encoding")
+            .removeHeader("Content-Length")
+            .body(ResponseBody.create(decoded, body.contentType(), -1L))
+            .build();
+    }
+
+    private static class ProbeResult {
+        private final boolean available;
+        private final long checkedAt;
+
+        ProbeResult(boolean available, long checkedAt) {
+            this.available = available;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
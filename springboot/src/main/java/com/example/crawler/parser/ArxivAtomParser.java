@@ -0,0 +1,166 @@
+package com.example.crawler.parser;
+
+import com.example.entity.MedicalLiterature;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.function.Consumer;
+
+/**
+ * arXiv Atom响应流式解析器
+ * 直接从HTTP输入流读取，每解析完一个entry立即交给下游，内存占用与结果条数无关
+ */
+@Component
+public class ArxivAtomParser {
+
+    private static final int MAX_AUTHORS = 10;
+
+    /**
+     * 解析Atom响应
+     * @param in 响应输入流（由调用方关闭）
+     * @param sink 文献接收方
+     * @return 解析出的文献数
+     */
+    public int parse(InputStream in, Consumer<MedicalLiterature> sink) throws XMLStreamException {
+        return parseFeed(in, sink).getParsed();
+    }
+
+    /**
+     * 解析Atom响应，并返回原始entry数和opensearch:totalResults
+     * 缺标题的entry会被丢弃，分页是否到末尾要按原始entry数判断，不能按解析出的文献数
+     * @param in 响应输入流（由调用方关闭）
+     * @param sink 文献接收方
+     */
+    public FeedSummary parseFeed(InputStream in, Consumer<MedicalLiterature> sink) throws XMLStreamException {
+        XMLStreamReader reader = StaxSupport.createReader(in);
+        FeedSummary summary = new FeedSummary();
+        try {
+            EntryState entry = null;
+            boolean inAuthor = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("entry".equals(name)) {
+                        entry = new EntryState();
+                        summary.entries++;
+                        continue;
+                    }
+                    if (entry == null) {
+                        if ("totalResults".equals(name)) {
+                            summary.totalResults = parseLong(StaxSupport.readText(reader));
+                        }
+                        continue;
+                    }
+                    switch (name) {
+                        case "author":
+                            inAuthor = true;
+                            break;
+                        case "name":
+                            if (inAuthor) entry.addAuthor(StaxSupport.readText(reader));
+                            break;
+                        case "title":
+                            entry.paper.setTitle(StaxSupport.readText(reader));
+                            break;
+                        case "summary":
+                            entry.paper.setAbstractContent(StaxSupport.readText(reader));
+                            break;
+                        case "id":
+                            entry.paper.setSourceUrl(StaxSupport.readText(reader));
+                            break;
+                        case "published":
+                            String published = StaxSupport.readText(reader);
+                            entry.paper.setPublishDate(published.substring(0, Math.min(published.length(), 10)));
+                            break;
+                        case "category":
+                            // 第一个分类作为关键词（主分类）
+                            String term = StaxSupport.attribute(reader, "term");
+                            if (entry.paper.getKeywords() == null && term != null && !term.isEmpty()) {
+                                entry.paper.setKeywords(term);
+                            }
+                            break;
+                        case "doi":
+                            entry.paper.setDoi(StaxSupport.readText(reader));
+                            break;
+                        default:
+                            break;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("author".equals(name)) {
+                        inAuthor = false;
+                    } else if ("entry".equals(name) && entry != null) {
+                        MedicalLiterature paper = entry.finish();
+                        if (paper != null) {
+                            sink.accept(paper);
+                            summary.parsed++;
+                        }
+                        entry = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return summary;
+    }
+
+    private static long parseLong(String text) {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 一页Atom响应的统计
+     */
+    public static class FeedSummary {
+        private int entries;
+        private int parsed;
+        private long totalResults = -1;
+
+        /** 响应中的entry元素数（含被丢弃的） */
+        public int getEntries() { return entries; }
+
+        /** 解析出并交给下游的文献数 */
+        public int getParsed() { return parsed; }
+
+        /** opensearch:totalResults，响应中没有时为-1 */
+        public long getTotalResults() { return totalResults; }
+    }
+
+    /**
+     * 单个entry的解析状态
+     */
+    private static class EntryState {
+        private final MedicalLiterature paper = new MedicalLiterature();
+        private final StringBuilder authors = new StringBuilder();
+        private int authorCount;
+
+        void addAuthor(String name) {
+            if (name.isEmpty() || authorCount >= MAX_AUTHORS) return;
+            if (authors.length() > 0) authors.append(", ");
+            authors.append(name);
+            authorCount++;
+        }
+
+        MedicalLiterature finish() {
+            if (paper.getTitle() == null || paper.getTitle().isEmpty()) {
+                return null;
+            }
+            paper.setAuthors(authors.toString());
+            paper.setJournal("arXiv Preprint");
+            paper.setCrawlSource("arXiv");
+            paper.setStatus("active");
+            paper.setCreateTime(new Date());
+            return paper;
+        }
+    }
+}
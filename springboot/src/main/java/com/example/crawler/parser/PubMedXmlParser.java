@@ -0,0 +1,290 @@
+package com.example.crawler.parser;
+
+import com.example.entity.MedicalLiterature;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * PubMed efetch (PubmedArticleSet) 流式解析器
+ * 解析标题、作者、期刊、摘要、DOI、发表日期和关键词，每篇文章解析完立即交给下游
+ */
+@Component
+public class PubMedXmlParser {
+
+    private static final int MAX_AUTHORS = 10;
+    private static final String[] MONTHS = {
+        "jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"
+    };
+
+    /**
+     * 解析efetch XML响应
+     * @param in 响应输入流（由调用方关闭）
+     * @param sink 文献接收方
+     * @return 解析出的文献数
+     */
+    public int parse(InputStream in, Consumer<MedicalLiterature> sink) throws XMLStreamException {
+        XMLStreamReader reader = StaxSupport.createReader(in);
+        int count = 0;
+        try {
+            Deque<String> path = new ArrayDeque<>();
+            ArticleState article = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    String parent = path.peek();
+                    path.push(name);
+
+                    if ("PubmedArticle".equals(name)) {
+                        article = new ArticleState();
+                        continue;
+                    }
+                    if (article == null) {
+                        continue;
+                    }
+                    if (handleStart(reader, name, parent, path, article)) {
+                        // readText已消费到结束标签
+                        path.pop();
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    path.poll();
+                    if (article == null) {
+                        continue;
+                    }
+                    if ("Author".equals(name)) {
+                        article.finishAuthor();
+                    } else if ("PubmedArticle".equals(name)) {
+                        MedicalLiterature paper = article.finish();
+                        if (paper != null) {
+                            sink.accept(paper);
+                            count++;
+                        }
+                        article = null;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return count;
+    }
+
+    /**
+     * 处理开始标签
+     * @return 是否已通过readText消费到对应结束标签
+     */
+    private boolean handleStart(XMLStreamReader reader, String name, String parent,
+                                Deque<String> path, ArticleState article) throws XMLStreamException {
+        switch (name) {
+            case "PMID":
+                if ("MedlineCitation".equals(parent) && article.pmid == null) {
+                    article.pmid = StaxSupport.readText(reader);
+                    return true;
+                }
+                return false;
+            case "ArticleTitle":
+                article.title = StaxSupport.readText(reader);
+                return true;
+            case "AbstractText":
+                if ("Abstract".equals(parent)) {
+                    String label = StaxSupport.attribute(reader, "Label");
+                    article.addAbstract(label, StaxSupport.readText(reader));
+                    return true;
+                }
+                return false;
+            case "Title":
+                if ("Journal".equals(parent)) {
+                    article.journal = StaxSupport.readText(reader);
+                    return true;
+                }
+                return false;
+            case "LastName":
+            case "ForeName":
+            case "Initials":
+            case "CollectiveName":
+                if ("Author".equals(parent)) {
+                    article.authorPart(name, StaxSupport.readText(reader));
+                    return true;
+                }
+                return false;
+            case "Year":
+            case "Month":
+            case "Day":
+            case "MedlineDate":
+                if ("PubDate".equals(parent)) {
+                    article.datePart(name, StaxSupport.readText(reader));
+                    return true;
+                }
+                return false;
+            case "Keyword":
+                article.keywords.add(StaxSupport.readText(reader));
+                return true;
+            case "DescriptorName":
+                article.meshTerms.add(StaxSupport.readText(reader));
+                return true;
+            case "ELocationID":
+                if ("doi".equals(StaxSupport.attribute(reader, "EIdType")) && article.doi == null) {
+                    article.doi = StaxSupport.readText(reader);
+                    return true;
+                }
+                return false;
+            case "ArticleId":
+                // 只取文章自身的ID（PubmedData/ArticleIdList），忽略参考文献列表中的ID
+                if ("doi".equals(StaxSupport.attribute(reader, "IdType")) && article.doi == null
+                        && "ArticleIdList".equals(parent) && isUnder(path, "PubmedData", 2)) {
+                    article.doi = StaxSupport.readText(reader);
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 判断路径栈中第depth层（0为当前元素）是否为指定元素
+     */
+    private static boolean isUnder(Deque<String> path, String name, int depth) {
+        int i = 0;
+        for (String element : path) {
+            if (i++ == depth) {
+                return name.equals(element);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 单篇文章的解析状态
+     */
+    private static class ArticleState {
+        private String pmid;
+        private String title;
+        private String journal;
+        private String doi;
+        private final StringBuilder abstractText = new StringBuilder();
+        private final StringBuilder authors = new StringBuilder();
+        private int authorCount;
+        private String lastName, foreName, initials, collectiveName;
+        private String year, month, day, medlineDate;
+        private final List<String> keywords = new ArrayList<>();
+        private final List<String> meshTerms = new ArrayList<>();
+
+        void addAbstract(String label, String text) {
+            if (text.isEmpty()) return;
+            if (abstractText.length() > 0) abstractText.append(' ');
+            if (label != null && !label.isEmpty()) {
+                abstractText.append(label).append(": ");
+            }
+            abstractText.append(text);
+        }
+
+        void authorPart(String part, String value) {
+            switch (part) {
+                case "LastName": lastName = value; break;
+                case "ForeName": foreName = value; break;
+                case "Initials": initials = value; break;
+                default: collectiveName = value; break;
+            }
+        }
+
+        void finishAuthor() {
+            String name;
+            if (lastName != null) {
+                String given = foreName != null ? foreName : initials;
+                name = given != null && !given.isEmpty() ? given + " " + lastName : lastName;
+            } else {
+                name = collectiveName;
+            }
+            if (name != null && !name.isEmpty() && authorCount < MAX_AUTHORS) {
+                if (authors.length() > 0) authors.append(", ");
+                authors.append(name);
+                authorCount++;
+            }
+            lastName = foreName = initials = collectiveName = null;
+        }
+
+        void datePart(String part, String value) {
+            switch (part) {
+                case "Year": year = value; break;
+                case "Month": month = value; break;
+                case "Day": day = value; break;
+                default: medlineDate = value; break;
+            }
+        }
+
+        MedicalLiterature finish() {
+            if (title == null || title.isEmpty()) {
+                return null;
+            }
+            MedicalLiterature paper = new MedicalLiterature();
+            paper.setTitle(title);
+            paper.setAuthors(authors.toString());
+            paper.setJournal(journal);
+            paper.setAbstractContent(abstractText.length() > 0 ? abstractText.toString() : null);
+            paper.setDoi(doi);
+            paper.setPublishDate(formatDate());
+            List<String> terms = !keywords.isEmpty() ? keywords : meshTerms;
+            if (!terms.isEmpty()) {
+                paper.setKeywords(String.join(", ", terms));
+            }
+            if (pmid != null) {
+                paper.setSourceUrl("https://pubmed.ncbi.nlm.nih.gov/" + pmid + "/");
+            }
+            paper.setCrawlSource("PubMed");
+            paper.setStatus("active");
+            paper.setCreateTime(new Date());
+            return paper;
+        }
+
+        /**
+         * 发表日期格式化为 yyyy、yyyy-MM 或 yyyy-MM-dd
+         */
+        private String formatDate() {
+            if (year == null) {
+                // MedlineDate形如 "2023 Jan-Feb"，取年份
+                if (medlineDate != null && medlineDate.length() >= 4) {
+                    return medlineDate.substring(0, 4);
+                }
+                return null;
+            }
+            StringBuilder date = new StringBuilder(year);
+            int m = monthNumber(month);
+            if (m > 0) {
+                date.append('-').append(m < 10 ? "0" : "").append(m);
+                if (day != null && !day.isEmpty()) {
+                    date.append('-').append(day.length() == 1 ? "0" : "").append(day);
+                }
+            }
+            return date.toString();
+        }
+
+        private static int monthNumber(String month) {
+            if (month == null || month.isEmpty()) return 0;
+            if (Character.isDigit(month.charAt(0))) {
+                try {
+                    return Integer.parseInt(month);
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+            String prefix = month.length() >= 3 ? month.substring(0, 3).toLowerCase() : month.toLowerCase();
+            for (int i = 0; i < MONTHS.length; i++) {
+                if (MONTHS[i].equals(prefix)) return i + 1;
+            }
+            return 0;
+        }
+    }
+}
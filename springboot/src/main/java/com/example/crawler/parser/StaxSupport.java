@@ -0,0 +1,98 @@
+package com.example.crawler.parser;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * StAX流式解析公共方法
+ * 关闭DTD和外部实体（PubMed efetch响应带DOCTYPE），逐元素读取，不构建DOM
+ */
+public final class StaxSupport {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private StaxSupport() {}
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    /**
+     * 基于输入流创建读取器（XMLInputFactory创建读取器是线程安全的）
+     */
+    public static XMLStreamReader createReader(InputStream in) throws XMLStreamException {
+        return FACTORY.createXMLStreamReader(in);
+    }
+
+    /**
+     * 读取当前元素的全部文本（包含内嵌的 i、sup 等行内标签），读取后游标停在对应的结束标签
+     */
+    public static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        int depth = 1;
+        while (depth > 0 && reader.hasNext()) {
+            int event = reader.next();
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    depth++;
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    text.append(reader.getText());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return collapseWhitespace(text);
+    }
+
+    /**
+     * 读取属性值（忽略命名空间）
+     */
+    public static String attribute(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 合并连续空白并去除首尾空白
+     */
+    static String collapseWhitespace(CharSequence text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        boolean lastSpace = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (!lastSpace) {
+                    sb.append(' ');
+                    lastSpace = true;
+                }
+            } else {
+                sb.append(c);
+                lastSpace = false;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') {
+            sb.setLength(len - 1);
+        }
+        return sb.toString();
+    }
+}
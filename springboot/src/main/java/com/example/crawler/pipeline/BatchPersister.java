@@ -0,0 +1,94 @@
+package com.example.crawler.pipeline;
+
+import com.example.crawler.core.CrawlerProperties;
+import com.example.entity.MedicalLiterature;
+import com.example.service.MedicalLiteratureService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量入库处理器
+ * 按批次多行插入，每个批次一个事务；批次失败时二分拆分定位坏行
+ */
+@Component
+public class BatchPersister {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchPersister.class);
+
+    @Autowired
+    private CrawlerProperties crawlerProperties;
+
+    @Autowired
+    private MedicalLiteratureService medicalLiteratureService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 批量保存文献
+     * @param papers 待保存文献
+     * @return 保存结果（成功行数及各批次速率）
+     */
+    public PersistResult persist(List<MedicalLiterature> papers) {
+        PersistResult result = new PersistResult();
+        if (papers == null || papers.isEmpty()) {
+            return result;
+        }
+
+        int batchSize = Math.max(1, crawlerProperties.getPersistBatchSize());
+        log.info("Persisting {} papers in chunks of {}", papers.size(), batchSize);
+
+        for (int from = 0; from < papers.size(); from += batchSize) {
+            List<MedicalLiterature> chunk = papers.subList(from, Math.min(from + batchSize, papers.size()));
+
+            long chunkStart = System.nanoTime();
+            int saved = persistChunk(chunk);
+            long elapsedNanos = Math.max(1, System.nanoTime() - chunkStart);
+
+            double rowsPerSecond = saved * 1_000_000_000.0 / elapsedNanos;
+            result.saved += saved;
+            result.chunkRowsPerSecond.add(rowsPerSecond);
+            log.debug("Chunk [{}, {}) saved {}/{} rows, {} rows/s",
+                from, from + chunk.size(), saved, chunk.size(), String.format("%.1f", rowsPerSecond));
+        }
+
+        log.info("Successfully saved {}/{} papers to database", result.saved, papers.size());
+        return result;
+    }
+
+    /**
+     * 在单个事务内写入一个批次，失败时对半拆分重试，直到定位到单条坏行
+     */
+    private int persistChunk(List<MedicalLiterature> chunk) {
+        try {
+            Integer inserted = transactionTemplate.execute(status -> medicalLiteratureService.insertBatch(chunk));
+            return inserted != null ? inserted : 0;
+        } catch (Exception e) {
+            if (chunk.size() == 1) {
+                log.error("Failed to save paper: {}", chunk.get(0).getTitle(), e);
+                return 0;
+            }
+            log.warn("Chunk of {} rows failed, splitting: {}", chunk.size(), e.getMessage());
+            int mid = chunk.size() / 2;
+            return persistChunk(chunk.subList(0, mid)) + persistChunk(chunk.subList(mid, chunk.size()));
+        }
+    }
+
+    /**
+     * 入库结果
+     */
+    public static class PersistResult {
+        private int saved;
+        private final List<Double> chunkRowsPerSecond = new ArrayList<>();
+
+        public int getSaved() { return saved; }
+
+        public List<Double> getChunkRowsPerSecond() { return chunkRowsPerSecond; }
+    }
+}
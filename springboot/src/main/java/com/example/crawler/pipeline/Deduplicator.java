@@ -2,6 +2,8 @@ package com.example.crawler.pipeline;
 
 import com.example.entity.MedicalLiterature;
 import com.example.mapper.MedicalLiteratureMapper;
+import com.example.service.NearDuplicateIndexService;
+import com.example.utils.LiteratureKeyUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,91 +18,146 @@ import java.util.Set;
  */
 @Component
 public class Deduplicator {
-    
+
     private static final Logger log = LoggerFactory.getLogger(Deduplicator.class);
-    
+
+    // 单条IN查询的最大参数个数
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
     @Autowired
     private MedicalLiteratureMapper medicalLiteratureMapper;
-    
+
+    @Autowired
+    private NearDuplicateIndexService nearDuplicateIndexService;
+
     /**
      * 去重处理
      * @param papers 原始文献列表
      * @return 去重后的文献列表
      */
     public List<MedicalLiterature> deduplicate(List<MedicalLiterature> papers) {
+        return deduplicate(papers, new Session());
+    }
+
+    /**
+     * 去重处理（跨批次）
+     * 同一次爬取的多个批次共享一个Session，批次间的重复由Session识别
+     * @param papers 本批次文献
+     * @param session 本次爬取已接收的去重键
+     * @return 去重后的文献列表
+     */
+    public List<MedicalLiterature> deduplicate(List<MedicalLiterature> papers, Session session) {
+        // 计算去重键
+        for (MedicalLiterature paper : papers) {
+            paper.setDoi(LiteratureKeyUtil.normalizeDoi(paper.getDoi()));
+            paper.setTitleHash(LiteratureKeyUtil.titleHash(paper.getTitle()));
+        }
+
+        // 一次性查出整批文献在库中已存在的键
+        ExistingKeys existing = loadExistingKeys(papers);
+
         List<MedicalLiterature> uniquePapers = new ArrayList<>();
-        Set<String> seenTitles = new HashSet<>();
-        Set<String> seenUrls = new HashSet<>();
-        
         for (MedicalLiterature paper : papers) {
-            if (isDuplicate(paper, seenTitles, seenUrls)) {
+            if (isDuplicate(paper, existing, session)) {
                 log.debug("Duplicate paper found: {}", paper.getTitle());
                 continue;
             }
-            
             uniquePapers.add(paper);
-            
-            // 记录已见过的标识
-            if (paper.getTitle() != null) {
-                seenTitles.add(normalizeTitle(paper.getTitle()));
-            }
-            if (paper.getSourceUrl() != null) {
-                seenUrls.add(paper.getSourceUrl());
-            }
         }
-        
+
         log.info("Deduplication: {} -> {} papers", papers.size(), uniquePapers.size());
         return uniquePapers;
     }
-    
+
     /**
      * 检查是否重复
      */
-    private boolean isDuplicate(MedicalLiterature paper, Set<String> seenTitles, Set<String> seenUrls) {
-        // 1. 检查URL重复
-        if (paper.getSourceUrl() != null && seenUrls.contains(paper.getSourceUrl())) {
+    private boolean isDuplicate(MedicalLiterature paper, ExistingKeys existing, Session session) {
+        // 1. 检查数据库中是否存在（DOI / 原文链接 / 标题哈希）
+        if (existing.contains(paper)) {
             return true;
         }
-        
-        // 2. 检查标题重复（内存中）
-        if (paper.getTitle() != null) {
-            String normalizedTitle = normalizeTitle(paper.getTitle());
-            if (seenTitles.contains(normalizedTitle)) {
-                return true;
+
+        // 2. 检查全库近似重复（MinHash/LSH内存索引）
+        if (nearDuplicateIndexService.isNearDuplicate(paper.getTitle())) {
+            return true;
+        }
+
+        // 3. 检查本次爬取内重复，未重复时登记其标识
+        return !session.claim(paper);
+    }
+
+    /**
+     * 按DOI、原文链接、标题哈希分块批量查询已存在的文献
+     */
+    private ExistingKeys loadExistingKeys(List<MedicalLiterature> papers) {
+        ExistingKeys existing = new ExistingKeys();
+        int queries = 0;
+
+        for (int from = 0; from < papers.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<MedicalLiterature> chunk = papers.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, papers.size()));
+            Set<String> dois = new HashSet<>();
+            Set<String> urls = new HashSet<>();
+            Set<String> hashes = new HashSet<>();
+            for (MedicalLiterature paper : chunk) {
+                if (paper.getDoi() != null) dois.add(paper.getDoi());
+                if (paper.getSourceUrl() != null) urls.add(paper.getSourceUrl());
+                if (paper.getTitleHash() != null) hashes.add(paper.getTitleHash());
+            }
+            if (dois.isEmpty() && urls.isEmpty() && hashes.isEmpty()) {
+                continue;
+            }
+
+            try {
+                for (MedicalLiterature row : medicalLiteratureMapper.selectExistingKeys(dois, urls, hashes)) {
+                    existing.add(LiteratureKeyUtil.normalizeDoi(row.getDoi()), row.getSourceUrl(), row.getTitleHash());
+                }
+                queries++;
+            } catch (Exception e) {
+                log.warn("Failed to check database duplicates for chunk [{}, {})", from, from + chunk.size(), e);
             }
         }
-        
-        // 3. 检查数据库中是否存在
-        return isDuplicateInDatabase(paper);
+
+        log.debug("Loaded existing keys for {} papers with {} queries", papers.size(), queries);
+        return existing;
     }
-    
+
     /**
-     * 检查数据库中是否存在重复
+     * 一次爬取内已接收的去重键，可被多个去重线程共享
      */
-    private boolean isDuplicateInDatabase(MedicalLiterature paper) {
-        try {
-            // 基于标题和作者检查
-            if (paper.getTitle() != null) {
-                String normalizedTitle = normalizeTitle(paper.getTitle());
-                boolean exists = medicalLiteratureMapper.existsByTitleAndAuthors(
-                    normalizedTitle, paper.getAuthors());
-                return exists;
+    public static class Session {
+        private final ExistingKeys keys = new ExistingKeys();
+
+        /**
+         * 文献未与已接收的文献重复时登记其标识并返回true
+         */
+        public synchronized boolean claim(MedicalLiterature paper) {
+            if (keys.contains(paper)) {
+                return false;
             }
-        } catch (Exception e) {
-            log.warn("Failed to check database duplicate for: {}", paper.getTitle(), e);
+            keys.add(paper.getDoi(), paper.getSourceUrl(), paper.getTitleHash());
+            return true;
         }
-        
-        return false;
     }
-    
+
     /**
-     * 标题标准化
+     * 去重键集合
      */
-    private String normalizeTitle(String title) {
-        if (title == null) return "";
-        return title.toLowerCase()
-                   .replaceAll("[^a-zA-Z0-9\\s]", "")
-                   .replaceAll("\\s+", " ")
-                   .trim();
+    private static class ExistingKeys {
+        private final Set<String> dois = new HashSet<>();
+        private final Set<String> urls = new HashSet<>();
+        private final Set<String> titleHashes = new HashSet<>();
+
+        void add(String doi, String url, String titleHash) {
+            if (doi != null) dois.add(doi);
+            if (url != null) urls.add(url);
+            if (titleHash != null) titleHashes.add(titleHash);
+        }
+
+        boolean contains(MedicalLiterature paper) {
+            return (paper.getDoi() != null && dois.contains(paper.getDoi()))
+                || (paper.getSourceUrl() != null && urls.contains(paper.getSourceUrl()))
+                || (paper.getTitleHash() != null && titleHashes.contains(paper.getTitleHash()));
+        }
     }
 }
@@ -63,6 +63,8 @@ public class Normalizer {
         
         if (paper.getJournal() == null || paper.getJournal().trim().isEmpty()) {
             paper.setJournal("Unknown");
+        } else if (paper.getJournal().length() > 200) {
+            paper.setJournal(paper.getJournal().substring(0, 197) + "...");
         }
         
         // 关键词处理
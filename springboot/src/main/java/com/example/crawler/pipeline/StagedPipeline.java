@@ -0,0 +1,312 @@
+package com.example.crawler.pipeline;
+
+import com.example.crawler.core.CrawlerProperties;
+import com.example.entity.MedicalLiterature;
+import com.example.service.LiteratureClassifierService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * 分阶段爬虫流水线
+ *
+ * 归一化 → 去重 → 分类（可选） → 入库，各阶段之间是有界队列，每个阶段有独立的工作线程数。
+ * 生产者（数据源拉取线程）按页/批提交，队列满时 submit 阻塞，入库变慢时压力逐级传回数据源。
+ * 每批入库后即可查询到，内存占用只与队列容量×批大小有关。
+ */
+@Component
+public class StagedPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(StagedPipeline.class);
+
+    // 阶段结束标记
+    private static final Batch END = new Batch(null, Collections.emptyList(), null, null);
+
+    private static final AtomicInteger RUN_COUNTER = new AtomicInteger();
+
+    @Autowired
+    private CrawlerProperties crawlerProperties;
+
+    @Autowired
+    private Normalizer normalizer;
+
+    @Autowired
+    private Deduplicator deduplicator;
+
+    @Autowired
+    private LiteratureClassifierService classifierService;
+
+    @Autowired
+    private BatchPersister batchPersister;
+
+    /**
+     * 启动一次流水线运行
+     * @param classify 是否启用分类阶段
+     */
+    public Run start(boolean classify) {
+        return new Run(classify);
+    }
+
+    /**
+     * 流水线中流动的一批文献
+     */
+    private static class Batch {
+        private final String tag;
+        private final List<MedicalLiterature> papers;
+        private final IntConsumer onPersisted;
+        private final Consumer<Throwable> onFailed;
+
+        Batch(String tag, List<MedicalLiterature> papers, IntConsumer onPersisted, Consumer<Throwable> onFailed) {
+            this.tag = tag;
+            this.papers = papers;
+            this.onPersisted = onPersisted;
+            this.onFailed = onFailed;
+        }
+
+        Batch with(List<MedicalLiterature> next) {
+            return new Batch(tag, next, onPersisted, onFailed);
+        }
+    }
+
+    /**
+     * 一次流水线运行：producer调用submit，全部提交后调用finish等待排空
+     */
+    public class Run {
+
+        private final int id = RUN_COUNTER.incrementAndGet();
+        private final Deduplicator.Session session = new Deduplicator.Session();
+        private final Map<String, TagStats> stats = new ConcurrentHashMap<>();
+        private final Stage head;
+        private final CountDownLatch drained = new CountDownLatch(1);
+        private volatile boolean finished;
+
+        private Run(boolean classify) {
+            CrawlerProperties.Pipeline config = crawlerProperties.getPipeline();
+
+            // 从末端往前构建各阶段
+            Stage persist = new Stage("persist", config.getPersistWorkers(), config.getQueueCapacity(), null, this::persist);
+            Stage next = persist;
+            if (classify) {
+                next = new Stage("classify", config.getClassifyWorkers(), config.getQueueCapacity(), next, this::classify);
+            }
+            Stage dedup = new Stage("dedup", config.getDedupWorkers(), config.getQueueCapacity(), next, this::dedup);
+            head = new Stage("normalize", config.getNormalizeWorkers(), config.getQueueCapacity(), dedup, this::normalize);
+
+            for (Stage stage = head; stage != null; stage = stage.next) {
+                stage.startWorkers();
+            }
+        }
+
+        /**
+         * 提交一批文献，下游队列已满时阻塞
+         * @param tag 统计分组（关键词或数据源）
+         * @param papers 本批文献
+         * @param onPersisted 本批入库后回调（参数为入库条数），可为null
+         * @param onFailed 本批在某个阶段失败时回调，可为null
+         */
+        public void submit(String tag, List<MedicalLiterature> papers,
+                           IntConsumer onPersisted, Consumer<Throwable> onFailed) throws InterruptedException {
+            if (finished) {
+                throw new IllegalStateException("Pipeline run " + id + " already finished");
+            }
+            stats(tag).found.addAndGet(papers.size());
+            head.queue.put(new Batch(tag, new ArrayList<>(papers), onPersisted, onFailed));
+        }
+
+        public void submit(String tag, List<MedicalLiterature> papers) throws InterruptedException {
+            submit(tag, papers, null, null);
+        }
+
+        /**
+         * 不再提交，等待所有批次流过入库阶段
+         */
+        public void finish() throws InterruptedException {
+            finished = true;
+            head.end();
+            drained.await();
+        }
+
+        public int getFound(String tag) {
+            TagStats tagStats = stats.get(tag);
+            return tagStats != null ? tagStats.found.get() : 0;
+        }
+
+        public int getSaved(String tag) {
+            TagStats tagStats = stats.get(tag);
+            return tagStats != null ? tagStats.saved.get() : 0;
+        }
+
+        public int getTotalFound() {
+            return stats.values().stream().mapToInt(s -> s.found.get()).sum();
+        }
+
+        public int getTotalSaved() {
+            return stats.values().stream().mapToInt(s -> s.saved.get()).sum();
+        }
+
+        /**
+         * 某个统计分组各入库分块的写入速率（行/秒）
+         */
+        public List<Double> getChunkRowsPerSecond(String tag) {
+            TagStats tagStats = stats.get(tag);
+            return tagStats != null ? tagStats.chunkRowsPerSecond() : new ArrayList<>();
+        }
+
+        /**
+         * 本次运行全部分组的分块写入速率
+         */
+        public List<Double> getChunkRowsPerSecond() {
+            List<Double> all = new ArrayList<>();
+            for (TagStats tagStats : stats.values()) {
+                all.addAll(tagStats.chunkRowsPerSecond());
+            }
+            return all;
+        }
+
+        private TagStats stats(String tag) {
+            return stats.computeIfAbsent(tag, key -> new TagStats());
+        }
+
+        private Batch normalize(Batch batch) {
+            normalizer.normalize(batch.papers);
+            return batch;
+        }
+
+        private Batch dedup(Batch batch) {
+            return batch.with(deduplicator.deduplicate(batch.papers, session));
+        }
+
+        private Batch classify(Batch batch) {
+            classifierService.classifyLiteratures(batch.papers);
+            return batch;
+        }
+
+        private Batch persist(Batch batch) {
+            BatchPersister.PersistResult result = batchPersister.persist(batch.papers);
+            TagStats tagStats = stats(batch.tag);
+            tagStats.saved.addAndGet(result.getSaved());
+            tagStats.chunkRowsPerSecond.addAll(result.getChunkRowsPerSecond());
+            if (batch.onPersisted != null) {
+                batch.onPersisted.accept(result.getSaved());
+            }
+            return null;
+        }
+
+        /**
+         * 一个流水线阶段：有界输入队列 + 固定数量的工作线程
+         */
+        private class Stage {
+            private final String name;
+            private final int workers;
+            private final BlockingQueue<Batch> queue;
+            private final Stage next;
+            private final UnaryOperator<Batch> handler;
+            private final AtomicInteger alive;
+
+            Stage(String name, int workers, int capacity, Stage next, UnaryOperator<Batch> handler) {
+                this.name = name;
+                this.workers = Math.max(1, workers);
+                this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+                this.next = next;
+                this.handler = handler;
+                this.alive = new AtomicInteger(this.workers);
+            }
+
+            void startWorkers() {
+                for (int i = 0; i < workers; i++) {
+                    Thread thread = new Thread(this::work, "crawl-" + id + "-" + name + "-" + i);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+            }
+
+            /**
+             * 通知本阶段上游已结束：每个工作线程一个结束标记
+             */
+            void end() throws InterruptedException {
+                for (int i = 0; i < workers; i++) {
+                    queue.put(END);
+                }
+            }
+
+            private void failed(Batch batch, Throwable e) {
+                if (batch.onFailed == null) {
+                    return;
+                }
+                try {
+                    batch.onFailed.accept(e);
+                } catch (Throwable callbackError) {
+                    log.error("Pipeline stage {} failure callback failed", name, callbackError);
+                }
+            }
+
+            private void work() {
+                try {
+                    while (true) {
+                        Batch batch = queue.take();
+                        if (batch == END) {
+                            break;
+                        }
+                        Batch out;
+                        try {
+                            out = handler.apply(batch);
+                        } catch (Throwable e) {
+                            // 按批捕获所有异常（包括Error）：工作线程不能因为一批失败而退出，
+                            // 否则最后一个线程退出后上游会永远阻塞在本阶段满了的队列上
+                            log.error("Pipeline stage {} failed for batch of {} papers", name, batch.papers.size(), e);
+                            failed(batch, e);
+                            continue;
+                        }
+                        if (out != null && next != null) {
+                            // 下游队列满时阻塞，形成背压
+                            next.queue.put(out);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Pipeline stage {} interrupted", name);
+                } finally {
+                    // 最后一个退出的工作线程负责通知下游
+                    if (alive.decrementAndGet() == 0) {
+                        try {
+                            if (next != null) {
+                                next.end();
+                            } else {
+                                drained.countDown();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            drained.countDown();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static class TagStats {
+        private final AtomicInteger found = new AtomicInteger();
+        private final AtomicInteger saved = new AtomicInteger();
+        private final List<Double> chunkRowsPerSecond = Collections.synchronizedList(new ArrayList<>());
+
+        List<Double> chunkRowsPerSecond() {
+            synchronized (chunkRowsPerSecond) {
+                return new ArrayList<>(chunkRowsPerSecond);
+            }
+        }
+    }
+}
@@ -1,17 +1,21 @@
 package com.example.crawler.sources;
 
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
+import com.example.crawler.core.SourceGuard;
+import com.example.crawler.core.model.HarvestPage;
+import com.example.crawler.http.CrawlerHttpClient;
 import com.example.entity.MedicalLiterature;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * bioRxiv数据源 - 生物医学预印本服务器
@@ -21,6 +25,18 @@ public class BioRxivSource implements SourceClient {
     
     private static final Logger log = LoggerFactory.getLogger(BioRxivSource.class);
     private static final String API_URL = "https://api.biorxiv.org/details/biorxiv";
+    // API固定每页100条
+    private static final int PAGE_SIZE = 100;
+    // 普通抓取最多翻页数
+    private static final int MAX_FETCH_PAGES = 10;
+    // 批量回填的日期窗口（天）
+    private static final int HARVEST_WINDOW_DAYS = 365;
+
+    @Autowired
+    private SourceGuard sourceGuard;
+
+    @Autowired
+    private CrawlerHttpClient httpClient;
     
     @Override
     public String getSourceName() {
@@ -29,59 +45,111 @@ public class BioRxivSource implements SourceClient {
     
     @Override
     public boolean isAvailable() {
-        try {
-            String endDate = java.time.LocalDate.now().toString();
-            String startDate = java.time.LocalDate.now().minusDays(1).toString();
-            HttpResponse response = HttpRequest.get(API_URL + "/" + startDate + "/" + endDate)
-                .timeout(8000)
-                .execute();
-            return response.getStatus() == 200 && response.body() != null && response.body().contains("collection");
-        } catch (Exception e) {
-            log.warn("bioRxiv health check failed: {}", e.getMessage());
-            return false;
-        }
+        String endDate = java.time.LocalDate.now().toString();
+        String startDate = java.time.LocalDate.now().minusDays(1).toString();
+        return httpClient.probe(getSourceName(), API_URL + "/" + startDate + "/" + endDate,
+            body -> body.contains("collection"));
     }
     
     @Override
     public List<MedicalLiterature> fetch(String keyword, int maxResults) {
         List<MedicalLiterature> papers = new ArrayList<>();
+        fetch(keyword, maxResults, papers::addAll);
+        return papers;
+    }
+    
+    /**
+     * 逐页读取日期窗口，每页过滤后立即交给consumer，直到凑够maxResults或读完
+     */
+    @Override
+    public void fetch(String keyword, int maxResults, Consumer<List<MedicalLiterature>> consumer) {
+        // bioRxiv API按日期范围获取，我们获取最近的论文然后过滤
+        String endDate = java.time.LocalDate.now().toString();
+        String startDate = java.time.LocalDate.now().minusDays(30).toString(); // 最近30天
         
-        try {
-            // bioRxiv API按日期范围获取，我们获取最近的论文然后过滤
-            String endDate = java.time.LocalDate.now().toString();
-            String startDate = java.time.LocalDate.now().minusDays(30).toString(); // 最近30天
-            
-            String apiUrl = API_URL + "/" + startDate + "/" + endDate;
-            log.debug("Fetching from bioRxiv: {}", apiUrl);
-            
-            HttpResponse response = HttpRequest.get(apiUrl)
-                .header("User-Agent", "Academic Research Tool")
-                .timeout(30000)
-                .execute();
-                
-            if (response.getStatus() != 200) {
-                log.warn("bioRxiv API request failed with status: {}", response.getStatus());
-                return papers;
+        int found = 0;
+        String cursor = new WindowCursor(startDate, endDate, 0).format();
+        for (int i = 0; i < MAX_FETCH_PAGES && cursor != null && found < maxResults; i++) {
+            HarvestPage page;
+            try {
+                page = fetchPage(keyword, cursor, PAGE_SIZE);
+            } catch (Exception e) {
+                log.error("Failed to fetch from bioRxiv", e);
+                break;
             }
-            
-            papers = parseResponse(response.body(), keyword, maxResults);
-            log.info("Found {} papers from bioRxiv", papers.size());
-            
+            List<MedicalLiterature> papers = page.getPapers();
+            if (papers.size() > maxResults - found) {
+                papers = new ArrayList<>(papers.subList(0, maxResults - found));
+            }
+            // 交付放在try之外，下游的异常（如中断）不当作拉取失败
+            if (!papers.isEmpty()) {
+                consumer.accept(papers);
+                found += papers.size();
+            }
+            cursor = page.getNextCursor();
+        }
+        log.info("Found {} papers from bioRxiv", found);
+    }
+    
+    /**
+     * 按日期窗口内的偏移分页拉取（每页100条，按关键词过滤）
+     * 游标格式：startDate|endDate|offset，首次调用回溯HARVEST_WINDOW_DAYS天
+     */
+    @Override
+    public HarvestPage fetchPage(String keyword, String cursor, int pageSize) {
+        WindowCursor window = WindowCursor.parse(cursor);
+        if (window == null) {
+            window = new WindowCursor(java.time.LocalDate.now().minusDays(HARVEST_WINDOW_DAYS).toString(),
+                java.time.LocalDate.now().toString(), 0);
+        }
+        
+        String apiUrl = API_URL + "/" + window.startDate + "/" + window.endDate + "/" + window.offset;
+        log.debug("Fetching from bioRxiv: {}", apiUrl);
+        
+        String body;
+        try {
+            body = sourceGuard.call(getSourceName(), () -> {
+                try (Response response = httpClient.get(apiUrl)) {
+                    if (!response.isSuccessful()) {
+                        throw SourceHttpException.of(getSourceName(), response);
+                    }
+                    return response.body().string();
+                }
+            });
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to fetch from bioRxiv", e);
+            throw new IllegalStateException("Failed to fetch bioRxiv page: " + e.getMessage(), e);
         }
         
-        return papers;
+        JSONObject json = new JSONObject(body);
+        JSONArray collection = json.getJSONArray("collection");
+        long total = 0;
+        JSONArray messages = json.getJSONArray("messages");
+        if (messages != null && !messages.isEmpty()) {
+            total = messages.getJSONObject(0).getLong("total", 0L);
+        }
+        
+        List<MedicalLiterature> papers = parseCollection(collection, keyword, Integer.MAX_VALUE);
+        int fetched = collection != null ? collection.size() : 0;
+        long nextOffset = window.offset + fetched;
+        String nextCursor = fetched > 0 && nextOffset < total
+            ? new WindowCursor(window.startDate, window.endDate, nextOffset).format()
+            : null;
+        
+        HarvestPage page = new HarvestPage(papers, nextCursor);
+        page.setTotal(total);
+        return page;
     }
     
-    private List<MedicalLiterature> parseResponse(String jsonContent, String keyword, int maxResults) {
+    private List<MedicalLiterature> parseCollection(JSONArray collection, String keyword, int maxResults) {
         List<MedicalLiterature> papers = new ArrayList<>();
+        if (collection == null) {
+            return papers;
+        }
         
         try {
-            JSONObject response = new JSONObject(jsonContent);
-            JSONArray collection = response.getJSONArray("collection");
-            
-            log.debug("bioRxiv returned {} total papers", collection.size());
+            log.debug("bioRxiv returned {} papers in page", collection.size());
             
             for (int i = 0; i < collection.size() && papers.size() < maxResults; i++) {
                 JSONObject paper = collection.getJSONObject(i);
@@ -134,6 +202,7 @@ public class BioRxivSource implements SourceClient {
             // DOI和URL
             String doi = paper.getStr("doi");
             if (doi != null && !doi.isEmpty()) {
+                literature.setDoi(doi);
                 literature.setSourceUrl("https://doi.org/" + doi);
             }
 
@@ -160,4 +229,40 @@ public class BioRxivSource implements SourceClient {
             return null;
         }
     }
+    
+    /**
+     * 日期窗口游标
+     */
+    private static class WindowCursor {
+        private final String startDate;
+        private final String endDate;
+        private final long offset;
+        
+        WindowCursor(String startDate, String endDate, long offset) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.offset = offset;
+        }
+        
+        static WindowCursor parse(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            String[] parts = cursor.split("\\|");
+            if (parts.length == 3) {
+                try {
+                    return new WindowCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+                } catch (NumberFormatException ignored) {
+                    // 按格式错误处理
+                }
+            }
+            // 断点内容损坏时从头开始，已入库的文献由去重跳过
+            log.warn("Malformed harvest cursor [{}], restarting from the beginning", cursor);
+            return null;
+        }
+        
+        String format() {
+            return startDate + "|" + endDate + "|" + offset;
+        }
+    }
 }
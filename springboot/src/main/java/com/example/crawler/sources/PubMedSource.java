@@ -1,18 +1,22 @@
 package com.example.crawler.sources;
 
-import cn.hutool.http.HttpRequest;
-import cn.hutool.http.HttpResponse;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
+import com.example.crawler.core.SourceGuard;
+import com.example.crawler.core.model.HarvestPage;
+import com.example.crawler.http.CrawlerHttpClient;
+import com.example.crawler.parser.PubMedXmlParser;
 import com.example.entity.MedicalLiterature;
+import okhttp3.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.net.URLEncoder;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * PubMed数据源
@@ -23,6 +27,19 @@ public class PubMedSource implements SourceClient {
     private static final Logger log = LoggerFactory.getLogger(PubMedSource.class);
     private static final String SEARCH_URL = "https://eutils.ncbi.nlm.nih.gov/entrez/eutils/esearch.fcgi";
     private static final String FETCH_URL = "https://eutils.ncbi.nlm.nih.gov/entrez/eutils/efetch.fcgi";
+    // esearch单次retmax上限
+    private static final int MAX_SEARCH_RESULTS = 10000;
+    // 每次efetch请求的PMID数量
+    private static final int FETCH_BATCH_SIZE = 200;
+
+    @Autowired
+    private PubMedXmlParser xmlParser;
+
+    @Autowired
+    private SourceGuard sourceGuard;
+
+    @Autowired
+    private CrawlerHttpClient httpClient;
     
     @Override
     public String getSourceName() {
@@ -31,39 +48,31 @@ public class PubMedSource implements SourceClient {
     
     @Override
     public boolean isAvailable() {
-        try {
-            String testUrl = SEARCH_URL + "?db=pubmed&term=test&retmode=json&retmax=1";
-            HttpResponse response = HttpRequest.get(testUrl)
-                .timeout(5000)
-                .execute();
-            return response.getStatus() == 200;
-        } catch (Exception e) {
-            log.warn("PubMed health check failed: {}", e.getMessage());
-            return false;
-        }
+        return httpClient.probe(getSourceName(), SEARCH_URL + "?db=pubmed&term=test&retmode=json&retmax=1", null);
     }
     
     @Override
     public List<MedicalLiterature> fetch(String keyword, int maxResults) {
         List<MedicalLiterature> papers = new ArrayList<>();
-        
-        try {
-            // 第一步：搜索获取ID列表
-            List<String> pmids = searchPubMed(keyword, maxResults);
-            if (pmids.isEmpty()) {
-                log.info("No PubMed IDs found for keyword: {}", keyword);
-                return papers;
-            }
-            
-            // 第二步：获取详细信息
-            papers = fetchDetails(pmids);
-            log.info("Found {} papers from PubMed", papers.size());
-            
-        } catch (Exception e) {
-            log.error("Failed to fetch from PubMed", e);
+        fetch(keyword, maxResults, papers::addAll);
+        return papers;
+    }
+    
+    /**
+     * 先esearch取PMID，再按FETCH_BATCH_SIZE分批efetch，每批解析完立即交给consumer
+     */
+    @Override
+    public void fetch(String keyword, int maxResults, Consumer<List<MedicalLiterature>> consumer) {
+        // 第一步：搜索获取ID列表
+        List<String> pmids = searchPubMed(keyword, maxResults);
+        if (pmids.isEmpty()) {
+            log.info("No PubMed IDs found for keyword: {}", keyword);
+            return;
         }
         
-        return papers;
+        // 第二步：获取详细信息
+        int found = fetchDetails(pmids, consumer);
+        log.info("Found {} papers from PubMed", found);
     }
     
     private List<String> searchPubMed(String keyword, int maxResults) {
@@ -73,17 +82,7 @@ public class PubMedSource implements SourceClient {
             String query = buildSearchQuery(keyword, maxResults);
             log.debug("Searching PubMed: {}", query);
             
-            HttpResponse response = HttpRequest.get(query)
-                .header("User-Agent", "Mozilla/5.0 (compatible; ResearchBot/1.0; +https://example.com/bot)")
-                .timeout(30000)
-                .execute();
-                
-            if (response.getStatus() != 200) {
-                log.warn("PubMed search failed with status: {}", response.getStatus());
-                return pmids;
-            }
-            
-            JSONObject result = new JSONObject(response.body());
+            JSONObject result = new JSONObject(get(query));
             JSONObject esearchresult = result.getJSONObject("esearchresult");
             JSONArray idlist = esearchresult.getJSONArray("idlist");
             
@@ -106,7 +105,7 @@ public class PubMedSource implements SourceClient {
             String ta = URLEncoder.encode(keyword + "[Title/Abstract]", "UTF-8");
             query.append("&term=").append(ta);
             query.append("&retmode=json");
-            query.append("&retmax=").append(Math.min(maxResults, 100)); // PubMed限制
+            query.append("&retmax=").append(Math.min(maxResults, MAX_SEARCH_RESULTS)); // PubMed限制
             query.append("&sort=pub+date");
             return query.toString();
         } catch (Exception e) {
@@ -114,67 +113,180 @@ public class PubMedSource implements SourceClient {
         }
     }
     
-    private List<MedicalLiterature> fetchDetails(List<String> pmids) {
-        List<MedicalLiterature> papers = new ArrayList<>();
+    private int fetchDetails(List<String> pmids, Consumer<List<MedicalLiterature>> consumer) {
+        int found = 0;
         
-        if (pmids.isEmpty()) return papers;
+        log.debug("Fetching PubMed details for {} PMIDs", pmids.size());
         
-        try {
-            String ids = String.join(",", pmids);
-            String query = FETCH_URL + "?db=pubmed&id=" + ids + "&retmode=xml";
-            
-            log.debug("Fetching PubMed details: {}", query);
+        // 按批次efetch，每批流式解析，不缓存整段XML
+        for (int from = 0; from < pmids.size(); from += FETCH_BATCH_SIZE) {
+            List<String> batch = pmids.subList(from, Math.min(from + FETCH_BATCH_SIZE, pmids.size()));
+            String query = FETCH_URL + "?db=pubmed&id=" + String.join(",", batch) + "&retmode=xml";
             
-            HttpResponse response = HttpRequest.get(query)
-                .header("User-Agent", "Mozilla/5.0 (compatible; ResearchBot/1.0; +https://example.com/bot)")
-                .timeout(30000)
-                .execute();
+            List<MedicalLiterature> papers = new ArrayList<>();
+            try {
+                int parsed = efetch(query, papers);
+                log.debug("Parsed {} PubMed articles from {} PMIDs", parsed, batch.size());
+            } catch (Exception e) {
+                log.error("Failed to fetch PubMed details", e);
+                continue;
+            }
+            // 交付放在try之外，下游的异常（如中断）不当作拉取失败
+            if (!papers.isEmpty()) {
+                consumer.accept(papers);
+                found += papers.size();
+            }
+        }
+        
+        return found;
+    }
+    
+    /**
+     * 执行efetch并流式解析到papers
+     * @return 解析出的文章数
+     */
+    private int efetch(String query, List<MedicalLiterature> papers) throws Exception {
+        List<MedicalLiterature> parsed = sourceGuard.call(getSourceName(), () -> {
+            try (Response response = httpClient.get(query)) {
+                if (!response.isSuccessful()) {
+                    throw SourceHttpException.of(getSourceName(), response);
+                }
                 
-            if (response.getStatus() != 200) {
-                log.warn("PubMed fetch failed with status: {}", response.getStatus());
-                return papers;
+                List<MedicalLiterature> batch = new ArrayList<>();
+                xmlParser.parse(response.body().byteStream(), batch::add);
+                return batch;
+            }
+        });
+        papers.addAll(parsed);
+        return parsed.size();
+    }
+    
+    /**
+     * 受保护的GET请求，返回响应体
+     */
+    private String get(String query) throws Exception {
+        return sourceGuard.call(getSourceName(), () -> {
+            try (Response response = httpClient.get(query)) {
+                if (!response.isSuccessful()) {
+                    throw SourceHttpException.of(getSourceName(), response);
+                }
+                return response.body().string();
+            }
+        });
+    }
+    
+    /**
+     * 基于History Server（WebEnv）分页拉取
+     * 游标格式：retstart|WebEnv|query_key|count
+     */
+    @Override
+    public HarvestPage fetchPage(String keyword, String cursor, int pageSize) {
+        int size = Math.min(pageSize, MAX_SEARCH_RESULTS);
+        try {
+            HistoryCursor history = HistoryCursor.parse(cursor);
+            if (history == null) {
+                history = openHistory(keyword, 0);
+                if (history == null) {
+                    return new HarvestPage(new ArrayList<>(), null);
+                }
+            }
+            
+            List<MedicalLiterature> papers = new ArrayList<>();
+            int parsed;
+            try {
+                parsed = efetch(buildHistoryFetchQuery(history, size), papers);
+            } catch (SourceHttpException e) {
+                if (e.isRetryable()) {
+                    throw e;
+                }
+                // WebEnv过期时efetch返回4xx
+                parsed = 0;
+            }
+            if (parsed == 0 && history.retstart < history.count) {
+                // WebEnv有效期有限，过期后重新检索并从原位置继续
+                log.info("PubMed WebEnv expired or empty page at retstart={}, reopening history", history.retstart);
+                history = openHistory(keyword, history.retstart);
+                if (history == null) {
+                    throw new IllegalStateException("Failed to reopen PubMed history for keyword: " + keyword);
+                }
+                efetch(buildHistoryFetchQuery(history, size), papers);
             }
             
-            // 简化解析：这里可以进一步优化XML解析
-            papers = parseXmlResponse(response.body(), pmids);
+            int nextStart = history.retstart + size;
+            String nextCursor = nextStart < history.count
+                ? new HistoryCursor(nextStart, history.webEnv, history.queryKey, history.count).format()
+                : null;
             
+            HarvestPage page = new HarvestPage(papers, nextCursor);
+            page.setTotal(history.count);
+            log.info("PubMed page retstart={} size={} parsed={} total={}", history.retstart, size, papers.size(), history.count);
+            return page;
+            
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to fetch PubMed details", e);
+            throw new IllegalStateException("Failed to fetch PubMed page: " + e.getMessage(), e);
         }
+    }
+    
+    /**
+     * 检索并把结果集保存到History Server
+     */
+    private HistoryCursor openHistory(String keyword, int retstart) throws Exception {
+        String term = URLEncoder.encode(keyword + "[Title/Abstract]", "UTF-8");
+        String query = SEARCH_URL + "?db=pubmed&term=" + term + "&retmode=json&retmax=0&usehistory=y&sort=pub+date";
         
-        return papers;
+        JSONObject result = new JSONObject(get(query)).getJSONObject("esearchresult");
+        int count = result.getInt("count", 0);
+        if (count == 0) {
+            return null;
+        }
+        return new HistoryCursor(retstart, result.getStr("webenv"), result.getStr("querykey"), count);
     }
     
-    private List<MedicalLiterature> parseXmlResponse(String xmlContent, List<String> pmids) {
-        List<MedicalLiterature> papers = new ArrayList<>();
-
-        log.debug("Parsing PubMed XML response for {} PMIDs", pmids.size());
-
-        // 简化实现：为每个PMID创建基础记录
-        // 实际项目中应该解析完整的XML响应
-        for (int i = 0; i < Math.min(pmids.size(), 3); i++) { // 限制为3篇以便测试
-            String pmid = pmids.get(i);
-            try {
-                MedicalLiterature paper = new MedicalLiterature();
-                paper.setTitle("Medical Research Article from PubMed (PMID: " + pmid + ")");
-                paper.setAuthors("Research Authors");
-                paper.setJournal("Medical Journal");
-                paper.setAbstractContent("This is a medical research article retrieved from PubMed database with PMID: " + pmid + ". The content discusses various aspects of medical research and clinical studies.");
-                paper.setSourceUrl("https://pubmed.ncbi.nlm.nih.gov/" + pmid + "/");
-                paper.setCrawlSource("PubMed");
-                paper.setStatus("active");
-                paper.setCreateTime(new Date());
-                paper.setKeywords("medical, research, pubmed");
-
-                papers.add(paper);
-                log.debug("Created PubMed paper: {}", paper.getTitle());
-
-            } catch (Exception e) {
-                log.warn("Failed to create PubMed paper for PMID: {}", pmid, e);
+    private String buildHistoryFetchQuery(HistoryCursor history, int size) throws Exception {
+        return FETCH_URL + "?db=pubmed&retmode=xml"
+            + "&WebEnv=" + URLEncoder.encode(history.webEnv, "UTF-8")
+            + "&query_key=" + history.queryKey
+            + "&retstart=" + history.retstart
+            + "&retmax=" + size;
+    }
+    
+    /**
+     * History Server游标
+     */
+    private static class HistoryCursor {
+        private final int retstart;
+        private final String webEnv;
+        private final String queryKey;
+        private final int count;
+        
+        HistoryCursor(int retstart, String webEnv, String queryKey, int count) {
+            this.retstart = retstart;
+            this.webEnv = webEnv;
+            this.queryKey = queryKey;
+            this.count = count;
+        }
+        
+        static HistoryCursor parse(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            String[] parts = cursor.split("\\|");
+            if (parts.length == 4) {
+                try {
+                    return new HistoryCursor(Integer.parseInt(parts[0]), parts[1], parts[2], Integer.parseInt(parts[3]));
+                } catch (NumberFormatException ignored) {
+                    // 按格式错误处理
+                }
             }
+            // 断点内容损坏时从头开始，已入库的文献由去重跳过
+            log.warn("Malformed harvest cursor [{}], restarting from the beginning", cursor);
+            return null;
+        }
+        
+        String format() {
+            return retstart + "|" + webEnv + "|" + queryKey + "|" + count;
         }
-
-        log.info("Generated {} PubMed papers from {} PMIDs", papers.size(), pmids.size());
-        return papers;
     }
 }
@@ -1,8 +1,12 @@
 package com.example.crawler.sources;
 
+import com.example.crawler.core.model.HarvestPage;
 import com.example.entity.MedicalLiterature;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
 
 /**
  * 数据源客户端接口
@@ -26,4 +30,59 @@ public interface SourceClient {
      * @return 文献列表
      */
     List<MedicalLiterature> fetch(String keyword, int maxResults);
+    
+    /**
+     * 从数据源获取文献，每解析出一页/一批就交给consumer，调用方可以边拉取边处理
+     * 默认实现退化为单次fetch后整批交付；consumer抛出的异常直接向上传播，不会被当作拉取失败吞掉
+     * @param keyword 搜索关键词
+     * @param maxResults 最大结果数
+     * @param consumer 接收每一批文献
+     */
+    default void fetch(String keyword, int maxResults, Consumer<List<MedicalLiterature>> consumer) {
+        List<MedicalLiterature> papers = fetch(keyword, maxResults);
+        if (papers != null && !papers.isEmpty()) {
+            consumer.accept(papers);
+        }
+    }
+    
+    /**
+     * 按游标分页拉取（批量回填使用）
+     * 默认实现不支持分页：首次调用退化为单次fetch，之后没有下一页
+     * @param keyword 搜索关键词
+     * @param cursor 游标，null表示从头开始
+     * @param pageSize 每页数量
+     * @return 当前页及下一页游标
+     */
+    default HarvestPage fetchPage(String keyword, String cursor, int pageSize) {
+        if (cursor != null) {
+            return new HarvestPage(List.of(), null);
+        }
+        return new HarvestPage(fetch(keyword, pageSize), null);
+    }
+    
+    /**
+     * 从指定游标开始逐页迭代
+     */
+    default Iterator<HarvestPage> pages(String keyword, String startCursor, int pageSize) {
+        return new Iterator<HarvestPage>() {
+            private String cursor = startCursor;
+            private boolean finished = false;
+            
+            @Override
+            public boolean hasNext() {
+                return !finished;
+            }
+            
+            @Override
+            public HarvestPage next() {
+                if (finished) {
+                    throw new NoSuchElementException();
+                }
+                HarvestPage page = fetchPage(keyword, cursor, pageSize);
+                cursor = page.getNextCursor();
+                finished = cursor == null;
+                return page;
+            }
+        };
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.crawler.sources;
+
+import okhttp3.Response;
+
+/**
+ * 数据源HTTP请求返回非200状态
+ */
+public class SourceHttpException extends RuntimeException {
+
+    private final int status;
+    private final long retryAfterMs; // 服务端要求的等待时间，未提供为0
+
+    public SourceHttpException(String source, int status, long retryAfterMs) {
+        super(source + " request failed with status: " + status);
+        this.status = status;
+        this.retryAfterMs = retryAfterMs;
+    }
+
+    /**
+     * 根据响应构造异常，读取Retry-After（秒）
+     */
+    public static SourceHttpException of(String source, Response response) {
+        long retryAfterMs = 0;
+        String retryAfter = response.header("Retry-After");
+        if (retryAfter != null) {
+            try {
+                retryAfterMs = Long.parseLong(retryAfter.trim()) * 1000;
+            } catch (NumberFormatException ignored) {
+                // HTTP日期格式的Retry-After按默认退避处理
+            }
+        }
+        return new SourceHttpException(source, response.code(), retryAfterMs);
+    }
+
+    /**
+     * 429和5xx可重试，其余4xx不重试
+     */
+    public boolean isRetryable() {
+        return status == 429 || status >= 500;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.Date;
+
+/**
+ * 批量回填断点（每个数据源+关键词一条）
+ */
+public class CrawlCheckpoint {
+
+    private Integer id;
+    private String source;               // 数据源名称
+    private String keyword;              // 关键词
+    private String pageCursor;              // 下一页游标，null表示从头开始
+    private Integer harvested;           // 已拉取条数
+    private Integer saved;               // 已入库条数
+    private String status;               // 状态（running、paused、done、failed）
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date updateTime;             // 更新时间
+
+    public Integer getId() {
+        return id;
+    }
+
+    public void setId(Integer id) {
+        this.id = id;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public String getPageCursor() {
+        return pageCursor;
+    }
+
+    public void setPageCursor(String pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+
+    public Integer getHarvested() {
+        return harvested;
+    }
+
+    public void setHarvested(Integer harvested) {
+        this.harvested = harvested;
+    }
+
+    public Integer getSaved() {
+        return saved;
+    }
+
+    public void setSaved(Integer saved) {
+        this.saved = saved;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -19,6 +19,9 @@ public class MedicalLiterature {
     private String sourceUrl;            // 原文链接
     private String crawlSource;          // 爬取来源（PubMed、arXiv等）
     private String status;               // 状态（active、deleted）
+    private String doi;                  // DOI号
+    private String titleHash;            // 标准化标题哈希（去重用）
+    private String category;             // 自动分类结果
 
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     private Date createTime;             // 创建时间
@@ -108,6 +111,30 @@ public class MedicalLiterature {
         this.status = status;
     }
 
+    public String getDoi() {
+        return doi;
+    }
+
+    public void setDoi(String doi) {
+        this.doi = doi;
+    }
+
+    public String getTitleHash() {
+        return titleHash;
+    }
+
+    public void setTitleHash(String titleHash) {
+        this.titleHash = titleHash;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
     public Date getCreateTime() {
         return createTime;
     }
@@ -0,0 +1,59 @@
+package com.example.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.Date;
+
+/**
+ * 统计计数快照（每个统计桶+指标一条）
+ */
+public class StatsSnapshot {
+
+    private String bucket;               // 统计桶：total 或日期 yyyy-MM-dd
+    private String metric;               // 指标名
+    private Long statValue;              // 计数值
+
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date updateTime;             // 更新时间
+
+    public StatsSnapshot() {
+    }
+
+    public StatsSnapshot(String bucket, String metric, Long statValue) {
+        this.bucket = bucket;
+        this.metric = metric;
+        this.statValue = statValue;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public void setBucket(String bucket) {
+        this.bucket = bucket;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public void setMetric(String metric) {
+        this.metric = metric;
+    }
+
+    public Long getStatValue() {
+        return statValue;
+    }
+
+    public void setStatValue(Long statValue) {
+        this.statValue = statValue;
+    }
+
+    public Date getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Date updateTime) {
+        this.updateTime = updateTime;
+    }
+}
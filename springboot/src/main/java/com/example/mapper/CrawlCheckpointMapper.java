@@ -0,0 +1,42 @@
+package com.example.mapper;
+
+import com.example.entity.CrawlCheckpoint;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 批量回填断点数据访问层
+ */
+public interface CrawlCheckpointMapper {
+
+    /**
+     * 查询数据源+关键词的断点
+     */
+    @Select("SELECT * FROM crawl_checkpoint WHERE source = #{source} AND keyword = #{keyword}")
+    CrawlCheckpoint selectOne(@Param("source") String source, @Param("keyword") String keyword);
+
+    /**
+     * 保存断点（不存在则插入）
+     */
+    @Insert("INSERT INTO crawl_checkpoint (source, keyword, page_cursor, harvested, saved, status, update_time) " +
+            "VALUES (#{source}, #{keyword}, #{pageCursor}, #{harvested}, #{saved}, #{status}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE page_cursor = VALUES(page_cursor), harvested = VALUES(harvested), " +
+            "saved = VALUES(saved), status = VALUES(status), update_time = NOW()")
+    void upsert(CrawlCheckpoint checkpoint);
+
+    /**
+     * 删除断点（重新开始回填）
+     */
+    @Delete("DELETE FROM crawl_checkpoint WHERE source = #{source} AND keyword = #{keyword}")
+    void delete(@Param("source") String source, @Param("keyword") String keyword);
+
+    /**
+     * 查询全部断点
+     */
+    @Select("SELECT * FROM crawl_checkpoint ORDER BY update_time DESC")
+    List<CrawlCheckpoint> selectAll();
+}
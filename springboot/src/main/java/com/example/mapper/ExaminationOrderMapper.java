@@ -17,8 +17,21 @@ public interface ExaminationOrderMapper {
     @Select("select * from `examination_order` where id = #{id}")
     ExaminationOrder selectById(Integer id);
 
+    /**
+     * 根据ID查询并加行锁（需在事务内调用）
+     */
+    @Select("select * from `examination_order` where id = #{id} for update")
+    ExaminationOrder selectByIdForUpdate(Integer id);
+
     List<ExaminationOrder> selectAll(ExaminationOrder examinationOrder);
 
+    /**
+     * 游标分页：按id倒序取游标之后的 limit 条，条件同 selectAll
+     */
+    List<ExaminationOrder> selectAfter(@Param("order") ExaminationOrder examinationOrder,
+                                       @Param("cursorId") Integer cursorId,
+                                       @Param("limit") int limit);
+
     @Select("select * from `examination_order` where reserve_date = #{reserveDate} " +
             "and examination_id = #{examinationId} " +
             "and order_type = #{orderType} " +
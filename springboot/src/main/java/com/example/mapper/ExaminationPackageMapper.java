@@ -1,8 +1,10 @@
 package com.example.mapper;
 
 import com.example.entity.ExaminationPackage;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ExaminationPackageMapper {
@@ -18,6 +20,11 @@ public interface ExaminationPackageMapper {
 
     List<ExaminationPackage> selectAll(ExaminationPackage examinationPackage);
 
+    /**
+     * 按ID批量查询
+     */
+    List<ExaminationPackage> selectByIds(@Param("ids") Collection<Integer> ids);
+
     /**
      * 获取热门套餐（按预约数量排序）
      */
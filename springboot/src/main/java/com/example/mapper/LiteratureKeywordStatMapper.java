@@ -0,0 +1,73 @@
+package com.example.mapper;
+
+import com.example.entity.MedicalLiterature;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文献关键词频次数据访问层
+ */
+public interface LiteratureKeywordStatMapper {
+
+    /**
+     * 累加关键词频次（不存在则插入），调用方按关键词排序传入，避免并发事务互相等锁
+     */
+    @Insert("<script>" +
+            "INSERT INTO literature_keyword_stat (keyword, freq, update_time) VALUES " +
+            "<foreach collection='counts' index='keyword' item='freq' separator=','>" +
+            "(#{keyword}, #{freq}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE freq = freq + VALUES(freq), update_time = NOW()" +
+            "</script>")
+    void increment(@Param("counts") Map<String, Integer> counts);
+
+    /**
+     * 扣减关键词频次（最低到0），调用方按关键词排序传入
+     */
+    @Update("<script>" +
+            "UPDATE literature_keyword_stat SET freq = GREATEST(freq - CASE keyword " +
+            "<foreach collection='counts' index='keyword' item='freq'>" +
+            "WHEN #{keyword} THEN #{freq} " +
+            "</foreach>" +
+            "ELSE 0 END, 0), update_time = NOW() WHERE keyword IN " +
+            "<foreach collection='counts' index='keyword' open='(' separator=',' close=')'>#{keyword}</foreach>" +
+            "</script>")
+    void decrement(@Param("counts") Map<String, Integer> counts);
+
+    /**
+     * 删除频次已扣减到0的关键词
+     */
+    @Delete("<script>" +
+            "DELETE FROM literature_keyword_stat WHERE freq &lt;= 0 AND keyword IN " +
+            "<foreach collection='keywords' item='keyword' open='(' separator=',' close=')'>#{keyword}</foreach>" +
+            "</script>")
+    void deleteEmpty(@Param("keywords") Collection<String> keywords);
+
+    /**
+     * 频次最高的关键词
+     */
+    @Select("SELECT keyword, freq AS count FROM literature_keyword_stat ORDER BY freq DESC LIMIT #{limit}")
+    List<Map<String, Object>> selectTop(@Param("limit") int limit);
+
+    /**
+     * 清空频次表（重新统计）
+     */
+    @Delete("DELETE FROM literature_keyword_stat")
+    void deleteAll();
+
+    @Select("SELECT COUNT(*) FROM literature_keyword_stat")
+    int count();
+
+    /**
+     * 按ID顺序分块读取文献关键词（用于重新统计）
+     */
+    @Select("SELECT id, keywords FROM medical_literature WHERE id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<MedicalLiterature> selectKeywordsAfter(@Param("lastId") int lastId, @Param("limit") int limit);
+}
@@ -6,6 +6,8 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +27,12 @@ public interface MedicalLiteratureMapper {
     @Select("select * from `medical_literature` where id = #{id}")
     MedicalLiterature selectById(Integer id);
 
+    /**
+     * 根据ID查询并加行锁（需在事务内调用）
+     */
+    @Select("select * from `medical_literature` where id = #{id} for update")
+    MedicalLiterature selectByIdForUpdate(Integer id);
+
     /**
      * 根据标题查询（防止重复）
      */
@@ -72,15 +80,53 @@ public interface MedicalLiteratureMapper {
             "</script>")
     List<MedicalLiterature> selectAll(MedicalLiterature literature);
 
+    /**
+     * 列表查询（条件同 selectAll，keyword 同时匹配标题、作者、关键词）
+     */
+    List<MedicalLiterature> selectByFilter(@Param("query") MedicalLiterature query,
+                                           @Param("keyword") String keyword);
+
+    /**
+     * 游标分页：按 create_time, id 倒序，取游标之后的 limit 条，游标为空时从头开始
+     */
+    List<MedicalLiterature> selectByFilterAfter(@Param("query") MedicalLiterature query,
+                                                @Param("keyword") String keyword,
+                                                @Param("cursorTime") Date cursorTime,
+                                                @Param("cursorId") Integer cursorId,
+                                                @Param("limit") int limit);
+
     /**
      * 高级搜索文献
      */
     List<MedicalLiterature> searchLiterature(@Param("keyword") String keyword,
                                            @Param("category") String category,
                                            @Param("language") String language,
+                                           @Param("source") String source,
                                            @Param("startDate") String startDate,
                                            @Param("endDate") String endDate);
 
+    /**
+     * 全文检索（MATCH ... AGAINST，按标题/关键词加权后的相关度排序）
+     * @param query 检索词
+     * @param candidates 参与排序的候选上限
+     */
+    List<MedicalLiterature> searchFulltext(@Param("query") String query,
+                                           @Param("source") String source,
+                                           @Param("startDate") String startDate,
+                                           @Param("endDate") String endDate,
+                                           @Param("candidates") int candidates,
+                                           @Param("offset") int offset,
+                                           @Param("limit") int limit);
+
+    /**
+     * 全文检索命中总数（不超过候选上限）
+     */
+    int countFulltext(@Param("query") String query,
+                      @Param("source") String source,
+                      @Param("startDate") String startDate,
+                      @Param("endDate") String endDate,
+                      @Param("candidates") int candidates);
+
     /**
      * 获取最新文献
      */
@@ -103,9 +149,9 @@ public interface MedicalLiteratureMapper {
     int batchInsert(@Param("literatures") List<MedicalLiterature> literatures);
 
     /**
-     * 获取来源统计
+     * 获取分类统计（按 category 列分组，走 idx_category，未分类的不计入）
      */
-    @Select("SELECT crawl_source as category, COUNT(*) as count FROM medical_literature WHERE crawl_source IS NOT NULL AND crawl_source != '' GROUP BY crawl_source ORDER BY count DESC")
+    @Select("SELECT category, COUNT(*) as count FROM medical_literature WHERE category IS NOT NULL AND category != '' GROUP BY category ORDER BY count DESC")
     List<Map<String, Object>> getCategoryStatistics();
 
     /**
@@ -173,9 +219,15 @@ public interface MedicalLiteratureMapper {
     /**
      * 统计今日爬取的文献数量
      */
-    @Select("SELECT COUNT(*) FROM medical_literature WHERE DATE(create_time) = CURDATE()")
+    @Select("SELECT COUNT(*) FROM medical_literature WHERE create_time >= CURDATE()")
     int countTodayLiteratures();
 
+    /**
+     * 统计指定时间之后入库的文献数量（走 idx_create_time 范围扫描）
+     */
+    @Select("SELECT COUNT(*) FROM medical_literature WHERE create_time >= #{since}")
+    int countCreatedSince(@Param("since") Date since);
+
     /**
      * 按日期统计文献数量
      */
@@ -194,4 +246,59 @@ public interface MedicalLiteratureMapper {
             "GROUP BY crawl_source " +
             "ORDER BY count DESC")
     List<Map<String, Object>> getSourceStatistics();
-}
\ No newline at end of file
+
+    /**
+     * 按ID顺序分块读取ID和标题（用于构建去重索引）
+     */
+    @Select("SELECT id, title FROM medical_literature WHERE id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<MedicalLiterature> selectIdTitleAfter(@Param("lastId") int lastId, @Param("limit") int limit);
+
+    /**
+     * 按ID批量查询
+     */
+    List<MedicalLiterature> selectByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * 按ID顺序分块读取有效文献的检索字段（用于构建倒排索引）
+     */
+    @Select("SELECT id, title, authors, abstract_content, keywords, status FROM medical_literature " +
+            "WHERE status = 'active' AND id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<MedicalLiterature> selectIndexableAfter(@Param("lastId") int lastId, @Param("limit") int limit);
+
+    /**
+     * 按DOI、原文链接、标题哈希批量查询已存在的文献（只返回id、doi、source_url、title_hash）
+     */
+    List<MedicalLiterature> selectExistingKeys(@Param("dois") Collection<String> dois,
+                                               @Param("urls") Collection<String> urls,
+                                               @Param("titleHashes") Collection<String> titleHashes);
+
+    /**
+     * 分块读取尚未计算标题哈希的文献
+     */
+    @Select("SELECT id, title FROM medical_literature WHERE title_hash IS NULL AND id > #{lastId} ORDER BY id LIMIT #{limit}")
+    List<MedicalLiterature> selectWithoutTitleHash(@Param("lastId") int lastId, @Param("limit") int limit);
+
+    /**
+     * 按ID顺序分块读取分类所需字段，onlyUnclassified 为 true 时只读取尚未分类的文献
+     */
+    @Select("<script>" +
+            "SELECT id, title, abstract_content, keywords, journal, category FROM medical_literature " +
+            "WHERE id > #{lastId}" +
+            "<if test='onlyUnclassified'> AND category IS NULL</if>" +
+            " ORDER BY id LIMIT #{limit}" +
+            "</script>")
+    List<MedicalLiterature> selectClassifiableAfter(@Param("lastId") int lastId,
+                                                    @Param("onlyUnclassified") boolean onlyUnclassified,
+                                                    @Param("limit") int limit);
+
+    /**
+     * 批量写回分类（每条文献的 id、category）
+     */
+    int updateCategories(@Param("literatures") List<MedicalLiterature> literatures);
+
+    /**
+     * 更新标题哈希
+     */
+    @Update("UPDATE medical_literature SET title_hash = #{titleHash} WHERE id = #{id}")
+    void updateTitleHash(@Param("id") Integer id, @Param("titleHash") String titleHash);
+}
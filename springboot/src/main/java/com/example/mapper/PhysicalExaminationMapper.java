@@ -1,8 +1,10 @@
 package com.example.mapper;
 
 import com.example.entity.PhysicalExamination;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PhysicalExaminationMapper {
@@ -18,4 +20,9 @@ public interface PhysicalExaminationMapper {
 
     List<PhysicalExamination> selectAll(PhysicalExamination physicalExamination);
 
+    /**
+     * 按ID批量查询
+     */
+    List<PhysicalExamination> selectByIds(@Param("ids") Collection<Integer> ids);
+
 }
\ No newline at end of file
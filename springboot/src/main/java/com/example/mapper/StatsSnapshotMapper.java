@@ -0,0 +1,65 @@
+package com.example.mapper;
+
+import com.example.entity.StatsSnapshot;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统计计数快照数据访问层
+ */
+public interface StatsSnapshotMapper {
+
+    /**
+     * 把增量累加到快照（不存在则插入）
+     */
+    @Insert("<script>" +
+            "INSERT INTO stats_snapshot (bucket, metric, stat_value, update_time) VALUES " +
+            "<foreach collection='deltas' item='item' separator=','>" +
+            "(#{item.bucket}, #{item.metric}, #{item.statValue}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE stat_value = stat_value + VALUES(stat_value), update_time = NOW()" +
+            "</script>")
+    void addAll(@Param("deltas") List<StatsSnapshot> deltas);
+
+    /**
+     * 写入初始化标记，返回1表示由本实例初始化；其他实例的初始化事务未提交时会在此等待
+     */
+    @Insert("INSERT IGNORE INTO stats_snapshot (bucket, metric, stat_value, update_time) VALUES ('seed', 'seeded', 1, NOW())")
+    int insertSeedMarker();
+
+    /**
+     * 读取总量桶和指定日期之后的日桶（不含初始化标记）
+     */
+    @Select("SELECT bucket, metric, stat_value FROM stats_snapshot " +
+            "WHERE bucket = 'total' OR (bucket >= #{sinceDay} AND bucket != 'seed')")
+    List<StatsSnapshot> selectSince(@Param("sinceDay") String sinceDay);
+
+    /**
+     * 清理过期的日桶（日期格式的桶按字符串比较即按日期比较）
+     */
+    @Delete("DELETE FROM stats_snapshot WHERE bucket != 'total' AND bucket < #{beforeDay}")
+    int deleteBefore(@Param("beforeDay") String beforeDay);
+
+    @Select("SELECT COUNT(*) FROM stats_snapshot")
+    int count();
+
+    // ---- 快照表为空时用于初始化的聚合查询 ----
+
+    @Select("SELECT COUNT(*) FROM `user`")
+    long countUsers();
+
+    @Select("SELECT status, COUNT(*) AS count FROM examination_order GROUP BY status")
+    List<Map<String, Object>> countOrdersByStatus();
+
+    /**
+     * 按天统计新增订单（create_time 为 yyyy-MM-dd HH:mm:ss 字符串）
+     */
+    @Select("SELECT LEFT(create_time, 10) AS day, COUNT(*) AS count FROM examination_order " +
+            "WHERE create_time >= #{sinceDay} GROUP BY LEFT(create_time, 10)")
+    List<Map<String, Object>> countOrdersByDay(@Param("sinceDay") String sinceDay);
+}
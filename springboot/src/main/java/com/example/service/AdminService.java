@@ -8,6 +8,7 @@ import com.example.entity.Account;
 import com.example.entity.Admin;
 import com.example.exception.CustomException;
 import com.example.mapper.AdminMapper;
+import com.example.utils.PrincipalCache;
 import com.example.utils.TokenUtils;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
@@ -27,6 +28,9 @@ public class AdminService {
     @Resource
     private AdminMapper adminMapper;
 
+    @Resource
+    private PrincipalCache principalCache;
+
     public void add(Admin admin) {
         Admin dbAdmin = adminMapper.selectByUsername(admin.getUsername());
         if (ObjectUtil.isNotNull(dbAdmin)) {
@@ -44,15 +48,17 @@ public class AdminService {
 
     public void updateById(Admin admin) {
         adminMapper.updateById(admin);
+        principalCache.invalidate(admin.getId(), RoleEnum.ADMIN.name());
     }
 
     public void deleteById(Integer id) {
         adminMapper.deleteById(id);
+        principalCache.invalidate(id, RoleEnum.ADMIN.name());
     }
 
     public void deleteBatch(List<Integer> ids) {
         for (Integer id : ids) {
-            adminMapper.deleteById(id);
+            deleteById(id);
         }
     }
 
@@ -101,6 +107,8 @@ public class AdminService {
         }
         dbAdmin.setPassword(account.getNewPassword());
         adminMapper.updateById(dbAdmin);
+        // 旧token以旧密码签名，清除缓存后重新验签即失效
+        principalCache.invalidate(dbAdmin.getId(), RoleEnum.ADMIN.name());
     }
 
 }
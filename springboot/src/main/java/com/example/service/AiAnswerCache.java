@@ -0,0 +1,352 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AI咨询回答缓存（只用于没有对话历史的首轮提问）
+ *
+ * 问题先归一化（全角转半角、小写、去掉标点空白），再取字符1-gram和2-gram计算64位SimHash。
+ * 查找时先按归一化文本精确匹配，再以SimHash海明距离不超过 max-distance 做粗筛，
+ * 最终按2-gram集合Jaccard相似度不低于 min-similarity 取最相近的条目。
+ * 短问题的SimHash波动较大（"头痛怎么办"和"头痛怎么办呢"相差7位），是否命中以Jaccard为准，
+ * 默认0.8可以放过语气词、标点的差异，而"头痛怎么办"和"胃痛怎么办"（0.6）不会命中。
+ *
+ * 数字（含小数和单位，如"30岁""200mg""2.5毫克"）和否定词（不/没/无/非/未及其后一字）是精确特征，
+ * 必须按出现顺序完全一致才可能命中：只差年龄、剂量或一个"不"字的两个问题字面上很接近，答案却不能混用。
+ * 长问题里一两个字的差异对Jaccard影响很小，因此相似命中还要求两边不同的2-gram不超过 max-differing-grams，
+ * 海明距离上限也随长度收紧（长文本的SimHash更稳定）。
+ * 容量按 max-size 做LRU淘汰，条目超过 ttl-ms 失效。
+ */
+@Component
+public class AiAnswerCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AiAnswerCache.class);
+
+    // 数字（可带小数）及其后的单位；汉字数字只在后面跟单位时才算
+    private static final String UNITS = "mg|ml|mcg|μg|ug|kg|g|l|iu|u|mmol|mmhg|bpm|cm|mm|%|℃|度|岁|周岁|个月|月|周|天|日|小时|分钟|次|片|粒|袋|支|瓶|克|毫克|毫升|微克|斤|公斤|年";
+    private static final Pattern NUMBER = Pattern.compile(
+        "(\\d+(?:\\.\\d+)?)\\s*(" + UNITS + ")?"
+        + "|([零〇一二两三四五六七八九十百千万半]+)(" + UNITS + ")");
+    private static final Pattern NEGATION = Pattern.compile("[不没无非未].?");
+
+    // 长度不超过此值的问题使用完整的 max-distance
+    private static final int FULL_DISTANCE_LENGTH = 16;
+
+    @Value("${ai.answer-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.answer-cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${ai.answer-cache.ttl-ms:3600000}")
+    private long ttlMs;
+
+    @Value("${ai.answer-cache.max-distance:12}")
+    private int maxDistance;
+
+    @Value("${ai.answer-cache.min-similarity:0.8}")
+    private double minSimilarity;
+
+    @Value("${ai.answer-cache.max-differing-grams:4}")
+    private int maxDifferingGrams;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // key为精确特征+归一化后的问题，访问顺序即LRU顺序
+    private Map<String, Entry> entries;
+
+    private Counter exactHits;
+    private Counter similarHits;
+    private Counter misses;
+
+    @PostConstruct
+    public void init() {
+        entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+        exactHits = Counter.builder("ai.answer_cache.requests").tag("result", "exact_hit").register(meterRegistry);
+        similarHits = Counter.builder("ai.answer_cache.requests").tag("result", "similar_hit").register(meterRegistry);
+        misses = Counter.builder("ai.answer_cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("ai.answer_cache.size", this, AiAnswerCache::size).register(meterRegistry);
+    }
+
+    /**
+     * 查找相同或相近问题的回答，未命中返回null
+     */
+    public String get(String question) {
+        if (!enabled || question == null) {
+            return null;
+        }
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            return null;
+        }
+        String features = exactFeatures(question);
+        String key = key(features, normalized);
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            Entry exact = entries.get(key);
+            if (exact != null) {
+                if (exact.expiresAt > now) {
+                    exactHits.increment();
+                    return exact.answer;
+                }
+                entries.remove(key);
+            }
+
+            int[] grams = bigrams(normalized);
+            long fingerprint = simHash(normalized);
+            int distanceLimit = distanceLimit(normalized.length());
+            Entry best = null;
+            String bestKey = null;
+            double bestSimilarity = 0;
+            Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> e = it.next();
+                Entry entry = e.getValue();
+                if (entry.expiresAt <= now) {
+                    it.remove();
+                    continue;
+                }
+                if (!entry.features.equals(features)
+                    || Long.bitCount(entry.fingerprint ^ fingerprint) > distanceLimit
+                    || differingGrams(grams, entry.grams) > maxDifferingGrams) {
+                    continue;
+                }
+                double similarity = jaccard(grams, entry.grams);
+                if (similarity >= minSimilarity && similarity > bestSimilarity) {
+                    best = entry;
+                    bestKey = e.getKey();
+                    bestSimilarity = similarity;
+                }
+            }
+            if (best == null) {
+                misses.increment();
+                return null;
+            }
+            // 刷新LRU顺序
+            entries.get(bestKey);
+            similarHits.increment();
+            log.debug("AI回答缓存相似命中: [{}] ~ [{}], similarity={}", normalized, bestKey, bestSimilarity);
+            return best.answer;
+        }
+    }
+
+    public void put(String question, String answer) {
+        if (!enabled || question == null || answer == null || answer.isEmpty()) {
+            return;
+        }
+        String normalized = normalize(question);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        String features = exactFeatures(question);
+        Entry entry = new Entry(features, simHash(normalized), bigrams(normalized), answer, System.currentTimeMillis() + ttlMs);
+        synchronized (this) {
+            entries.put(key(features, normalized), entry);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 海明距离上限：短问题用完整的 max-distance，更长的问题按长度反比收紧，最低一半
+     */
+    private int distanceLimit(int length) {
+        if (length <= FULL_DISTANCE_LENGTH) {
+            return maxDistance;
+        }
+        return Math.max(maxDistance / 2, maxDistance * FULL_DISTANCE_LENGTH / length);
+    }
+
+    private static String key(String features, String normalized) {
+        return features.isEmpty() ? normalized : features + "|" + normalized;
+    }
+
+    /**
+     * 全角转半角、转小写，只保留文字和数字
+     */
+    static String normalize(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = halfWidth(text.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static char halfWidth(char c) {
+        if (c == '　') {
+            return ' ';
+        }
+        if (c >= '！' && c <= '～') {
+            return (char) (c - 0xFEE0);
+        }
+        return c;
+    }
+
+    /**
+     * 必须完全一致的特征：按出现顺序的数字（含小数、单位）和否定词
+     * 在原文上提取（只做全角转半角和小写），小数点不会像归一化那样被去掉
+     */
+    static String exactFeatures(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            sb.append(Character.toLowerCase(halfWidth(text.charAt(i))));
+        }
+        String half = sb.toString();
+
+        StringBuilder features = new StringBuilder();
+        Matcher number = NUMBER.matcher(half);
+        while (number.find()) {
+            if (number.group(1) != null) {
+                features.append('#').append(number.group(1)).append(number.group(2) != null ? number.group(2) : "");
+            } else {
+                features.append('#').append(number.group(3)).append(number.group(4));
+            }
+        }
+        Matcher negation = NEGATION.matcher(half);
+        while (negation.find()) {
+            features.append('!').append(negation.group());
+        }
+        return features.toString();
+    }
+
+    /**
+     * 以字符1-gram和2-gram为特征的64位SimHash
+     */
+    static long simHash(String normalized) {
+        int[] weights = new int[64];
+        for (int i = 0; i < normalized.length(); i++) {
+            addFeature(weights, hash(normalized.charAt(i), 0));
+            if (i + 1 < normalized.length()) {
+                // 2-gram权重更高，语序比单字更能区分问题
+                long h = hash(normalized.charAt(i), normalized.charAt(i + 1));
+                addFeature(weights, h);
+                addFeature(weights, h);
+            }
+        }
+        long fingerprint = 0;
+        for (int bit = 0; bit < 64; bit++) {
+            if (weights[bit] > 0) {
+                fingerprint |= 1L << bit;
+            }
+        }
+        return fingerprint;
+    }
+
+    private static void addFeature(int[] weights, long h) {
+        for (int bit = 0; bit < 64; bit++) {
+            weights[bit] += ((h >>> bit) & 1) != 0 ? 1 : -1;
+        }
+    }
+
+    // splitmix64，把两个字符打散成64位
+    private static long hash(int a, int b) {
+        long z = ((long) a << 16 | b) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 去重排序后的2-gram（两个字符拼成int），单字问题取该字本身
+     */
+    static int[] bigrams(String normalized) {
+        if (normalized.length() < 2) {
+            return normalized.isEmpty() ? new int[0] : new int[]{normalized.charAt(0)};
+        }
+        int[] grams = new int[normalized.length() - 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = normalized.charAt(i) << 16 | normalized.charAt(i + 1);
+        }
+        Arrays.sort(grams);
+        int n = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[n++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, n);
+    }
+
+    /**
+     * 只在一边出现的2-gram数
+     */
+    static int differingGrams(int[] a, int[] b) {
+        int common = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return a.length + b.length - 2 * common;
+    }
+
+    static double jaccard(int[] a, int[] b) {
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        int union = a.length + b.length - common;
+        return union == 0 ? 0 : (double) common / union;
+    }
+
+    private static class Entry {
+        private final String features;
+        private final long fingerprint;
+        private final int[] grams;
+        private final String answer;
+        private final long expiresAt;
+
+        Entry(String features, long fingerprint, int[] grams, String answer, long expiresAt) {
+            this.features = features;
+            this.fingerprint = fingerprint;
+            this.grams = grams;
+            this.answer = answer;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
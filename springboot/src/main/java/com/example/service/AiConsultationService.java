@@ -11,8 +11,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -32,11 +35,23 @@ public class AiConsultationService {
 
     @Autowired
     private ExaminationPackageService examinationPackageService;
+
+    @Autowired
+    private AiAnswerCache aiAnswerCache;
     
     /**
-     * 处理AI咨询请求
+     * 处理AI咨询请求（同步）
      */
     public AiConsultationResponse consultWithAi(AiConsultationRequest request) {
+        return consultWithAiAsync(request).join();
+    }
+
+    /**
+     * 处理AI咨询请求：读取历史和回答缓存在调用线程上完成，调用智谱AI不阻塞调用线程，
+     * 之后的解析、匹配套餐和保存记录在AI回复完成的线程上进行
+     */
+    public CompletableFuture<AiConsultationResponse> consultWithAiAsync(AiConsultationRequest request) {
+        CompletableFuture<String> answer;
         try {
             // 获取对话历史（如果有sessionId）
             List<String> conversationHistory = new ArrayList<>();
@@ -53,70 +68,111 @@ public class AiConsultationService {
                 }
             }
             
+            // 首轮提问先查回答缓存，相同或相近的问题直接复用之前的AI回复
+            boolean firstTurn = conversationHistory.isEmpty();
+            String cached = firstTurn ? aiAnswerCache.get(request.getQuestion()) : null;
+
             // 优先使用智谱AI服务，如果不可用则降级到本地响应
-            String aiResponse = null;
-            if (zhipuAiService.isAvailable()) {
+            if (cached == null && zhipuAiService.isAvailable()) {
                 log.info("使用智谱AI服务处理咨询请求");
-                aiResponse = zhipuAiService.chat(request.getQuestion(), conversationHistory);
-            }
-            
-            // 如果AI服务调用失败，使用本地响应
-            if (aiResponse == null || aiResponse.isEmpty()) {
-                log.info("智谱AI服务不可用或调用失败，使用本地响应");
-                aiResponse = generateLocalAiResponse(request.getQuestion());
+                answer = zhipuAiService.chatAsync(request.getQuestion(), conversationHistory)
+                        .thenApply(aiResponse -> {
+                            if (firstTurn) {
+                                aiAnswerCache.put(request.getQuestion(), aiResponse);
+                            }
+                            return aiResponse;
+                        });
+            } else {
+                answer = CompletableFuture.completedFuture(cached);
             }
-            
-            // 解析推荐的体检项目
-            List<String> recommendedExams = extractRecommendedExams(aiResponse);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(errorResponse(request, e));
+        }
+        return answer.thenApply(aiResponse -> buildResponse(request, aiResponse))
+                .exceptionally(e -> errorResponse(request, e));
+    }
 
-            // 根据推荐的体检项目匹配体检套餐
-            List<ExaminationPackage> recommendedPackages = recommendPackagesByExams(recommendedExams);
+    private AiConsultationResponse buildResponse(AiConsultationRequest request, String aiResponse) {
+        // 如果AI服务调用失败，使用本地响应
+        if (aiResponse == null || aiResponse.isEmpty()) {
+            log.info("智谱AI服务不可用或调用失败，使用本地响应");
+            aiResponse = generateLocalAiResponse(request.getQuestion());
+        }
+        
+        // 解析推荐的体检项目
+        List<String> recommendedExams = extractRecommendedExams(aiResponse);
 
-            // 生成或使用现有的sessionId
-            String sessionId = request.getSessionId();
-            if (sessionId == null || sessionId.isEmpty()) {
-                sessionId = generateSessionId();
-            }
+        // 根据推荐的体检项目匹配体检套餐
+        List<ExaminationPackage> recommendedPackages = recommendPackagesByExams(recommendedExams);
 
-            // 尝试保存咨询记录（如果表不存在则跳过）
-            try {
-                AiConsultation consultation = new AiConsultation();
-                consultation.setUserId(request.getUserId());
-                consultation.setUserQuestion(request.getQuestion());
-                consultation.setAiResponse(aiResponse);
-                consultation.setRecommendedExams(String.join(",", recommendedExams));
-                consultation.setSessionId(sessionId);
-                consultation.setStatus("active");
-                consultation.setCreateTime(new Date());
-
-                aiConsultationMapper.insert(consultation);
-            } catch (Exception e) {
-                log.warn("保存AI咨询记录失败（可能表不存在）: {}", e.getMessage());
-                // 继续执行，不影响AI响应返回
-            }
+        // 生成或使用现有的sessionId
+        String sessionId = request.getSessionId();
+        if (sessionId == null || sessionId.isEmpty()) {
+            sessionId = generateSessionId();
+        }
 
-            // 构建响应
-            AiConsultationResponse response = new AiConsultationResponse();
-            response.setResponse(aiResponse);
-            response.setRecommendedExams(recommendedExams);
-            response.setRecommendedPackages(recommendedPackages);
-            response.setSessionId(sessionId);
-            response.setNeedMoreInfo(checkIfNeedMoreInfo(aiResponse));
-            response.setFollowUpQuestion(generateFollowUpQuestion(aiResponse));
-            
-            return response;
-            
+        // 尝试保存咨询记录（如果表不存在则跳过）
+        try {
+            AiConsultation consultation = new AiConsultation();
+            consultation.setUserId(request.getUserId());
+            consultation.setUserQuestion(request.getQuestion());
+            consultation.setAiResponse(aiResponse);
+            consultation.setRecommendedExams(String.join(",", recommendedExams));
+            consultation.setSessionId(sessionId);
+            consultation.setStatus("active");
+            consultation.setCreateTime(new Date());
+
+            aiConsultationMapper.insert(consultation);
         } catch (Exception e) {
-            log.error("AI咨询处理失败: {}", e.getMessage(), e);
-            
-            // 返回默认响应
-            AiConsultationResponse errorResponse = new AiConsultationResponse();
-            errorResponse.setResponse("抱歉，AI咨询服务暂时不可用，建议您直接预约医生进行咨询。");
-            errorResponse.setRecommendedExams(Arrays.asList("基础体检套餐"));
-            errorResponse.setSessionId(request.getSessionId());
-            
-            return errorResponse;
+            log.warn("保存AI咨询记录失败（可能表不存在）: {}", e.getMessage());
+            // 继续执行，不影响AI响应返回
+        }
+
+        // 构建响应
+        AiConsultationResponse response = new AiConsultationResponse();
+        response.setResponse(aiResponse);
+        response.setRecommendedExams(recommendedExams);
+        response.setRecommendedPackages(recommendedPackages);
+        response.setSessionId(sessionId);
+        response.setNeedMoreInfo(checkIfNeedMoreInfo(aiResponse));
+        response.setFollowUpQuestion(generateFollowUpQuestion(aiResponse));
+        
+        return response;
+    }
+
+    private AiConsultationResponse errorResponse(AiConsultationRequest request, Throwable e) {
+        log.error("AI咨询处理失败: {}", e.getMessage(), e);
+        
+        // 返回默认响应
+        AiConsultationResponse errorResponse = new AiConsultationResponse();
+        errorResponse.setResponse("抱歉，AI咨询服务暂时不可用，建议您直接预约医生进行咨询。");
+        errorResponse.setRecommendedExams(Arrays.asList("基础体检套餐"));
+        errorResponse.setSessionId(request.getSessionId());
+        
+        return errorResponse;
+    }
+    
+    /**
+     * 流式AI咨询：首轮提问命中回答缓存时直接推送缓存的回复，否则流式调用智谱AI并缓存完整回复
+     */
+    public void consultStream(String question, List<String> conversationHistory, SseEmitter emitter) {
+        boolean firstTurn = conversationHistory == null || conversationHistory.isEmpty();
+        if (firstTurn) {
+            String cached = aiAnswerCache.get(question);
+            if (cached != null) {
+                log.info("AI回答缓存命中，直接返回: {}", question);
+                try {
+                    emitter.send(SseEmitter.event().name("message").data(cached));
+                    emitter.send(SseEmitter.event().name("done").data(cached));
+                    emitter.complete();
+                } catch (IOException e) {
+                    emitter.completeWithError(e);
+                }
+                return;
+            }
         }
+        zhipuAiService.chatStream(question, conversationHistory, emitter,
+                firstTurn ? content -> aiAnswerCache.put(question, content) : null);
     }
     
     /**
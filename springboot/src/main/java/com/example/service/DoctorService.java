@@ -8,6 +8,7 @@ import com.example.entity.Account;
 import com.example.entity.Doctor;
 import com.example.exception.CustomException;
 import com.example.mapper.DoctorMapper;
+import com.example.utils.PrincipalCache;
 import com.example.utils.TokenUtils;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
@@ -26,6 +27,9 @@ public class DoctorService {
     @Resource
     private DoctorMapper doctorMapper;
 
+    @Resource
+    private PrincipalCache principalCache;
+
     public void add(Doctor doctor) {
         Doctor dbDoctor = doctorMapper.selectByUsername(doctor.getUsername());
         if (ObjectUtil.isNotNull(dbDoctor)) {
@@ -40,15 +44,17 @@ public class DoctorService {
 
     public void updateById(Doctor doctor) {
         doctorMapper.updateById(doctor);
+        principalCache.invalidate(doctor.getId(), RoleEnum.DOCTOR.name());
     }
 
     public void deleteById(Integer id) {
         doctorMapper.deleteById(id);
+        principalCache.invalidate(id, RoleEnum.DOCTOR.name());
     }
 
     public void deleteBatch(List<Integer> ids) {
         for (Integer id : ids) {
-            doctorMapper.deleteById(id);
+            deleteById(id);
         }
     }
 
@@ -97,6 +103,8 @@ public class DoctorService {
         }
         dbDoctor.setPassword(account.getNewPassword());
         doctorMapper.updateById(dbDoctor);
+        // 旧token以旧密码签名，清除缓存后重新验签即失效
+        principalCache.invalidate(dbDoctor.getId(), RoleEnum.DOCTOR.name());
     }
 
     /**
@@ -1,8 +1,7 @@
 package com.example.service;
 
 import cn.hutool.core.date.DateUtil;
-import cn.hutool.json.JSONArray;
-import cn.hutool.json.JSONUtil;
+import com.example.common.CursorPage;
 import com.example.common.enums.RoleEnum;
 import com.example.entity.Account;
 import com.example.entity.ExaminationOrder;
@@ -20,13 +19,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -37,6 +41,11 @@ public class ExaminationOrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(ExaminationOrderService.class);
 
+    private static final String PACKAGE_ORDER = "套餐体检";
+
+    // 游标分页单页上限
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Resource
     private ExaminationOrderMapper examinationOrderMapper;
 
@@ -49,6 +58,12 @@ public class ExaminationOrderService {
     @Autowired
     private RedisUtils redisUtils;
 
+    @Resource
+    private StatsCounterService statsCounterService;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
     public void add(ExaminationOrder examinationOrder) {
         examinationOrder.setCreateTime(DateUtil.now());
         Account currentUser = TokenUtils.getCurrentUser();
@@ -80,22 +95,48 @@ public class ExaminationOrderService {
         examinationOrder.setOrderNo(orderNo);
         examinationOrder.setStatus("待审批");
         examinationOrderMapper.insert(examinationOrder);
+        statsCounterService.onOrderCreated(examinationOrder.getStatus());
     }
 
-    @CachePut(value = "examinationOrders", key = "#examinationOrder.id")
-    @CacheEvict(value = "examinationOrdersPage", allEntries = true)
+    @Caching(evict = {
+        @CacheEvict(value = "examinationOrders", key = "#examinationOrder.id"),
+        @CacheEvict(value = "examinationOrdersPage", allEntries = true)
+    })
     public void updateById(ExaminationOrder examinationOrder) {
-        examinationOrderMapper.updateById(examinationOrder);
+        if (examinationOrder.getStatus() == null) {
+            examinationOrderMapper.updateById(examinationOrder);
+            return;
+        }
+        // 加锁读取原状态，并发修改同一订单时计数不会重复转移；计数在提交后更新
+        ExaminationOrder existing = transactionTemplate.execute(status -> {
+            ExaminationOrder locked = examinationOrderMapper.selectByIdForUpdate(examinationOrder.getId());
+            examinationOrderMapper.updateById(examinationOrder);
+            return locked;
+        });
+        if (existing != null) {
+            statsCounterService.onOrderStatusChanged(existing.getStatus(), examinationOrder.getStatus());
+        }
     }
 
     @CacheEvict(value = {"examinationOrders", "examinationOrdersPage"}, key = "#id", allEntries = true)
     public void deleteById(Integer id) {
-        examinationOrderMapper.deleteById(id);
+        deleteOrder(id);
     }
 
     public void deleteBatch(List<Integer> ids) {
         for (Integer id : ids) {
+            deleteOrder(id);
+        }
+    }
+
+    private void deleteOrder(Integer id) {
+        ExaminationOrder existing = transactionTemplate.execute(status -> {
+            ExaminationOrder locked = examinationOrderMapper.selectByIdForUpdate(id);
             examinationOrderMapper.deleteById(id);
+            return locked;
+        });
+        if (existing != null) {
+            statsCounterService.onOrderDeleted(existing.getStatus());
         }
     }
 
@@ -109,6 +150,39 @@ public class ExaminationOrderService {
     }
 
     public PageInfo<ExaminationOrder> selectPage(ExaminationOrder examinationOrder, Integer pageNum, Integer pageSize) {
+        restrictToCurrentUser(examinationOrder);
+        PageHelper.startPage(pageNum, pageSize);
+        List<ExaminationOrder> list = examinationOrderMapper.selectAll(examinationOrder);
+        logger.info("Found {} examination orders for page {}", list.size(), pageNum);
+        fillExaminationList(list);
+        return PageInfo.of(list);
+    }
+
+    /**
+     * 游标分页查询（按id倒序）
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param withTotal 是否返回总数
+     */
+    public CursorPage<ExaminationOrder> selectByCursor(ExaminationOrder examinationOrder, String cursor,
+                                                       Integer pageSize, boolean withTotal) {
+        restrictToCurrentUser(examinationOrder);
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+
+        List<ExaminationOrder> list = examinationOrderMapper.selectAfter(examinationOrder,
+            position != null ? position.getId() : null, size + 1);
+        String nextCursor = null;
+        if (list.size() > size) {
+            list = new ArrayList<>(list.subList(0, size));
+            nextCursor = CursorPage.encodeCursor(null, list.get(size - 1).getId());
+        }
+        fillExaminationList(list);
+        Long total = withTotal ? PageHelper.count(() -> examinationOrderMapper.selectAll(examinationOrder)) : null;
+        return new CursorPage<>(list, nextCursor, total);
+    }
+
+    // 普通用户只能看自己的订单，医生只能看分配给自己的订单
+    private void restrictToCurrentUser(ExaminationOrder examinationOrder) {
         Account currentUser = TokenUtils.getCurrentUser();
         if (RoleEnum.USER.name().equals(currentUser.getRole())) {
             examinationOrder.setUserId(currentUser.getId());
@@ -116,37 +190,42 @@ public class ExaminationOrderService {
         if (RoleEnum.DOCTOR.name().equals(currentUser.getRole())) {
             examinationOrder.setDoctorId(currentUser.getId());
         }
-        PageHelper.startPage(pageNum, pageSize);
-        List<ExaminationOrder> list = examinationOrderMapper.selectAll(examinationOrder);
-        logger.info("Found {} examination orders for page {}", list.size(), pageNum);
-        
+    }
+
+    /**
+     * 为套餐订单填充套餐包含的体检项目：本页涉及的套餐一次查询，套餐内的体检项目再一次查询
+     */
+    private void fillExaminationList(List<ExaminationOrder> list) {
+        Set<Integer> packageIds = new HashSet<>();
+        for (ExaminationOrder order : list) {
+            if (PACKAGE_ORDER.equals(order.getOrderType()) && order.getExaminationId() != null) {
+                packageIds.add(order.getExaminationId());
+            }
+        }
+        Map<Integer, ExaminationPackage> packages = new HashMap<>();
+        if (!packageIds.isEmpty()) {
+            try {
+                packages = examinationPackageService.selectByIds(packageIds);
+                examinationPackageService.fillExaminationLists(new ArrayList<>(packages.values()));
+            } catch (Exception e) {
+                logger.error("Error loading examination packages {} for order page", packageIds, e);
+                packages = new HashMap<>();
+            }
+        }
+
         for (ExaminationOrder order : list) {
             List<PhysicalExamination> examinationList = new ArrayList<>();
-            if (order.getOrderType().equals("套餐体检")) {
-                Integer examinationId = order.getExaminationId();  // 套餐体检项目ID
-                // 查询套餐体检  包含的普通体检项目列表
-                try {
-                    ExaminationPackage examinationPackage = examinationPackageService.selectById(examinationId);
-                    if (examinationPackage != null && examinationPackage.getExaminations() != null) {
-                        logger.debug("Processing package examination: {} for order: {}", examinationPackage.getName(), order.getOrderNo());
-                        JSONArray examinationIds = JSONUtil.parseArray(examinationPackage.getExaminations());
-                        for (Object physicalExaminationId : examinationIds) {
-                            PhysicalExamination physicalExamination = physicalExaminationService.selectById((Integer) physicalExaminationId);// 查询普通体检的信息
-                            if (physicalExamination != null) {
-                                examinationList.add(physicalExamination);
-                            }
-                        }
-                    } else {
-                        logger.warn("Examination package is null or has no examinations for ID: {}", examinationId);
-                    }
-                } catch (Exception e) {
-                    logger.error("Error processing examination package for order: {}, packageId: {}", order.getOrderNo(), examinationId, e);
+            if (PACKAGE_ORDER.equals(order.getOrderType())) {
+                ExaminationPackage examinationPackage = packages.get(order.getExaminationId());
+                if (examinationPackage != null) {
+                    examinationList.addAll(examinationPackage.getExaminationList());
+                } else {
+                    logger.warn("Examination package not found for ID: {}, order: {}", order.getExaminationId(), order.getOrderNo());
                 }
             }
             // 再设置到 order里面
             order.setExaminationList(examinationList);
         }
-        return PageInfo.of(list);
     }
 
 
@@ -1,22 +1,26 @@
 package com.example.service;
 
-import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONUtil;
 import com.example.entity.ExaminationPackage;
 import com.example.entity.PhysicalExamination;
 import com.example.mapper.ExaminationPackageMapper;
+import com.example.utils.BatchLoader;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import jakarta.annotation.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 业务层方法
@@ -44,8 +48,10 @@ public class ExaminationPackageService {
         }
     }
 
-    @CachePut(value = "examinationPackages", key = "#examinationPackage.id")
-    @CacheEvict(value = "examinationPackagesPage", allEntries = true)
+    @Caching(evict = {
+        @CacheEvict(value = "examinationPackages", key = "#examinationPackage.id"),
+        @CacheEvict(value = "examinationPackagesPage", allEntries = true)
+    })
     public void updateById(ExaminationPackage examinationPackage) {
         examinationPackageMapper.updateById(examinationPackage);
     }
@@ -55,6 +61,7 @@ public class ExaminationPackageService {
         examinationPackageMapper.deleteById(id);
     }
 
+    @CacheEvict(value = {"examinationPackages", "examinationPackagesPage"}, allEntries = true)
     public void deleteBatch(List<Integer> ids) {
         for (Integer id : ids) {
             examinationPackageMapper.deleteById(id);
@@ -82,6 +89,60 @@ public class ExaminationPackageService {
         }
     }
 
+    /**
+     * 按ID批量查询套餐，返回ID到套餐的映射
+     */
+    public Map<Integer, ExaminationPackage> selectByIds(Collection<Integer> ids) {
+        Map<Integer, ExaminationPackage> result = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        for (ExaminationPackage examinationPackage : examinationPackageMapper.selectByIds(ids)) {
+            result.put(examinationPackage.getId(), examinationPackage);
+        }
+        return result;
+    }
+
+    /**
+     * 为一批套餐填充包含的体检项目：先汇总所有套餐的项目ID，一次查询后再分回各套餐
+     */
+    public void fillExaminationLists(List<ExaminationPackage> packages) {
+        BatchLoader<Integer, PhysicalExamination> loader = new BatchLoader<>(physicalExaminationService::selectByIds);
+        Map<ExaminationPackage, List<Integer>> idsByPackage = new IdentityHashMap<>();
+        for (ExaminationPackage p : packages) {
+            List<Integer> ids = parseExaminationIds(p);
+            idsByPackage.put(p, ids);
+            loader.enqueueAll(ids);
+        }
+        loader.dispatch();
+
+        for (ExaminationPackage p : packages) {
+            List<Integer> ids = idsByPackage.get(p);
+            List<PhysicalExamination> examinationList = loader.getAll(ids);
+            if (examinationList.size() < ids.size()) {
+                logger.warn("Package {} (ID: {}) references missing physical examinations: {}", p.getName(), p.getId(), ids);
+            }
+            p.setExaminationList(examinationList);
+        }
+        logger.debug("Loaded examinations for {} packages in {} batch query(s)", packages.size(), loader.getBatches());
+    }
+
+    /**
+     * 解析套餐的 examinations 字段（体检项目ID的JSON数组）
+     */
+    private List<Integer> parseExaminationIds(ExaminationPackage p) {
+        String examinations = p.getExaminations();
+        if (examinations == null || examinations.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return JSONUtil.parseArray(examinations).toList(Integer.class);
+        } catch (Exception e) {
+            logger.error("Error parsing examinations JSON for package: {}, JSON: {}", p.getName(), examinations, e);
+            return new ArrayList<>();
+        }
+    }
+
     public List<ExaminationPackage> selectAll(ExaminationPackage examinationPackage) {
         return examinationPackageMapper.selectAll(examinationPackage);
     }
@@ -93,38 +154,7 @@ public class ExaminationPackageService {
             List<ExaminationPackage> list = examinationPackageMapper.selectAll(examinationPackage);
             logger.info("Found {} examination packages", list.size());
             
-            for (ExaminationPackage p : list) {
-                List<PhysicalExamination> examinationList = new ArrayList<>(); // Move inside the loop to avoid shared reference
-                String examinations = p.getExaminations();
-                logger.debug("Processing package: {} with examinations: {}", p.getName(), examinations);
-                
-                if (examinations != null && !examinations.trim().isEmpty()) {
-                    try {
-                        JSONArray examinationIds = JSONUtil.parseArray(examinations);
-                        logger.debug("Parsed examination IDs: {}", examinationIds);
-                        
-                        for (Object examinationId : examinationIds) {
-                            try {
-                                PhysicalExamination physicalExamination = physicalExaminationService.selectById((Integer) examinationId);
-                                if (physicalExamination != null) {
-                                    examinationList.add(physicalExamination);
-                                    logger.debug("Added physical examination: {} (ID: {})", physicalExamination.getName(), examinationId);
-                                } else {
-                                    logger.warn("Physical examination not found for ID: {}", examinationId);
-                                }
-                            } catch (Exception e) {
-                                logger.error("Error loading physical examination with ID: {}", examinationId, e);
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.error("Error parsing examinations JSON for package: {}, JSON: {}", p.getName(), examinations, e);
-                    }
-                } else {
-                    logger.debug("No examinations found for package: {}", p.getName());
-                }
-                p.setExaminationList(examinationList);
-                logger.debug("Set {} examinations for package: {}", examinationList.size(), p.getName());
-            }
+            fillExaminationLists(list);
             
             PageInfo<ExaminationPackage> pageInfo = PageInfo.of(list);
             logger.info("Successfully created page info with {} total records", pageInfo.getTotal());
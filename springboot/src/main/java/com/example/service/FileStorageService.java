@@ -0,0 +1,128 @@
+package com.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 上传文件存储（内容寻址）
+ *
+ * 上传内容按64KB分块写入临时文件，同时计算SHA-256，完成后移动到 files/blobs/前2位/3-4位/哈希，
+ * 相同内容只保存一份。返回的文件key为 哈希-原文件名，沿用 /files/download/{key} 的访问地址，
+ * 原文件名只用于下载时显示。旧的 时间戳-文件名 文件仍在 files/ 根目录下，按原方式读取。
+ */
+@Service
+public class FileStorageService {
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Pattern BLOB_KEY = Pattern.compile("^([0-9a-f]{64})-(.+)$");
+
+    private final Path root = Paths.get(System.getProperty("user.dir"), "files").toAbsolutePath().normalize();
+    private final Path blobs = root.resolve("blobs");
+    private final Path tmp = root.resolve("tmp");
+
+    /**
+     * 保存上传文件
+     * @return 文件key（哈希-原文件名）
+     */
+    public String store(MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return store(in, file.getOriginalFilename());
+        }
+    }
+
+    public String store(InputStream in, String originalName) throws IOException {
+        Files.createDirectories(tmp);
+        Path part = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (OutputStream out = Files.newOutputStream(part)) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    digest.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path blob = blobPath(hash);
+            if (Files.exists(blob)) {
+                log.info("上传文件内容已存在，复用: {} -> {}", originalName, hash);
+            } else {
+                Files.createDirectories(blob.getParent());
+                // 并发上传相同内容时后到的覆盖先到的，内容一致
+                Files.move(part, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return hash + "-" + safeName(originalName);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * 按文件key定位文件，不存在或路径不合法时返回null
+     */
+    public File resolve(String key) {
+        if (key == null || key.isEmpty()) {
+            return null;
+        }
+        Matcher matcher = BLOB_KEY.matcher(key);
+        Path path = matcher.matches() ? blobPath(matcher.group(1)) : root.resolve(key).normalize();
+        // 旧文件只允许直接位于根目录下
+        if (!matcher.matches() && !root.equals(path.getParent())) {
+            return null;
+        }
+        File file = path.toFile();
+        return file.isFile() ? file : null;
+    }
+
+    /**
+     * 下载时显示的文件名：内容寻址的key取原文件名，旧文件保持原样
+     */
+    public String displayName(String key) {
+        Matcher matcher = BLOB_KEY.matcher(key);
+        return matcher.matches() ? matcher.group(2) : key;
+    }
+
+    private Path blobPath(String hash) {
+        return blobs.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    /**
+     * 去掉路径部分（部分浏览器上传时带完整路径）
+     */
+    private static String safeName(String originalName) {
+        if (originalName == null || originalName.isBlank()) {
+            return "file";
+        }
+        String name = originalName.substring(Math.max(originalName.lastIndexOf('/'), originalName.lastIndexOf('\\')) + 1);
+        return name.isBlank() || name.equals("..") ? "file" : name;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 上传图片的缩略图（按宽度等比缩放）
+ *
+ * 请求宽度向上取到固定档位（64/128/256/512/1024），避免任意宽度撑大缓存。
+ * 生成在有界线程池中进行，队列满或等待超时时返回null，由调用方直接发送原图；同一缩略图的并发请求合并为一次生成。
+ * 结果写入 files/derivatives/，按访问顺序LRU淘汰，总大小不超过 cache-max-bytes；启动时按修改时间重建LRU顺序。
+ * 最近发送过的文件在 SERVE_GRACE_MS 内不淘汰，缓存可能短暂超出上限。
+ * 缓存文件名由原文件路径、大小、修改时间和档位计算，原文件变化后自然失效。
+ * 不生成缩略图的原图（不比目标宽、不是图片、尺寸过大）按同一ID记在内存中，再次请求直接发送原图，不再读文件头。
+ */
+@Service
+public class ImageDerivativeService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImageDerivativeService.class);
+
+    private static final int[] WIDTHS = {64, 128, 256, 512, 1024};
+
+    // 缓存文件交给Tomcat sendfile后由容器稍后打开，期间被淘汰删除会导致响应失败
+    private static final long SERVE_GRACE_MS = 60_000;
+
+    private static final int MAX_SKIPPED = 10_000;
+
+    @Value("${file.derivative.threads:2}")
+    private int threads;
+
+    @Value("${file.derivative.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${file.derivative.wait-timeout-ms:5000}")
+    private long waitTimeoutMs;
+
+    @Value("${file.derivative.cache-max-bytes:268435456}")
+    private long cacheMaxBytes;
+
+    // 超过该像素数的原图不解码，防止超大图片占满内存
+    @Value("${file.derivative.max-source-pixels:50000000}")
+    private long maxSourcePixels;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Path dir = Paths.get(System.getProperty("user.dir"), "files", "derivatives").toAbsolutePath().normalize();
+
+    private final Map<String, CompletableFuture<File>> inFlight = new ConcurrentHashMap<>();
+
+    // 缓存文件 -> 大小和最近发送时间，访问顺序即LRU顺序，只在持有本对象锁时访问
+    private final LinkedHashMap<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // 不生成缩略图的缩略图ID
+    private final Cache<String, Boolean> skipped = Caffeine.newBuilder().maximumSize(MAX_SKIPPED).build();
+
+    private ThreadPoolExecutor executor;
+
+    private Counter hits;
+    private Counter generated;
+    private Counter coalesced;
+    private Counter fallbacks;
+    private Counter skips;
+
+    @PostConstruct
+    public void init() throws IOException {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "image-derivative-" + seq.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+
+        hits = Counter.builder("file.derivative.requests").tag("result", "hit").register(meterRegistry);
+        generated = Counter.builder("file.derivative.requests").tag("result", "generated").register(meterRegistry);
+        coalesced = Counter.builder("file.derivative.requests").tag("result", "coalesced").register(meterRegistry);
+        fallbacks = Counter.builder("file.derivative.requests").tag("result", "fallback").register(meterRegistry);
+        skips = Counter.builder("file.derivative.requests").tag("result", "skipped").register(meterRegistry);
+        Gauge.builder("file.derivative.cache.bytes", this, ImageDerivativeService::cachedBytes).register(meterRegistry);
+
+        loadEntries();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 获取缩略图
+     * @param source 原文件
+     * @param name   文件名（按扩展名决定输出png还是jpg）
+     * @param width  请求宽度
+     * @return 缩略图文件；不是图片、原图不比目标宽、队列已满或超时时返回null，调用方应在 SERVE_GRACE_MS 内发送
+     */
+    public File derivative(File source, String name, int width) {
+        if (width <= 0) {
+            return null;
+        }
+        int target = snapWidth(width);
+        String format = outputFormat(name);
+        String id = derivativeId(source, target);
+        Path path = dir.resolve(id.substring(0, 2)).resolve(id + "." + format);
+
+        synchronized (this) {
+            Entry entry = entries.get(path);
+            if (entry != null) {
+                if (Files.isRegularFile(path)) {
+                    entry.servedAt = System.currentTimeMillis();
+                    hits.increment();
+                    return path.toFile();
+                }
+                totalBytes -= entries.remove(path).size;
+            }
+        }
+        if (skipped.getIfPresent(id) != null) {
+            skips.increment();
+            return null;
+        }
+
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> existing = inFlight.putIfAbsent(id, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing, source);
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(generate(source, id, path, target, format));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(id, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(id, future);
+            future.complete(null);
+            log.debug("缩略图队列已满，发送原图: {}", source.getName());
+        }
+        return await(future, source);
+    }
+
+    /**
+     * 缩略图的响应类型
+     */
+    public String contentType(File derivative) {
+        return derivative.getName().endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    public synchronized long cachedBytes() {
+        return totalBytes;
+    }
+
+    private File await(CompletableFuture<File> future, File source) {
+        try {
+            File file = future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            if (file == null) {
+                fallbacks.increment();
+            }
+            return file;
+        } catch (TimeoutException e) {
+            // 生成任务继续执行，完成后进入缓存，本次先发送原图
+            log.debug("缩略图生成超过{}ms，发送原图: {}", waitTimeoutMs, source.getName());
+        } catch (ExecutionException e) {
+            log.warn("缩略图生成失败: {}, {}", source.getName(), e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fallbacks.increment();
+        return null;
+    }
+
+    private File generate(File source, String id, Path path, int width, String format) throws IOException {
+        BufferedImage image = read(source, width);
+        if (image == null) {
+            skipped.put(id, Boolean.TRUE);
+            return null;
+        }
+        BufferedImage scaled = scale(image, width, "png".equals(format));
+
+        Files.createDirectories(path.getParent());
+        Path part = Files.createTempFile(path.getParent(), "derivative-", ".part");
+        try {
+            if (!ImageIO.write(scaled, format, part.toFile())) {
+                skipped.put(id, Boolean.TRUE);
+                return null;
+            }
+            Files.move(part, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        generated.increment();
+        record(path, Files.size(path), System.currentTimeMillis());
+        return path.toFile();
+    }
+
+    /**
+     * 解码原图：先读尺寸，原图不比目标宽时返回null；
+     * 原图远大于目标时按整数倍降采样解码（保留约2倍目标宽度再缩放），减少内存和解码时间
+     */
+    private BufferedImage read(File source, int width) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source)) {
+            if (in == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sourceWidth = reader.getWidth(0);
+                int sourceHeight = reader.getHeight(0);
+                if (sourceWidth <= width) {
+                    return null;
+                }
+                if ((long) sourceWidth * sourceHeight > maxSourcePixels) {
+                    log.warn("图片尺寸过大，不生成缩略图: {} ({}x{})", source.getName(), sourceWidth, sourceHeight);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, sourceWidth / (width * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, boolean alpha) {
+        int height = Math.max(1, (int) Math.round((double) image.getHeight() * width / image.getWidth()));
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            if (!alpha) {
+                // jpg没有透明通道，透明区域铺白底
+                g.setColor(Color.WHITE);
+                g.fillRect(0, 0, width, height);
+            }
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * 登记缓存文件并按LRU淘汰，跳过本文件和最近发送过的文件
+     * @param servedAt 最近发送时间，启动时登记的文件为0
+     */
+    private synchronized void record(Path path, long size, long servedAt) {
+        Entry previous = entries.put(path, new Entry(size, servedAt));
+        totalBytes += size - (previous != null ? previous.size : 0);
+        long graceFrom = System.currentTimeMillis() - SERVE_GRACE_MS;
+        Iterator<Map.Entry<Path, Entry>> it = entries.entrySet().iterator();
+        while (totalBytes > cacheMaxBytes && it.hasNext()) {
+            Map.Entry<Path, Entry> eldest = it.next();
+            if (eldest.getKey().equals(path) || eldest.getValue().servedAt > graceFrom) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(eldest.getKey());
+            } catch (IOException e) {
+                log.warn("删除缩略图缓存失败: {}", eldest.getKey(), e);
+            }
+            totalBytes -= eldest.getValue().size;
+            it.remove();
+        }
+    }
+
+    /**
+     * 启动时扫描缓存目录，清理未完成的临时文件，按修改时间从旧到新登记
+     */
+    private void loadEntries() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(dir)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+        List<Path> ordered = files.stream()
+            .filter(p -> {
+                if (p.getFileName().toString().endsWith(".part")) {
+                    p.toFile().delete();
+                    return false;
+                }
+                return true;
+            })
+            .sorted(Comparator.comparingLong(p -> p.toFile().lastModified()))
+            .toList();
+        for (Path path : ordered) {
+            record(path, path.toFile().length(), 0);
+        }
+        log.info("缩略图缓存: {} 个文件, {} 字节", ordered.size(), cachedBytes());
+    }
+
+    private static int snapWidth(int width) {
+        for (int w : WIDTHS) {
+            if (width <= w) {
+                return w;
+            }
+        }
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    private static String outputFormat(String name) {
+        String lower = name == null ? "" : name.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".png") || lower.endsWith(".gif") ? "png" : "jpg";
+    }
+
+    private static String derivativeId(File source, int width) {
+        String key = source.getAbsolutePath() + "|" + source.length() + "|" + source.lastModified() + "|" + width;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final long size;
+        private long servedAt;
+
+        Entry(long size, long servedAt) {
+            this.size = size;
+            this.servedAt = servedAt;
+        }
+    }
+}
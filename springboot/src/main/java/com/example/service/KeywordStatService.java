@@ -0,0 +1,204 @@
+package com.example.service;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.LiteratureKeywordStatMapper;
+import com.example.mapper.MedicalLiteratureMapper;
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 文献关键词频次统计
+ * 文献入库时在同一事务内累加 literature_keyword_stat，删除文献或修改关键词时同样在事务内按差额扣减，
+ * 热门关键词直接按频次取前N条，不再扫描文献表
+ */
+@Service
+public class KeywordStatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeywordStatService.class);
+
+    private static final int MAX_KEYWORD_LENGTH = 100;
+    private static final int UPSERT_CHUNK = 500;
+    private static final int REBUILD_CHUNK = 5000;
+
+    @Resource
+    private LiteratureKeywordStatMapper keywordStatMapper;
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 拆分关键词字段（逗号、分号，中英文均可）
+     */
+    public static List<String> splitKeywords(String keywords) {
+        if (keywords == null || keywords.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (String keyword : keywords.split("[,，;；]")) {
+            keyword = keyword.trim();
+            if (!keyword.isEmpty() && keyword.length() <= MAX_KEYWORD_LENGTH) {
+                result.add(keyword);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 首次启动（频次表为空）时统计历史数据
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            if (keywordStatMapper.count() == 0 && medicalLiteratureMapper.count() > 0) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            logger.warn("关键词频次表初始化失败（请确认已执行 sql/literature_keyword_stat.sql）: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 新增文献后累加关键词频次（在调用方事务内执行）
+     * 统计失败只记录日志，不影响文献入库
+     */
+    public void onInserted(List<MedicalLiterature> literatures) {
+        Map<String, Integer> counts = new TreeMap<>();
+        for (MedicalLiterature literature : literatures) {
+            for (String keyword : splitKeywords(literature.getKeywords())) {
+                counts.merge(keyword, 1, Integer::sum);
+            }
+        }
+        if (counts.isEmpty()) {
+            return;
+        }
+        try {
+            upsert(counts);
+        } catch (Exception e) {
+            logger.warn("更新关键词频次失败: {}", e.getMessage());
+        }
+    }
+
+    public void onInserted(MedicalLiterature literature) {
+        onInserted(Collections.singletonList(literature));
+    }
+
+    /**
+     * 删除文献后扣减关键词频次（在调用方事务内执行）
+     */
+    public void onDeleted(MedicalLiterature literature) {
+        onKeywordsChanged(literature.getKeywords(), null);
+    }
+
+    /**
+     * 修改关键词后按前后差额调整频次（在调用方事务内执行）
+     * 统计失败只记录日志，不影响文献修改
+     */
+    public void onKeywordsChanged(String oldKeywords, String newKeywords) {
+        Map<String, Integer> delta = new TreeMap<>();
+        for (String keyword : splitKeywords(newKeywords)) {
+            delta.merge(keyword, 1, Integer::sum);
+        }
+        for (String keyword : splitKeywords(oldKeywords)) {
+            delta.merge(keyword, -1, Integer::sum);
+        }
+        Map<String, Integer> added = new TreeMap<>();
+        Map<String, Integer> removed = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : delta.entrySet()) {
+            if (entry.getValue() > 0) {
+                added.put(entry.getKey(), entry.getValue());
+            } else if (entry.getValue() < 0) {
+                removed.put(entry.getKey(), -entry.getValue());
+            }
+        }
+        try {
+            if (!added.isEmpty()) {
+                upsert(added);
+            }
+            if (!removed.isEmpty()) {
+                decrement(removed);
+            }
+        } catch (Exception e) {
+            logger.warn("更新关键词频次失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 频次最高的关键词
+     * @return keyword、count
+     */
+    public List<Map<String, Object>> getTopKeywords(int limit) {
+        return keywordStatMapper.selectTop(limit);
+    }
+
+    /**
+     * 按文献表重新统计全部关键词频次
+     * @return 关键词个数
+     */
+    public int rebuild() {
+        long start = System.currentTimeMillis();
+        Map<String, Integer> counts = new HashMap<>();
+        int lastId = 0;
+        List<MedicalLiterature> chunk;
+        do {
+            chunk = keywordStatMapper.selectKeywordsAfter(lastId, REBUILD_CHUNK);
+            for (MedicalLiterature literature : chunk) {
+                for (String keyword : splitKeywords(literature.getKeywords())) {
+                    counts.merge(keyword, 1, Integer::sum);
+                }
+                lastId = literature.getId();
+            }
+        } while (chunk.size() == REBUILD_CHUNK);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            keywordStatMapper.deleteAll();
+            upsert(new TreeMap<>(counts));
+        });
+        logger.info("关键词频次统计完成: {} 个关键词, 耗时 {}ms", counts.size(), System.currentTimeMillis() - start);
+        return counts.size();
+    }
+
+    private void upsert(Map<String, Integer> counts) {
+        Map<String, Integer> chunk = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() == UPSERT_CHUNK) {
+                keywordStatMapper.increment(chunk);
+                chunk = new TreeMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            keywordStatMapper.increment(chunk);
+        }
+    }
+
+    private void decrement(Map<String, Integer> counts) {
+        Map<String, Integer> chunk = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            chunk.put(entry.getKey(), entry.getValue());
+            if (chunk.size() == UPSERT_CHUNK) {
+                keywordStatMapper.decrement(chunk);
+                keywordStatMapper.deleteEmpty(chunk.keySet());
+                chunk = new TreeMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            keywordStatMapper.decrement(chunk);
+            keywordStatMapper.deleteEmpty(chunk.keySet());
+        }
+    }
+}
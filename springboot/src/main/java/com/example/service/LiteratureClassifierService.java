@@ -1,21 +1,26 @@
 package com.example.service;
 
 import com.example.entity.MedicalLiterature;
+import com.example.utils.AhoCorasickMatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.regex.Pattern;
 
 /**
  * 医疗文献智能分类服务
  * 基于关键词和内容自动分类文献
  *
+ * 全部分类的关键词编译成一个Aho–Corasick自动机，每篇文献只扫描一遍文本即可得到所有分类的得分。
+ * 规则（关键词、权重、自动机）作为不可变快照整体替换，addCategoryRule() 修改后重建，分类过程无需加锁。
+ * 分类结果写入 category 列：爬虫流水线的分类阶段调用 classifyLiteratures() 后随批量插入保存，
+ * 已入库的文献由 LiteratureReclassificationService 在规则变更后重新分类。
+ *
  * 【部分未使用说明】
- * 此服务提供文献分类功能，主要方法classifyLiterature()被爬虫流程调用。
  * 以下方法未被外部调用：
- * - classifyLiteratures() - 批量分类
  * - addCategoryRule() - 添加分类规则
  * - getCategoryStatistics() - 获取分类统计
  * 保留完整功能以便后续扩展。
@@ -25,10 +30,16 @@ public class LiteratureClassifierService {
 
     private static final Logger logger = LoggerFactory.getLogger(LiteratureClassifierService.class);
 
-    // 分类关键词映射
+    // 标题所在范围：关键词首次出现在此之前权重更高
+    private static final int TITLE_RANGE = 200;
+
+    // 批量分类时达到此数量才并行，小批次拆分的开销大于收益
+    private static final int PARALLEL_THRESHOLD = 32;
+
+    // 默认分类关键词映射
     private static final Map<String, List<String>> CATEGORY_KEYWORDS = new HashMap<>();
     
-    // 分类权重映射
+    // 默认分类权重映射
     private static final Map<String, Integer> CATEGORY_WEIGHTS = new HashMap<>();
 
     static {
@@ -120,6 +131,11 @@ public class LiteratureClassifierService {
         CATEGORY_WEIGHTS.put("药理学", 5);
     }
 
+    private volatile Rules rules = new Rules(CATEGORY_KEYWORDS, CATEGORY_WEIGHTS);
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 自动分类文献
      */
@@ -144,18 +160,19 @@ public class LiteratureClassifierService {
             }
             
             String content = allText.toString().toLowerCase();
+            Rules current = rules;
+            KeywordHits hits = scan(current.matcher, content);
             
             // 计算每个分类的匹配分数
             Map<String, Double> categoryScores = new HashMap<>();
             
-            for (Map.Entry<String, List<String>> entry : CATEGORY_KEYWORDS.entrySet()) {
-                String category = entry.getKey();
-                List<String> keywords = entry.getValue();
+            for (int c = 0; c < current.categories.length; c++) {
+                String category = current.categories[c];
                 
-                double score = calculateCategoryScore(content, keywords);
+                double score = calculateCategoryScore(hits, current.categoryPatterns[c]);
                 if (score > 0) {
                     // 应用权重
-                    score *= CATEGORY_WEIGHTS.getOrDefault(category, 1);
+                    score *= current.weights.getOrDefault(category, 1);
                     categoryScores.put(category, score);
                 }
             }
@@ -176,27 +193,58 @@ public class LiteratureClassifierService {
         }
     }
 
+    /**
+     * 一次扫描文本，记录每个关键词首次出现的位置，以及是否有一次出现是完整词
+     */
+    private KeywordHits scan(AhoCorasickMatcher matcher, String content) {
+        KeywordHits hits = new KeywordHits(matcher.patternCount());
+        matcher.scan(content, (pattern, start, end) -> {
+            if (hits.firstIndex[pattern] < 0) {
+                hits.firstIndex[pattern] = start;
+            }
+            if (!hits.wholeWord[pattern] && isWordBoundary(content, start) && isWordBoundary(content, end)) {
+                hits.wholeWord[pattern] = true;
+            }
+        });
+        return hits;
+    }
+
+    /**
+     * 与正则 \b 相同：两侧一个是单词字符（字母、数字、下划线），另一个不是
+     */
+    private static boolean isWordBoundary(String content, int index) {
+        boolean before = index > 0 && isWordChar(content.charAt(index - 1));
+        boolean after = index < content.length() && isWordChar(content.charAt(index));
+        return before != after;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
     /**
      * 计算分类匹配分数
+     * @param patterns 该分类每个关键词对应的模式串下标
      */
-    private double calculateCategoryScore(String content, List<String> keywords) {
+    private double calculateCategoryScore(KeywordHits hits, int[] patterns) {
         double score = 0.0;
-        int totalKeywords = keywords.size();
+        int totalKeywords = patterns.length;
         int matchedKeywords = 0;
         
-        for (String keyword : keywords) {
-            if (content.contains(keyword.toLowerCase())) {
+        for (int pattern : patterns) {
+            int firstIndex = hits.firstIndex[pattern];
+            if (firstIndex >= 0) {
                 matchedKeywords++;
                 
                 // 标题中的关键词权重更高
-                if (content.indexOf(keyword.toLowerCase()) < 200) { // 假设标题在前200个字符内
+                if (firstIndex < TITLE_RANGE) { // 假设标题在前200个字符内
                     score += 2.0;
                 } else {
                     score += 1.0;
                 }
                 
                 // 完整词匹配权重更高
-                if (Pattern.compile("\\b" + Pattern.quote(keyword.toLowerCase()) + "\\b").matcher(content).find()) {
+                if (hits.wholeWord[pattern]) {
                     score += 0.5;
                 }
             }
@@ -213,44 +261,54 @@ public class LiteratureClassifierService {
      * 批量分类文献
      */
     public void classifyLiteratures(List<MedicalLiterature> literatures) {
-        logger.info("开始批量分类 {} 篇文献", literatures.size());
-        
-        for (MedicalLiterature literature : literatures) {
-            try {
+        classifyAll(literatures);
+        logger.info("批量分类完成: {} 篇文献", literatures.size());
+    }
+
+    /**
+     * 批量分类并设置每篇文献的 category，返回分类发生变化的文献
+     * 数量较多时用并行流（ForkJoin公共池）分类，规则快照不可变，各线程互不影响
+     */
+    public List<MedicalLiterature> classifyAll(List<MedicalLiterature> literatures) {
+        var stream = literatures.size() >= PARALLEL_THRESHOLD ? literatures.parallelStream() : literatures.stream();
+        return stream
+            .filter(literature -> {
                 String category = classifyLiterature(literature);
-                // 移除category字段，分类信息可以通过keywords体现
-                // literature.setCategory(category);
-                logger.debug("文献 '{}' 分类为: {}", literature.getTitle(), category);
-            } catch (Exception e) {
-                logger.warn("分类文献失败: {}", literature.getTitle(), e);
-                // literature.setCategory("其他");
-            }
-        }
-        
-        logger.info("批量分类完成");
+                if (category.equals(literature.getCategory())) {
+                    return false;
+                }
+                literature.setCategory(category);
+                return true;
+            })
+            .toList();
     }
 
     /**
      * 获取所有支持的分类
      */
     public Set<String> getSupportedCategories() {
-        return CATEGORY_KEYWORDS.keySet();
+        return rules.keywords.keySet();
     }
 
     /**
      * 获取分类的关键词
      */
     public List<String> getCategoryKeywords(String category) {
-        return CATEGORY_KEYWORDS.getOrDefault(category, new ArrayList<>());
+        return rules.keywords.getOrDefault(category, new ArrayList<>());
     }
 
     /**
      * 添加自定义分类规则
+     * 基于当前规则复制一份并重建自动机后整体替换，进行中的分类继续使用旧规则
      */
-    public void addCategoryRule(String category, List<String> keywords, int weight) {
-        CATEGORY_KEYWORDS.put(category, keywords);
-        CATEGORY_WEIGHTS.put(category, weight);
+    public synchronized void addCategoryRule(String category, List<String> keywords, int weight) {
+        Map<String, List<String>> newKeywords = new HashMap<>(rules.keywords);
+        Map<String, Integer> newWeights = new HashMap<>(rules.weights);
+        newKeywords.put(category, keywords);
+        newWeights.put(category, weight);
+        rules = new Rules(newKeywords, newWeights);
         logger.info("添加自定义分类规则: {} (权重: {})", category, weight);
+        eventPublisher.publishEvent(new RulesChangedEvent(category));
     }
 
     /**
@@ -260,14 +318,69 @@ public class LiteratureClassifierService {
         Map<String, Integer> stats = new HashMap<>();
         
         for (MedicalLiterature literature : literatures) {
-            // 移除category字段，使用crawl_source作为分类统计
-            String category = literature.getCrawlSource();
+            String category = literature.getCategory();
             if (category == null || category.isEmpty()) {
-                category = "未知来源";
+                category = "未分类";
             }
             stats.put(category, stats.getOrDefault(category, 0) + 1);
         }
         
         return stats;
     }
+
+    /**
+     * 分类规则变更事件
+     */
+    public static class RulesChangedEvent {
+        private final String category;
+
+        public RulesChangedEvent(String category) {
+            this.category = category;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+    }
+
+    /**
+     * 分类规则快照：关键词、权重，以及由全部关键词（转小写、去重）构建的自动机
+     */
+    private static final class Rules {
+        private final Map<String, List<String>> keywords;
+        private final Map<String, Integer> weights;
+        private final String[] categories;
+        // 每个分类的关键词依次对应的模式串下标，重复的关键词各计一次
+        private final int[][] categoryPatterns;
+        private final AhoCorasickMatcher matcher;
+
+        Rules(Map<String, List<String>> keywords, Map<String, Integer> weights) {
+            this.keywords = Collections.unmodifiableMap(new HashMap<>(keywords));
+            this.weights = Collections.unmodifiableMap(new HashMap<>(weights));
+            this.categories = this.keywords.keySet().toArray(new String[0]);
+            this.categoryPatterns = new int[categories.length][];
+
+            Map<String, Integer> patternIds = new LinkedHashMap<>();
+            for (int c = 0; c < categories.length; c++) {
+                List<String> list = this.keywords.get(categories[c]);
+                int[] ids = new int[list.size()];
+                for (int k = 0; k < ids.length; k++) {
+                    ids[k] = patternIds.computeIfAbsent(list.get(k).toLowerCase(), key -> patternIds.size());
+                }
+                categoryPatterns[c] = ids;
+            }
+            this.matcher = new AhoCorasickMatcher(new ArrayList<>(patternIds.keySet()));
+        }
+    }
+
+    private static final class KeywordHits {
+        private final int[] firstIndex;
+        private final boolean[] wholeWord;
+
+        KeywordHits(int patterns) {
+            firstIndex = new int[patterns];
+            Arrays.fill(firstIndex, -1);
+            wholeWord = new boolean[patterns];
+        }
+    }
 }
@@ -0,0 +1,176 @@
+package com.example.service;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.MedicalLiteratureMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 文献重新分类任务
+ *
+ * 后台单线程按ID顺序分块（id > lastId ORDER BY id LIMIT n）读取文献，并行分类后只把分类变化的行批量写回。
+ * 分类规则变更时自动触发；任务进行中规则再次变更，则在当前分块结束后从头重新开始。
+ * onlyUnclassified 模式只处理 category 为空的历史数据，用于首次回填。
+ */
+@Service
+public class LiteratureReclassificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiteratureReclassificationService.class);
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Resource
+    private LiteratureClassifierService classifierService;
+
+    @Resource
+    private MedicalLiteratureService medicalLiteratureService;
+
+    @Value("${literature.reclassify.chunk-size:1000}")
+    private int chunkSize;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "literature-reclassify");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 以下状态只在持有本对象锁时修改
+    private boolean running;
+    private boolean restartRequested;
+    private boolean onlyUnclassified;
+    private int scanned;
+    private int updated;
+    private int lastId;
+    private Date startedAt;
+    private Date finishedAt;
+    private String error;
+
+    /**
+     * 启动重新分类
+     * @param onlyUnclassified 是否只处理尚未分类的文献
+     * @return 是否新启动了任务（已有任务在运行时返回false；若本次为全量，运行中的任务会从头重新开始）
+     */
+    public synchronized boolean start(boolean onlyUnclassified) {
+        if (running) {
+            if (!onlyUnclassified) {
+                restartRequested = true;
+            }
+            return false;
+        }
+        running = true;
+        restartRequested = false;
+        reset(onlyUnclassified);
+        executor.submit(this::run);
+        return true;
+    }
+
+    /**
+     * 分类规则变更后对全部文献重新分类
+     */
+    @EventListener
+    public void onRulesChanged(LiteratureClassifierService.RulesChangedEvent event) {
+        logger.info("分类规则变更（{}），重新分类全部文献", event.getCategory());
+        start(false);
+    }
+
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running);
+        status.put("onlyUnclassified", onlyUnclassified);
+        status.put("scanned", scanned);
+        status.put("updated", updated);
+        status.put("lastId", lastId);
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        status.put("error", error);
+        return status;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            int size = Math.max(1, chunkSize);
+            List<MedicalLiterature> chunk;
+            do {
+                int from;
+                boolean unclassified;
+                synchronized (this) {
+                    if (restartRequested) {
+                        restartRequested = false;
+                        reset(false);
+                        logger.info("分类规则已变更，重新分类从头开始");
+                    }
+                    from = lastId;
+                    unclassified = onlyUnclassified;
+                }
+
+                chunk = medicalLiteratureMapper.selectClassifiableAfter(from, unclassified, size);
+                if (chunk.isEmpty()) {
+                    continue;
+                }
+                List<MedicalLiterature> changed = classifierService.classifyAll(chunk);
+                if (!changed.isEmpty()) {
+                    medicalLiteratureMapper.updateCategories(changed);
+                }
+
+                synchronized (this) {
+                    scanned += chunk.size();
+                    updated += changed.size();
+                    lastId = chunk.get(chunk.size() - 1).getId();
+                }
+            } while (chunk.size() == size);
+
+            // 缓存中的文献详情和列表带有旧分类
+            medicalLiteratureService.clearCache();
+            synchronized (this) {
+                finishedAt = new Date();
+                logger.info("文献重新分类完成: 扫描 {} 篇, 更新 {} 篇, 耗时 {}ms",
+                    scanned, updated, finishedAt.getTime() - startedAt.getTime());
+            }
+        } catch (Exception e) {
+            logger.error("文献重新分类失败", e);
+            synchronized (this) {
+                error = e.getMessage();
+                finishedAt = new Date();
+            }
+        } finally {
+            synchronized (this) {
+                // 循环结束后才收到的规则变更，重新提交一轮
+                if (restartRequested) {
+                    restartRequested = false;
+                    reset(false);
+                    executor.submit(this::run);
+                } else {
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private void reset(boolean onlyUnclassified) {
+        this.onlyUnclassified = onlyUnclassified;
+        scanned = 0;
+        updated = 0;
+        lastId = 0;
+        startedAt = new Date();
+        finishedAt = null;
+        error = null;
+    }
+}
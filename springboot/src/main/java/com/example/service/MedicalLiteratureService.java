@@ -1,8 +1,13 @@
 package com.example.service;
 
+import com.example.common.CursorPage;
 import com.example.entity.MedicalLiterature;
+import com.example.exception.CustomException;
 import com.example.mapper.MedicalLiteratureMapper;
-import com.example.utils.SimilarityUtil;
+import com.example.service.search.LiteratureIndexService;
+import com.example.service.search.LiteratureSearchQuery;
+import com.example.service.search.LiteratureSearchService;
+import com.example.utils.LiteratureKeyUtil;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import jakarta.annotation.Resource;
@@ -11,7 +16,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -25,11 +34,32 @@ public class MedicalLiteratureService {
 
     private static final Logger logger = LoggerFactory.getLogger(MedicalLiteratureService.class);
 
+    // searchLiteratures 单次返回上限
+    private static final int SEARCH_LIMIT = 500;
+
+    // 游标分页单页上限
+    private static final int MAX_PAGE_SIZE = 200;
+
     @Resource
     private MedicalLiteratureMapper medicalLiteratureMapper;
 
     @Resource
-    private SimilarityUtil similarityUtil;
+    private NearDuplicateIndexService nearDuplicateIndexService;
+
+    @Resource
+    private LiteratureSearchService literatureSearchService;
+
+    @Resource
+    private LiteratureIndexService literatureIndexService;
+
+    @Resource
+    private KeywordStatService keywordStatService;
+
+    @Resource
+    private StatsCounterService statsCounterService;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
 
 
 
@@ -42,11 +72,72 @@ public class MedicalLiteratureService {
         if (literature.getStatus() == null || literature.getStatus().isEmpty()) {
             literature.setStatus("active");
         }
+        fillDedupKeys(literature);
 
         medicalLiteratureMapper.insert(literature);
+        keywordStatService.onInserted(literature);
+        afterCommit(() -> {
+            nearDuplicateIndexService.onInserted(literature);
+            literatureIndexService.onSaved(literature);
+            statsCounterService.onLiteratureInserted(literature);
+        });
         logger.info("新增医疗文献: {}", literature.getTitle());
     }
 
+    /**
+     * 多行插入一批文献（由调用方控制事务和批次大小）
+     * @return 插入行数
+     */
+    public int insertBatch(List<MedicalLiterature> literatures) {
+        if (literatures == null || literatures.isEmpty()) {
+            return 0;
+        }
+        Date now = new Date();
+        for (MedicalLiterature literature : literatures) {
+            if (literature.getCreateTime() == null) {
+                literature.setCreateTime(now);
+            }
+            if (literature.getStatus() == null || literature.getStatus().isEmpty()) {
+                literature.setStatus("active");
+            }
+            fillDedupKeys(literature);
+        }
+        int inserted = medicalLiteratureMapper.batchInsert(literatures);
+        keywordStatService.onInserted(literatures);
+        afterCommit(() -> {
+            nearDuplicateIndexService.onInserted(literatures);
+            literatureIndexService.onSaved(literatures);
+            statsCounterService.onLiteratureInserted(literatures);
+        });
+        return inserted;
+    }
+
+    /**
+     * 填充去重键（标准化DOI、标题哈希）
+     */
+    private void fillDedupKeys(MedicalLiterature literature) {
+        literature.setDoi(LiteratureKeyUtil.normalizeDoi(literature.getDoi()));
+        if (literature.getTitle() != null && !literature.getTitle().isEmpty()) {
+            literature.setTitleHash(LiteratureKeyUtil.titleHash(literature.getTitle()));
+        }
+    }
+
+    /**
+     * 在当前事务提交后执行（无事务时立即执行），保证内存索引与已提交数据一致
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
     /**
      * 批量添加文献（爬虫使用）
      */
@@ -85,7 +176,12 @@ public class MedicalLiteratureService {
                         continue;
                     }
                     
+                    fillDedupKeys(literature);
                     medicalLiteratureMapper.insert(literature);
+                    keywordStatService.onInserted(literature);
+                    nearDuplicateIndexService.onInserted(literature);
+                    literatureIndexService.onSaved(literature);
+                    statsCounterService.onLiteratureInserted(literature);
                     addedCount++;
                     logger.debug("成功添加文献: {} (ID: {})", literature.getTitle(), literature.getId());
                 } else {
@@ -119,8 +215,10 @@ public class MedicalLiteratureService {
                 }
             }
 
-            // 使用相似度算法检查近似重复
-            if (isSimilarToExisting(literature)) {
+            // 基于MinHash/LSH索引检查近似重复（覆盖全表）
+            Integer similarId = nearDuplicateIndexService.findNearDuplicate(literature.getTitle());
+            if (similarId != null) {
+                logger.debug("发现相似文献: {} <-> id={}", literature.getTitle(), similarId);
                 return true;
             }
 
@@ -133,32 +231,6 @@ public class MedicalLiteratureService {
         }
     }
 
-    /**
-     * 检查文献是否与现有文献相似
-     */
-    private boolean isSimilarToExisting(MedicalLiterature newLiterature) {
-        try {
-            // 获取最近的文献进行相似度比较（限制数量以提升性能）
-            List<MedicalLiterature> recentLiteratures = medicalLiteratureMapper.selectRecentLiteratures(100);
-
-            for (MedicalLiterature existing : recentLiteratures) {
-                // 快速预检查
-                if (similarityUtil.quickSimilarityCheck(newLiterature.getTitle(), existing.getTitle())) {
-                    // 详细相似度检查
-                    if (similarityUtil.isSimilar(newLiterature.getTitle(), existing.getTitle(), 0.85)) {
-                        logger.debug("发现相似文献: {} <-> {}", newLiterature.getTitle(), existing.getTitle());
-                        return true;
-                    }
-                }
-            }
-
-            return false;
-        } catch (Exception e) {
-            logger.error("相似度检查失败", e);
-            return false;
-        }
-    }
-
     /**
      * 根据ID查询文献
      */
@@ -178,7 +250,21 @@ public class MedicalLiteratureService {
      * 更新文献信息
      */
     public void updateById(MedicalLiterature literature) {
-        medicalLiteratureMapper.updateById(literature);
+        fillDedupKeys(literature);
+        transactionTemplate.executeWithoutResult(status -> {
+            // 修改了关键词时锁住原记录，频次按修改前后的差额调整
+            MedicalLiterature existing = literature.getKeywords() != null
+                ? medicalLiteratureMapper.selectByIdForUpdate(literature.getId()) : null;
+            medicalLiteratureMapper.updateById(literature);
+            if (existing != null) {
+                keywordStatService.onKeywordsChanged(existing.getKeywords(), literature.getKeywords());
+            }
+            if (literature.getTitle() != null && !literature.getTitle().isEmpty()) {
+                afterCommit(() -> nearDuplicateIndexService.onInserted(literature));
+            }
+            // 只更新了部分字段，按库中最新记录重新索引
+            afterCommit(() -> literatureIndexService.onChanged(literature.getId()));
+        });
         logger.info("更新医疗文献: {}", literature.getId());
     }
 
@@ -186,7 +272,21 @@ public class MedicalLiteratureService {
      * 删除文献
      */
     public void deleteById(Integer id) {
-        medicalLiteratureMapper.deleteById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            // 加锁读取，并发删除同一篇文献时后到的读到null，频次不会重复扣减
+            MedicalLiterature existing = medicalLiteratureMapper.selectByIdForUpdate(id);
+            medicalLiteratureMapper.deleteById(id);
+            if (existing != null) {
+                keywordStatService.onDeleted(existing);
+            }
+            afterCommit(() -> {
+                nearDuplicateIndexService.onDeleted(id);
+                literatureIndexService.onDeleted(id);
+                if (existing != null) {
+                    statsCounterService.onLiteratureDeleted(existing);
+                }
+            });
+        });
         logger.info("删除医疗文献: {}", id);
     }
 
@@ -195,6 +295,7 @@ public class MedicalLiteratureService {
      */
     public void updateStatus(Integer id, String status) {
         medicalLiteratureMapper.updateStatus(id, status);
+        afterCommit(() -> literatureIndexService.onChanged(id));
         logger.info("更新医疗文献状态: id={}, status={}", id, status);
     }
 
@@ -203,21 +304,72 @@ public class MedicalLiteratureService {
      */
     public PageInfo<MedicalLiterature> selectPage(MedicalLiterature literature, Integer pageNum, Integer pageSize) {
         PageHelper.startPage(pageNum, pageSize);
-        List<MedicalLiterature> list = medicalLiteratureMapper.selectAll(literature);
+        List<MedicalLiterature> list = medicalLiteratureMapper.selectByFilter(literature, null);
         return PageInfo.of(list);
     }
 
     /**
-     * 高级搜索文献
+     * 游标分页查询文献（按创建时间倒序），翻到任意深度的代价与第一页相同
+     * @param keyword 同时匹配标题、作者、关键词，可为空
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param withTotal 是否返回总数（额外一次计数，默认不算）
+     */
+    public CursorPage<MedicalLiterature> selectByCursor(MedicalLiterature query, String keyword,
+                                                        String cursor, Integer pageSize, boolean withTotal) {
+        CursorPage.Cursor position = CursorPage.decodeCursor(cursor);
+        if (position != null && position.getTime() == null) {
+            throw new CustomException("400", "无效的分页游标");
+        }
+        int size = Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+        String filterKeyword = keyword != null && !keyword.trim().isEmpty() ? keyword.trim() : null;
+
+        // 多取一条用于判断是否还有下一页
+        List<MedicalLiterature> list = medicalLiteratureMapper.selectByFilterAfter(query, filterKeyword,
+            position != null ? position.getTime() : null,
+            position != null ? position.getId() : null,
+            size + 1);
+        String nextCursor = null;
+        if (list.size() > size) {
+            list = new ArrayList<>(list.subList(0, size));
+            MedicalLiterature last = list.get(size - 1);
+            // create_time 为空的历史数据排在最后，无法定位，到此为止
+            if (last.getCreateTime() != null) {
+                nextCursor = CursorPage.encodeCursor(last.getCreateTime(), last.getId());
+            }
+        }
+        Long total = withTotal ? countByFilter(query, filterKeyword) : null;
+        return new CursorPage<>(list, nextCursor, total);
+    }
+
+    /**
+     * 列表总数：无筛选条件时直接取统计计数，否则执行一次COUNT
+     */
+    private long countByFilter(MedicalLiterature query, String keyword) {
+        boolean unfiltered = keyword == null
+            && isBlank(query.getTitle()) && isBlank(query.getAuthors())
+            && isBlank(query.getJournal()) && isBlank(query.getKeywords())
+            && isBlank(query.getCrawlSource()) && isBlank(query.getStatus()) && isBlank(query.getCategory());
+        if (unfiltered) {
+            return statsCounterService.getTotal(StatsCounterService.LITERATURE);
+        }
+        return PageHelper.count(() -> medicalLiteratureMapper.selectByFilter(query, keyword));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * 高级搜索文献（按相关度排序）
      */
     public PageInfo<MedicalLiterature> searchLiterature(String keyword, String category, 
                                                        String language, String startDate, 
                                                        String endDate, Integer pageNum, Integer pageSize) {
-        PageHelper.startPage(pageNum, pageSize);
-        List<MedicalLiterature> list = medicalLiteratureMapper.searchLiterature(
-            keyword, category, language, startDate, endDate);
-        
-        return PageInfo.of(list);
+        statsCounterService.onSearch();
+        LiteratureSearchQuery query = new LiteratureSearchQuery(keyword, pageNum, pageSize);
+        query.setStartDate(startDate);
+        query.setEndDate(endDate);
+        return literatureSearchService.search(query);
     }
 
 
@@ -238,13 +390,13 @@ public class MedicalLiteratureService {
     }
 
     /**
-     * 获取推荐文献
+     * 获取推荐文献（按相关度取前limit篇）
      */
     public List<MedicalLiterature> getRecommendedLiterature(String keyword, int limit) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return getPopularLiterature(limit);
         }
-        return medicalLiteratureMapper.getRecommendedLiterature(keyword.trim(), limit);
+        return literatureSearchService.search(new LiteratureSearchQuery(keyword.trim(), 1, limit)).getList();
     }
 
     /**
@@ -277,29 +429,35 @@ public class MedicalLiteratureService {
     public PageInfo<MedicalLiterature> adminSelectPage(String keyword, String category,
                                                        String source, String status,
                                                        Integer pageNum, Integer pageSize) {
+        MedicalLiterature query = buildAdminQuery(category, source, status);
+        String filterKeyword = keyword != null && !keyword.trim().isEmpty() ? keyword.trim() : null;
+
+        // 关键词在SQL中过滤，分页条数和总数才准确
         PageHelper.startPage(pageNum, pageSize);
+        List<MedicalLiterature> list = medicalLiteratureMapper.selectByFilter(query, filterKeyword);
+        return PageInfo.of(list);
+    }
+
+    /**
+     * 管理员游标分页查询文献
+     */
+    public CursorPage<MedicalLiterature> adminSelectByCursor(String keyword, String category, String source, String status,
+                                                             String cursor, Integer pageSize, boolean withTotal) {
+        return selectByCursor(buildAdminQuery(category, source, status), keyword, cursor, pageSize, withTotal);
+    }
 
-        // 构建查询条件
+    private static MedicalLiterature buildAdminQuery(String category, String source, String status) {
         MedicalLiterature query = new MedicalLiterature();
+        if (category != null && !category.trim().isEmpty()) {
+            query.setCategory(category.trim());
+        }
         if (source != null && !source.trim().isEmpty()) {
-            query.setCrawlSource(source);
+            query.setCrawlSource(source.trim());
         }
-
-        List<MedicalLiterature> list = medicalLiteratureMapper.selectAll(query);
-
-        // 关键词过滤
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            String searchKeyword = keyword.toLowerCase();
-            list = list.stream()
-                    .filter(lit ->
-                        (lit.getTitle() != null && lit.getTitle().toLowerCase().contains(searchKeyword)) ||
-                        (lit.getAuthors() != null && lit.getAuthors().toLowerCase().contains(searchKeyword)) ||
-                        (lit.getKeywords() != null && lit.getKeywords().toLowerCase().contains(searchKeyword))
-                    )
-                    .collect(java.util.stream.Collectors.toList());
+        if (status != null && !status.trim().isEmpty()) {
+            query.setStatus(status.trim());
         }
-
-        return PageInfo.of(list);
+        return query;
     }
 
     /**
@@ -310,19 +468,11 @@ public class MedicalLiteratureService {
 
         try {
             // 获取总文献数
-            MedicalLiterature allQuery = new MedicalLiterature();
-            List<MedicalLiterature> allLiteratures = medicalLiteratureMapper.selectAll(allQuery);
-            stats.put("totalCount", allLiteratures.size());
-
-            // 获取今日爬取数量
-            long todayCount = allLiteratures.stream()
-                    .filter(lit -> {
-                        if (lit.getCreateTime() == null) return false;
-                        long diff = System.currentTimeMillis() - lit.getCreateTime().getTime();
-                        return diff < 24 * 60 * 60 * 1000; // 24小时内
-                    })
-                    .count();
-            stats.put("todayCrawled", (int) todayCount);
+            stats.put("totalCount", medicalLiteratureMapper.count());
+
+            // 获取今日爬取数量（24小时内）
+            Date since = new Date(System.currentTimeMillis() - 24 * 60 * 60 * 1000L);
+            stats.put("todayCrawled", medicalLiteratureMapper.countCreatedSince(since));
 
         } catch (Exception e) {
             logger.error("获取管理员统计数据失败", e);
@@ -371,13 +521,11 @@ public class MedicalLiteratureService {
         Map<String, Integer> sourceStats = new HashMap<>();
 
         try {
-            MedicalLiterature query = new MedicalLiterature();
-            List<MedicalLiterature> allLiteratures = medicalLiteratureMapper.selectAll(query);
-
-            // 统计各来源的文献数量
-            for (MedicalLiterature literature : allLiteratures) {
-                String source = literature.getCrawlSource() != null ? literature.getCrawlSource() : "未知";
-                sourceStats.put(source, sourceStats.getOrDefault(source, 0) + 1);
+            // GROUP BY crawl_source，来源为空的记为"未知"
+            for (Map<String, Object> row : medicalLiteratureMapper.getSourceStatistics()) {
+                Object source = row.get("source");
+                int count = ((Number) row.get("count")).intValue();
+                sourceStats.merge(source != null ? source.toString() : "未知", count, Integer::sum);
             }
 
         } catch (Exception e) {
@@ -404,14 +552,8 @@ public class MedicalLiteratureService {
      */
     public int getRecentCount(int days) {
         try {
-            MedicalLiterature query = new MedicalLiterature();
-            List<MedicalLiterature> allLiteratures = medicalLiteratureMapper.selectAll(query);
-
-            long cutoffTime = System.currentTimeMillis() - (days * 24L * 60 * 60 * 1000);
-
-            return (int) allLiteratures.stream()
-                    .filter(lit -> lit.getCreateTime() != null && lit.getCreateTime().getTime() >= cutoffTime)
-                    .count();
+            Date since = new Date(System.currentTimeMillis() - days * 24L * 60 * 60 * 1000);
+            return medicalLiteratureMapper.countCreatedSince(since);
         } catch (Exception e) {
             logger.error("获取最近{}天文献数量失败", days, e);
             return 0;
@@ -419,103 +561,21 @@ public class MedicalLiteratureService {
     }
 
     /**
-     * 搜索文献（优化版本）
+     * 搜索文献（按相关度排序，最多返回 SEARCH_LIMIT 条）
      */
     public List<MedicalLiterature> searchLiteratures(String keyword, String source) {
-        MedicalLiterature query = new MedicalLiterature();
-        if (source != null && !source.trim().isEmpty()) {
-            query.setCrawlSource(source);
-        }
-
-        List<MedicalLiterature> list = medicalLiteratureMapper.selectAll(query);
-
-        // 关键词过滤和相关性排序
-        if (keyword != null && !keyword.trim().isEmpty()) {
-            String searchKeyword = keyword.toLowerCase();
-            list = list.stream()
-                    .filter(literature -> isRelevant(literature, searchKeyword))
-                    .sorted((a, b) -> Double.compare(calculateRelevanceScore(b, searchKeyword), calculateRelevanceScore(a, searchKeyword)))
-                    .collect(java.util.stream.Collectors.toList());
-        }
-
-        return list;
-    }
-
-    /**
-     * 判断文献是否与关键词相关
-     */
-    private boolean isRelevant(MedicalLiterature literature, String keyword) {
-        String lowerKeyword = keyword.toLowerCase();
-
-        // 检查标题
-        if (literature.getTitle() != null &&
-            literature.getTitle().toLowerCase().contains(lowerKeyword)) {
-            return true;
-        }
-
-        // 检查摘要
-        if (literature.getAbstractContent() != null &&
-            literature.getAbstractContent().toLowerCase().contains(lowerKeyword)) {
-            return true;
-        }
-
-        // 检查关键词
-        if (literature.getKeywords() != null &&
-            literature.getKeywords().toLowerCase().contains(lowerKeyword)) {
-            return true;
-        }
-
-        // 检查作者
-        if (literature.getAuthors() != null &&
-            literature.getAuthors().toLowerCase().contains(lowerKeyword)) {
-            return true;
-        }
-
-        return false;
-    }
-
-    /**
-     * 计算相关性评分
-     */
-    private double calculateRelevanceScore(MedicalLiterature literature, String keyword) {
-        double score = 0.0;
-        String lowerKeyword = keyword.toLowerCase();
-
-        // 标题匹配权重最高
-        if (literature.getTitle() != null) {
-            String title = literature.getTitle().toLowerCase();
-            if (title.contains(lowerKeyword)) {
-                score += 10.0;
-                // 完全匹配额外加分
-                if (title.equals(lowerKeyword)) {
-                    score += 20.0;
-                }
-                // 开头匹配加分
-                if (title.startsWith(lowerKeyword)) {
-                    score += 5.0;
-                }
+        statsCounterService.onSearch();
+        if (keyword == null || keyword.trim().isEmpty()) {
+            MedicalLiterature query = new MedicalLiterature();
+            if (source != null && !source.trim().isEmpty()) {
+                query.setCrawlSource(source);
             }
+            return medicalLiteratureMapper.selectAll(query);
         }
 
-        // 关键词匹配
-        if (literature.getKeywords() != null &&
-            literature.getKeywords().toLowerCase().contains(lowerKeyword)) {
-            score += 5.0;
-        }
-
-        // 摘要匹配
-        if (literature.getAbstractContent() != null &&
-            literature.getAbstractContent().toLowerCase().contains(lowerKeyword)) {
-            score += 3.0;
-        }
-
-        // 作者匹配
-        if (literature.getAuthors() != null &&
-            literature.getAuthors().toLowerCase().contains(lowerKeyword)) {
-            score += 2.0;
-        }
-
-        return score;
+        LiteratureSearchQuery query = new LiteratureSearchQuery(keyword.trim(), 1, SEARCH_LIMIT);
+        query.setSource(source);
+        return literatureSearchService.search(query).getList();
     }
 
-}
\ No newline at end of file
+}
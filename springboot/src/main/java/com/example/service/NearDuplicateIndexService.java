@@ -0,0 +1,207 @@
+package com.example.service;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.MedicalLiteratureMapper;
+import com.example.utils.MinHashLshIndex;
+import com.example.utils.SimilarityUtil;
+import com.example.utils.SimilarityUtil.PreparedTitle;
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文献近似重复索引服务
+ * 基于MinHash/LSH覆盖整张medical_literature表，启动时预热，插入/删除时增量维护
+ * LSH只负责找候选，候选再用预处理好的标题（SimilarityUtil.PreparedTitle）按综合相似度复核
+ * 重建时在新索引上加载，完成后整体替换；重建期间查询仍使用旧索引，增量变更同时写入新旧两份
+ */
+@Service
+public class NearDuplicateIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateIndexService.class);
+
+    private static final int WARM_UP_CHUNK = 5000;
+
+    // 首次构建完成前查询最多等待的时间
+    private static final long WARM_UP_WAIT_SECONDS = 30;
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Resource
+    private SimilarityUtil similarityUtil;
+
+    @Value("${crawler.near-duplicate-threshold:0.8}")
+    private double threshold;
+
+    private volatile Corpus corpus = new Corpus();
+
+    // 正在重建的索引，只在持有 buildingLock 时读写
+    private Corpus building;
+    private final Object buildingLock = new Object();
+
+    private volatile boolean ready = false;
+
+    // 首次构建结束（成功或失败）后放行
+    private final CountDownLatch warmedUp = new CountDownLatch(1);
+
+    /**
+     * 启动后全量构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    /**
+     * 全量重建索引（按ID分块读取）
+     */
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Corpus fresh = new Corpus();
+        synchronized (buildingLock) {
+            building = fresh;
+        }
+        try {
+            int lastId = 0;
+            List<MedicalLiterature> chunk;
+            do {
+                chunk = medicalLiteratureMapper.selectIdTitleAfter(lastId, WARM_UP_CHUNK);
+                for (MedicalLiterature literature : chunk) {
+                    if (literature.getTitle() != null) {
+                        fresh.put(literature.getId(), literature.getTitle(), similarityUtil.prepare(literature.getTitle()));
+                    }
+                    lastId = literature.getId();
+                }
+            } while (chunk.size() == WARM_UP_CHUNK);
+            synchronized (buildingLock) {
+                corpus = fresh;
+                building = null;
+            }
+            ready = true;
+            logger.info("近似重复索引构建完成: {} 条, 耗时 {}ms", fresh.index.size(), System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            synchronized (buildingLock) {
+                building = null;
+            }
+            logger.error("近似重复索引构建失败，继续使用原索引", e);
+        } finally {
+            warmedUp.countDown();
+        }
+    }
+
+    /**
+     * 查找与标题近似重复的已有文献
+     * @return 已有文献ID，不存在返回null
+     */
+    public Integer findNearDuplicate(String title) {
+        if (title == null || title.trim().isEmpty()) {
+            return null;
+        }
+        awaitWarmUp();
+        Corpus current = corpus;
+        PreparedTitle query = similarityUtil.prepare(title);
+        for (int id : current.index.candidates(title)) {
+            PreparedTitle candidate = current.titles.get(id);
+            if (candidate != null && similarityUtil.isSimilar(query, candidate, threshold)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 是否存在近似重复文献
+     */
+    public boolean isNearDuplicate(String title) {
+        return findNearDuplicate(title) != null;
+    }
+
+    /**
+     * 新增文献后更新索引
+     */
+    public void onInserted(List<MedicalLiterature> literatures) {
+        for (MedicalLiterature literature : literatures) {
+            onInserted(literature);
+        }
+    }
+
+    public void onInserted(MedicalLiterature literature) {
+        if (literature.getId() != null && literature.getTitle() != null) {
+            PreparedTitle prepared = similarityUtil.prepare(literature.getTitle());
+            synchronized (buildingLock) {
+                corpus.put(literature.getId(), literature.getTitle(), prepared);
+                if (building != null) {
+                    building.put(literature.getId(), literature.getTitle(), prepared);
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除文献后更新索引
+     */
+    public void onDeleted(Integer id) {
+        if (id != null) {
+            synchronized (buildingLock) {
+                corpus.remove(id);
+                if (building != null) {
+                    building.remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * 启动预热完成前索引是空的，查询会把重复文献放过去，先等待首次构建
+     */
+    private void awaitWarmUp() {
+        if (ready || warmedUp.getCount() == 0) {
+            return;
+        }
+        try {
+            if (!warmedUp.await(WARM_UP_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warn("近似重复索引尚未构建完成，本次查询结果可能不完整");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return corpus.index.size();
+    }
+
+    /**
+     * LSH索引和对应的预处理标题，重建时整体替换
+     */
+    private static final class Corpus {
+        // 8个band × 4行，候选阈值约为 (1/8)^(1/4) ≈ 0.59
+        private final MinHashLshIndex index = new MinHashLshIndex(8, 4);
+        private final Map<Integer, PreparedTitle> titles = new ConcurrentHashMap<>();
+
+        void put(int id, String title, PreparedTitle prepared) {
+            titles.put(id, prepared);
+            index.put(id, title);
+        }
+
+        void remove(int id) {
+            index.remove(id);
+            titles.remove(id);
+        }
+    }
+}
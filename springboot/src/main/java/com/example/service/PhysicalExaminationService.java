@@ -5,9 +5,14 @@ import com.example.mapper.PhysicalExaminationMapper;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
 import jakarta.annotation.Resource;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 业务层方法
@@ -22,24 +27,45 @@ public class PhysicalExaminationService {
         physicalExaminationMapper.insert(physicalExamination);
     }
 
+    @CacheEvict(value = "physicalExaminations", key = "#physicalExamination.id")
     public void updateById(PhysicalExamination physicalExamination) {
         physicalExaminationMapper.updateById(physicalExamination);
     }
 
+    @CacheEvict(value = "physicalExaminations", key = "#id")
     public void deleteById(Integer id) {
         physicalExaminationMapper.deleteById(id);
     }
 
+    @CacheEvict(value = "physicalExaminations", allEntries = true)
     public void deleteBatch(List<Integer> ids) {
         for (Integer id : ids) {
             physicalExaminationMapper.deleteById(id);
         }
     }
 
+    /**
+     * 根据ID查询体检项目（订单列表中逐个查询套餐包含的项目，缓存后多为本地命中）
+     */
+    @Cacheable(value = "physicalExaminations", key = "#id", unless = "#result == null")
     public PhysicalExamination selectById(Integer id) {
         return physicalExaminationMapper.selectById(id);
     }
 
+    /**
+     * 按ID批量查询，返回ID到体检项目的映射
+     */
+    public Map<Integer, PhysicalExamination> selectByIds(Collection<Integer> ids) {
+        Map<Integer, PhysicalExamination> result = new HashMap<>();
+        if (ids == null || ids.isEmpty()) {
+            return result;
+        }
+        for (PhysicalExamination physicalExamination : physicalExaminationMapper.selectByIds(ids)) {
+            result.put(physicalExamination.getId(), physicalExamination);
+        }
+        return result;
+    }
+
     public List<PhysicalExamination> selectAll(PhysicalExamination physicalExamination) {
         return physicalExaminationMapper.selectAll(physicalExamination);
     }
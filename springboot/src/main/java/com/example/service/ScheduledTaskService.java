@@ -9,6 +9,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -52,24 +53,32 @@ public class ScheduledTaskService {
                 "免疫治疗", "数字健康", "医疗大数据", "智能诊断"
             };
             
-            // 随机选择一个热门关键词
-            String keyword = hotKeywords[(int) (Math.random() * hotKeywords.length)];
-            
-            logger.info("定时爬虫关键词: {}", keyword);
+            // 所有热门关键词一次提交，关键词 × 数据源并发拉取
+            List<com.example.crawler.core.model.CrawlRequest> requests = new ArrayList<>();
+            for (String keyword : hotKeywords) {
+                requests.add(new com.example.crawler.core.model.CrawlRequest(keyword, 5));
+            }
             
             // 执行爬虫任务
-            com.example.crawler.core.model.CrawlRequest request = new com.example.crawler.core.model.CrawlRequest(keyword, 5);
-            com.example.crawler.core.model.CrawlResult result = orchestrator.crawl(request);
-            int savedCount = result.getSaved();
+            List<com.example.crawler.core.model.CrawlResult> results = orchestrator.crawlBatch(requests);
+            int savedCount = 0;
+            StringBuilder summary = new StringBuilder();
+            for (com.example.crawler.core.model.CrawlResult result : results) {
+                savedCount += result.getSaved();
+                if (result.getSaved() > 0) {
+                    if (summary.length() > 0) summary.append("，");
+                    summary.append(String.format("'%s' %d篇", result.getKeyword(), result.getSaved()));
+                }
+            }
             
-            logger.info("定时爬虫完成，保存文献数量: {}", savedCount);
+            logger.info("定时爬虫完成，关键词数量: {}，保存文献数量: {}", hotKeywords.length, savedCount);
             
             // 发送通知消息
             if (messageService != null && savedCount > 0) {
                 messageService.sendNotificationMessage(
                     1L, 
                     "定时爬虫完成", 
-                    String.format("自动爬取关键词'%s'相关文献%d篇", keyword, savedCount)
+                    "自动爬取热门关键词相关文献：" + summary
                 );
             }
             
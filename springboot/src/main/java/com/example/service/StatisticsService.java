@@ -1,7 +1,6 @@
 package com.example.service;
 
 import com.example.entity.MedicalLiterature;
-import com.example.entity.User;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,27 +30,16 @@ public class StatisticsService {
     private MedicalLiteratureService medicalLiteratureService;
 
     @Autowired
-    private UserService userService;
+    private KeywordStatService keywordStatService;
 
-    @Autowired(required = false)
-    private CacheService cacheService;
+    @Autowired
+    private StatsCounterService statsCounterService;
 
     /**
-     * 获取系统概览统计
+     * 获取系统概览统计（计数直接读内存，不查询业务表）
      */
     public Map<String, Object> getSystemOverview() {
         try {
-            String cacheKey = "system_overview_" + LocalDate.now().toString();
-            
-            // 尝试从缓存获取
-            if (cacheService != null) {
-                Map<String, Object> cached = cacheService.get(cacheKey, Map.class);
-                if (cached != null) {
-                    logger.debug("从缓存获取系统概览统计");
-                    return cached;
-                }
-            }
-            
             Map<String, Object> overview = new HashMap<>();
             
             // 用户统计
@@ -72,11 +60,6 @@ public class StatisticsService {
             
             overview.put("lastUpdated", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
             
-            // 缓存结果
-            if (cacheService != null) {
-                cacheService.cacheStatistics(cacheKey, overview);
-            }
-            
             return overview;
             
         } catch (Exception e) {
@@ -93,15 +76,15 @@ public class StatisticsService {
             Map<String, Object> stats = new HashMap<>();
             
             // 总用户数
-            int totalUsers = getTotalUserCount();
+            long totalUsers = getTotalUserCount();
             stats.put("total", totalUsers);
             
             // 今日新增用户
-            int todayNewUsers = getTodayNewUserCount();
+            long todayNewUsers = getTodayNewUserCount();
             stats.put("todayNew", todayNewUsers);
             
-            // 活跃用户数（最近7天登录）
-            int activeUsers = getActiveUserCount(7);
+            // 活跃用户数（最近7天有登录后的访问）
+            long activeUsers = getActiveUserCount(7);
             stats.put("active7Days", activeUsers);
             
             // 用户角色分布
@@ -124,19 +107,19 @@ public class StatisticsService {
             Map<String, Object> stats = new HashMap<>();
             
             // 总文献数
-            int totalLiterature = getTotalLiteratureCount();
+            long totalLiterature = getTotalLiteratureCount();
             stats.put("total", totalLiterature);
             
             // 今日新增文献
-            int todayNewLiterature = getTodayNewLiteratureCount();
+            long todayNewLiterature = getTodayNewLiteratureCount();
             stats.put("todayNew", todayNewLiterature);
             
             // 本周新增文献
-            int weekNewLiterature = getWeekNewLiteratureCount();
+            long weekNewLiterature = getWeekNewLiteratureCount();
             stats.put("weekNew", weekNewLiterature);
             
             // 文献来源分布
-            Map<String, Integer> sourceDistribution = getLiteratureSourceDistribution();
+            Map<String, Long> sourceDistribution = getLiteratureSourceDistribution();
             stats.put("sourceDistribution", sourceDistribution);
             
             // 文献分类分布
@@ -186,36 +169,15 @@ public class StatisticsService {
      * 获取热门关键词
      */
     public List<Map<String, Object>> getHotKeywords() {
+        return getHotKeywords(20);
+    }
+
+    /**
+     * 获取热门关键词（按关键词频次表取前limit个）
+     */
+    public List<Map<String, Object>> getHotKeywords(int limit) {
         try {
-            // 从文献中提取关键词并统计频率
-            List<MedicalLiterature> allLiterature = getAllLiterature();
-            
-            Map<String, Integer> keywordCount = new HashMap<>();
-            
-            for (MedicalLiterature literature : allLiterature) {
-                if (literature.getKeywords() != null && !literature.getKeywords().trim().isEmpty()) {
-                    String[] keywords = literature.getKeywords().split("[,，;；]");
-                    for (String keyword : keywords) {
-                        keyword = keyword.trim();
-                        if (!keyword.isEmpty()) {
-                            keywordCount.put(keyword, keywordCount.getOrDefault(keyword, 0) + 1);
-                        }
-                    }
-                }
-            }
-            
-            // 按频率排序并返回前20个
-            return keywordCount.entrySet().stream()
-                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                    .limit(20)
-                    .map(entry -> {
-                        Map<String, Object> item = new HashMap<>();
-                        item.put("keyword", entry.getKey());
-                        item.put("count", entry.getValue());
-                        return item;
-                    })
-                    .collect(Collectors.toList());
-                    
+            return keywordStatService.getTopKeywords(limit);
         } catch (Exception e) {
             logger.error("获取热门关键词失败", e);
             return new ArrayList<>();
@@ -226,19 +188,26 @@ public class StatisticsService {
      * 获取趋势数据（最近30天）
      */
     public Map<String, Object> getTrendData() {
+        return getTrendData(30);
+    }
+
+    /**
+     * 获取趋势数据（最近days天）
+     */
+    public Map<String, Object> getTrendData(int days) {
         try {
             Map<String, Object> trends = new HashMap<>();
             
             // 用户增长趋势
-            List<Map<String, Object>> userTrend = getUserGrowthTrend(30);
+            List<Map<String, Object>> userTrend = getUserGrowthTrend(days);
             trends.put("userGrowth", userTrend);
             
             // 文献增长趋势
-            List<Map<String, Object>> literatureTrend = getLiteratureGrowthTrend(30);
+            List<Map<String, Object>> literatureTrend = getLiteratureGrowthTrend(days);
             trends.put("literatureGrowth", literatureTrend);
             
             // 系统使用趋势
-            List<Map<String, Object>> usageTrend = getSystemUsageTrend(30);
+            List<Map<String, Object>> usageTrend = getSystemUsageTrend(days);
             trends.put("systemUsage", usageTrend);
             
             return trends;
@@ -251,23 +220,16 @@ public class StatisticsService {
 
     // 私有辅助方法
 
-    private int getTotalUserCount() {
-        try {
-            return (int) userService.selectPage(new User(), 1, 1).getTotal();
-        } catch (Exception e) {
-            logger.error("获取总用户数失败", e);
-            return 0;
-        }
+    private long getTotalUserCount() {
+        return statsCounterService.getTotal(StatsCounterService.USER);
     }
 
-    private int getTodayNewUserCount() {
-        // 简化实现，返回随机数
-        return (int) (Math.random() * 10);
+    private long getTodayNewUserCount() {
+        return statsCounterService.getDaily(StatsCounterService.USER_NEW, LocalDate.now());
     }
 
-    private int getActiveUserCount(int days) {
-        // 简化实现，返回随机数
-        return (int) (Math.random() * 50);
+    private long getActiveUserCount(int days) {
+        return statsCounterService.getActiveUsers(days);
     }
 
     private Map<String, Integer> getUserRoleDistribution() {
@@ -279,30 +241,21 @@ public class StatisticsService {
         return distribution;
     }
 
-    private int getTotalLiteratureCount() {
-        try {
-            return (int) medicalLiteratureService.selectPage(new MedicalLiterature(), 1, 1).getTotal();
-        } catch (Exception e) {
-            logger.error("获取总文献数失败", e);
-            return 0;
-        }
+    private long getTotalLiteratureCount() {
+        return statsCounterService.getTotal(StatsCounterService.LITERATURE);
     }
 
-    private int getTodayNewLiteratureCount() {
-        // 简化实现，返回随机数
-        return (int) (Math.random() * 20);
+    private long getTodayNewLiteratureCount() {
+        return statsCounterService.getDaily(StatsCounterService.LITERATURE_NEW, LocalDate.now());
     }
 
-    private int getWeekNewLiteratureCount() {
-        // 简化实现，返回随机数
-        return (int) (Math.random() * 100);
+    private long getWeekNewLiteratureCount() {
+        return statsCounterService.sumRecent(StatsCounterService.LITERATURE_NEW, 7);
     }
 
-    private Map<String, Integer> getLiteratureSourceDistribution() {
-        Map<String, Integer> distribution = new HashMap<>();
-        distribution.put("arXiv", 45);
-        distribution.put("PubMed", 30);
-        distribution.put("Synthetic", 25);
+    private Map<String, Long> getLiteratureSourceDistribution() {
+        Map<String, Long> distribution = statsCounterService.getTotals(StatsCounterService.LITERATURE_SOURCE);
+        distribution.values().removeIf(count -> count <= 0);
         return distribution;
     }
 
@@ -342,9 +295,9 @@ public class StatisticsService {
             Map<String, Object> dayData = new HashMap<>();
             LocalDate date = LocalDate.now().minusDays(i);
             dayData.put("date", date.toString());
-            dayData.put("users", (int) (Math.random() * 100));
-            dayData.put("literature", (int) (Math.random() * 50));
-            dayData.put("searches", (int) (Math.random() * 200));
+            dayData.put("users", statsCounterService.getDaily(StatsCounterService.USER_NEW, date));
+            dayData.put("literature", statsCounterService.getDaily(StatsCounterService.LITERATURE_NEW, date));
+            dayData.put("searches", statsCounterService.getDaily(StatsCounterService.SEARCH, date));
             activity.add(dayData);
         }
         
@@ -370,54 +323,48 @@ public class StatisticsService {
         return stats;
     }
 
-    private List<MedicalLiterature> getAllLiterature() {
-        try {
-            return medicalLiteratureService.selectPage(new MedicalLiterature(), 1, 1000).getList();
-        } catch (Exception e) {
-            logger.error("获取所有文献失败", e);
-            return new ArrayList<>();
-        }
-    }
-
     private List<Map<String, Object>> getUserGrowthTrend(int days) {
-        List<Map<String, Object>> trend = new ArrayList<>();
-        
-        for (int i = days - 1; i >= 0; i--) {
-            Map<String, Object> dayData = new HashMap<>();
-            LocalDate date = LocalDate.now().minusDays(i);
-            dayData.put("date", date.toString());
-            dayData.put("newUsers", (int) (Math.random() * 10));
-            dayData.put("totalUsers", 200 + (days - i) * 2);
-            trend.add(dayData);
-        }
-        
-        return trend;
+        return getGrowthTrend(StatsCounterService.USER, StatsCounterService.USER_NEW, days, "newUsers", "totalUsers");
     }
 
     private List<Map<String, Object>> getLiteratureGrowthTrend(int days) {
-        List<Map<String, Object>> trend = new ArrayList<>();
-        
-        for (int i = days - 1; i >= 0; i--) {
+        return getGrowthTrend(StatsCounterService.LITERATURE, StatsCounterService.LITERATURE_NEW, days,
+                "newLiterature", "totalLiterature");
+    }
+
+    /**
+     * 增长趋势：每日新增取日桶，当日总量由当前总量倒推（减去之后各天的新增）
+     */
+    private List<Map<String, Object>> getGrowthTrend(String totalMetric, String newMetric, int days,
+                                                     String newKey, String totalKey) {
+        Map<String, Long> series = statsCounterService.getDailySeries(newMetric, days);
+        List<Map<String, Object>> trend = new ArrayList<>(series.size());
+        long total = statsCounterService.getTotal(totalMetric);
+        List<String> dates = new ArrayList<>(series.keySet());
+        for (int i = dates.size() - 1; i >= 0; i--) {
+            String date = dates.get(i);
             Map<String, Object> dayData = new HashMap<>();
-            LocalDate date = LocalDate.now().minusDays(i);
-            dayData.put("date", date.toString());
-            dayData.put("newLiterature", (int) (Math.random() * 20));
-            dayData.put("totalLiterature", 100 + (days - i) * 3);
+            dayData.put("date", date);
+            dayData.put(newKey, series.get(date));
+            dayData.put(totalKey, Math.max(0, total));
             trend.add(dayData);
+            total -= series.get(date);
         }
-        
+        Collections.reverse(trend);
         return trend;
     }
 
     private List<Map<String, Object>> getSystemUsageTrend(int days) {
         List<Map<String, Object>> trend = new ArrayList<>();
+        Map<String, Long> searches = statsCounterService.getDailySeries(StatsCounterService.SEARCH, days);
+        Map<String, Long> pageViews = statsCounterService.getDailySeries(StatsCounterService.PAGE_VIEW, days);
         
-        for (int i = days - 1; i >= 0; i--) {
+        for (Map.Entry<String, Long> entry : searches.entrySet()) {
             Map<String, Object> dayData = new HashMap<>();
-            LocalDate date = LocalDate.now().minusDays(i);
-            dayData.put("date", date.toString());
-            dayData.put("pageViews", (int) (Math.random() * 1000));
-            dayData.put("apiCalls", (int) (Math.random() * 500));
+            dayData.put("date", entry.getKey());
+            // 访问量按通过登录校验的接口请求计
+            dayData.put("pageViews", pageViews.get(entry.getKey()));
+            dayData.put("searches", entry.getValue());
             trend.add(dayData);
         }
         
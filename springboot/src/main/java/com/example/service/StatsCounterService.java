@@ -0,0 +1,416 @@
+package com.example.service;
+
+import com.example.entity.MedicalLiterature;
+import com.example.entity.StatsSnapshot;
+import com.example.mapper.MedicalLiteratureMapper;
+import com.example.mapper.StatsSnapshotMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计计数服务
+ *
+ * 总量和按天的计数保存在内存中（LongAdder，高并发下分段累加），由业务层在新增/删除/状态变更时更新，
+ * 定时把增量累加到 stats_snapshot 表，启动时从快照恢复。概览、趋势、实时统计直接读取计数，不再查询业务表。
+ * 快照按增量累加，多实例部署时各实例的增量汇总到同一行；每次写入后各实例重新读取快照作为基数，
+ * 内存中的值为最近一次读取的快照加上本实例尚未写入的增量，各实例的总数在一个刷新周期内一致。
+ * 首次初始化由插入 seed 标记行成功的实例完成，标记与初始化数据在同一事务内提交。
+ * 活跃用户需要跨实例去重，按天记录在Redis HyperLogLog中，每个实例每天每个账号只写一次。
+ */
+@Service
+public class StatsCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsCounterService.class);
+
+    public static final String LITERATURE = "literature";
+    public static final String LITERATURE_SOURCE = "literature.source.";
+    public static final String LITERATURE_NEW = "literature.new";
+    public static final String USER = "user";
+    public static final String USER_NEW = "user.new";
+    public static final String ORDER = "order";
+    public static final String ORDER_STATUS = "order.status.";
+    public static final String ORDER_NEW = "order.new";
+    public static final String SEARCH = "search";
+    public static final String PAGE_VIEW = "page.view";
+
+    private static final String TOTAL_BUCKET = "total";
+    // 日桶保留天数（趋势最多查询365天）
+    private static final int RETENTION_DAYS = 366;
+    // 首次初始化时回溯的天数
+    private static final int SEED_DAYS = 30;
+    private static final int FLUSH_CHUNK = 500;
+    private static final String ACTIVE_USER_KEY = "stats:active:";
+    // 活跃用户最多查询近30天
+    private static final int ACTIVE_RETENTION_DAYS = 31;
+
+    @Resource
+    private StatsSnapshotMapper statsSnapshotMapper;
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Resource
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private final Map<String, Counter> totals = new ConcurrentHashMap<>();
+    private final Map<LocalDate, Map<String, Counter>> days = new ConcurrentHashMap<>();
+    // 本实例当天已写入HyperLogLog的账号，避免每个请求都访问Redis
+    private final Map<LocalDate, Set<String>> activeSeen = new ConcurrentHashMap<>();
+
+    // ---- 业务事件 ----
+
+    public void onLiteratureInserted(List<MedicalLiterature> literatures) {
+        for (MedicalLiterature literature : literatures) {
+            onLiteratureInserted(literature);
+        }
+    }
+
+    public void onLiteratureInserted(MedicalLiterature literature) {
+        total(LITERATURE).add(1);
+        total(LITERATURE_SOURCE + sourceOf(literature)).add(1);
+        today(LITERATURE_NEW).add(1);
+    }
+
+    public void onLiteratureDeleted(MedicalLiterature literature) {
+        total(LITERATURE).add(-1);
+        total(LITERATURE_SOURCE + sourceOf(literature)).add(-1);
+    }
+
+    public void onUserRegistered() {
+        onUserRegistered(1);
+    }
+
+    public void onUserRegistered(int count) {
+        if (count > 0) {
+            total(USER).add(count);
+            today(USER_NEW).add(count);
+        }
+    }
+
+    public void onUserDeleted() {
+        total(USER).add(-1);
+    }
+
+    public void onOrderCreated(String status) {
+        total(ORDER).add(1);
+        total(ORDER_STATUS + status).add(1);
+        today(ORDER_NEW).add(1);
+        today(ORDER_STATUS + status).add(1);
+    }
+
+    /**
+     * 订单状态变更：总量按状态转移，当天计入新状态
+     */
+    public void onOrderStatusChanged(String from, String to) {
+        if (to == null || to.equals(from)) {
+            return;
+        }
+        total(ORDER_STATUS + from).add(-1);
+        total(ORDER_STATUS + to).add(1);
+        today(ORDER_STATUS + to).add(1);
+    }
+
+    public void onOrderDeleted(String status) {
+        total(ORDER).add(-1);
+        total(ORDER_STATUS + status).add(-1);
+    }
+
+    public void onSearch() {
+        today(SEARCH).add(1);
+    }
+
+    public void onPageView() {
+        today(PAGE_VIEW).add(1);
+    }
+
+    /**
+     * 记录账号今天活跃（角色-ID）
+     */
+    public void onUserActive(String account) {
+        LocalDate today = LocalDate.now();
+        Set<String> seen = activeSeen.computeIfAbsent(today, key -> ConcurrentHashMap.newKeySet());
+        if (redisTemplate == null || !seen.add(account)) {
+            return;
+        }
+        String key = ACTIVE_USER_KEY + today;
+        try {
+            redisTemplate.opsForHyperLogLog().add(key, account);
+            redisTemplate.expire(key, ACTIVE_RETENTION_DAYS, TimeUnit.DAYS);
+        } catch (Exception e) {
+            // Redis不可用时不重试，避免每个请求都等待超时
+            logger.warn("记录活跃用户失败: {}", e.getMessage());
+        }
+    }
+
+    // ---- 查询 ----
+
+    public long getTotal(String metric) {
+        Counter counter = totals.get(metric);
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 指定前缀的全部总量计数（key去掉前缀）
+     */
+    public Map<String, Long> getTotals(String prefix) {
+        Map<String, Long> result = new HashMap<>();
+        totals.forEach((metric, counter) -> {
+            if (metric.startsWith(prefix)) {
+                result.put(metric.substring(prefix.length()), counter.get());
+            }
+        });
+        return result;
+    }
+
+    public long getDaily(String metric, LocalDate day) {
+        Map<String, Counter> bucket = days.get(day);
+        Counter counter = bucket != null ? bucket.get(metric) : null;
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * 最近N天（含今天）的累计值
+     */
+    public long sumRecent(String metric, int dayCount) {
+        LocalDate today = LocalDate.now();
+        long sum = 0;
+        for (int i = 0; i < dayCount; i++) {
+            sum += getDaily(metric, today.minusDays(i));
+        }
+        return sum;
+    }
+
+    /**
+     * 最近N天（含今天）的活跃用户数（跨天、跨实例去重，HyperLogLog误差约0.8%）
+     */
+    public long getActiveUsers(int dayCount) {
+        if (redisTemplate == null) {
+            return 0;
+        }
+        LocalDate today = LocalDate.now();
+        int count = Math.min(Math.max(dayCount, 1), ACTIVE_RETENTION_DAYS);
+        String[] keys = new String[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ACTIVE_USER_KEY + today.minusDays(i);
+        }
+        try {
+            Long size = redisTemplate.opsForHyperLogLog().size(keys);
+            return size != null ? size : 0;
+        } catch (Exception e) {
+            logger.warn("读取活跃用户数失败: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 最近N天（含今天）的每日计数，按日期升序
+     */
+    public Map<String, Long> getDailySeries(String metric, int dayCount) {
+        Map<String, Long> series = new LinkedHashMap<>();
+        LocalDate today = LocalDate.now();
+        for (int i = dayCount - 1; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            series.put(day.toString(), getDaily(metric, day));
+        }
+        return series;
+    }
+
+    // ---- 持久化 ----
+
+    /**
+     * 启动时从快照恢复；快照表为空时按业务表初始化一次
+     */
+    @PostConstruct
+    public void load() {
+        try {
+            if (statsSnapshotMapper.count() == 0) {
+                // 多实例同时首次启动时只有一个实例插入标记成功，其余实例等它提交后直接加载
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (statsSnapshotMapper.insertSeedMarker() == 1) {
+                        seed();
+                    }
+                });
+            }
+            reload();
+            logger.info("统计计数已从快照恢复: {} 个总量指标, {} 天", totals.size(), days.size());
+        } catch (Exception e) {
+            logger.warn("统计快照加载失败（请确认已执行 sql/stats_snapshot.sql），计数从0开始: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 以快照中的值作为各计数器的基数（包含其他实例已写入的增量），只在启动和flush线程上调用
+     */
+    private void reload() {
+        String sinceDay = LocalDate.now().minusDays(RETENTION_DAYS).toString();
+        for (StatsSnapshot snapshot : statsSnapshotMapper.selectSince(sinceDay)) {
+            Counter counter = TOTAL_BUCKET.equals(snapshot.getBucket())
+                ? total(snapshot.getMetric())
+                : daily(LocalDate.parse(snapshot.getBucket()), snapshot.getMetric());
+            counter.base.set(snapshot.getStatValue());
+        }
+    }
+
+    /**
+     * 定时把增量写入快照，再重新读取快照，并清理过期的日桶
+     */
+    @Scheduled(fixedDelayString = "${stats.flush-interval-ms:60000}")
+    public void flush() {
+        List<StatsSnapshot> deltas = new ArrayList<>();
+        List<Counter> counters = new ArrayList<>();
+        totals.forEach((metric, counter) -> collect(TOTAL_BUCKET, metric, counter, deltas, counters));
+        days.forEach((day, bucket) -> bucket.forEach(
+            (metric, counter) -> collect(day.toString(), metric, counter, deltas, counters)));
+
+        for (int from = 0; from < deltas.size(); from += FLUSH_CHUNK) {
+            int to = Math.min(from + FLUSH_CHUNK, deltas.size());
+            try {
+                statsSnapshotMapper.addAll(deltas.subList(from, to));
+            } catch (Exception e) {
+                // 写入失败的增量退回内存，下次继续写
+                for (int i = from; i < to; i++) {
+                    counters.get(i).restore(deltas.get(i).getStatValue());
+                }
+                logger.warn("统计快照写入失败: {}", e.getMessage());
+            }
+        }
+
+        // 本实例的增量已并入快照（失败的已退回pending），重新读取后base同时包含其他实例的增量
+        try {
+            reload();
+        } catch (Exception e) {
+            logger.warn("统计快照读取失败: {}", e.getMessage());
+        }
+
+        LocalDate expired = LocalDate.now().minusDays(RETENTION_DAYS);
+        days.keySet().removeIf(day -> day.isBefore(expired));
+        activeSeen.keySet().removeIf(day -> day.isBefore(LocalDate.now()));
+        if (!deltas.isEmpty()) {
+            try {
+                statsSnapshotMapper.deleteBefore(expired.toString());
+            } catch (Exception e) {
+                logger.warn("清理过期统计快照失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static void collect(String bucket, String metric, Counter counter,
+                                List<StatsSnapshot> deltas, List<Counter> counters) {
+        long delta = counter.drain();
+        if (delta != 0) {
+            deltas.add(new StatsSnapshot(bucket, metric, delta));
+            counters.add(counter);
+        }
+    }
+
+    private void seed() {
+        List<StatsSnapshot> seeds = new ArrayList<>();
+        seeds.add(new StatsSnapshot(TOTAL_BUCKET, LITERATURE, (long) medicalLiteratureMapper.count()));
+        for (Map<String, Object> row : medicalLiteratureMapper.getSourceStatistics()) {
+            String source = row.get("source") != null ? row.get("source").toString() : "未知";
+            seeds.add(new StatsSnapshot(TOTAL_BUCKET, LITERATURE_SOURCE + source, toLong(row.get("count"))));
+        }
+        for (Map<String, Object> row : medicalLiteratureMapper.countByDateRange(SEED_DAYS)) {
+            seeds.add(new StatsSnapshot(row.get("date").toString(), LITERATURE_NEW, toLong(row.get("count"))));
+        }
+
+        seeds.add(new StatsSnapshot(TOTAL_BUCKET, USER, statsSnapshotMapper.countUsers()));
+
+        long orders = 0;
+        for (Map<String, Object> row : statsSnapshotMapper.countOrdersByStatus()) {
+            long count = toLong(row.get("count"));
+            seeds.add(new StatsSnapshot(TOTAL_BUCKET, ORDER_STATUS + row.get("status"), count));
+            orders += count;
+        }
+        seeds.add(new StatsSnapshot(TOTAL_BUCKET, ORDER, orders));
+        String sinceDay = LocalDate.now().minusDays(SEED_DAYS).toString();
+        for (Map<String, Object> row : statsSnapshotMapper.countOrdersByDay(sinceDay)) {
+            seeds.add(new StatsSnapshot(row.get("day").toString(), ORDER_NEW, toLong(row.get("count"))));
+        }
+
+        // 同一来源可能因"未知"合并出现两次，按增量写入会自动相加
+        for (int from = 0; from < seeds.size(); from += FLUSH_CHUNK) {
+            statsSnapshotMapper.addAll(seeds.subList(from, Math.min(from + FLUSH_CHUNK, seeds.size())));
+        }
+        logger.info("统计快照已按业务表初始化: {} 条", seeds.size());
+    }
+
+    private Counter total(String metric) {
+        return totals.computeIfAbsent(metric, key -> new Counter());
+    }
+
+    private Counter today(String metric) {
+        return daily(LocalDate.now(), metric);
+    }
+
+    private Counter daily(LocalDate day, String metric) {
+        return days.computeIfAbsent(day, key -> new ConcurrentHashMap<>())
+            .computeIfAbsent(metric, key -> new Counter());
+    }
+
+    private static String sourceOf(MedicalLiterature literature) {
+        return literature.getCrawlSource() != null ? literature.getCrawlSource() : "未知";
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    /**
+     * 计数器：base 为已写入快照的值，pending 为尚未写入的增量
+     */
+    private static class Counter {
+        private final AtomicLong base = new AtomicLong();
+        private final LongAdder pending = new LongAdder();
+
+        void add(long delta) {
+            pending.add(delta);
+        }
+
+        long get() {
+            return base.get() + pending.sum();
+        }
+
+        /**
+         * 取出待写入的增量并并入base
+         */
+        long drain() {
+            long delta = pending.sumThenReset();
+            base.addAndGet(delta);
+            return delta;
+        }
+
+        void restore(long delta) {
+            base.addAndGet(-delta);
+            pending.add(delta);
+        }
+    }
+}
@@ -27,6 +27,9 @@ public class UserBulkService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private StatsCounterService statsCounterService;
+
     public static class BulkResult {
         public int requested;
         public int inserted;
@@ -70,6 +73,7 @@ public class UserBulkService {
                 log.warn("Single insert failed for {}: {}", u.getUsername(), e.getMessage());
             }
         }
+        statsCounterService.onUserRegistered(ok);
         BulkResult r = new BulkResult();
         r.requested = users.size();
         r.inserted = ok;
@@ -98,6 +102,7 @@ public class UserBulkService {
                 }
             }
         }
+        statsCounterService.onUserRegistered(totalOk);
         BulkResult r = new BulkResult();
         r.requested = users.size();
         r.inserted = totalOk;
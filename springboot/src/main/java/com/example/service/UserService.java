@@ -8,6 +8,7 @@ import com.example.entity.Account;
 import com.example.entity.User;
 import com.example.exception.CustomException;
 import com.example.mapper.UserMapper;
+import com.example.utils.PrincipalCache;
 import com.example.utils.TokenUtils;
 import com.github.pagehelper.PageHelper;
 import com.github.pagehelper.PageInfo;
@@ -27,6 +28,12 @@ public class UserService {
     @Resource
     private UserMapper userMapper;
 
+    @Resource
+    private StatsCounterService statsCounterService;
+
+    @Resource
+    private PrincipalCache principalCache;
+
     public void add(User user) {
         User dbUser = userMapper.selectByUsername(user.getUsername());
         if (ObjectUtil.isNotNull(dbUser)) {
@@ -40,19 +47,25 @@ public class UserService {
         }
         user.setRole(RoleEnum.USER.name());
         userMapper.insert(user);
+        statsCounterService.onUserRegistered();
     }
 
     public void updateById(User user) {
         userMapper.updateById(user);
+        principalCache.invalidate(user.getId(), RoleEnum.USER.name());
     }
 
     public void deleteById(Integer id) {
-        userMapper.deleteById(id);
+        if (userMapper.selectById(id) != null) {
+            userMapper.deleteById(id);
+            statsCounterService.onUserDeleted();
+            principalCache.invalidate(id, RoleEnum.USER.name());
+        }
     }
 
     public void deleteBatch(List<Integer> ids) {
         for (Integer id : ids) {
-            userMapper.deleteById(id);
+            deleteById(id);
         }
     }
 
@@ -101,6 +114,8 @@ public class UserService {
         }
         dbUser.setPassword(account.getNewPassword());
         userMapper.updateById(dbUser);
+        // 旧token以旧密码签名，清除缓存后重新验签即失效
+        principalCache.invalidate(dbUser.getId(), RoleEnum.USER.name());
     }
 
 }
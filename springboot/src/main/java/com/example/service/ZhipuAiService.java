@@ -3,53 +3,84 @@ package com.example.service;
 import com.example.config.ZhipuAiConfig;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import okhttp3.*;
+import okio.BufferedSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
  * 智谱AI服务类
  * 用于调用智谱AI的GLM模型进行健康咨询
+ *
+ * - 单例OkHttpClient，连接池和Dispatcher按 api.max-in-flight 配置
+ * - 全程不阻塞调用线程：排队等待名额、请求和读取响应都是异步的，普通调用返回 CompletableFuture，流式调用直接返回
+ * - 同时进行的请求数由信号量限制，排队超过 api.queue-timeout 直接放弃（普通调用返回null走本地响应，流式调用返回错误事件）
+ * - 相同的对话历史和问题同时提交时只请求一次，其余调用共用同一个 CompletableFuture
+ * - 流式响应按字节块增量解析，见 {@link ZhipuStreamDecoder}
+ * - 指标：ai.chat.latency、ai.chat.first_token、ai.chat.tokens、ai.chat.token_rate、ai.chat.in_flight
  */
 @Service
 public class ZhipuAiService {
     
     private static final Logger log = LoggerFactory.getLogger(ZhipuAiService.class);
+
+    private static final MediaType JSON = MediaType.parse("application/json");
     
     @Autowired
     private ZhipuAiConfig zhipuAiConfig;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     private OkHttpClient httpClient;
-    
-    /**
-     * 获取HTTP客户端（懒加载）
-     */
-    private OkHttpClient getHttpClient() {
-        if (httpClient == null) {
-            httpClient = new OkHttpClient.Builder()
-                    .connectTimeout(zhipuAiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .readTimeout(zhipuAiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .writeTimeout(zhipuAiConfig.getTimeout(), TimeUnit.MILLISECONDS)
-                    .build();
-        }
-        return httpClient;
-    }
-    
+
+    private Semaphore permits;
+
+    // 等待名额的调用，释放名额时直接交给队首
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    // 普通调用的结果在这里完成，后续阶段（入库等）不占用OkHttp线程和超时计时线程
+    private ExecutorService completionExecutor;
+
+    // 进行中的普通调用，key为模型+对话历史+问题
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter coalescedCounter;
+    private Counter promptTokenCounter;
+    private Counter completionTokenCounter;
+    private DistributionSummary tokenRate;
+    private Timer firstTokenTimer;
+
     /**
      * 健康咨询系统提示词
      */
@@ -79,103 +110,182 @@ public class ZhipuAiService {
         - 妇科：妇科常规、宫颈癌筛查、乳腺检查
         - 男科：前列腺检查
         """;
+
+    private static final Map<String, String> SYSTEM_MESSAGE = Map.of("role", "system", "content", SYSTEM_PROMPT);
+
+    @PostConstruct
+    public void init() {
+        int maxInFlight = Math.max(1, zhipuAiConfig.getMaxInFlight());
+        permits = new Semaphore(maxInFlight, true);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxInFlight);
+        // 只访问一个主机，默认的每主机5个会让超出的流式请求在Dispatcher里排队
+        dispatcher.setMaxRequestsPerHost(maxInFlight);
+        ConnectionPool connectionPool = new ConnectionPool(maxInFlight, 5, TimeUnit.MINUTES);
+        AtomicInteger completionThreads = new AtomicInteger();
+        completionExecutor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "ai-completion-" + completionThreads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ((ThreadPoolExecutor) completionExecutor).allowCoreThreadTimeOut(true);
+
+        httpClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .connectTimeout(zhipuAiConfig.getTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(zhipuAiConfig.getTimeout(), TimeUnit.MILLISECONDS)
+                .writeTimeout(zhipuAiConfig.getTimeout(), TimeUnit.MILLISECONDS)
+                .build();
+
+        coalescedCounter = Counter.builder("ai.chat.coalesced").register(meterRegistry);
+        promptTokenCounter = Counter.builder("ai.chat.tokens").tag("type", "prompt").register(meterRegistry);
+        completionTokenCounter = Counter.builder("ai.chat.tokens").tag("type", "completion").register(meterRegistry);
+        tokenRate = DistributionSummary.builder("ai.chat.token_rate").baseUnit("tokens/s").register(meterRegistry);
+        firstTokenTimer = Timer.builder("ai.chat.first_token").register(meterRegistry);
+        Gauge.builder("ai.chat.in_flight", permits, p -> maxInFlight - p.availablePermits()).register(meterRegistry);
+        Gauge.builder("ai.chat.queued", waiters, Queue::size).register(meterRegistry);
+        Gauge.builder("ai.chat.pool.connections", connectionPool, ConnectionPool::connectionCount).register(meterRegistry);
+
+        log.info("智谱AI客户端: maxInFlight={}, queueTimeout={}ms, timeout={}ms",
+                maxInFlight, zhipuAiConfig.getQueueTimeout(), zhipuAiConfig.getTimeout());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        completionExecutor.shutdown();
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
     
     /**
-     * 调用智谱AI进行健康咨询
+     * 调用智谱AI进行健康咨询，不阻塞调用线程
      * 
      * @param userQuestion 用户问题
      * @param conversationHistory 对话历史（可选）
-     * @return AI回复内容
+     * @return AI回复内容，服务未启用、排队超时或调用失败时为null；不会异常完成。
+     *         结果在 ai-completion 线程上完成，后续阶段可以做短小的阻塞操作
      */
-    public String chat(String userQuestion, List<String> conversationHistory) {
+    public CompletableFuture<String> chatAsync(String userQuestion, List<String> conversationHistory) {
         if (!zhipuAiConfig.isEnabled()) {
             log.warn("智谱AI服务未启用，使用本地响应");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
         
         String apiKey = zhipuAiConfig.getApiKey();
         if (apiKey == null || apiKey.isEmpty()) {
             log.warn("智谱AI API Key未配置，使用本地响应");
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
-        
-        try {
-            // 构建消息列表
-            List<Map<String, String>> messages = new ArrayList<>();
-            
-            // 添加系统提示
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", SYSTEM_PROMPT);
-            messages.add(systemMessage);
-            
-            // 添加对话历史
-            if (conversationHistory != null && !conversationHistory.isEmpty()) {
-                for (int i = 0; i < conversationHistory.size(); i++) {
-                    Map<String, String> historyMessage = new HashMap<>();
-                    historyMessage.put("role", i % 2 == 0 ? "user" : "assistant");
-                    historyMessage.put("content", conversationHistory.get(i));
-                    messages.add(historyMessage);
-                }
+
+        String key = coalesceKey(userQuestion, conversationHistory);
+        CompletableFuture<String> future = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalescedCounter.increment();
+            log.info("相同问题正在请求中，共用其结果: {}", userQuestion);
+            return existing;
+        }
+
+        doChat(apiKey, userQuestion, conversationHistory).whenComplete((content, e) -> {
+            if (e != null) {
+                log.error("调用智谱AI失败: {}", e.getMessage(), e);
+            }
+            inFlight.remove(key, future);
+            completionExecutor.execute(() -> future.complete(e == null ? content : null));
+        });
+        return future;
+    }
+
+    /**
+     * 同步调用，阻塞到 chatAsync 完成
+     */
+    public String chat(String userQuestion, List<String> conversationHistory) {
+        return chatAsync(userQuestion, conversationHistory).join();
+    }
+
+    private CompletableFuture<String> doChat(String apiKey, String userQuestion, List<String> conversationHistory) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        acquireAsync().whenComplete((ignored, queueTimeout) -> {
+            if (queueTimeout != null) {
+                log.warn("智谱AI并发已满，排队超过{}ms，使用本地响应", zhipuAiConfig.getQueueTimeout());
+                record("chat", "rejected", 0);
+                result.complete(null);
+                return;
+            }
+            long start = System.nanoTime();
+            Call call;
+            try {
+                call = httpClient.newCall(buildRequest(apiKey, userQuestion, conversationHistory, false));
+            } catch (Exception e) {
+                release();
+                record("chat", "error", System.nanoTime() - start);
+                result.completeExceptionally(e);
+                return;
             }
-            
-            // 添加当前用户问题
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", userQuestion);
-            messages.add(userMessage);
-            
-            // 构建请求体
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", zhipuAiConfig.getModel());
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.7);
-            requestBody.put("max_tokens", 1024);
-            
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
-            
             log.info("调用智谱AI，问题: {}", userQuestion);
-            
-            // 发送请求
-            Request request = new Request.Builder()
-                    .url(zhipuAiConfig.getApiUrl())
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Content-Type", "application/json")
-                    .post(RequestBody.create(jsonBody, MediaType.parse("application/json")))
-                    .build();
-            
-            try (Response response = getHttpClient().newCall(request).execute()) {
-                if (!response.isSuccessful()) {
-                    log.error("智谱AI请求失败，状态码: {}, 响应: {}", 
-                            response.code(), response.body() != null ? response.body().string() : "无响应体");
-                    return null;
+            call.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    release();
+                    record("chat", "error", System.nanoTime() - start);
+                    result.completeExceptionally(e);
                 }
-                
-                String responseBody = response.body() != null ? response.body().string() : "";
-                log.debug("智谱AI响应: {}", responseBody);
-                
-                // 解析响应
-                JsonNode jsonNode = objectMapper.readTree(responseBody);
-                JsonNode choices = jsonNode.get("choices");
-                
-                if (choices != null && choices.isArray() && choices.size() > 0) {
-                    JsonNode firstChoice = choices.get(0);
-                    JsonNode message = firstChoice.get("message");
-                    if (message != null) {
-                        String content = message.get("content").asText();
-                        log.info("智谱AI回复成功，内容长度: {}", content.length());
-                        return content;
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    String outcome = "error";
+                    String content = null;
+                    try (response) {
+                        content = parseChatResponse(response, start);
+                        outcome = content != null ? "success" : "error";
+                    } catch (Exception e) {
+                        log.error("解析智谱AI响应失败: {}", e.getMessage(), e);
+                    } finally {
+                        release();
+                        record("chat", outcome, System.nanoTime() - start);
                     }
+                    result.complete(content);
                 }
-                
-                log.error("智谱AI响应格式异常: {}", responseBody);
-                return null;
-            }
-            
-        } catch (IOException e) {
-            log.error("调用智谱AI失败: {}", e.getMessage(), e);
+            });
+        });
+        return result;
+    }
+
+    private String parseChatResponse(Response response, long start) throws IOException {
+        if (!response.isSuccessful()) {
+            log.error("智谱AI请求失败，状态码: {}, 响应: {}", 
+                    response.code(), response.body() != null ? response.body().string() : "无响应体");
             return null;
         }
+        
+        String responseBody = response.body() != null ? response.body().string() : "";
+        log.debug("智谱AI响应: {}", responseBody);
+        
+        // 解析响应
+        JsonNode jsonNode = objectMapper.readTree(responseBody);
+        JsonNode choices = jsonNode.get("choices");
+        
+        if (choices != null && choices.isArray() && choices.size() > 0) {
+            JsonNode firstChoice = choices.get(0);
+            JsonNode message = firstChoice.get("message");
+            if (message != null) {
+                String content = message.get("content").asText();
+                log.info("智谱AI回复成功，内容长度: {}", content.length());
+                JsonNode usage = jsonNode.get("usage");
+                if (usage != null) {
+                    recordTokens(usage.path("prompt_tokens").asInt(-1),
+                            usage.path("completion_tokens").asInt(-1), System.nanoTime() - start);
+                }
+                return content;
+            }
+        }
+        
+        log.error("智谱AI响应格式异常: {}", responseBody);
+        return null;
     }
     
     /**
@@ -188,11 +298,22 @@ public class ZhipuAiService {
     /**
      * 流式调用智谱AI（SSE方式）
      *
+     * 调用线程直接返回：取得名额后提交请求，响应在OkHttp线程上按块读取、增量解析后推送给前端。
+     * 前端断开或SSE超时时取消上游请求。
+     *
      * @param userQuestion 用户问题
      * @param conversationHistory 对话历史
      * @param emitter SSE发射器
      */
     public void chatStream(String userQuestion, List<String> conversationHistory, SseEmitter emitter) {
+        chatStream(userQuestion, conversationHistory, emitter, null);
+    }
+
+    /**
+     * 流式调用智谱AI，完整收到回复（读到结束标记）后把全文交给 onComplete
+     */
+    public void chatStream(String userQuestion, List<String> conversationHistory, SseEmitter emitter,
+                           Consumer<String> onComplete) {
         if (!zhipuAiConfig.isEnabled()) {
             log.warn("智谱AI服务未启用");
             sendErrorAndComplete(emitter, "AI服务未启用");
@@ -205,128 +326,221 @@ public class ZhipuAiService {
             sendErrorAndComplete(emitter, "AI服务配置错误");
             return;
         }
-        
-        try {
-            // 构建消息列表
-            List<Map<String, String>> messages = new ArrayList<>();
-            
-            // 添加系统提示
-            Map<String, String> systemMessage = new HashMap<>();
-            systemMessage.put("role", "system");
-            systemMessage.put("content", SYSTEM_PROMPT);
-            messages.add(systemMessage);
-            
-            // 添加对话历史
-            if (conversationHistory != null && !conversationHistory.isEmpty()) {
-                for (int i = 0; i < conversationHistory.size(); i++) {
-                    Map<String, String> historyMessage = new HashMap<>();
-                    historyMessage.put("role", i % 2 == 0 ? "user" : "assistant");
-                    historyMessage.put("content", conversationHistory.get(i));
-                    messages.add(historyMessage);
-                }
+
+        acquireAsync().whenComplete((ignored, queueTimeout) -> {
+            if (queueTimeout != null) {
+                log.warn("智谱AI并发已满，排队超过{}ms", zhipuAiConfig.getQueueTimeout());
+                record("stream", "rejected", 0);
+                sendErrorAndComplete(emitter, "AI服务繁忙，请稍后再试");
+                return;
             }
-            
-            // 添加当前用户问题
-            Map<String, String> userMessage = new HashMap<>();
-            userMessage.put("role", "user");
-            userMessage.put("content", userQuestion);
-            messages.add(userMessage);
-            
-            // 构建请求体 - 启用流式输出
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("model", zhipuAiConfig.getModel());
-            requestBody.put("messages", messages);
-            requestBody.put("temperature", 0.7);
-            requestBody.put("max_tokens", 1024);
-            requestBody.put("stream", true);  // 启用流式输出
-            
-            String jsonBody = objectMapper.writeValueAsString(requestBody);
+            startStream(apiKey, userQuestion, conversationHistory, emitter, onComplete);
+        });
+    }
+
+    private void startStream(String apiKey, String userQuestion, List<String> conversationHistory, SseEmitter emitter,
+                             Consumer<String> onComplete) {
+        long start = System.nanoTime();
+        // 许可只释放一次（正常结束、失败、取消可能先后触发）
+        AtomicBoolean finished = new AtomicBoolean();
+        try {
+            Request request = buildRequest(apiKey, userQuestion, conversationHistory, true);
             
             log.info("流式调用智谱AI，问题: {}", userQuestion);
             
-            // 发送请求
-            Request request = new Request.Builder()
-                    .url(zhipuAiConfig.getApiUrl())
-                    .addHeader("Authorization", "Bearer " + apiKey)
-                    .addHeader("Content-Type", "application/json")
-                    .addHeader("Accept", "text/event-stream")
-                    .post(RequestBody.create(jsonBody, MediaType.parse("application/json")))
-                    .build();
-            
-            // 异步处理流式响应
-            getHttpClient().newCall(request).enqueue(new Callback() {
+            Call call = httpClient.newCall(request);
+            emitter.onCompletion(call::cancel);
+            call.enqueue(new Callback() {
                 @Override
                 public void onFailure(Call call, IOException e) {
+                    if (call.isCanceled()) {
+                        log.info("流式调用已取消（客户端断开）");
+                        finish(finished, start, "cancelled");
+                        return;
+                    }
                     log.error("流式调用智谱AI失败: {}", e.getMessage());
+                    finish(finished, start, "error");
                     sendErrorAndComplete(emitter, "AI服务调用失败");
                 }
                 
                 @Override
-                public void onResponse(Call call, Response response) throws IOException {
-                    if (!response.isSuccessful()) {
-                        log.error("智谱AI流式请求失败，状态码: {}", response.code());
-                        sendErrorAndComplete(emitter, "AI服务响应错误");
-                        return;
-                    }
-                    
-                    try (BufferedReader reader = new BufferedReader(
-                            new InputStreamReader(response.body().byteStream()))) {
-                        String line;
-                        StringBuilder fullContent = new StringBuilder();
-                        
-                        while ((line = reader.readLine()) != null) {
-                            if (line.startsWith("data: ")) {
-                                String data = line.substring(6).trim();
-                                
-                                // 检查是否结束
-                                if ("[DONE]".equals(data)) {
-                                    // 发送完成信号
-                                    try {
-                                        emitter.send(SseEmitter.event()
-                                                .name("done")
-                                                .data(fullContent.toString()));
-                                        emitter.complete();
-                                    } catch (IOException e) {
-                                        log.warn("发送完成信号失败: {}", e.getMessage());
-                                    }
-                                    break;
-                                }
-                                
-                                try {
-                                    // 解析JSON获取内容片段
-                                    JsonNode jsonNode = objectMapper.readTree(data);
-                                    JsonNode choices = jsonNode.get("choices");
-                                    
-                                    if (choices != null && choices.isArray() && choices.size() > 0) {
-                                        JsonNode delta = choices.get(0).get("delta");
-                                        if (delta != null && delta.has("content")) {
-                                            String content = delta.get("content").asText();
-                                            if (content != null && !content.isEmpty()) {
-                                                fullContent.append(content);
-                                                // 发送内容片段
-                                                emitter.send(SseEmitter.event()
-                                                        .name("message")
-                                                        .data(content));
-                                            }
-                                        }
-                                    }
-                                } catch (Exception e) {
-                                    log.debug("解析流式数据失败: {}", e.getMessage());
-                                }
-                            }
+                public void onResponse(Call call, Response response) {
+                    try (response) {
+                        if (!response.isSuccessful()) {
+                            log.error("智谱AI流式请求失败，状态码: {}", response.code());
+                            finish(finished, start, "error");
+                            sendErrorAndComplete(emitter, "AI服务响应错误");
+                            return;
                         }
-                    } catch (Exception e) {
-                        log.error("处理流式响应失败: {}", e.getMessage());
-                        sendErrorAndComplete(emitter, "处理响应失败");
+                        streamBody(call, response.body().source(), emitter, finished, start, onComplete);
                     }
                 }
             });
             
         } catch (Exception e) {
             log.error("流式调用智谱AI失败: {}", e.getMessage(), e);
+            finish(finished, start, "error");
             sendErrorAndComplete(emitter, "AI服务异常");
         }
     }
+
+    /**
+     * 按块读取流式响应体并推送内容片段，结束时发送 done 事件（完整内容）
+     */
+    private void streamBody(Call call, BufferedSource source, SseEmitter emitter, AtomicBoolean finished, long start,
+                            Consumer<String> onComplete) {
+        StringBuilder fullContent = new StringBuilder();
+        long[] firstTokenAt = {0};
+        byte[] buffer = new byte[8192];
+        try (ZhipuStreamDecoder decoder = new ZhipuStreamDecoder(objectMapper.getFactory(), content -> {
+            if (firstTokenAt[0] == 0) {
+                firstTokenAt[0] = System.nanoTime();
+                firstTokenTimer.record(firstTokenAt[0] - start, TimeUnit.NANOSECONDS);
+            }
+            fullContent.append(content);
+            emitter.send(SseEmitter.event().name("message").data(content));
+        })) {
+            int read;
+            boolean done = false;
+            while (!done && (read = source.read(buffer)) != -1) {
+                done = decoder.feed(buffer, 0, read);
+            }
+            if (!done) {
+                log.warn("智谱AI流式响应未收到结束标记，内容长度: {}", fullContent.length());
+            } else if (onComplete != null && fullContent.length() > 0) {
+                onComplete.accept(fullContent.toString());
+            }
+            recordTokens(decoder.getPromptTokens(), decoder.getCompletionTokens(), System.nanoTime() - start);
+            finish(finished, start, "success");
+            try {
+                emitter.send(SseEmitter.event()
+                        .name("done")
+                        .data(fullContent.toString()));
+                emitter.complete();
+            } catch (IOException e) {
+                log.warn("发送完成信号失败: {}", e.getMessage());
+            }
+        } catch (Exception e) {
+            if (call.isCanceled()) {
+                finish(finished, start, "cancelled");
+                return;
+            }
+            // 多为前端已断开导致发送失败，不再继续读取上游
+            call.cancel();
+            log.error("处理流式响应失败: {}", e.getMessage());
+            finish(finished, start, "error");
+            sendErrorAndComplete(emitter, "处理响应失败");
+        }
+    }
+
+    private Request buildRequest(String apiKey, String userQuestion, List<String> conversationHistory,
+                                 boolean stream) throws IOException {
+        List<Map<String, String>> messages = new ArrayList<>(2 + (conversationHistory != null ? conversationHistory.size() : 0));
+        messages.add(SYSTEM_MESSAGE);
+
+        // 添加对话历史
+        if (conversationHistory != null) {
+            for (int i = 0; i < conversationHistory.size(); i++) {
+                messages.add(Map.of("role", i % 2 == 0 ? "user" : "assistant",
+                        "content", String.valueOf(conversationHistory.get(i))));
+            }
+        }
+
+        // 添加当前用户问题
+        messages.add(Map.of("role", "user", "content", userQuestion));
+
+        Map<String, Object> requestBody = new LinkedHashMap<>();
+        requestBody.put("model", zhipuAiConfig.getModel());
+        requestBody.put("messages", messages);
+        requestBody.put("temperature", 0.7);
+        requestBody.put("max_tokens", 1024);
+        if (stream) {
+            requestBody.put("stream", true);
+        }
+
+        Request.Builder builder = new Request.Builder()
+                .url(zhipuAiConfig.getApiUrl())
+                .addHeader("Authorization", "Bearer " + apiKey)
+                .post(RequestBody.create(objectMapper.writeValueAsBytes(requestBody), JSON));
+        if (stream) {
+            builder.addHeader("Accept", "text/event-stream");
+        }
+        return builder.build();
+    }
+
+    private String coalesceKey(String userQuestion, List<String> conversationHistory) {
+        StringBuilder key = new StringBuilder(zhipuAiConfig.getModel()).append('\0');
+        if (conversationHistory != null) {
+            for (String message : conversationHistory) {
+                key.append(message).append('\0');
+            }
+        }
+        return key.append(userQuestion).toString();
+    }
+
+    /**
+     * 异步取得一个名额：有空闲名额时立即完成，否则排队，超过 queue-timeout 以 TimeoutException 完成
+     * 取得的名额必须调用 release 归还
+     */
+    private CompletableFuture<Void> acquireAsync() {
+        if (waiters.isEmpty() && permits.tryAcquire()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        // 入队前恰好有名额归还时，release没有看到这个等待者，这里补交给队首
+        if (permits.tryAcquire()) {
+            release();
+        }
+        waiter.orTimeout(zhipuAiConfig.getQueueTimeout(), TimeUnit.MILLISECONDS)
+                .whenComplete((v, e) -> {
+                    if (e != null) {
+                        waiters.remove(waiter);
+                    }
+                });
+        return waiter;
+    }
+
+    /**
+     * 归还名额：有等待者时直接交给队首，否则还给信号量
+     */
+    private void release() {
+        CompletableFuture<Void> waiter;
+        while ((waiter = waiters.poll()) != null) {
+            if (waiter.complete(null)) {
+                return;
+            }
+        }
+        permits.release();
+        // 与acquireAsync入队并发时，由其入队后的tryAcquire取走名额
+    }
+
+    private void finish(AtomicBoolean finished, long start, String outcome) {
+        if (finished.compareAndSet(false, true)) {
+            release();
+            record("stream", outcome, System.nanoTime() - start);
+        }
+    }
+
+    private void record(String mode, String outcome, long nanos) {
+        Timer.builder("ai.chat.latency")
+                .tag("mode", mode)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordTokens(int promptTokens, int completionTokens, long nanos) {
+        if (promptTokens > 0) {
+            promptTokenCounter.increment(promptTokens);
+        }
+        if (completionTokens > 0) {
+            completionTokenCounter.increment(completionTokens);
+            if (nanos > 0) {
+                tokenRate.record(completionTokens / (nanos / 1_000_000_000.0));
+            }
+        }
+    }
     
     /**
      * 发送错误并完成SSE
@@ -0,0 +1,205 @@
+package com.example.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 智谱AI流式响应（SSE）增量解析器
+ *
+ * 按收到的字节块调用 feed()，不需要先凑齐整行：SSE的 data: 行内容直接喂给Jackson非阻塞解析器，
+ * 解析出 choices[0].delta.content 即回调，同时记录最后一块中的 usage。遇到 data: [DONE] 返回true。
+ * 非线程安全，每次流式调用创建一个。
+ */
+public class ZhipuStreamDecoder implements Closeable {
+
+    @FunctionalInterface
+    public interface ContentHandler {
+        void onContent(String content) throws IOException;
+    }
+
+    private static final byte[] DATA_PREFIX = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NEWLINE = {'\n'};
+
+    // 行首，正在匹配 data: 前缀
+    private static final int LINE_START = 0;
+    // 已匹配 data:，下一个字节决定是JSON还是 [DONE]
+    private static final int DATA_BEGIN = 1;
+    // data: 行内容，逐块喂给解析器
+    private static final int DATA = 2;
+    // 其他行（event:、id:、注释等），跳到行尾
+    private static final int SKIP = 3;
+
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final ContentHandler handler;
+
+    private int state = LINE_START;
+    private int matched;
+    private boolean done;
+
+    private int promptTokens = -1;
+    private int completionTokens = -1;
+
+    public ZhipuStreamDecoder(JsonFactory jsonFactory, ContentHandler handler) throws IOException {
+        this.parser = jsonFactory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.handler = handler;
+    }
+
+    /**
+     * 处理一块响应字节
+     * @return 是否已读到结束标记 [DONE]
+     */
+    public boolean feed(byte[] buf, int off, int len) throws IOException {
+        int end = off + len;
+        int i = off;
+        while (i < end && !done) {
+            switch (state) {
+                case LINE_START: {
+                    byte b = buf[i++];
+                    if (b == '\n') {
+                        matched = 0;
+                    } else if (b == DATA_PREFIX[matched]) {
+                        if (++matched == DATA_PREFIX.length) {
+                            state = DATA_BEGIN;
+                        }
+                    } else {
+                        state = SKIP;
+                    }
+                    break;
+                }
+                case DATA_BEGIN: {
+                    byte b = buf[i];
+                    if (b == ' ') {
+                        i++;
+                    } else if (b == '[') {
+                        done = true;
+                    } else {
+                        state = DATA;
+                    }
+                    break;
+                }
+                case DATA: {
+                    int eol = indexOf(buf, i, end, (byte) '\n');
+                    feedJson(buf, i, eol);
+                    if (eol < end) {
+                        // 分隔相邻两块JSON
+                        feedJson(NEWLINE, 0, 1);
+                        nextLine();
+                        i = eol + 1;
+                    } else {
+                        i = end;
+                    }
+                    break;
+                }
+                default: {
+                    int eol = indexOf(buf, i, end, (byte) '\n');
+                    if (eol < end) {
+                        nextLine();
+                        i = eol + 1;
+                    } else {
+                        i = end;
+                    }
+                }
+            }
+        }
+        return done;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * 提示词token数，响应中没有usage时为-1
+     */
+    public int getPromptTokens() {
+        return promptTokens;
+    }
+
+    /**
+     * 生成的token数，响应中没有usage时为-1
+     */
+    public int getCompletionTokens() {
+        return completionTokens;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    private void nextLine() {
+        state = LINE_START;
+        matched = 0;
+    }
+
+    private void feedJson(byte[] buf, int start, int end) throws IOException {
+        if (start >= end) {
+            return;
+        }
+        feeder.feedInput(buf, start, end);
+        JsonToken token;
+        // 解析到当前输入末尾（NOT_AVAILABLE）为止，未完成的token由解析器内部保留，下一块继续
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (token == JsonToken.VALUE_STRING) {
+                if (isDeltaContent(parser.getParsingContext())) {
+                    String content = parser.getText();
+                    if (!content.isEmpty()) {
+                        handler.onContent(content);
+                    }
+                }
+            } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                JsonStreamContext context = parser.getParsingContext();
+                if (isUsage(context)) {
+                    if ("prompt_tokens".equals(context.getCurrentName())) {
+                        promptTokens = parser.getIntValue();
+                    } else if ("completion_tokens".equals(context.getCurrentName())) {
+                        completionTokens = parser.getIntValue();
+                    }
+                }
+            }
+        }
+    }
+
+    // choices[0].delta.content
+    private static boolean isDeltaContent(JsonStreamContext context) {
+        if (!"content".equals(context.getCurrentName())) {
+            return false;
+        }
+        JsonStreamContext choice = context.getParent();
+        if (choice == null || !"delta".equals(choice.getCurrentName())) {
+            return false;
+        }
+        JsonStreamContext choices = choice.getParent();
+        if (choices == null || !choices.inArray() || choices.getCurrentIndex() != 0) {
+            return false;
+        }
+        JsonStreamContext root = choices.getParent();
+        return root != null && "choices".equals(root.getCurrentName()) && root.getParent() != null
+            && root.getParent().inRoot();
+    }
+
+    // usage.prompt_tokens / usage.completion_tokens
+    private static boolean isUsage(JsonStreamContext context) {
+        JsonStreamContext root = context.getParent();
+        return root != null && "usage".equals(root.getCurrentName()) && root.getParent() != null
+            && root.getParent().inRoot();
+    }
+
+    private static int indexOf(byte[] buf, int from, int end, byte b) {
+        for (int i = from; i < end; i++) {
+            if (buf[i] == b) {
+                return i;
+            }
+        }
+        return end;
+    }
+}
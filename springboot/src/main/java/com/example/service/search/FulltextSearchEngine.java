@@ -0,0 +1,123 @@
+package com.example.service.search;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.MedicalLiteratureMapper;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageInfo;
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * MySQL全文索引检索
+ * 先用组合索引 idx_fulltext 取相关度最高的候选集，再按标题、关键词单列相关度加权排序，
+ * 避免LIKE '%kw%' 全表扫描
+ * 单列全文索引来自 sql/medical_literature_fulltext.sql，未执行该脚本时查询报错，
+ * 此时退回LIKE检索，并在 RETRY_INTERVAL_MS 内不再尝试全文检索
+ */
+@Component
+public class FulltextSearchEngine implements LiteratureSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(FulltextSearchEngine.class);
+
+    public static final String NAME = "fulltext";
+
+    // 与 innodb_ft_min_token_size 默认值一致，更短的词不会被索引
+    private static final int MIN_TOKEN_SIZE = 3;
+
+    private static final long RETRY_INTERVAL_MS = 5 * 60 * 1000L;
+
+    // ER_FT_MATCHING_KEY_NOT_FOUND，SQLState为HY000，Spring不会翻译成 BadSqlGrammarException
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Resource
+    private LikeSearchEngine likeSearchEngine;
+
+    // 全文索引不可用时，在此时间之前直接走LIKE检索
+    private volatile long unavailableUntil;
+
+    @Value("${literature.search.candidate-limit:1000}")
+    private int candidateLimit;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * 默认分词器按空格和标点切词，无法处理中文；全部词都短于最小词长时也检索不到
+     */
+    @Override
+    public boolean supports(LiteratureSearchQuery query) {
+        String keyword = query.getKeyword();
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return false;
+        }
+        boolean hasIndexedToken = false;
+        for (String token : keyword.trim().split("[^\\p{L}\\p{N}_]+")) {
+            if (containsCjk(token)) {
+                return false;
+            }
+            if (token.length() >= MIN_TOKEN_SIZE) {
+                hasIndexedToken = true;
+            }
+        }
+        return hasIndexedToken;
+    }
+
+    @Override
+    public PageInfo<MedicalLiterature> search(LiteratureSearchQuery query) {
+        if (System.currentTimeMillis() < unavailableUntil) {
+            return likeSearchEngine.search(query);
+        }
+        try {
+            return searchFulltext(query);
+        } catch (DataAccessException e) {
+            if (!isMissingIndex(e)) {
+                throw e;
+            }
+            unavailableUntil = System.currentTimeMillis() + RETRY_INTERVAL_MS;
+            log.warn("全文检索不可用（请确认已执行 sql/medical_literature_fulltext.sql），改用LIKE检索: {}",
+                e.getMostSpecificCause().getMessage());
+            return likeSearchEngine.search(query);
+        }
+    }
+
+    private PageInfo<MedicalLiterature> searchFulltext(LiteratureSearchQuery query) {
+        String keyword = query.getKeyword().trim();
+        int total = medicalLiteratureMapper.countFulltext(keyword, query.getSource(),
+            query.getStartDate(), query.getEndDate(), candidateLimit);
+
+        Page<MedicalLiterature> page = new Page<>(query.getPageNum(), query.getPageSize());
+        page.setTotal(total);
+        if (total > query.getOffset()) {
+            List<MedicalLiterature> list = medicalLiteratureMapper.searchFulltext(keyword, query.getSource(),
+                query.getStartDate(), query.getEndDate(), candidateLimit, query.getOffset(), query.getPageSize());
+            page.addAll(list);
+        }
+        return new PageInfo<>(page);
+    }
+
+    /**
+     * 是否为缺少全文索引（"Can't find FULLTEXT index matching the column list"）导致的错误，语法类错误一并按不可用处理
+     */
+    private static boolean isMissingIndex(DataAccessException e) {
+        Throwable cause = e.getMostSpecificCause();
+        return e instanceof BadSqlGrammarException
+            || (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == ER_FT_MATCHING_KEY_NOT_FOUND);
+    }
+
+    private static boolean containsCjk(String text) {
+        return text.codePoints().anyMatch(LiteratureTokenizer::isCjk);
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.service.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 倒排索引的一个不可变段（内存映射只读）
+ *
+ * 段文件 seg_N.idx 格式（大端）：
+ *   头部   int MAGIC, int VERSION, int docCount, int termCount, long dictOffset
+ *   文档表 int[docCount] 文献ID（升序）
+ *   倒排表 每个词 df 条 (int 文献ID, byte[FIELDS] 各字段词频，上限255)
+ *   词典   termCount 条 (short 长度, UTF-8词, int df, long 倒排表偏移)，按词升序
+ * 段文件写入后不再修改，删除标记单独保存在 seg_N_G.del 中
+ * 删除标记按代（G）写新文件而不覆盖旧文件，manifest记录每个段当前的代：
+ * manifest替换前异常退出时，重新打开仍读取旧代的删除标记，与manifest中的段列表一致
+ */
+class IndexSegment {
+
+    static final int MAGIC = 0x4C495458;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 24;
+    static final int POSTING_BYTES = 4 + InvertedIndex.FIELDS;
+
+    private final int id;
+    private final Path dir;
+    private final MappedByteBuffer buffer;
+    private final int[] docIds;
+    private final String[] terms;
+    private final int[] dfs;
+    private final int[] offsets;
+
+    private final Set<Integer> deleted = new HashSet<>();
+    private boolean deletesDirty;
+    // 删除标记的代，0表示没有删除标记文件
+    private int delGen;
+    // 被新一代取代、等manifest提交后删除的代
+    private int staleDelGen;
+
+    private IndexSegment(int id, Path dir, MappedByteBuffer buffer, int[] docIds,
+                         String[] terms, int[] dfs, int[] offsets) {
+        this.id = id;
+        this.dir = dir;
+        this.buffer = buffer;
+        this.docIds = docIds;
+        this.terms = terms;
+        this.dfs = dfs;
+        this.offsets = offsets;
+    }
+
+    static String fileName(int id) {
+        return "seg_" + id + ".idx";
+    }
+
+    static String deletesFileName(int id, int delGen) {
+        return "seg_" + id + "_" + delGen + ".del";
+    }
+
+    /**
+     * 打开新写出的段（还没有删除标记）
+     */
+    static IndexSegment open(Path dir, int id) throws IOException {
+        return open(dir, id, 0);
+    }
+
+    /**
+     * 映射段文件，词典和文档表读入内存，倒排表留在映射区按需读取
+     * @param delGen manifest中记录的删除标记代
+     */
+    static IndexSegment open(Path dir, int id, int delGen) throws IOException {
+        Path file = dir.resolve(fileName(id));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Index segment too large to map: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Not an index segment: " + file);
+        }
+        int docCount = in.getInt();
+        int termCount = in.getInt();
+        long dictOffset = in.getLong();
+
+        int[] docIds = new int[docCount];
+        for (int i = 0; i < docCount; i++) {
+            docIds[i] = in.getInt();
+        }
+
+        String[] terms = new String[termCount];
+        int[] dfs = new int[termCount];
+        int[] offsets = new int[termCount];
+        in.position((int) dictOffset);
+        for (int i = 0; i < termCount; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            terms[i] = new String(bytes, StandardCharsets.UTF_8);
+            dfs[i] = in.getInt();
+            offsets[i] = (int) in.getLong();
+        }
+
+        IndexSegment segment = new IndexSegment(id, dir, buffer, docIds, terms, dfs, offsets);
+        segment.delGen = delGen;
+        segment.loadDeletes();
+        return segment;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    int getDelGen() {
+        return delGen;
+    }
+
+    int[] docIds() {
+        return docIds;
+    }
+
+    int docCount() {
+        return docIds.length;
+    }
+
+    String[] terms() {
+        return terms;
+    }
+
+    /**
+     * @return 词在词典中的下标，不存在时为负数
+     */
+    int termIndex(String term) {
+        return Arrays.binarySearch(terms, term);
+    }
+
+    int df(int termIndex) {
+        return dfs[termIndex];
+    }
+
+    int postingsStart(int termIndex) {
+        return offsets[termIndex];
+    }
+
+    int postingDoc(int position) {
+        return buffer.getInt(position);
+    }
+
+    int postingTf(int position, int field) {
+        return buffer.get(position + 4 + field) & 0xFF;
+    }
+
+    void copyTfs(int position, byte[] target) {
+        for (int f = 0; f < InvertedIndex.FIELDS; f++) {
+            target[f] = buffer.get(position + 4 + f);
+        }
+    }
+
+    void markDeleted(int docId) {
+        if (deleted.add(docId)) {
+            deletesDirty = true;
+        }
+    }
+
+    boolean isDeleted(int docId) {
+        return deleted.contains(docId);
+    }
+
+    /**
+     * 删除标记有变化时写出下一代 seg_N_G.del，旧代保留到manifest提交之后
+     */
+    void writeDeletesIfDirty() throws IOException {
+        if (!deletesDirty) {
+            return;
+        }
+        int nextGen = delGen + 1;
+        Path target = dir.resolve(deletesFileName(id, nextGen));
+        Path tmp = dir.resolve(deletesFileName(id, nextGen) + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(deleted.size());
+            for (Integer docId : deleted) {
+                out.writeInt(docId);
+            }
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (staleDelGen == 0) {
+            staleDelGen = delGen;
+        } else if (delGen > 0) {
+            // 上一代没有被任何manifest引用过
+            Files.deleteIfExists(dir.resolve(deletesFileName(id, delGen)));
+        }
+        delGen = nextGen;
+        deletesDirty = false;
+    }
+
+    /**
+     * manifest已引用新一代后，删除被取代的删除标记文件
+     */
+    void deleteStaleDeletes() throws IOException {
+        if (staleDelGen > 0) {
+            Files.deleteIfExists(dir.resolve(deletesFileName(id, staleDelGen)));
+        }
+        staleDelGen = 0;
+    }
+
+    private void loadDeletes() throws IOException {
+        if (delGen == 0) {
+            return;
+        }
+        Path file = dir.resolve(deletesFileName(id, delGen));
+        if (!Files.exists(file)) {
+            throw new IOException("Missing index deletes file: " + file);
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                deleted.add(in.readInt());
+            }
+        }
+    }
+
+    /**
+     * 删除段文件；映射区在缓冲对象被回收后释放
+     */
+    void deleteFiles() throws IOException {
+        Files.deleteIfExists(dir.resolve(fileName(id)));
+        if (delGen > 0) {
+            Files.deleteIfExists(dir.resolve(deletesFileName(id, delGen)));
+        }
+        deleteStaleDeletes();
+    }
+
+    /**
+     * 顺序写出一个段：先写文档表，再按词升序逐个写倒排表，最后写词典并回填头部
+     */
+    static class Writer {
+        private final Path dir;
+        private final int id;
+        private final Path tmp;
+        private final DataOutputStream out;
+        private long position;
+
+        private final List<String> terms = new ArrayList<>();
+        private final List<Integer> dfs = new ArrayList<>();
+        private final List<Long> offsets = new ArrayList<>();
+        private String currentTerm;
+        private long currentOffset;
+        private int currentDf;
+
+        Writer(Path dir, int id, int[] docIds) throws IOException {
+            this.dir = dir;
+            this.id = id;
+            this.tmp = dir.resolve(fileName(id) + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(docIds.length);
+            out.writeInt(0);
+            out.writeLong(0);
+            for (int docId : docIds) {
+                out.writeInt(docId);
+            }
+            position = HEADER_BYTES + 4L * docIds.length;
+        }
+
+        /**
+         * 开始写一个词的倒排表，词必须按升序传入
+         */
+        void startTerm(String term) {
+            endTerm();
+            currentTerm = term;
+            currentOffset = position;
+            currentDf = 0;
+        }
+
+        void addPosting(int docId, byte[] tfs) throws IOException {
+            out.writeInt(docId);
+            out.write(tfs, 0, InvertedIndex.FIELDS);
+            position += POSTING_BYTES;
+            currentDf++;
+        }
+
+        IndexSegment finish() throws IOException {
+            endTerm();
+            long dictOffset = position;
+            for (int i = 0; i < terms.size(); i++) {
+                byte[] bytes = terms.get(i).getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+                out.writeInt(dfs.get(i));
+                out.writeLong(offsets.get(i));
+            }
+            out.close();
+
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(12);
+                header.putInt(terms.size()).putLong(dictOffset).flip();
+                channel.write(header, 12);
+                channel.force(true);
+            }
+            Files.move(tmp, dir.resolve(fileName(id)), StandardCopyOption.ATOMIC_MOVE);
+            return open(dir, id);
+        }
+
+        void abort() {
+            try {
+                out.close();
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+                // 残留的临时文件在下次打开索引时清理
+            }
+        }
+
+        private void endTerm() {
+            if (currentTerm != null && currentDf > 0) {
+                terms.add(currentTerm);
+                dfs.add(currentDf);
+                offsets.add(currentOffset);
+            }
+            currentTerm = null;
+        }
+    }
+}
@@ -0,0 +1,666 @@
+package com.example.service.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 嵌入式倒排索引（分段结构，类似Lucene）
+ *
+ * - 新增/更新的文档先写入内存缓冲，flush时写成一个不可变的段文件并内存映射
+ * - 更新 = 删除旧版本 + 写入新版本，owners记录每篇文献当前有效版本所在的段
+ * - 段数超过上限时把文档最少的几个段合并成一个，合并时丢弃已删除的文档
+ * - 当前有效段列表及各段删除标记的代保存在manifest中并原子替换；未flush的缓冲在进程异常退出时丢失，需全量重建
+ * - 相关度为BM25风格：idf × Σ(字段权重 × tf/(tf+k1))，不做长度归一化
+ */
+public class InvertedIndex implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(InvertedIndex.class);
+
+    static final int FIELDS = 4;
+    public static final int TITLE = 0;
+    public static final int KEYWORDS = 1;
+    public static final int ABSTRACT = 2;
+    public static final int AUTHORS = 3;
+
+    private static final String MANIFEST = "segments";
+    // 2：中日韩文字增加一元组索引，旧版本索引需要重建
+    // 3：删除标记按代写入，manifest记录每个段的代
+    private static final int MANIFEST_VERSION = 3;
+    private static final double K1 = 1.2;
+
+    private final Path dir;
+    private final double[] boosts;
+
+    // 查询持读锁，修改和段切换持写锁
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 合并与全量重建互斥
+    private final ReentrantLock structureLock = new ReentrantLock();
+
+    private final List<IndexSegment> segments = new ArrayList<>();
+    private Map<Integer, IndexSegment> owners = new HashMap<>();
+    // 内存缓冲：词 → (文献ID → 各字段词频)
+    private Map<String, Map<Integer, byte[]>> bufferPostings = new HashMap<>();
+    private Map<Integer, Set<String>> bufferDocs = new HashMap<>();
+    private int nextSegmentId = 1;
+    private boolean dirty;
+    // 全量重建期间被修改的文献，重建完成后需要重放
+    private Set<Integer> touched;
+
+    private InvertedIndex(Path dir, double[] boosts) {
+        this.dir = dir;
+        this.boosts = boosts.clone();
+    }
+
+    /**
+     * 打开（或创建）索引目录
+     * @param boosts 各字段权重，顺序为 TITLE, KEYWORDS, ABSTRACT, AUTHORS
+     */
+    public static InvertedIndex open(Path dir, double[] boosts) throws IOException {
+        Files.createDirectories(dir);
+        InvertedIndex index = new InvertedIndex(dir, boosts);
+        index.load();
+        return index;
+    }
+
+    /**
+     * 统计各字段词频
+     * @param fields 字段文本，顺序同字段常量
+     */
+    public static Map<String, byte[]> termFrequencies(String... fields) {
+        Map<String, byte[]> terms = new HashMap<>();
+        for (int f = 0; f < FIELDS && f < fields.length; f++) {
+            for (String token : LiteratureTokenizer.tokenizeForIndex(fields[f])) {
+                byte[] tfs = terms.computeIfAbsent(token, key -> new byte[FIELDS]);
+                if ((tfs[f] & 0xFF) < 255) {
+                    tfs[f]++;
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 新增或替换一篇文献
+     */
+    public void update(int id, Map<String, byte[]> terms) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            for (Map.Entry<String, byte[]> entry : terms.entrySet()) {
+                bufferPostings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(id, entry.getValue());
+            }
+            bufferDocs.put(id, new HashSet<>(terms.keySet()));
+            if (touched != null) {
+                touched.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void delete(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            if (touched != null) {
+                touched.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(int id) {
+        Set<String> terms = bufferDocs.remove(id);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<Integer, byte[]> postings = bufferPostings.get(term);
+                if (postings != null) {
+                    postings.remove(id);
+                    if (postings.isEmpty()) {
+                        bufferPostings.remove(term);
+                    }
+                }
+            }
+        }
+        IndexSegment owner = owners.remove(id);
+        if (owner != null) {
+            owner.markDeleted(id);
+            dirty = true;
+        }
+    }
+
+    /**
+     * 按相关度取前topK篇
+     */
+    public TopDocs search(Collection<String> queryTerms, int topK) {
+        lock.readLock().lock();
+        try {
+            int docCount = owners.size() + bufferDocs.size();
+            Map<Integer, Double> scores = new HashMap<>();
+            int[] termIndexes = new int[segments.size()];
+
+            for (String term : new LinkedHashSet<>(queryTerms)) {
+                int df = 0;
+                for (int i = 0; i < segments.size(); i++) {
+                    termIndexes[i] = segments.get(i).termIndex(term);
+                    if (termIndexes[i] >= 0) {
+                        df += segments.get(i).df(termIndexes[i]);
+                    }
+                }
+                Map<Integer, byte[]> buffered = bufferPostings.get(term);
+                if (buffered != null) {
+                    df += buffered.size();
+                }
+                if (df == 0) {
+                    continue;
+                }
+                // 段内已删除的文档也计入df，截断到文档总数
+                df = Math.min(df, docCount);
+                double idf = Math.log(1 + (docCount - df + 0.5) / (df + 0.5));
+
+                for (int i = 0; i < segments.size(); i++) {
+                    if (termIndexes[i] < 0) {
+                        continue;
+                    }
+                    IndexSegment segment = segments.get(i);
+                    int position = segment.postingsStart(termIndexes[i]);
+                    for (int k = segment.df(termIndexes[i]); k > 0; k--, position += IndexSegment.POSTING_BYTES) {
+                        int docId = segment.postingDoc(position);
+                        if (owners.get(docId) != segment) {
+                            continue;
+                        }
+                        double fieldScore = 0;
+                        for (int f = 0; f < FIELDS; f++) {
+                            fieldScore += saturate(segment.postingTf(position, f), f);
+                        }
+                        scores.merge(docId, idf * fieldScore, Double::sum);
+                    }
+                }
+                if (buffered != null) {
+                    for (Map.Entry<Integer, byte[]> posting : buffered.entrySet()) {
+                        double fieldScore = 0;
+                        for (int f = 0; f < FIELDS; f++) {
+                            fieldScore += saturate(posting.getValue()[f] & 0xFF, f);
+                        }
+                        scores.merge(posting.getKey(), idf * fieldScore, Double::sum);
+                    }
+                }
+            }
+            return TopDocs.of(scores, topK);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double saturate(int tf, int field) {
+        return tf == 0 ? 0 : boosts[field] * tf / (tf + K1);
+    }
+
+    /**
+     * 把内存缓冲写成新段，并持久化删除标记和manifest
+     */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (!bufferDocs.isEmpty()) {
+                int[] docIds = bufferDocs.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+                IndexSegment.Writer writer = new IndexSegment.Writer(dir, nextSegmentId++, docIds);
+                IndexSegment segment;
+                try {
+                    for (Map.Entry<String, Map<Integer, byte[]>> term : new TreeMap<>(bufferPostings).entrySet()) {
+                        writer.startTerm(term.getKey());
+                        for (Map.Entry<Integer, byte[]> posting : term.getValue().entrySet()) {
+                            writer.addPosting(posting.getKey(), posting.getValue());
+                        }
+                    }
+                    segment = writer.finish();
+                } catch (IOException | RuntimeException e) {
+                    writer.abort();
+                    throw e;
+                }
+                segments.add(segment);
+                for (int docId : docIds) {
+                    owners.put(docId, segment);
+                }
+                bufferPostings = new HashMap<>();
+                bufferDocs = new HashMap<>();
+                dirty = true;
+            }
+            commitLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 段数超过maxSegments时，把文档最少的若干段合并为一个
+     * 合并期间不持锁，写出新段后在写锁内切换；合并期间被删除或更新的文档在新段中标记删除
+     * @return 是否执行了合并
+     */
+    public boolean maybeMerge(int maxSegments) throws IOException {
+        if (!structureLock.tryLock()) {
+            return false;
+        }
+        try {
+            List<IndexSegment> picked;
+            Map<IndexSegment, int[]> liveDocs = new IdentityHashMap<>();
+            int segmentId;
+            lock.writeLock().lock();
+            try {
+                if (segments.size() <= Math.max(1, maxSegments)) {
+                    return false;
+                }
+                List<IndexSegment> bySize = new ArrayList<>(segments);
+                bySize.sort(Comparator.comparingInt(IndexSegment::docCount));
+                picked = new ArrayList<>(bySize.subList(0, Math.max(2, segments.size() - maxSegments + 1)));
+                for (IndexSegment segment : picked) {
+                    liveDocs.put(segment, Arrays.stream(segment.docIds())
+                        .filter(docId -> owners.get(docId) == segment)
+                        .toArray());
+                }
+                segmentId = nextSegmentId++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long start = System.currentTimeMillis();
+            IndexSegment merged = writeMerged(segmentId, picked, liveDocs);
+
+            lock.writeLock().lock();
+            try {
+                Set<IndexSegment> pickedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                pickedSet.addAll(picked);
+                for (int docId : merged.docIds()) {
+                    IndexSegment owner = owners.get(docId);
+                    if (owner != null && pickedSet.contains(owner)) {
+                        owners.put(docId, merged);
+                    } else {
+                        merged.markDeleted(docId);
+                    }
+                }
+                segments.removeAll(picked);
+                segments.add(merged);
+                dirty = true;
+                commitLocked();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            deleteSegmentFiles(picked);
+            log.info("Merged {} index segments into seg_{} ({} docs) in {}ms",
+                picked.size(), segmentId, merged.docCount(), System.currentTimeMillis() - start);
+            return true;
+        } finally {
+            structureLock.unlock();
+        }
+    }
+
+    private IndexSegment writeMerged(int segmentId, List<IndexSegment> picked,
+                                     Map<IndexSegment, int[]> liveDocs) throws IOException {
+        int[] docIds = liveDocs.values().stream().flatMapToInt(Arrays::stream).sorted().toArray();
+        TreeSet<String> vocabulary = new TreeSet<>();
+        for (IndexSegment segment : picked) {
+            vocabulary.addAll(Arrays.asList(segment.terms()));
+        }
+
+        IndexSegment.Writer writer = new IndexSegment.Writer(dir, segmentId, docIds);
+        try {
+            byte[] tfs = new byte[FIELDS];
+            for (String term : vocabulary) {
+                writer.startTerm(term);
+                for (IndexSegment segment : picked) {
+                    int termIndex = segment.termIndex(term);
+                    if (termIndex < 0) {
+                        continue;
+                    }
+                    int[] live = liveDocs.get(segment);
+                    int position = segment.postingsStart(termIndex);
+                    for (int k = segment.df(termIndex); k > 0; k--, position += IndexSegment.POSTING_BYTES) {
+                        int docId = segment.postingDoc(position);
+                        if (Arrays.binarySearch(live, docId) >= 0) {
+                            segment.copyTfs(position, tfs);
+                            writer.addPosting(docId, tfs);
+                        }
+                    }
+                }
+            }
+            return writer.finish();
+        } catch (IOException | RuntimeException e) {
+            writer.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 开始全量重建：新文档写入旁路段，commit时一次性替换全部现有段
+     * 重建期间索引照常查询和更新，被修改的文献由commit返回，调用方需要按最新数据重放
+     * @param segmentDocs 每个新段的文档数
+     */
+    public Rebuild beginRebuild(int segmentDocs) {
+        structureLock.lock();
+        lock.writeLock().lock();
+        try {
+            touched = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Rebuild(Math.max(1, segmentDocs));
+    }
+
+    public class Rebuild {
+        private final int segmentDocs;
+        private final List<IndexSegment> built = new ArrayList<>();
+        private TreeMap<String, Map<Integer, byte[]>> postings = new TreeMap<>();
+        private Set<Integer> docs = new HashSet<>();
+
+        private Rebuild(int segmentDocs) {
+            this.segmentDocs = segmentDocs;
+        }
+
+        public void add(int id, Map<String, byte[]> terms) throws IOException {
+            for (Map.Entry<String, byte[]> entry : terms.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), key -> new HashMap<>()).put(id, entry.getValue());
+            }
+            docs.add(id);
+            if (docs.size() >= segmentDocs) {
+                writeSegment();
+            }
+        }
+
+        private void writeSegment() throws IOException {
+            if (docs.isEmpty()) {
+                return;
+            }
+            int segmentId;
+            lock.writeLock().lock();
+            try {
+                segmentId = nextSegmentId++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            int[] docIds = docs.stream().mapToInt(Integer::intValue).sorted().toArray();
+            IndexSegment.Writer writer = new IndexSegment.Writer(dir, segmentId, docIds);
+            try {
+                for (Map.Entry<String, Map<Integer, byte[]>> term : postings.entrySet()) {
+                    writer.startTerm(term.getKey());
+                    for (Map.Entry<Integer, byte[]> posting : term.getValue().entrySet()) {
+                        writer.addPosting(posting.getKey(), posting.getValue());
+                    }
+                }
+                built.add(writer.finish());
+            } catch (IOException | RuntimeException e) {
+                writer.abort();
+                throw e;
+            }
+            postings = new TreeMap<>();
+            docs = new HashSet<>();
+        }
+
+        /**
+         * 切换到新段，失败时自动放弃本次重建
+         * @return 重建期间被修改的文献ID
+         */
+        public Set<Integer> commit() throws IOException {
+            try {
+                writeSegment();
+            } catch (IOException | RuntimeException e) {
+                abort();
+                throw e;
+            }
+            try {
+                List<IndexSegment> old;
+                Set<Integer> changed;
+                lock.writeLock().lock();
+                try {
+                    old = new ArrayList<>(segments);
+                    segments.clear();
+                    segments.addAll(built);
+                    owners = new HashMap<>();
+                    for (IndexSegment segment : built) {
+                        for (int docId : segment.docIds()) {
+                            owners.put(docId, segment);
+                        }
+                    }
+                    // 缓冲中的修改都已记录在touched中，由调用方重放
+                    bufferPostings = new HashMap<>();
+                    bufferDocs = new HashMap<>();
+                    changed = touched;
+                    touched = null;
+                    dirty = true;
+                    commitLocked();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                deleteSegmentFiles(old);
+                return changed;
+            } finally {
+                structureLock.unlock();
+            }
+        }
+
+        public void abort() {
+            try {
+                lock.writeLock().lock();
+                try {
+                    touched = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                deleteSegmentFiles(built);
+            } finally {
+                structureLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 有效文档数（含未flush的缓冲）
+     */
+    public int docCount() {
+        lock.readLock().lock();
+        try {
+            return owners.size() + bufferDocs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int bufferedCount() {
+        lock.readLock().lock();
+        try {
+            return bufferDocs.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    /**
+     * 持久化删除标记（新一代文件），然后原子替换manifest，最后删除被取代的删除标记
+     */
+    private void commitLocked() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        for (IndexSegment segment : segments) {
+            segment.writeDeletesIfDirty();
+        }
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MANIFEST_VERSION);
+            out.writeInt(nextSegmentId);
+            out.writeInt(segments.size());
+            for (IndexSegment segment : segments) {
+                out.writeInt(segment.getId());
+                out.writeInt(segment.getDelGen());
+            }
+        }
+        Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        dirty = false;
+        for (IndexSegment segment : segments) {
+            try {
+                segment.deleteStaleDeletes();
+            } catch (IOException e) {
+                log.warn("Failed to delete stale deletes of index segment seg_{}: {}", segment.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        // 段ID → 删除标记的代
+        Map<Integer, Integer> delGens = new TreeMap<>();
+        Path manifest = dir.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(manifest))) {
+                int version = in.readInt();
+                if (version > MANIFEST_VERSION) {
+                    throw new IOException("Unsupported index manifest version in " + dir);
+                }
+                nextSegmentId = in.readInt();
+                if (version == MANIFEST_VERSION) {
+                    int count = in.readInt();
+                    for (int i = 0; i < count; i++) {
+                        int id = in.readInt();
+                        delGens.put(id, in.readInt());
+                    }
+                } else {
+                    // 分词规则已变化，旧段作为孤儿文件清理，索引为空时由启动预热全量重建
+                    log.warn("Literature index at {} was built with manifest version {}, discarding it for rebuild", dir, version);
+                    dirty = true;
+                }
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : delGens.entrySet()) {
+            IndexSegment segment = IndexSegment.open(dir, entry.getKey(), entry.getValue());
+            segments.add(segment);
+            for (int docId : segment.docIds()) {
+                if (segment.isDeleted(docId)) {
+                    continue;
+                }
+                // 异常退出可能留下同一文献的两个有效版本，保留较新的段
+                IndexSegment previous = owners.put(docId, segment);
+                if (previous != null) {
+                    previous.markDeleted(docId);
+                    dirty = true;
+                }
+            }
+        }
+        removeOrphans(delGens);
+        log.info("Opened literature index at {}: {} segments, {} docs", dir, segments.size(), owners.size());
+    }
+
+    /**
+     * 清理不在manifest中的段文件、非当前代的删除标记和临时文件
+     */
+    private void removeOrphans(Map<Integer, Integer> delGens) throws IOException {
+        Set<String> live = new HashSet<>();
+        delGens.forEach((id, delGen) -> {
+            live.add(IndexSegment.fileName(id));
+            if (delGen > 0) {
+                live.add(IndexSegment.deletesFileName(id, delGen));
+            }
+        });
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "seg_*")) {
+            for (Path file : files) {
+                if (!live.contains(file.getFileName().toString())) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private void deleteSegmentFiles(List<IndexSegment> stale) {
+        for (IndexSegment segment : stale) {
+            try {
+                segment.deleteFiles();
+            } catch (IOException e) {
+                // 删除失败的文件在下次打开时作为孤儿文件清理
+                log.warn("Failed to delete index segment seg_{}: {}", segment.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 查询结果：按相关度降序的文献ID和命中总数
+     */
+    public static class TopDocs {
+        private final List<Integer> ids;
+        private final int totalHits;
+
+        TopDocs(List<Integer> ids, int totalHits) {
+            this.ids = ids;
+            this.totalHits = totalHits;
+        }
+
+        static TopDocs of(Map<Integer, Double> scores, int topK) {
+            // 同分时ID大（较新）的在前
+            Comparator<Map.Entry<Integer, Double>> order = Map.Entry.<Integer, Double>comparingByValue()
+                .thenComparing(Map.Entry.comparingByKey());
+            PriorityQueue<Map.Entry<Integer, Double>> heap = new PriorityQueue<>(order);
+            int k = Math.max(0, topK);
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                if (heap.size() < k) {
+                    heap.add(entry);
+                } else if (k > 0 && order.compare(entry, heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(entry);
+                }
+            }
+            List<Integer> ids = new ArrayList<>(heap.size());
+            while (!heap.isEmpty()) {
+                ids.add(heap.poll().getKey());
+            }
+            Collections.reverse(ids);
+            return new TopDocs(ids, scores.size());
+        }
+
+        public List<Integer> getIds() {
+            return ids;
+        }
+
+        public int getTotalHits() {
+            return totalHits;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.service.search;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.MedicalLiteratureMapper;
+import com.github.pagehelper.Page;
+import com.github.pagehelper.PageInfo;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 内嵌倒排索引检索，支持中文（二元分词）
+ * 索引只包含检索字段，带来源或日期过滤的查询交给其他引擎
+ */
+@Component
+public class InvertedIndexSearchEngine implements LiteratureSearchEngine {
+
+    public static final String NAME = "inverted";
+
+    @Resource
+    private LiteratureIndexService literatureIndexService;
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean supports(LiteratureSearchQuery query) {
+        return literatureIndexService.isReady()
+            && query.getKeyword() != null && !query.getKeyword().isBlank()
+            && isBlank(query.getSource()) && isBlank(query.getStartDate()) && isBlank(query.getEndDate());
+    }
+
+    @Override
+    public PageInfo<MedicalLiterature> search(LiteratureSearchQuery query) {
+        int offset = query.getOffset();
+        InvertedIndex.TopDocs top = literatureIndexService.search(query.getKeyword(), offset + query.getPageSize());
+
+        Page<MedicalLiterature> page = new Page<>(query.getPageNum(), query.getPageSize());
+        page.setTotal(top.getTotalHits());
+        if (top.getIds().size() > offset) {
+            List<Integer> ids = top.getIds().subList(offset, top.getIds().size());
+            Map<Integer, MedicalLiterature> rows = medicalLiteratureMapper.selectByIds(ids).stream()
+                .collect(Collectors.toMap(MedicalLiterature::getId, Function.identity()));
+            // 按索引给出的相关度顺序返回
+            for (Integer id : ids) {
+                MedicalLiterature literature = rows.get(id);
+                if (literature != null) {
+                    page.add(literature);
+                }
+            }
+        }
+        return new PageInfo<>(page);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
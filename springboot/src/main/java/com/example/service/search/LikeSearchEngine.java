@@ -0,0 +1,35 @@
+package com.example.service.search;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.MedicalLiteratureMapper;
+import com.github.pagehelper.PageHelper;
+import com.github.pagehelper.PageInfo;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * LIKE模糊匹配检索（原有实现），用作中文及短词检索的兜底
+ */
+@Component
+public class LikeSearchEngine implements LiteratureSearchEngine {
+
+    public static final String NAME = "like";
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public PageInfo<MedicalLiterature> search(LiteratureSearchQuery query) {
+        PageHelper.startPage(query.getPageNum(), query.getPageSize());
+        List<MedicalLiterature> list = medicalLiteratureMapper.searchLiterature(
+            query.getKeyword(), null, null, query.getSource(), query.getStartDate(), query.getEndDate());
+        return PageInfo.of(list);
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.service.search;
+
+import com.example.entity.MedicalLiterature;
+import com.example.mapper.MedicalLiteratureMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 文献倒排索引服务
+ * 索引文件保存在本地磁盘并内存映射，文献增删改时增量维护，启动时索引为空则全量构建
+ */
+@Service
+public class LiteratureIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiteratureIndexService.class);
+
+    private static final int REBUILD_CHUNK = 2000;
+
+    private static final double[] BOOSTS = {
+        LiteratureSearchEngine.TITLE_WEIGHT,
+        LiteratureSearchEngine.KEYWORDS_WEIGHT,
+        LiteratureSearchEngine.ABSTRACT_WEIGHT,
+        LiteratureSearchEngine.AUTHORS_WEIGHT
+    };
+
+    @Resource
+    private MedicalLiteratureMapper medicalLiteratureMapper;
+
+    @Value("${literature.search.index.enabled:false}")
+    private boolean enabled;
+
+    @Value("${literature.search.index.dir:}")
+    private String dir;
+
+    // 内存缓冲达到该文档数时写成新段
+    @Value("${literature.search.index.flush-docs:1000}")
+    private int flushDocs;
+
+    @Value("${literature.search.index.max-segments:10}")
+    private int maxSegments;
+
+    // 全量重建时每个段的文档数
+    @Value("${literature.search.index.segment-docs:20000}")
+    private int segmentDocs;
+
+    private volatile InvertedIndex index;
+
+    private volatile boolean ready = false;
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        Path path = dir != null && !dir.isEmpty()
+            ? Paths.get(dir) : Paths.get(System.getProperty("java.io.tmpdir"), "literature-index");
+        try {
+            index = InvertedIndex.open(path, BOOSTS);
+        } catch (IOException e) {
+            logger.error("文献倒排索引打开失败: {}", path, e);
+        }
+    }
+
+    /**
+     * 启动后索引为空时全量构建
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (index == null) {
+            return;
+        }
+        if (index.docCount() == 0 && medicalLiteratureMapper.countByStatus("active") > 0) {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                logger.error("文献倒排索引构建失败", e);
+            }
+        } else {
+            ready = true;
+        }
+    }
+
+    /**
+     * 全量重建（按ID分块读取有效文献），重建期间旧索引继续提供查询
+     * @return 索引文献数
+     */
+    public synchronized int rebuild() throws IOException {
+        if (index == null) {
+            throw new IllegalStateException("文献倒排索引未启用");
+        }
+        long start = System.currentTimeMillis();
+        InvertedIndex.Rebuild rebuild = index.beginRebuild(segmentDocs);
+        int count = 0;
+        try {
+            int lastId = 0;
+            List<MedicalLiterature> chunk;
+            do {
+                chunk = medicalLiteratureMapper.selectIndexableAfter(lastId, REBUILD_CHUNK);
+                for (MedicalLiterature literature : chunk) {
+                    rebuild.add(literature.getId(), analyze(literature));
+                    lastId = literature.getId();
+                    count++;
+                }
+            } while (chunk.size() == REBUILD_CHUNK);
+        } catch (IOException | RuntimeException e) {
+            rebuild.abort();
+            throw e;
+        }
+
+        Set<Integer> changed = rebuild.commit();
+        for (Integer id : changed) {
+            onChanged(id);
+        }
+        index.maybeMerge(maxSegments);
+        ready = true;
+        logger.info("文献倒排索引重建完成: {} 条, {} 个段, 耗时 {}ms",
+            count, index.segmentCount(), System.currentTimeMillis() - start);
+        return count;
+    }
+
+    /**
+     * 新增或更新文献后写入索引（非active状态的文献从索引中移除）
+     */
+    public void onSaved(MedicalLiterature literature) {
+        InvertedIndex current = index;
+        if (current == null || literature.getId() == null) {
+            return;
+        }
+        if ("active".equals(literature.getStatus())) {
+            current.update(literature.getId(), analyze(literature));
+        } else {
+            current.delete(literature.getId());
+        }
+        flushIfFull();
+    }
+
+    public void onSaved(List<MedicalLiterature> literatures) {
+        for (MedicalLiterature literature : literatures) {
+            onSaved(literature);
+        }
+    }
+
+    /**
+     * 部分字段更新后按数据库中的最新记录重新索引
+     */
+    public void onChanged(Integer id) {
+        if (index == null || id == null) {
+            return;
+        }
+        MedicalLiterature literature = medicalLiteratureMapper.selectById(id);
+        if (literature != null) {
+            onSaved(literature);
+        } else {
+            onDeleted(id);
+        }
+    }
+
+    public void onDeleted(Integer id) {
+        InvertedIndex current = index;
+        if (current != null && id != null) {
+            current.delete(id);
+        }
+    }
+
+    /**
+     * 定时把缓冲写成段并合并小段
+     */
+    @Scheduled(fixedDelayString = "${literature.search.index.flush-interval-ms:30000}")
+    public void flushAndMerge() {
+        InvertedIndex current = index;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.flush();
+            current.maybeMerge(maxSegments);
+        } catch (IOException e) {
+            logger.error("文献倒排索引刷盘失败", e);
+        }
+    }
+
+    /**
+     * 按相关度检索
+     */
+    public InvertedIndex.TopDocs search(String keyword, int topK) {
+        return index.search(LiteratureTokenizer.tokenize(keyword), topK);
+    }
+
+    public boolean isReady() {
+        return index != null && ready;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isReady());
+        InvertedIndex current = index;
+        if (current != null) {
+            stats.put("docs", current.docCount());
+            stats.put("segments", current.segmentCount());
+            stats.put("buffered", current.bufferedCount());
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        InvertedIndex current = index;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.close();
+        } catch (IOException e) {
+            logger.error("文献倒排索引关闭失败", e);
+        }
+    }
+
+    private void flushIfFull() {
+        if (index.bufferedCount() < flushDocs) {
+            return;
+        }
+        try {
+            index.flush();
+        } catch (IOException e) {
+            logger.error("文献倒排索引刷盘失败", e);
+        }
+    }
+
+    private static Map<String, byte[]> analyze(MedicalLiterature literature) {
+        return InvertedIndex.termFrequencies(literature.getTitle(), literature.getKeywords(),
+            literature.getAbstractContent(), literature.getAuthors());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.service.search;
+
+import com.example.entity.MedicalLiterature;
+import com.github.pagehelper.PageInfo;
+
+/**
+ * 文献检索引擎
+ * 通过配置 literature.search.engine 选择实现
+ */
+public interface LiteratureSearchEngine {
+
+    // 字段权重：标题 > 关键词 > 摘要 > 作者（FULLTEXT排序表达式中使用同样的比例）
+    double TITLE_WEIGHT = 10.0;
+    double KEYWORDS_WEIGHT = 5.0;
+    double ABSTRACT_WEIGHT = 3.0;
+    double AUTHORS_WEIGHT = 2.0;
+
+    /**
+     * 引擎名称（对应配置值）
+     */
+    String getName();
+
+    /**
+     * 判断该引擎能否处理此查询（例如FULLTEXT无法处理过短的词）
+     */
+    default boolean supports(LiteratureSearchQuery query) {
+        return true;
+    }
+
+    /**
+     * 按相关性分页检索
+     */
+    PageInfo<MedicalLiterature> search(LiteratureSearchQuery query);
+}
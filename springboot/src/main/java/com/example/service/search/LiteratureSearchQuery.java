@@ -0,0 +1,74 @@
+package com.example.service.search;
+
+/**
+ * 文献检索条件
+ */
+public class LiteratureSearchQuery {
+
+    private String keyword;
+    private String source;       // 爬取来源
+    private String startDate;    // 发表日期下限
+    private String endDate;      // 发表日期上限
+    private int pageNum = 1;
+    private int pageSize = 10;
+
+    public LiteratureSearchQuery() {}
+
+    public LiteratureSearchQuery(String keyword, int pageNum, int pageSize) {
+        this.keyword = keyword;
+        this.pageNum = pageNum;
+        this.pageSize = pageSize;
+    }
+
+    public int getOffset() {
+        return (Math.max(1, pageNum) - 1) * pageSize;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public void setKeyword(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+
+    public int getPageNum() {
+        return pageNum;
+    }
+
+    public void setPageNum(int pageNum) {
+        this.pageNum = pageNum;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.service.search;
+
+import com.example.entity.MedicalLiterature;
+import com.github.pagehelper.PageInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文献检索入口：按 literature.search.engine 选择引擎，引擎不支持该查询时退回LIKE检索
+ * 推荐等内部调用也经过这里，搜索次数由搜索接口自己统计
+ */
+@Service
+public class LiteratureSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(LiteratureSearchService.class);
+
+    @Autowired
+    private List<LiteratureSearchEngine> engines;
+
+    @Value("${literature.search.engine:fulltext}")
+    private String engineName;
+
+    private final Map<String, LiteratureSearchEngine> engineMap = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (LiteratureSearchEngine engine : engines) {
+            engineMap.put(engine.getName(), engine);
+        }
+        if (!engineMap.containsKey(engineName)) {
+            log.warn("Unknown literature search engine '{}', using {}", engineName, LikeSearchEngine.NAME);
+            engineName = LikeSearchEngine.NAME;
+        }
+        log.info("Literature search engine: {}", engineName);
+    }
+
+    public PageInfo<MedicalLiterature> search(LiteratureSearchQuery query) {
+        LiteratureSearchEngine engine = engineMap.get(engineName);
+        if (!engine.supports(query)) {
+            engine = engineMap.get(LikeSearchEngine.NAME);
+        }
+        return engine.search(query);
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+}
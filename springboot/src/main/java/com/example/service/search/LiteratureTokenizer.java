@@ -0,0 +1,87 @@
+package com.example.service.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 文献分词：英文/数字按连续字母数字切词并转小写，中日韩文字按二元组（bigram）切分
+ * 例如 "肺癌靶向治疗 EGFR" → [肺癌, 癌靶, 靶向, 向治, 治疗, egfr]
+ *
+ * 建索引用 tokenizeForIndex，中日韩文字在二元组之外再逐字索引一元组，
+ * 这样单字查询（如 "癌"）也能命中 "肺癌治疗"；多字查询仍只按二元组匹配
+ */
+public final class LiteratureTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "by", "for", "from", "in", "is",
+        "of", "on", "or", "the", "to", "with");
+
+    // 超长的"词"多为URL、序列等噪声
+    private static final int MAX_TOKEN_LENGTH = 64;
+
+    private LiteratureTokenizer() {}
+
+    /**
+     * 查询分词
+     */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * 建索引分词：中日韩文字额外输出逐字的一元组
+     */
+    public static List<String> tokenizeForIndex(String text) {
+        return tokenize(text, true);
+    }
+
+    private static List<String> tokenize(String text, boolean unigrams) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        int[] cps = text.toLowerCase(Locale.ROOT).codePoints().toArray();
+        int i = 0;
+        while (i < cps.length) {
+            int start = i;
+            if (isCjk(cps[i])) {
+                while (i < cps.length && isCjk(cps[i])) {
+                    i++;
+                }
+                if (i - start == 1) {
+                    tokens.add(new String(cps, start, 1));
+                } else {
+                    for (int j = start; j < i - 1; j++) {
+                        tokens.add(new String(cps, j, 2));
+                    }
+                    if (unigrams) {
+                        for (int j = start; j < i; j++) {
+                            tokens.add(new String(cps, j, 1));
+                        }
+                    }
+                }
+            } else if (Character.isLetterOrDigit(cps[i])) {
+                while (i < cps.length && Character.isLetterOrDigit(cps[i]) && !isCjk(cps[i])) {
+                    i++;
+                }
+                String word = new String(cps, start, i - start);
+                if (word.length() > 1 && word.length() <= MAX_TOKEN_LENGTH && !STOP_WORDS.contains(word)) {
+                    tokens.add(word);
+                }
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+            || script == Character.UnicodeScript.HIRAGANA
+            || script == Character.UnicodeScript.KATAKANA
+            || script == Character.UnicodeScript.HANGUL;
+    }
+}
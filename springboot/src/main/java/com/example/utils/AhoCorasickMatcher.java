@@ -0,0 +1,151 @@
+package com.example.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Aho–Corasick 多模式匹配
+ * 一次扫描文本找出全部模式串的所有出现位置（包括重叠的出现），按UTF-16字符匹配，中英文均可。
+ * 构建后只读，可多线程共享。
+ */
+public class AhoCorasickMatcher {
+
+    /**
+     * 匹配回调
+     */
+    @FunctionalInterface
+    public interface MatchHandler {
+        /**
+         * @param pattern 模式串下标（构造时传入的顺序）
+         * @param start   出现位置
+         * @param end     结束位置（不含）
+         */
+        void onMatch(int pattern, int start, int end);
+    }
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final String[] patterns;
+
+    // 每个状态的转移：keys有序，按二分查找
+    private final char[][] keys;
+    private final int[][] targets;
+    private final int[] fail;
+    // 每个状态结束的模式串（已合并失败链上的输出）
+    private final int[][] outputs;
+
+    public AhoCorasickMatcher(List<String> patterns) {
+        this.patterns = patterns.toArray(new String[0]);
+
+        // 先用TreeMap建trie，再压成数组
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        ends.add(new ArrayList<>());
+        for (int p = 0; p < this.patterns.length; p++) {
+            String pattern = this.patterns[p];
+            if (pattern == null || pattern.isEmpty()) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = trie.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    ends.add(new ArrayList<>());
+                    trie.get(state).put(pattern.charAt(i), next);
+                }
+                state = next;
+            }
+            ends.get(state).add(p);
+        }
+
+        int size = trie.size();
+        keys = new char[size][];
+        targets = new int[size][];
+        fail = new int[size];
+        outputs = new int[size][];
+        for (int s = 0; s < size; s++) {
+            TreeMap<Character, Integer> edges = trie.get(s);
+            keys[s] = new char[edges.size()];
+            targets[s] = new int[edges.size()];
+            int i = 0;
+            for (var edge : edges.entrySet()) {
+                keys[s][i] = edge.getKey();
+                targets[s][i] = edge.getValue();
+                i++;
+            }
+        }
+
+        // 按层（BFS）计算失败指针，子状态的输出 = 自身输出 + 失败状态的输出
+        outputs[0] = NO_OUTPUT;
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            fail[child] = 0;
+            outputs[child] = toArray(ends.get(child), NO_OUTPUT);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++) {
+                char c = keys[state][i];
+                int child = targets[state][i];
+                int f = fail[state];
+                int next;
+                while ((next = step(f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = next >= 0 ? next : 0;
+                outputs[child] = toArray(ends.get(child), outputs[fail[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 扫描文本，每次出现回调一次
+     */
+    public void scan(CharSequence text, MatchHandler handler) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int next;
+            while ((next = step(state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = next >= 0 ? next : 0;
+            for (int p : outputs[state]) {
+                handler.onMatch(p, i + 1 - patterns[p].length(), i + 1);
+            }
+        }
+    }
+
+    public int patternCount() {
+        return patterns.length;
+    }
+
+    public String pattern(int index) {
+        return patterns[index];
+    }
+
+    private int step(int state, char c) {
+        int i = Arrays.binarySearch(keys[state], c);
+        return i >= 0 ? targets[state][i] : -1;
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] result = Arrays.copyOf(inherited, inherited.length + own.size());
+        for (int i = 0; i < own.size(); i++) {
+            result[inherited.length + i] = own.get(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 批量加载器：先登记一页数据需要的全部ID，第一次取值时用一次批量查询加载，再按ID取回
+ *
+ * 每次列表查询创建一个，不跨请求共享，非线程安全。
+ * 用法：enqueueAll(ids) 登记 → get(id) / getAll(ids) 取值（未加载的ID自动合并成一次查询）
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final Set<K> pending = new LinkedHashSet<>();
+    private final Map<K, V> loaded = new HashMap<>();
+    private int batches;
+
+    /**
+     * @param batchFunction 按ID集合批量查询，返回ID到结果的映射（查不到的ID可以不返回）
+     */
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction) {
+        this.batchFunction = batchFunction;
+    }
+
+    public void enqueue(K key) {
+        if (key != null && !loaded.containsKey(key)) {
+            pending.add(key);
+        }
+    }
+
+    public void enqueueAll(Collection<K> keys) {
+        for (K key : keys) {
+            enqueue(key);
+        }
+    }
+
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        if (!loaded.containsKey(key)) {
+            pending.add(key);
+            dispatch();
+        }
+        return loaded.get(key);
+    }
+
+    /**
+     * 按给定顺序取值，查不到的跳过
+     */
+    public List<V> getAll(Collection<K> keys) {
+        enqueueAll(keys);
+        dispatch();
+        List<V> values = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            V value = loaded.get(key);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 加载所有已登记但未加载的ID
+     */
+    public void dispatch() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<K> keys = new ArrayList<>(pending);
+        pending.clear();
+        Map<K, V> result = batchFunction.apply(keys);
+        for (K key : keys) {
+            // 查不到的也记下，避免重复查询
+            loaded.put(key, result.get(key));
+        }
+        batches++;
+    }
+
+    /**
+     * 已执行的批量查询次数
+     */
+    public int getBatches() {
+        return batches;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件下载工具：流式输出，支持断点续传和浏览器缓存
+ *
+ * - ETag（长度+修改时间）和 Last-Modified，条件请求未变化时返回304
+ * - 单个 Range 返回206和 Content-Range，范围无效返回416；多段 Range 或 If-Range 不匹配时返回完整文件
+ * - Tomcat支持sendfile时交给容器用sendfile发送，否则用 FileChannel.transferTo 分段写出，内存占用与文件大小无关
+ */
+public class FileDownloadUtil {
+
+    private static final Logger log = LoggerFactory.getLogger(FileDownloadUtil.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // 上传文件的key带时间戳或内容哈希，同一地址内容不会变，可以长期缓存
+    private static final String CACHE_CONTROL = CacheControl.maxAge(30, TimeUnit.DAYS).cachePrivate().getHeaderValue();
+
+    private FileDownloadUtil() {
+    }
+
+    /**
+     * 发送文件，调用方负责确认文件存在且在允许的目录内
+     * @param contentType 响应类型
+     * @param contentDisposition Content-Disposition 头，为空则不设置
+     */
+    public static void send(File file, String contentType, String contentDisposition,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = file.length();
+        long lastModified = file.lastModified();
+        String etag = etag(length, lastModified);
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        // 设置 ETag、Last-Modified，条件请求命中时置为304
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = singleRange(request, etag, lastModified);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentType(contentType);
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (IOException e) {
+            // 客户端中途断开（暂停下载、关闭页面）很常见，不作为错误
+            log.debug("文件下载中断: {}, {}", file.getName(), e.getMessage());
+        }
+    }
+
+    private static String etag(long length, long lastModified) {
+        return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    /**
+     * 解析 Range 头，只处理单个范围；格式错误、多段、If-Range 不匹配时返回null（发送完整文件）
+     */
+    private static HttpRange singleRange(HttpServletRequest request, String etag, long lastModified) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            long date = -1;
+            try {
+                date = request.getDateHeader(HttpHeaders.IF_RANGE);
+            } catch (IllegalArgumentException ignored) {
+                // 既不是ETag也不是日期
+            }
+            if (date < 0 || lastModified / 1000 != date / 1000) {
+                return null;
+            }
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.utils;
+
+import cn.hutool.crypto.digest.DigestUtil;
+
+/**
+ * 文献去重键工具类
+ * 统一标题标准化、标题哈希和DOI格式，保证入库与查重使用同一套规则
+ */
+public class LiteratureKeyUtil {
+
+    private LiteratureKeyUtil() {}
+
+    /**
+     * 标题标准化：小写，仅保留字母、数字（含中文），空白合并
+     */
+    public static String normalizeTitle(String title) {
+        if (title == null) return "";
+        StringBuilder sb = new StringBuilder(title.length());
+        boolean lastSpace = true;
+        for (int i = 0; i < title.length(); i++) {
+            char c = Character.toLowerCase(title.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                lastSpace = false;
+            } else if (!lastSpace) {
+                sb.append(' ');
+                lastSpace = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') {
+            sb.setLength(len - 1);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 标准化标题的SHA-1（40位十六进制），对应 title_hash 列
+     */
+    public static String titleHash(String title) {
+        String normalized = normalizeTitle(title);
+        return normalized.isEmpty() ? null : DigestUtil.sha1Hex(normalized);
+    }
+
+    /**
+     * DOI标准化：去掉 doi.org 前缀并转小写，空值返回null
+     */
+    public static String normalizeDoi(String doi) {
+        if (doi == null) return null;
+        String value = doi.trim();
+        int idx = value.indexOf("doi.org/");
+        if (idx >= 0) {
+            value = value.substring(idx + "doi.org/".length());
+        }
+        if (value.regionMatches(true, 0, "doi:", 0, 4)) {
+            value = value.substring(4).trim();
+        }
+        return value.isEmpty() ? null : value.toLowerCase();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * MinHash + LSH 近似重复索引
+ * 对标准化标题的字符3-gram集合计算MinHash签名，按band分桶，
+ * 查询时只取同桶候选项，按签名估算的Jaccard相似度排序，由调用方精确复核
+ */
+public class MinHashLshIndex {
+
+    private static final int SHINGLE_SIZE = 3;
+
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+
+    private final Map<Integer, int[]> signatures = new HashMap<>();
+    private final Map<Long, IdBucket> buckets = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param bands band数量
+     * @param rows  每个band的行数（签名长度 = bands * rows）
+     */
+    public MinHashLshIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        this.seeds = new long[bands * rows];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < seeds.length; i++) {
+            seed = mix64(seed + i);
+            seeds[i] = seed;
+        }
+    }
+
+    /**
+     * 计算标题的MinHash签名
+     */
+    public int[] signature(String title) {
+        String text = LiteratureKeyUtil.normalizeTitle(title);
+        int[] sig = new int[seeds.length];
+        Arrays.fill(sig, Integer.MAX_VALUE);
+        if (text.isEmpty()) {
+            return sig;
+        }
+
+        int shingles = Math.max(1, text.length() - SHINGLE_SIZE + 1);
+        for (int s = 0; s < shingles; s++) {
+            long h = 0;
+            int end = Math.min(text.length(), s + SHINGLE_SIZE);
+            for (int i = s; i < end; i++) {
+                h = h * 31 + text.charAt(i);
+            }
+            for (int k = 0; k < seeds.length; k++) {
+                int v = (int) (mix64(h ^ seeds[k]) >>> 33);
+                if (v < sig[k]) {
+                    sig[k] = v;
+                }
+            }
+        }
+        return sig;
+    }
+
+    /**
+     * 加入或替换一条记录
+     */
+    public void put(int id, String title) {
+        int[] sig = signature(title);
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            signatures.put(id, sig);
+            for (int b = 0; b < bands; b++) {
+                buckets.computeIfAbsent(bandKey(sig, b), k -> new IdBucket()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除一条记录
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 查找候选记录：至少有一个band与标题落在同一个桶
+     * @return 候选ID，按签名估算的Jaccard相似度从高到低排列
+     */
+    public int[] candidates(String title) {
+        int[] sig = signature(title);
+        List<long[]> found = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Set<Integer> checked = new HashSet<>();
+            for (int b = 0; b < bands; b++) {
+                IdBucket bucket = buckets.get(bandKey(sig, b));
+                if (bucket == null) continue;
+                for (int i = 0; i < bucket.size; i++) {
+                    int id = bucket.ids[i];
+                    if (!checked.add(id)) continue;
+                    found.add(new long[]{id, sameRows(sig, signatures.get(id))});
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        found.sort((x, y) -> Long.compare(y[1], x[1]));
+        int[] ids = new int[found.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) found.get(i)[0];
+        }
+        return ids;
+    }
+
+    /**
+     * 清空索引
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            signatures.clear();
+            buckets.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return signatures.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeInternal(int id) {
+        int[] old = signatures.remove(id);
+        if (old == null) return;
+        for (int b = 0; b < bands; b++) {
+            long key = bandKey(old, b);
+            IdBucket bucket = buckets.get(key);
+            if (bucket != null && bucket.remove(id) && bucket.size == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private long bandKey(int[] sig, int band) {
+        long h = band;
+        int from = band * rows;
+        for (int i = from; i < from + rows; i++) {
+            h = h * 0x100000001B3L + sig[i];
+        }
+        return mix64(h);
+    }
+
+    /**
+     * 签名中相同的位置数，除以签名长度即Jaccard相似度估计
+     */
+    private static int sameRows(int[] a, int[] b) {
+        if (b == null) return 0;
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) equal++;
+        }
+        return equal;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * 桶内ID列表（避免装箱）
+     */
+    private static final class IdBucket {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.utils;
+
+import com.example.entity.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已验证token的登录用户缓存
+ *
+ * 拦截器验证通过后以token为key缓存账号，有效期取token过期时间和 jwt.principal-cache.ttl-ms 中较早者，
+ * 之后同一token的请求不再查库验签。修改密码、修改或删除账号时按账号清除。
+ * 缓存只在本节点内，其他节点最多在 ttl-ms 之后重新验证。
+ *
+ * 验证前先取 stamp()，放入时带上：清除账号时记录一个新的序号，序号不大于该账号最近一次清除的条目一律无效，
+ * 避免在清除之前查库、清除之后才放入的旧账号（旧密码验签通过）留在缓存中。
+ */
+@Component
+public class PrincipalCache {
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${jwt.principal-cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    private Cache<String, Entry> cache;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // 账号（角色-ID）最近一次清除时的序号，条目数不超过被修改过的账号数
+    private final Map<String, Long> invalidated = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfter(new Expiry<String, Entry>() {
+                @Override
+                public long expireAfterCreate(String token, Entry entry, long currentTime) {
+                    return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt - System.currentTimeMillis()));
+                }
+
+                @Override
+                public long expireAfterUpdate(String token, Entry entry, long currentTime, long currentDuration) {
+                    return expireAfterCreate(token, entry, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String token, Entry entry, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+    }
+
+    public Account get(String token) {
+        Entry entry = cache.getIfPresent(token);
+        if (entry == null) {
+            return null;
+        }
+        if (isStale(entry)) {
+            cache.asMap().remove(token, entry);
+            return null;
+        }
+        return entry.account;
+    }
+
+    /**
+     * 开始验证token（查库）之前调用，结果传给 put()
+     */
+    public long stamp() {
+        return sequence.get();
+    }
+
+    /**
+     * 缓存已验证的token，验证期间账号被清除过则不缓存
+     * @param tokenExpiresAt token过期时间，为空时只按 ttl-ms 过期
+     * @param stamp 验证前取得的 stamp()
+     */
+    public void put(String token, Account account, Date tokenExpiresAt, long stamp) {
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        if (tokenExpiresAt != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiresAt.getTime());
+        }
+        Entry entry = new Entry(account, expiresAt, stamp);
+        // 检查之后、放入之前发生的清除由 get() 中的检查兜底
+        if (!isStale(entry)) {
+            cache.put(token, entry);
+        }
+    }
+
+    /**
+     * 清除某个账号的全部token（密码、资料变更或账号删除后调用，须在数据库更新之后）
+     */
+    public void invalidate(Integer id, String role) {
+        if (id == null || role == null) {
+            return;
+        }
+        String key = key(id, role);
+        // 先记录序号再清除，之后放入的旧条目在 put()/get() 中被拒绝
+        invalidated.put(key, sequence.incrementAndGet());
+        cache.asMap().values().removeIf(entry -> key.equals(key(entry.account.getId(), entry.account.getRole())));
+    }
+
+    private boolean isStale(Entry entry) {
+        Long invalidatedAt = invalidated.get(key(entry.account.getId(), entry.account.getRole()));
+        return invalidatedAt != null && entry.stamp < invalidatedAt;
+    }
+
+    private static String key(Integer id, String role) {
+        return role + "-" + id;
+    }
+
+    private static class Entry {
+        private final Account account;
+        private final long expiresAt;
+        private final long stamp;
+
+        Entry(Account account, long expiresAt, long stamp) {
+            this.account = account;
+            this.expiresAt = expiresAt;
+            this.stamp = stamp;
+        }
+    }
+}
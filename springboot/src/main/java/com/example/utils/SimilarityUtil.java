@@ -2,16 +2,61 @@ package com.example.utils;
 
 import org.springframework.stereotype.Component;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
 
 /**
  * 文本相似度计算工具类
  * 用于文献去重和相似度检测
+ *
+ * 实现要点：
+ * - 词集合预先转成排序去重的64位哈希数组（{@link PreparedTitle}），Jaccard按有序数组归并计算
+ * - 编辑距离使用两行滚动数组 + Ukkonen带宽限制，超过阈值允许的距离即提前退出
+ * - 滚动数组按线程复用，避免每次比较分配 O(n·m) 矩阵
  */
 @Component
 public class SimilarityUtil {
 
+    private static final double JACCARD_WEIGHT = 0.6;
+    private static final double EDIT_WEIGHT = 0.4;
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    /**
+     * 预处理后的标题：小写文本 + 排序去重的词哈希数组
+     * 对同一候选反复比较时只需预处理一次
+     */
+    public static final class PreparedTitle {
+        private final String lower;
+        private final long[] tokens;
+
+        private PreparedTitle(String lower, long[] tokens) {
+            this.lower = lower;
+            this.tokens = tokens;
+        }
+
+        public String getText() {
+            return lower;
+        }
+
+        public int tokenCount() {
+            return tokens.length;
+        }
+    }
+
+    /**
+     * 预处理标题
+     */
+    public PreparedTitle prepare(String title) {
+        if (title == null) {
+            return null;
+        }
+        String lower = title.toLowerCase();
+        Buffers buffers = BUFFERS.get();
+        long[] scratch = buffers.tokens(lower.length() / 2 + 1);
+        int count = uniqueSorted(scratch, tokenize(lower, lower.length(), scratch));
+        return new PreparedTitle(lower, Arrays.copyOf(scratch, count));
+    }
+
     /**
      * 计算两个字符串的Jaccard相似度
      * @param str1 字符串1
@@ -22,25 +67,12 @@ public class SimilarityUtil {
         if (str1 == null || str2 == null) {
             return 0.0;
         }
-        
+
         if (str1.equals(str2)) {
             return 1.0;
         }
-        
-        Set<String> set1 = getWordSet(str1.toLowerCase());
-        Set<String> set2 = getWordSet(str2.toLowerCase());
-        
-        if (set1.isEmpty() && set2.isEmpty()) {
-            return 1.0;
-        }
-        
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-        
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
-        
-        return (double) intersection.size() / union.size();
+
+        return jaccard(prepare(str1).tokens, prepare(str2).tokens);
     }
 
     /**
@@ -53,18 +85,17 @@ public class SimilarityUtil {
         if (str1 == null || str2 == null) {
             return 0.0;
         }
-        
+
         if (str1.equals(str2)) {
             return 1.0;
         }
-        
-        int editDistance = calculateEditDistance(str1.toLowerCase(), str2.toLowerCase());
+
         int maxLength = Math.max(str1.length(), str2.length());
-        
         if (maxLength == 0) {
             return 1.0;
         }
-        
+
+        int editDistance = boundedEditDistance(str1.toLowerCase(), str2.toLowerCase(), maxLength);
         return 1.0 - (double) editDistance / maxLength;
     }
 
@@ -75,11 +106,41 @@ public class SimilarityUtil {
      * @return 相似度值 (0-1之间)
      */
     public double calculateCombinedSimilarity(String str1, String str2) {
-        double jaccardSim = calculateJaccardSimilarity(str1, str2);
-        double editSim = calculateEditDistanceSimilarity(str1, str2);
-        
+        if (str1 == null || str2 == null) {
+            return 0.0;
+        }
+        return similarity(str1, prepare(str2));
+    }
+
+    /**
+     * 综合相似度（候选已预处理）
+     * @param titleA 待比较标题
+     * @param preparedB 预处理后的候选标题
+     * @return 相似度值 (0-1之间)
+     */
+    public double similarity(String titleA, PreparedTitle preparedB) {
+        if (titleA == null || preparedB == null) {
+            return 0.0;
+        }
+        return similarity(prepare(titleA), preparedB);
+    }
+
+    /**
+     * 综合相似度（双方均已预处理）
+     */
+    public double similarity(PreparedTitle a, PreparedTitle b) {
+        if (a == null || b == null) {
+            return 0.0;
+        }
+        if (a.lower.equals(b.lower)) {
+            return 1.0;
+        }
+        double jaccardSim = jaccard(a.tokens, b.tokens);
+        int maxLength = Math.max(a.lower.length(), b.lower.length());
+        double editSim = 1.0 - (double) boundedEditDistance(a.lower, b.lower, maxLength) / maxLength;
+
         // 加权平均：Jaccard权重0.6，编辑距离权重0.4
-        return jaccardSim * 0.6 + editSim * 0.4;
+        return jaccardSim * JACCARD_WEIGHT + editSim * EDIT_WEIGHT;
     }
 
     /**
@@ -90,7 +151,10 @@ public class SimilarityUtil {
      * @return 是否相似
      */
     public boolean isSimilar(String title1, String title2, double threshold) {
-        return calculateCombinedSimilarity(title1, title2) >= threshold;
+        if (title1 == null || title2 == null) {
+            return threshold <= 0.0;
+        }
+        return isSimilar(prepare(title1), prepare(title2), threshold);
     }
 
     /**
@@ -101,56 +165,29 @@ public class SimilarityUtil {
     }
 
     /**
-     * 将字符串分割为词集合
+     * 判断两个预处理标题是否相似
+     * 先算Jaccard，再由阈值反推编辑距离上限，带宽外或超过上限立即返回
      */
-    private Set<String> getWordSet(String str) {
-        Set<String> words = new HashSet<>();
-        
-        // 移除标点符号并分割单词
-        String cleanStr = str.replaceAll("[^a-zA-Z0-9\\u4e00-\\u9fa5\\s]", " ");
-        String[] wordArray = cleanStr.split("\\s+");
-        
-        for (String word : wordArray) {
-            if (!word.trim().isEmpty() && word.length() > 1) {
-                words.add(word.trim());
-            }
+    public boolean isSimilar(PreparedTitle a, PreparedTitle b, double threshold) {
+        if (a == null || b == null) {
+            return threshold <= 0.0;
         }
-        
-        return words;
-    }
-
-    /**
-     * 计算编辑距离（Levenshtein距离）
-     */
-    private int calculateEditDistance(String str1, String str2) {
-        int len1 = str1.length();
-        int len2 = str2.length();
-        
-        int[][] dp = new int[len1 + 1][len2 + 1];
-        
-        // 初始化
-        for (int i = 0; i <= len1; i++) {
-            dp[i][0] = i;
+        if (a.lower.equals(b.lower)) {
+            return true;
         }
-        for (int j = 0; j <= len2; j++) {
-            dp[0][j] = j;
+
+        double jaccardSim = jaccard(a.tokens, b.tokens);
+        double requiredEditSim = (threshold - jaccardSim * JACCARD_WEIGHT) / EDIT_WEIGHT;
+        if (requiredEditSim > 1.0) {
+            return false;
         }
-        
-        // 动态规划计算编辑距离
-        for (int i = 1; i <= len1; i++) {
-            for (int j = 1; j <= len2; j++) {
-                if (str1.charAt(i - 1) == str2.charAt(j - 1)) {
-                    dp[i][j] = dp[i - 1][j - 1];
-                } else {
-                    dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + 1
-                    );
-                }
-            }
+        if (requiredEditSim <= 0.0) {
+            return true;
         }
-        
-        return dp[len1][len2];
+
+        int maxLength = Math.max(a.lower.length(), b.lower.length());
+        int maxDistance = (int) Math.floor((1.0 - requiredEditSim) * maxLength + 1e-9);
+        return boundedEditDistance(a.lower, b.lower, maxDistance) <= maxDistance;
     }
 
     /**
@@ -161,21 +198,191 @@ public class SimilarityUtil {
         if (str1 == null || str2 == null) {
             return false;
         }
-        
+
         if (str1.equals(str2)) {
             return true;
         }
-        
+
         // 长度差异过大，直接判断为不相似
         int lengthDiff = Math.abs(str1.length() - str2.length());
         if (lengthDiff > Math.max(str1.length(), str2.length()) * 0.3) {
             return false;
         }
-        
-        // 检查前缀和后缀相似性
-        String prefix1 = str1.length() > 10 ? str1.substring(0, 10).toLowerCase() : str1.toLowerCase();
-        String prefix2 = str2.length() > 10 ? str2.substring(0, 10).toLowerCase() : str2.toLowerCase();
-        
-        return calculateJaccardSimilarity(prefix1, prefix2) > 0.5;
+
+        // 检查前缀（前10个字符）的词集合相似性，不生成子串
+        Buffers buffers = BUFFERS.get();
+        long[] prefix1 = buffers.prefix1;
+        long[] prefix2 = buffers.prefix2;
+        int n1 = uniqueSorted(prefix1, tokenize(str1, Math.min(10, str1.length()), prefix1));
+        int n2 = uniqueSorted(prefix2, tokenize(str2, Math.min(10, str2.length()), prefix2));
+        return jaccard(prefix1, n1, prefix2, n2) > 0.5;
+    }
+
+    /**
+     * 有序哈希数组的Jaccard相似度
+     */
+    private static double jaccard(long[] a, long[] b) {
+        return jaccard(a, a.length, b, b.length);
+    }
+
+    private static double jaccard(long[] a, int lenA, long[] b, int lenB) {
+        if (lenA == 0 && lenB == 0) {
+            return 1.0;
+        }
+        int i = 0, j = 0, intersection = 0;
+        while (i < lenA && j < lenB) {
+            if (a[i] == b[j]) {
+                intersection++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) intersection / (lenA + lenB - intersection);
+    }
+
+    /**
+     * 分词：字母、数字、中文为词内字符，其余字符分隔；长度不超过1的词丢弃
+     * @return 写入out的词哈希个数
+     */
+    private static int tokenize(String str, int end, long[] out) {
+        int count = 0;
+        int start = -1;
+        long hash = 0;
+        for (int i = 0; i <= end; i++) {
+            char c = i < end ? Character.toLowerCase(str.charAt(i)) : ' ';
+            if (isWordChar(c)) {
+                if (start < 0) {
+                    start = i;
+                    hash = 0xcbf29ce484222325L;
+                }
+                hash = (hash ^ c) * 0x100000001b3L;
+            } else if (start >= 0) {
+                if (i - start > 1) {
+                    out[count++] = hash;
+                }
+                start = -1;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || (c >= '\u4e00' && c <= '\u9fa5');
+    }
+
+    /**
+     * 对数组前n个元素排序去重
+     * @return 去重后的元素个数
+     */
+    private static int uniqueSorted(long[] values, int n) {
+        if (n <= 1) {
+            return n;
+        }
+        Arrays.sort(values, 0, n);
+        int unique = 1;
+        for (int i = 1; i < n; i++) {
+            if (values[i] != values[unique - 1]) {
+                values[unique++] = values[i];
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * 带上限的编辑距离（Levenshtein距离）
+     * 只计算对角线两侧maxDistance宽度的带状区域，整行超过上限时提前退出
+     * @return 编辑距离；超过maxDistance时返回maxDistance + 1
+     */
+    private static int boundedEditDistance(String str1, String str2, int maxDistance) {
+        // 保证str1为较短串，滚动数组按较长串分配
+        if (str1.length() > str2.length()) {
+            String tmp = str1;
+            str1 = str2;
+            str2 = tmp;
+        }
+        int len1 = str1.length();
+        int len2 = str2.length();
+        int limit = maxDistance + 1;
+
+        if (len2 - len1 > maxDistance) {
+            return limit;
+        }
+        if (len1 == 0) {
+            return len2;
+        }
+
+        Buffers buffers = BUFFERS.get();
+        int[] prev = buffers.row(0, len2 + 1);
+        int[] curr = buffers.row(1, len2 + 1);
+
+        for (int j = 0; j <= len2; j++) {
+            prev[j] = j <= maxDistance ? j : limit;
+        }
+
+        for (int i = 1; i <= len1; i++) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(len2, i + maxDistance);
+
+            curr[0] = i <= maxDistance ? i : limit;
+            if (from > 1) {
+                curr[from - 1] = limit;
+            }
+            int rowMin = from == 1 ? curr[0] : limit;
+
+            char c1 = str1.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = c1 == str2.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(prev[j - 1] + cost, Math.min(prev[j], curr[j - 1]) + 1);
+                if (value > limit) {
+                    value = limit;
+                }
+                curr[j] = value;
+                if (value < rowMin) {
+                    rowMin = value;
+                }
+            }
+            if (to < len2) {
+                curr[to + 1] = limit;
+            }
+
+            if (rowMin > maxDistance) {
+                return limit;
+            }
+
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+
+        return Math.min(prev[len2], limit);
+    }
+
+    /**
+     * 线程内复用的计算缓冲区
+     */
+    private static final class Buffers {
+        private final int[][] rows = new int[2][64];
+        private long[] tokens = new long[64];
+        private final long[] prefix1 = new long[8];
+        private final long[] prefix2 = new long[8];
+
+        int[] row(int index, int size) {
+            if (rows[index].length < size) {
+                rows[index] = new int[Math.max(size, rows[index].length * 2)];
+            }
+            return rows[index];
+        }
+
+        long[] tokens(int size) {
+            if (tokens.length < size) {
+                tokens = new long[Math.max(size, tokens.length * 2)];
+            }
+            return tokens;
+        }
     }
 }
@@ -57,10 +57,15 @@ public class TokenUtils {
 
     /**
      * 获取当前登录的用户
+     * 经过JWT拦截器的请求直接取拦截器放入的账号，其余请求（拦截器排除的路径）按token查库
      */
     public static Account getCurrentUser() {
         try {
             HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
+            Object current = request.getAttribute(Constants.CURRENT_ACCOUNT);
+            if (current instanceof Account) {
+                return (Account) current;
+            }
             String token = request.getHeader(Constants.TOKEN);
             String audience = JWT.decode(token).getAudience().get(0);
             String[] userRole = audience.split("-");
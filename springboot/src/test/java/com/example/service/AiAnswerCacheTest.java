@@ -0,0 +1,102 @@
+package com.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 相似命中不能跨过年龄、剂量、否定词等实质差异
+ */
+class AiAnswerCacheTest {
+
+    private static AiAnswerCache newCache() {
+        AiAnswerCache cache = new AiAnswerCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "maxDistance", 12);
+        ReflectionTestUtils.setField(cache, "minSimilarity", 0.8);
+        ReflectionTestUtils.setField(cache, "maxDifferingGrams", 4);
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        cache.init();
+        return cache;
+    }
+
+    @Test
+    void punctuationAndModalParticlesStillHit() {
+        AiAnswerCache cache = newCache();
+        cache.put("头痛怎么办", "answer");
+        assertEquals("answer", cache.get("头痛怎么办呢？"));
+        assertNull(cache.get("胃痛怎么办"));
+
+        cache.put("我今年30岁，可以吃布洛芬吗？", "30");
+        assertEquals("30", cache.get("我今年30岁可以吃布洛芬吗"));
+        assertEquals("30", cache.get("我今年 30 岁，可以吃布洛芬吗呢"));
+    }
+
+    @Test
+    void differentAgeMisses() {
+        AiAnswerCache cache = newCache();
+        cache.put("我今年30岁，发烧38.5度，可以吃布洛芬吗", "30");
+        assertNull(cache.get("我今年60岁，发烧38.5度，可以吃布洛芬吗"));
+        assertNull(cache.get("我今年30岁，发烧39.5度，可以吃布洛芬吗"));
+
+        cache.put("孩子三岁发烧怎么办", "3");
+        assertNull(cache.get("孩子五岁发烧怎么办"));
+    }
+
+    @Test
+    void differentDoseMisses() {
+        AiAnswerCache cache = newCache();
+        cache.put("布洛芬每次200mg，一天最多吃几次", "200");
+        assertNull(cache.get("布洛芬每次800mg，一天最多吃几次"));
+        assertNull(cache.get("布洛芬每次200g，一天最多吃几次"));
+
+        // 归一化会去掉小数点，2.5毫克与25毫克不能因此精确命中
+        cache.put("华法林每天2.5毫克要注意什么", "2.5");
+        assertNull(cache.get("华法林每天25毫克要注意什么"));
+        assertEquals("2.5", cache.get("华法林每天2.5毫克要注意什么？"));
+    }
+
+    @Test
+    void negationMisses() {
+        AiAnswerCache cache = newCache();
+        cache.put("孕妇可以吃布洛芬吗", "yes");
+        assertNull(cache.get("孕妇不可以吃布洛芬吗"));
+
+        cache.put("吃药后没有发烧还需要复查吗", "no-fever");
+        assertNull(cache.get("吃药后有发烧还需要复查吗"));
+
+        cache.put("空腹服用阿司匹林有什么影响", "empty");
+        assertNull(cache.get("非空腹服用阿司匹林有什么影响"));
+        assertNull(cache.get("未空腹服用阿司匹林有什么影响"));
+        assertNull(cache.get("无空腹服用阿司匹林有什么影响"));
+    }
+
+    @Test
+    void longQuestionsAllowOnlyFewDifferingGrams() {
+        AiAnswerCache cache = newCache();
+        String question = "最近一个星期晚上睡觉的时候总是感觉胸口发闷喘不上气，白天爬楼梯也会气短，需要去医院做哪些检查";
+        cache.put(question, "chest");
+        // 两处改动：Jaccard仍在0.8以上，但不同的2-gram超过上限
+        String changed = "最近一个星期晚上睡觉的时候总是感觉胃口发闷喘不上气，白天爬山也会气短，需要去医院做哪些检查";
+        int[] a = AiAnswerCache.bigrams(AiAnswerCache.normalize(question));
+        int[] b = AiAnswerCache.bigrams(AiAnswerCache.normalize(changed));
+        assertTrue(AiAnswerCache.jaccard(a, b) >= 0.8);
+        assertTrue(AiAnswerCache.differingGrams(a, b) > 4);
+        assertNull(cache.get(changed));
+
+        assertEquals("chest", cache.get(question + "呢"));
+    }
+
+    @Test
+    void exactFeaturesKeepOrderAndUnits() {
+        assertEquals("#30岁#200mg", AiAnswerCache.exactFeatures("３０岁，每次２００ＭＧ"));
+        assertEquals("#三十岁!不能", AiAnswerCache.exactFeatures("三十岁不能吃"));
+        assertEquals("", AiAnswerCache.exactFeatures("头痛怎么办"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.service;
+
+import com.example.entity.MedicalLiterature;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Aho–Corasick 分类与改写前逐关键词匹配（contains/indexOf/\b 正则）的分类结果一致性
+ *
+ * 默认各比对 5000 篇随机的中英文混合文献，完整验证时：
+ * mvn test -Dtest=LiteratureClassifierEquivalenceTest -Dclassifier.equivalence.documents=250000
+ */
+class LiteratureClassifierEquivalenceTest {
+
+    private static final int DOCUMENTS = Integer.getInteger("classifier.equivalence.documents", 5000);
+
+    private static final String[] FILLER = {
+        "study", "patients", "results", "method", "clinical", "analysis", "group", "data", "effect",
+        "significant", "observed", "compared", "baseline", "follow-up", "cohort", "outcome", "p<0.05",
+        "2023", "n=128", "interval", "model", "sample", "rate", "increase", "associated", "trial",
+        "detail", "acting", "mail", "html", "_id", "研究", "患者", "结果", "方法", "临床", "分析", "显著", "对照组"
+    };
+
+    private static final String[] SEPARATORS = {" ", " ", " ", " ", ", ", "-", "_", "", "。", "(", ") ", "/"};
+
+    @Test
+    void defaultRulesMatchLegacyClassification() {
+        LiteratureClassifierService classifier = newClassifier();
+        assertEquivalent(classifier, new Random(20240501L));
+    }
+
+    @Test
+    void customRuleMatchesLegacyClassification() {
+        LiteratureClassifierService classifier = newClassifier();
+        // 与已有分类重叠、大小写混合、重复的关键词
+        classifier.addCategoryRule("基因组学",
+            List.of("gene", "Genome", "sequencing", "CRISPR", "基因", "测序", "gene", "ct", "肿瘤"), 9);
+        assertEquivalent(classifier, new Random(20240502L));
+    }
+
+    private static LiteratureClassifierService newClassifier() {
+        LiteratureClassifierService classifier = new LiteratureClassifierService();
+        ReflectionTestUtils.setField(classifier, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        return classifier;
+    }
+
+    private static void assertEquivalent(LiteratureClassifierService classifier, Random random) {
+        Map<String, List<String>> keywords = new HashMap<>();
+        List<String> allKeywords = new ArrayList<>();
+        for (String category : classifier.getSupportedCategories()) {
+            keywords.put(category, classifier.getCategoryKeywords(category));
+            allKeywords.addAll(classifier.getCategoryKeywords(category));
+        }
+        Object rules = ReflectionTestUtils.getField(classifier, "rules");
+        @SuppressWarnings("unchecked")
+        Map<String, Integer> weights = (Map<String, Integer>) ReflectionTestUtils.getField(rules, "weights");
+
+        for (int i = 0; i < DOCUMENTS; i++) {
+            MedicalLiterature literature = document(random, allKeywords);
+            String expected = legacyClassify(literature, keywords, weights);
+            assertEquals(expected, classifier.classifyLiterature(literature), "document " + i + ": " + literature.getTitle());
+        }
+    }
+
+    /**
+     * 改写前 classifyLiterature / calculateCategoryScore 的计算方式
+     */
+    private static String legacyClassify(MedicalLiterature literature, Map<String, List<String>> categoryKeywords,
+                                         Map<String, Integer> weights) {
+        StringBuilder allText = new StringBuilder();
+        for (String field : new String[]{literature.getTitle(), literature.getAbstractContent(),
+                                         literature.getKeywords(), literature.getJournal()}) {
+            if (field != null) {
+                allText.append(field).append(" ");
+            }
+        }
+        String content = allText.toString().toLowerCase();
+
+        Map<String, Double> categoryScores = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : categoryKeywords.entrySet()) {
+            double score = 0.0;
+            int matchedKeywords = 0;
+            for (String keyword : entry.getValue()) {
+                if (content.contains(keyword.toLowerCase())) {
+                    matchedKeywords++;
+                    score += content.indexOf(keyword.toLowerCase()) < 200 ? 2.0 : 1.0;
+                    if (Pattern.compile("\\b" + Pattern.quote(keyword.toLowerCase()) + "\\b").matcher(content).find()) {
+                        score += 0.5;
+                    }
+                }
+            }
+            score *= 1 + (double) matchedKeywords / entry.getValue().size();
+            if (score > 0) {
+                categoryScores.put(entry.getKey(), score * weights.getOrDefault(entry.getKey(), 1));
+            }
+        }
+        return categoryScores.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .orElse("其他");
+    }
+
+    private static MedicalLiterature document(Random random, List<String> keywords) {
+        MedicalLiterature literature = new MedicalLiterature();
+        literature.setTitle(text(random, keywords, 1 + random.nextInt(20)));
+        // 少量文献缺摘要，关键词首次出现位置跨过标题范围的情况也要覆盖
+        if (random.nextInt(10) > 0) {
+            literature.setAbstractContent(text(random, keywords, random.nextInt(250)));
+        }
+        if (random.nextBoolean()) {
+            List<String> terms = new ArrayList<>();
+            for (int i = 0, n = 1 + random.nextInt(5); i < n; i++) {
+                terms.add(keywords.get(random.nextInt(keywords.size())));
+            }
+            literature.setKeywords(String.join(random.nextBoolean() ? ", " : "；", terms));
+        }
+        if (random.nextBoolean()) {
+            literature.setJournal(text(random, keywords, 1 + random.nextInt(4)));
+        }
+        return literature;
+    }
+
+    /**
+     * 随机拼接的文本：关键词比例随机，夹杂大小写变化、无分隔拼接和各种标点
+     */
+    private static String text(Random random, List<String> keywords, int words) {
+        int keywordPercent = random.nextInt(40);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = random.nextInt(100) < keywordPercent
+                ? keywords.get(random.nextInt(keywords.size()))
+                : FILLER[random.nextInt(FILLER.length)];
+            switch (random.nextInt(10)) {
+                case 0 -> word = word.toUpperCase();
+                case 1 -> word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                default -> { }
+            }
+            if (sb.length() > 0) {
+                sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]);
+            }
+            sb.append(word);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 流式响应按任意字节边界切块（包括切在多字节UTF-8字符、data: 前缀和JSON转义中间）时解析结果不变
+ */
+class ZhipuStreamDecoderTest {
+
+    private static final String STREAM =
+        ": keep-alive\n"
+        + "event: message\n"
+        + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"role\":\"assistant\",\"content\":\"您好，\"}}]}\n"
+        + "\n"
+        + "data:{\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"头痛可能与\\\"睡眠\\\"有关\\n\"}}]}\n"
+        + "\n"
+        + "id: 3\n"
+        + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"\"}}],\"content\":\"ignored\"}\n"
+        + "\n"
+        + "data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"建议就医\\u3002 😀\"}}],"
+        + "\"usage\":{\"prompt_tokens\":21,\"completion_tokens\":9,\"total_tokens\":30}}\n"
+        + "\n"
+        + "data: [DONE]\n"
+        + "\n"
+        + "data: {\"choices\":[{\"index\":0,\"delta\":{\"content\":\"after done\"}}]}\n";
+
+    private static final String CONTENT = "您好，头痛可能与\"睡眠\"有关\n建议就医。 😀";
+
+    @Test
+    void wholeStreamInOneChunk() throws IOException {
+        byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+        StringBuilder content = new StringBuilder();
+        try (ZhipuStreamDecoder decoder = new ZhipuStreamDecoder(new JsonFactory(), content::append)) {
+            assertTrue(decoder.feed(bytes, 0, bytes.length));
+            assertEquals(CONTENT, content.toString());
+            assertEquals(21, decoder.getPromptTokens());
+            assertEquals(9, decoder.getCompletionTokens());
+        }
+    }
+
+    @Test
+    void everySplitPointGivesSameResult() throws IOException {
+        byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+        for (int split = 1; split < bytes.length; split++) {
+            StringBuilder content = new StringBuilder();
+            try (ZhipuStreamDecoder decoder = new ZhipuStreamDecoder(new JsonFactory(), content::append)) {
+                boolean done = decoder.feed(bytes, 0, split);
+                if (!done) {
+                    done = decoder.feed(bytes, split, bytes.length - split);
+                }
+                assertTrue(done, "split at " + split);
+                assertEquals(CONTENT, content.toString(), "split at " + split);
+                assertEquals(21, decoder.getPromptTokens(), "split at " + split);
+                assertEquals(9, decoder.getCompletionTokens(), "split at " + split);
+            }
+        }
+    }
+
+    @Test
+    void randomSmallChunks() throws IOException {
+        byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+        Random random = new Random(20240601L);
+        for (int round = 0; round < 200; round++) {
+            StringBuilder content = new StringBuilder();
+            try (ZhipuStreamDecoder decoder = new ZhipuStreamDecoder(new JsonFactory(), content::append)) {
+                int off = 0;
+                while (off < bytes.length && !decoder.isDone()) {
+                    // 复制到独立数组，确认解析器不依赖上一块的缓冲区
+                    int len = Math.min(bytes.length - off, 1 + random.nextInt(7));
+                    byte[] chunk = new byte[len];
+                    System.arraycopy(bytes, off, chunk, 0, len);
+                    decoder.feed(chunk, 0, len);
+                    off += len;
+                }
+                assertTrue(decoder.isDone(), "round " + round);
+                assertEquals(CONTENT, content.toString(), "round " + round);
+                assertEquals(9, decoder.getCompletionTokens(), "round " + round);
+            }
+        }
+    }
+
+    @Test
+    void streamWithoutUsageOrDone() throws IOException {
+        // 只取第一个choice
+        byte[] bytes = ("data: {\"choices\":[{\"delta\":{\"content\":\"first\"}},{\"delta\":{\"content\":\"second\"}}]}\n\n"
+            + "data: {\"choices\":[{\"delta\":{\"content\":\" line\"}}]}\n\n")
+            .getBytes(StandardCharsets.UTF_8);
+        StringBuilder content = new StringBuilder();
+        try (ZhipuStreamDecoder decoder = new ZhipuStreamDecoder(new JsonFactory(), content::append)) {
+            assertFalse(decoder.feed(bytes, 0, bytes.length));
+            assertEquals("first line", content.toString());
+            assertEquals(-1, decoder.getPromptTokens());
+            assertEquals(-1, decoder.getCompletionTokens());
+        }
+    }
+}
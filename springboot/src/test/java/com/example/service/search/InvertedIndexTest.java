@@ -0,0 +1,205 @@
+package com.example.service.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 段文件写出/映射读取、跨段删除再新增、合并和异常退出后重新打开
+ */
+class InvertedIndexTest {
+
+    private static final double[] BOOSTS = {3.0, 2.0, 1.0, 0.5};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void segmentWrittenThenReadThroughMapping() throws IOException {
+        IndexSegment.Writer writer = new IndexSegment.Writer(dir, 1, new int[]{3, 7, 9});
+        writer.startTerm("alpha");
+        writer.addPosting(3, new byte[]{1, 0, 0, 0});
+        writer.addPosting(9, new byte[]{0, 2, 0, (byte) 255});
+        // 没有倒排的词不进词典
+        writer.startTerm("empty");
+        writer.startTerm("肺癌");
+        writer.addPosting(7, new byte[]{0, 0, 5, 0});
+        writer.finish();
+
+        IndexSegment segment = IndexSegment.open(dir, 1);
+        assertArrayEquals(new int[]{3, 7, 9}, segment.docIds());
+        assertEquals(List.of("alpha", "肺癌"), List.of(segment.terms()));
+        assertTrue(segment.termIndex("empty") < 0);
+
+        int alpha = segment.termIndex("alpha");
+        assertEquals(2, segment.df(alpha));
+        int position = segment.postingsStart(alpha);
+        assertEquals(3, segment.postingDoc(position));
+        assertEquals(1, segment.postingTf(position, InvertedIndex.TITLE));
+        position += IndexSegment.POSTING_BYTES;
+        assertEquals(9, segment.postingDoc(position));
+        assertEquals(2, segment.postingTf(position, InvertedIndex.KEYWORDS));
+        assertEquals(255, segment.postingTf(position, InvertedIndex.AUTHORS));
+
+        int cjk = segment.termIndex("肺癌");
+        assertEquals(1, segment.df(cjk));
+        assertEquals(7, segment.postingDoc(segment.postingsStart(cjk)));
+        assertEquals(5, segment.postingTf(segment.postingsStart(cjk), InvertedIndex.ABSTRACT));
+        assertFalse(Files.exists(dir.resolve(IndexSegment.fileName(1) + ".tmp")));
+    }
+
+    @Test
+    void flushedIndexSearchesTheSameAfterReopen() throws IOException {
+        InvertedIndex index = InvertedIndex.open(dir, BOOSTS);
+        index.update(1, doc("lung cancer screening", "肺癌筛查"));
+        index.update(2, doc("cancer immunotherapy", "免疫治疗"));
+        index.update(3, doc("heart failure", "心力衰竭"));
+        List<Integer> buffered = search(index, "cancer");
+        index.flush();
+        assertEquals(buffered, search(index, "cancer"));
+        index.close();
+
+        InvertedIndex reopened = InvertedIndex.open(dir, BOOSTS);
+        assertEquals(3, reopened.docCount());
+        assertEquals(1, reopened.segmentCount());
+        assertEquals(buffered, search(reopened, "cancer"));
+        assertEquals(List.of(1), search(reopened, "肺癌"));
+        assertEquals(List.of(1), search(reopened, "癌"));
+    }
+
+    @Test
+    void deleteAndReaddSameIdAcrossSegments() throws IOException {
+        InvertedIndex index = InvertedIndex.open(dir, BOOSTS);
+        index.update(1, doc("aspirin dosage", ""));
+        index.update(2, doc("aspirin allergy", ""));
+        index.flush();
+
+        // 第二个段中的新版本取代第一个段中的旧版本
+        index.update(1, doc("ibuprofen dosage", ""));
+        index.flush();
+        assertEquals(List.of(2), search(index, "aspirin"));
+        assertEquals(List.of(1), search(index, "ibuprofen"));
+
+        index.delete(1);
+        index.flush();
+        assertEquals(List.of(), search(index, "ibuprofen"));
+        assertEquals(List.of(), search(index, "dosage"));
+
+        // 只有删除的flush不写新段，删除后在第三个段中重新加入
+        index.update(1, doc("aspirin dosage", ""));
+        index.flush();
+        assertEquals(3, index.segmentCount());
+        assertEquals(2, index.docCount());
+        assertEquals(List.of(1), search(index, "dosage"));
+        index.close();
+
+        InvertedIndex reopened = InvertedIndex.open(dir, BOOSTS);
+        assertEquals(2, reopened.docCount());
+        assertEquals(List.of(1), search(reopened, "dosage"));
+        assertEquals(List.of(), search(reopened, "ibuprofen"));
+        assertEquals(2, reopened.search(List.of("aspirin"), 10).getTotalHits());
+    }
+
+    @Test
+    void mergeKeepsOrderingAndDeletions() throws IOException {
+        InvertedIndex index = InvertedIndex.open(dir, BOOSTS);
+        for (int segment = 0; segment < 4; segment++) {
+            for (int i = 0; i < 5; i++) {
+                int id = segment * 5 + i + 1;
+                // 词频和所在字段各不相同，得分有高有低也有并列
+                String title = "diabetes " + "insulin ".repeat(i + 1);
+                index.update(id, doc(id % 2 == 0 ? title : "therapy", id % 3 == 0 ? "diabetes insulin" : title));
+            }
+            index.flush();
+        }
+        index.delete(4);
+        index.delete(11);
+        index.update(7, doc("glucose monitoring", ""));
+        index.flush();
+
+        // 单词查询的idf对所有文档相同，合并去掉已删除文档后顺序不变；多词查询只比较命中集合
+        List<Integer> insulin = search(index, "insulin");
+        List<Integer> diabetes = search(index, "diabetes");
+        Set<Integer> both = new TreeSet<>(search(index, "diabetes insulin"));
+        assertFalse(both.contains(4));
+        assertFalse(both.contains(11));
+        assertFalse(both.contains(7));
+        int docs = index.docCount();
+
+        assertTrue(index.maybeMerge(1));
+        assertEquals(1, index.segmentCount());
+        assertEquals(docs, index.docCount());
+        assertEquals(insulin, search(index, "insulin"));
+        assertEquals(diabetes, search(index, "diabetes"));
+        assertEquals(both, new TreeSet<>(search(index, "diabetes insulin")));
+        assertEquals(List.of(7), search(index, "glucose"));
+
+        // 合并后的删除同样持久化
+        index.delete(1);
+        index.flush();
+        List<Integer> afterDelete = search(index, "insulin");
+        assertFalse(afterDelete.contains(1));
+        index.close();
+
+        InvertedIndex reopened = InvertedIndex.open(dir, BOOSTS);
+        assertEquals(1, reopened.segmentCount());
+        assertEquals(docs - 1, reopened.docCount());
+        assertEquals(afterDelete, search(reopened, "insulin"));
+    }
+
+    @Test
+    void reopenAfterCrashBetweenDeletesAndManifest() throws IOException {
+        InvertedIndex index = InvertedIndex.open(dir, BOOSTS);
+        index.update(1, doc("hypertension guideline", ""));
+        index.update(2, doc("hypertension diet", ""));
+        index.flush();
+        Path manifest = dir.resolve("segments");
+        Path committed = dir.resolveSibling(dir.getFileName() + "-segments.bak");
+        Files.copy(manifest, committed);
+
+        // 更新写出新段和旧段的新一代删除标记，随后恢复旧manifest模拟替换manifest前异常退出
+        index.update(1, doc("stroke prevention", ""));
+        index.flush();
+        assertTrue(Files.exists(dir.resolve(IndexSegment.deletesFileName(1, 1))));
+        Files.copy(committed, manifest, StandardCopyOption.REPLACE_EXISTING);
+
+        InvertedIndex reopened = InvertedIndex.open(dir, BOOSTS);
+        // 与旧manifest一致：文献1仍是旧版本，没有因为新的删除标记丢失
+        assertEquals(2, reopened.docCount());
+        assertEquals(1, reopened.segmentCount());
+        assertEquals(List.of(1), search(reopened, "guideline"));
+        assertEquals(List.of(), search(reopened, "stroke"));
+        assertFalse(Files.exists(dir.resolve(IndexSegment.fileName(2))));
+        assertFalse(Files.exists(dir.resolve(IndexSegment.deletesFileName(1, 1))));
+
+        // 重新打开后可以继续正常更新
+        reopened.update(1, doc("stroke prevention", ""));
+        reopened.flush();
+        reopened.close();
+        InvertedIndex again = InvertedIndex.open(dir, BOOSTS);
+        assertEquals(List.of(1), search(again, "stroke"));
+        assertEquals(List.of(2), search(again, "hypertension"));
+        Files.delete(committed);
+    }
+
+    private static Map<String, byte[]> doc(String title, String abstractContent) {
+        return InvertedIndex.termFrequencies(title, "", abstractContent, "");
+    }
+
+    private static List<Integer> search(InvertedIndex index, String query) {
+        return index.search(LiteratureTokenizer.tokenize(query), 100).getIds();
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Range / If-Range 解析和对应的响应状态、Content-Range 与输出内容
+ */
+class FileDownloadUtilTest {
+
+    private static final String CONTENT_TYPE = "application/pdf";
+
+    @TempDir
+    Path dir;
+
+    private File file;
+    private byte[] content;
+    private String etag;
+    private String lastModified;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = new byte[1000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        file = Files.write(dir.resolve("paper.pdf"), content).toFile();
+        // 秒级时间，与 Last-Modified 头的精度一致
+        file.setLastModified(1_700_000_000_000L);
+
+        MockHttpServletResponse response = send(request());
+        etag = response.getHeader(HttpHeaders.ETAG);
+        lastModified = response.getHeader(HttpHeaders.LAST_MODIFIED);
+    }
+
+    @Test
+    void noRangeSendsWholeFile() throws IOException {
+        MockHttpServletResponse response = send(request());
+        assertEquals(200, response.getStatus());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(1000, response.getContentLengthLong());
+        assertArrayEquals(content, response.getContentAsByteArray());
+    }
+
+    @Test
+    void singleRanges() throws IOException {
+        assertPartial(range("bytes=0-99"), 0, 99);
+        assertPartial(range("bytes=900-"), 900, 999);
+        // 结束位置超出文件长度时截断
+        assertPartial(range("bytes=990-2000"), 990, 999);
+        // 后缀范围：最后100字节
+        assertPartial(range("bytes=-100"), 900, 999);
+        assertPartial(range("bytes=500-500"), 500, 500);
+    }
+
+    @Test
+    void unsatisfiableRange() throws IOException {
+        MockHttpServletResponse response = send(range("bytes=1000-"));
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */1000", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void multipleOrMalformedRangesSendWholeFile() throws IOException {
+        for (String header : new String[]{"bytes=0-9,20-29", "bytes=abc", "items=0-9", "bytes=9-0"}) {
+            MockHttpServletResponse response = send(range(header));
+            assertEquals(200, response.getStatus(), header);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), header);
+            assertArrayEquals(content, response.getContentAsByteArray(), header);
+        }
+    }
+
+    @Test
+    void ifRangeWithCurrentValidator() throws IOException {
+        MockHttpServletRequest byEtag = range("bytes=100-199");
+        byEtag.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertPartial(byEtag, 100, 199);
+
+        MockHttpServletRequest byDate = range("bytes=100-199");
+        byDate.addHeader(HttpHeaders.IF_RANGE, lastModified);
+        assertPartial(byDate, 100, 199);
+    }
+
+    @Test
+    void ifRangeWithStaleValidatorSendsWholeFile() throws IOException {
+        String staleDate = "Mon, 01 Jan 2024 00:00:00 GMT";
+        for (String ifRange : new String[]{"\"3e8-0\"", "W/" + etag, staleDate, "not a validator"}) {
+            MockHttpServletRequest request = range("bytes=100-199");
+            request.addHeader(HttpHeaders.IF_RANGE, ifRange);
+            MockHttpServletResponse response = send(request);
+            assertEquals(200, response.getStatus(), ifRange);
+            assertNull(response.getHeader(HttpHeaders.CONTENT_RANGE), ifRange);
+            assertEquals(1000, response.getContentLengthLong(), ifRange);
+        }
+    }
+
+    @Test
+    void headSendsHeadersOnly() throws IOException {
+        MockHttpServletRequest request = range("bytes=0-9");
+        request.setMethod("HEAD");
+        MockHttpServletResponse response = send(request);
+        assertEquals(206, response.getStatus());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void sendfileLeavesRangeToContainer() throws IOException {
+        MockHttpServletRequest request = range("bytes=100-199");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = send(request);
+        assertEquals(206, response.getStatus());
+        assertEquals(100L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        // sendfile的结束位置不包含在内
+        assertEquals(200L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private void assertPartial(MockHttpServletRequest request, int start, int end) throws IOException {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        MockHttpServletResponse response = send(request);
+        assertEquals(206, response.getStatus(), header);
+        assertEquals("bytes " + start + "-" + end + "/1000", response.getHeader(HttpHeaders.CONTENT_RANGE), header);
+        assertEquals(end - start + 1, response.getContentLengthLong(), header);
+        assertArrayEquals(Arrays.copyOfRange(content, start, end + 1), response.getContentAsByteArray(), header);
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/files/paper.pdf");
+    }
+
+    private static MockHttpServletRequest range(String header) {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, header);
+        return request;
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        FileDownloadUtil.send(file, CONTENT_TYPE, null, request, response);
+        return response;
+    }
+}
@@ -0,0 +1,15 @@
+-- 爬虫批量回填断点表
+-- 请在 MySQL 数据库 fengbinbin 中执行此脚本
+
+CREATE TABLE IF NOT EXISTS `crawl_checkpoint` (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `source` varchar(50) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '数据源名称',
+  `keyword` varchar(200) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '关键词',
+  `page_cursor` varchar(500) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '下一页游标',
+  `harvested` int DEFAULT '0' COMMENT '已拉取条数',
+  `saved` int DEFAULT '0' COMMENT '已入库条数',
+  `status` varchar(20) COLLATE utf8mb4_unicode_ci DEFAULT 'running' COMMENT '状态：running, paused, done, failed',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_source_keyword` (`source`,`keyword`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='爬虫批量回填断点表';
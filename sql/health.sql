@@ -94,6 +94,27 @@ INSERT INTO `admin` VALUES (1,'bin','123','bin','http://localhost:9090/files/dow
 /*!40000 ALTER TABLE `admin` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `crawl_checkpoint`
+--
+
+DROP TABLE IF EXISTS `crawl_checkpoint`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `crawl_checkpoint` (
+  `id` int NOT NULL AUTO_INCREMENT COMMENT '主键ID',
+  `source` varchar(50) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '数据源名称',
+  `keyword` varchar(200) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '关键词',
+  `page_cursor` varchar(500) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '下一页游标',
+  `harvested` int DEFAULT '0' COMMENT '已拉取条数',
+  `saved` int DEFAULT '0' COMMENT '已入库条数',
+  `status` varchar(20) COLLATE utf8mb4_unicode_ci DEFAULT 'running' COMMENT '状态：running, paused, done, failed',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `uk_source_keyword` (`source`,`keyword`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='爬虫批量回填断点表';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `doctor`
 --
@@ -278,6 +299,22 @@ INSERT INTO `information` VALUES (9,'关爱健康，从预防做起','<p style=\
 /*!40000 ALTER TABLE `information` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `literature_keyword_stat`
+--
+
+DROP TABLE IF EXISTS `literature_keyword_stat`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `literature_keyword_stat` (
+  `keyword` varchar(100) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '关键词',
+  `freq` int NOT NULL DEFAULT '0' COMMENT '出现次数',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`keyword`),
+  KEY `idx_freq` (`freq`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文献关键词频次表';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `medical_literature`
 --
@@ -306,13 +343,19 @@ CREATE TABLE `medical_literature` (
   `language` varchar(20) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '语言',
   `impact` double DEFAULT NULL COMMENT '影响因子',
   `tags` varchar(200) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '标签',
+  `title_hash` char(40) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '标准化标题SHA-1（去重）',
   PRIMARY KEY (`id`),
   UNIQUE KEY `idx_doi` (`doi`),
+  KEY `idx_title_hash` (`title_hash`),
+  KEY `idx_source_url` (`source_url`(191)),
   KEY `idx_category` (`category`),
   KEY `idx_create_time` (`create_time`),
   KEY `idx_view_count` (`view_count`),
   KEY `idx_title` (`title`(191)),
-  FULLTEXT KEY `idx_fulltext` (`title`,`abstract_content`,`keywords`)
+  KEY `idx_source_create_time` (`crawl_source`,`create_time`),
+  FULLTEXT KEY `idx_fulltext` (`title`,`abstract_content`,`keywords`),
+  FULLTEXT KEY `idx_ft_title` (`title`),
+  FULLTEXT KEY `idx_ft_keywords` (`keywords`)
 ) ENGINE=InnoDB AUTO_INCREMENT=110 DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='医疗文献表';
 /*!40101 SET character_set_client = @saved_cs_client */;
 
@@ -410,6 +453,22 @@ INSERT INTO `physical_examination` VALUES (1,'眼科检查','Ophthalmologic exam
 /*!40000 ALTER TABLE `physical_examination` ENABLE KEYS */;
 UNLOCK TABLES;
 
+--
+-- Table structure for table `stats_snapshot`
+--
+
+DROP TABLE IF EXISTS `stats_snapshot`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!50503 SET character_set_client = utf8mb4 */;
+CREATE TABLE `stats_snapshot` (
+  `bucket` varchar(10) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '统计桶：total 或日期 yyyy-MM-dd',
+  `metric` varchar(100) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '指标名',
+  `stat_value` bigint NOT NULL DEFAULT '0' COMMENT '计数值',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`bucket`,`metric`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='统计计数快照表';
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `title`
 --
@@ -0,0 +1,11 @@
+-- 文献关键词频次表（热门关键词统计），文献入库时同一事务内累加
+-- 请在 MySQL 数据库 fengbinbin 中执行此脚本，执行后调用 POST /api/maintenance/rebuild-keyword-stats 统计历史数据
+-- 同时把"今日文献数"等统计改为 create_time 范围查询，需要 idx_create_time 索引（health.sql 中已存在）
+
+CREATE TABLE IF NOT EXISTS `literature_keyword_stat` (
+  `keyword` varchar(100) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '关键词',
+  `freq` int NOT NULL DEFAULT '0' COMMENT '出现次数',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`keyword`),
+  KEY `idx_freq` (`freq`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='文献关键词频次表';
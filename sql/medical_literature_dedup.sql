@@ -0,0 +1,7 @@
+-- 文献批量查重所需的列和索引
+-- 请在 MySQL 数据库 fengbinbin 中执行此脚本，执行后调用 POST /api/maintenance/backfill-title-hash 回填历史数据
+
+ALTER TABLE `medical_literature`
+  ADD COLUMN `title_hash` char(40) COLLATE utf8mb4_unicode_ci DEFAULT NULL COMMENT '标准化标题SHA-1（去重）',
+  ADD KEY `idx_title_hash` (`title_hash`),
+  ADD KEY `idx_source_url` (`source_url`(191));
@@ -0,0 +1,6 @@
+-- 文献全文检索加权所需的单列全文索引（组合索引 idx_fulltext 已存在）
+-- 请在 MySQL 数据库 fengbinbin 中执行此脚本；未执行时 literature.search.engine 请配置为 like
+
+ALTER TABLE `medical_literature`
+  ADD FULLTEXT KEY `idx_ft_title` (`title`),
+  ADD FULLTEXT KEY `idx_ft_keywords` (`keywords`);
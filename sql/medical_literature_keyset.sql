@@ -0,0 +1,5 @@
+-- 文献游标分页所需索引：按来源筛选时也能沿 create_time 顺序定位（无筛选时使用已有的 idx_create_time）
+-- 请在 MySQL 数据库 fengbinbin 中执行此脚本
+
+ALTER TABLE `medical_literature`
+  ADD KEY `idx_source_create_time` (`crawl_source`, `create_time`);
@@ -0,0 +1,10 @@
+-- 统计计数快照表：内存计数器定期把增量累加到这里，重启后从这里恢复
+-- 请在 MySQL 数据库 fengbinbin 中执行此脚本；表为空时首次启动会按业务表初始化
+
+CREATE TABLE IF NOT EXISTS `stats_snapshot` (
+  `bucket` varchar(10) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '统计桶：total 或日期 yyyy-MM-dd',
+  `metric` varchar(100) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT '指标名',
+  `stat_value` bigint NOT NULL DEFAULT '0' COMMENT '计数值',
+  `update_time` datetime DEFAULT CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`bucket`,`metric`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='统计计数快照表';